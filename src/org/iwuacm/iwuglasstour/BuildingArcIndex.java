@@ -0,0 +1,183 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.Arrays;
+
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+/**
+ * The arcs of the compass that the buildings cover from one location, sorted so that the
+ * buildings near a heading can be found with binary searches instead of by checking every
+ * building. An arc runs clockwise from its start bearing to its end bearing, which are the
+ * bearings of the outermost corners of the building.
+ *
+ * <p>Arcs wider than {@link #MAX_NARROW_WIDTH} (buildings right next to the user, or arcs that
+ * could not be worked out) are "wide" and are kept in a separate list that callers check one by
+ * one. Every other arc starts at most {@link #MAX_NARROW_WIDTH} before any bearing it covers.
+ */
+class BuildingArcIndex {
+
+	/**
+	 * The widest arc in degrees that is kept in the sorted arrays.
+	 */
+	static final float MAX_NARROW_WIDTH = 45.0f;
+
+	private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+	private final boolean[] wide;
+	private final int[] wideBuildings;
+
+	/**
+	 * The start and end bearings of the arcs, each packed with the building index (see {@link
+	 * #pack}) and sorted by bearing.
+	 */
+	private final long[] byStart;
+	private final long[] byEnd;
+
+	private int wideCount;
+
+	BuildingArcIndex(int buildingCount) {
+		this.wide = new boolean[buildingCount];
+		this.wideBuildings = new int[buildingCount];
+		this.byStart = new long[buildingCount];
+		this.byEnd = new long[buildingCount];
+		this.wideCount = 0;
+	}
+
+	/**
+	 * Rebuilds the arcs from the corner bearings of each building, laid out like {@link
+	 * RectangularLocation#computeCornerBearings}.
+	 */
+	void update(float[] cornerBearings) {
+		wideCount = 0;
+
+		for (int i = 0; i < byStart.length; i++) {
+			int offset = i * RectangularLocation.CORNER_COUNT;
+
+			// All of the corners are within half a circle of any one of them unless the user is on
+			// the edge of the building, so measure the other corners from the first.
+			float firstBearing = cornerBearings[offset];
+			float start = firstBearing;
+			float end = firstBearing;
+			float minDifference = 0.0f;
+			float maxDifference = 0.0f;
+
+			for (int j = 1; j < RectangularLocation.CORNER_COUNT; j++) {
+				float bearing = cornerBearings[offset + j];
+				float difference = MathUtils.mod(bearing - firstBearing + 180.0f, 360.0f) - 180.0f;
+
+				if (difference < minDifference) {
+					minDifference = difference;
+					start = bearing;
+				}
+				if (difference > maxDifference) {
+					maxDifference = difference;
+					end = bearing;
+				}
+			}
+
+			// Also catches NaN bearings.
+			wide[i] = !(maxDifference - minDifference <= MAX_NARROW_WIDTH);
+			if (wide[i]) {
+				wideBuildings[wideCount++] = i;
+			}
+
+			byStart[i] = pack(start, i);
+			byEnd[i] = pack(end, i);
+		}
+
+		Arrays.sort(byStart);
+		Arrays.sort(byEnd);
+	}
+
+	int getBuildingCount() {
+		return byStart.length;
+	}
+
+	/**
+	 * Returns whether the arc of the building at {@code index} is wide, in which case it is only
+	 * reliably found through {@link #getWideBuilding}.
+	 */
+	boolean isWide(int index) {
+		return wide[index];
+	}
+
+	int getWideCount() {
+		return wideCount;
+	}
+
+	/**
+	 * Returns the index of the {@code i}th building with a wide arc.
+	 */
+	int getWideBuilding(int i) {
+		return wideBuildings[i];
+	}
+
+	/**
+	 * Returns the position in start order of the first arc that starts at or after {@code bearing}
+	 * (0-360), wrapping around to the first position after 360.
+	 */
+	int findFirstStartFrom(float bearing) {
+		int position = findInsertionPoint(byStart, pack(bearing, 0));
+		return (position == byStart.length) ? 0 : position;
+	}
+
+	/**
+	 * Returns the position in end order of the last arc that ends at or before {@code bearing}
+	 * (0-360), wrapping around to the last position before 0.
+	 */
+	int findLastEndUpTo(float bearing) {
+		int position = findInsertionPoint(byEnd, pack(bearing, 0) | INDEX_MASK) - 1;
+		return (position < 0) ? byEnd.length - 1 : position;
+	}
+
+	/**
+	 * Returns the start bearing of the arc at {@code position} in start order.
+	 */
+	float getStart(int position) {
+		return unpackBearing(byStart[position]);
+	}
+
+	/**
+	 * Returns the building index of the arc at {@code position} in start order.
+	 */
+	int getBuildingByStart(int position) {
+		return unpackIndex(byStart[position]);
+	}
+
+	/**
+	 * Returns the end bearing of the arc at {@code position} in end order.
+	 */
+	float getEnd(int position) {
+		return unpackBearing(byEnd[position]);
+	}
+
+	/**
+	 * Returns the building index of the arc at {@code position} in end order.
+	 */
+	int getBuildingByEnd(int position) {
+		return unpackIndex(byEnd[position]);
+	}
+
+	/**
+	 * Packs a bearing and a building index into a long that sorts by bearing, then index. The
+	 * bits of a non-negative float sort the same way as its value.
+	 */
+	private static long pack(float bearing, int index) {
+		// Adding 0 turns -0 into 0, which has a non-negative sign bit.
+		return ((long) Float.floatToIntBits(bearing + 0.0f) << 32) | index;
+	}
+
+	private static float unpackBearing(long packed) {
+		return Float.intBitsToFloat((int) (packed >>> 32));
+	}
+
+	private static int unpackIndex(long packed) {
+		return (int) (packed & INDEX_MASK);
+	}
+
+	private static int findInsertionPoint(long[] sorted, long key) {
+		int position = Arrays.binarySearch(sorted, key);
+		return (position >= 0) ? position : -(position + 1);
+	}
+}
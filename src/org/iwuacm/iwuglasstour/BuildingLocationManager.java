@@ -1,71 +1,83 @@
 package org.iwuacm.iwuglasstour;
 
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingIndex;
 import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
 import org.iwuacm.iwuglasstour.model.Buildings;
 import org.iwuacm.iwuglasstour.model.Location;
-import org.iwuacm.iwuglasstour.model.RectangularLocation;
 import org.iwuacm.iwuglasstour.util.MathUtils;
+import org.iwuacm.iwuglasstour.view.BuildingLocationView;
+
+import android.os.SystemClock;
+import android.util.Log;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Objects;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Ordering;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
 
 /**
- * Keeps track of the user's location and provides access to nearby buildings.
+ * Keeps track of the user's location and provides access to nearby buildings. The state is
+ * published as immutable {@link LocationState} snapshots, so it can be read from any thread
+ * without locking while it is updated on the update thread.
  */
 public class BuildingLocationManager {
 
+	/**
+	 * Receives changes to the location state. The state callbacks are passed the snapshot that
+	 * the change made, which should be used instead of {@link
+	 * BuildingLocationManager#getLocationState} since that may already be newer.
+	 */
 	public interface Listener {
 		/**
 		 * Called when the building in front or to the sides have changed.
 		 */
-		void onNearbyBuildingsChange(
-				BuildingWithLocation left,
-				BuildingWithLocation front,
-				BuildingWithLocation right);
+		void onNearbyBuildingsChange(LocationState state);
 		
 		/**
 		 * Called when the user enters a building.
 		 */
-		void onEnterBuilding(Building building);
+		void onEnterBuilding(LocationState state);
 		
 		/**
 		 * Called when the user leaves a building.
 		 */
-		void onExitBuilding();
+		void onExitBuilding(LocationState state);
 		
 		/**
-		 * Called when Glass detects interference interference has changed.
-		 * 
-		 * @param hasInterference indicates whether there is interference now
+		 * Called when Glass detects interference interference has changed (see {@link
+		 * LocationState#hasCompassInterference}).
 		 */
-		void onCompassInterference(boolean hasInterference);
+		void onCompassInterference(LocationState state);
 		
 		/**
-		 * Called when the state of having the user's location has changed.
-		 * 
-		 * @param hasLocation indicates whether the location is present
+		 * Called when the state of having the user's location has changed (see {@link
+		 * LocationState#hasLocation}).
+		 */
+		void onHasLocationChange(LocationState state);
+
+		/**
+		 * Called when the buildings that are likely to be displayed next have changed. They are
+		 * ordered from most to least likely, and none of them is displayed now.
+		 */
+		void onLikelyBuildingsChange(List<Building> buildings);
+
+		/**
+		 * Called when the user is predicted to walk into a building within {@link
+		 * EntryPredictor#HORIZON_SECONDS}. Called once each time a different building is
+		 * predicted, while the user is outside.
 		 */
-		void onHasLocationChange(boolean hasLocation);
+		void onApproachBuilding(Building building);
 	}
 	
-	/**
-	 * Number of times to update per second. The user's location changes all the time, so throttle
-	 * how often we're making computations.
-	 */
-	private static final int UPDATES_PER_SECOND = 24;
-	
+	private static final String TAG = BuildingLocationManager.class.getSimpleName();
+
 	/**
 	 * This is approximately the field of view of the human eye (in degrees), not including
 	 * peripheral vision, so it's the amount of stuff that we can focus on at a time.
@@ -73,11 +85,70 @@ public class BuildingLocationManager {
 	@VisibleForTesting
 	static final float CONE_OF_VISUAL_ATTENTION = 55.0f;
 
+	/**
+	 * The most buildings that are reported as likely to be displayed next.
+	 */
+	@VisibleForTesting
+	static final int MAX_LIKELY_BUILDINGS = 6;
+
+	/**
+	 * Reads {@link SystemClock#elapsedRealtimeNanos}, which keeps running while the user stands
+	 * still and the location fix does not change.
+	 */
+	private static final Ticker ELAPSED_REALTIME = new Ticker() {
+		@Override
+		public long read() {
+			return SystemClock.elapsedRealtimeNanos();
+		}
+	};
+
 	private final boolean updateImmediately;
+	private final Ticker ticker;
 	private final OrientationManager orientationManager;
-	private final ScheduledExecutorService scheduledExecutorService;
+	private final UpdateScheduler updateScheduler;
 	private final Set<Listener> listeners;
-	private final FluentIterable<Building> buildingsFluentIterable;
+	private final LocationFix locationFix;
+	private final NearbyBuildingSelector selector;
+	private final Optional<VisibilityTable> visibilityTable;
+	private final MotionPredictor motionPredictor;
+	private final EntryPredictor entryPredictor;
+	private final InsideHysteresis insideHysteresis;
+
+	/**
+	 * The fix for where the user is predicted to walk to, and the selector for the predicted poses.
+	 */
+	private final LocationFix predictedLocationFix;
+	private final NearbyBuildingSelector predictedSelector;
+
+	/**
+	 * The indices of the buildings likely to be displayed next as the listeners were last notified
+	 * of them, and the ones being found by the current update.
+	 */
+	private final int[] likely;
+	private final int[] newLikely;
+	private int likelyCount;
+	private int newLikelyCount;
+
+	/**
+	 * The index of the building that the listeners were last told the user is approaching, or
+	 * {@link EntryPredictor#NONE}.
+	 */
+	private int approaching;
+
+	/**
+	 * The left, front, and right building indices looked up in {@link #visibilityTable}.
+	 */
+	private final int[] nearby;
+
+	/**
+	 * The buildings just outside of the cone of visual attention, and the location and {@link
+	 * #visibilityTable} heading bin they were selected for. While the nearby buildings are looked
+	 * up in the table, {@link #selector} only selects them again once either changes.
+	 */
+	private int outsideLeft;
+	private int outsideRight;
+	private Location outsideLocation;
+	private int outsideHeadingBin;
 	
 	private final OrientationManager.OnChangedListener orientationListener =
 			new OrientationManager.OnChangedListener() {
@@ -93,38 +164,51 @@ public class BuildingLocationManager {
 		
 				@Override
 				public void onAccuracyChanged(OrientationManager orientationManager) {
-					boolean hasInterferenceNow = orientationManager.hasInterference();
-
-					if (hasInterference != hasInterferenceNow) {
-						hasInterference = hasInterferenceNow;
-						notifyHasCompassInterference(hasInterference);
-					}
+					updateHasInterference(orientationManager.hasInterference());
 				}
 			};
 			
 	private final Runnable updateLocationStateRunnable = new Runnable() {
 		@Override
 		public void run() {
-			// Above updateLocationState for thread safety.
-			setTimerQueued(false);
-			
 			updateLocationState();
 		}
 	};
 	
-	private BuildingWithLocation left;
-	private BuildingWithLocation front;
-	private BuildingWithLocation right;
-	private Building inside;
-	private boolean hasInterference;
-	private boolean hasLocation;
-	private boolean isTimerQueued;
+	/**
+	 * The state as the listeners were last notified of it. The nearby buildings lag behind the
+	 * latest update by less than what {@link BuildingLocationView} displays. Only the update
+	 * thread changes the location, but the interference is changed from the sensor thread, so
+	 * changes are made with {@link #publish}.
+	 */
+	private final AtomicReference<LocationState> state;
 	
 	public BuildingLocationManager(
 			Buildings buildings,
 			OrientationManager orientationManager) {
 
-		this(buildings, orientationManager, false /* updateImmediately */);
+		this(
+				buildings,
+				orientationManager,
+				Optional.<VisibilityTable>absent(),
+				false /* updateImmediately */,
+				ELAPSED_REALTIME);
+	}
+
+	/**
+	 * Uses {@code visibilityTable} to locate the buildings where it can.
+	 */
+	BuildingLocationManager(
+			Buildings buildings,
+			OrientationManager orientationManager,
+			Optional<VisibilityTable> visibilityTable) {
+
+		this(
+				buildings,
+				orientationManager,
+				visibilityTable,
+				false /* updateImmediately */,
+				ELAPSED_REALTIME);
 	}
 	
 	/**
@@ -136,11 +220,58 @@ public class BuildingLocationManager {
 			OrientationManager orientationManager,
 			boolean updateImmediately) {
 
+		this(buildings, orientationManager, updateImmediately, ELAPSED_REALTIME);
+	}
+
+	/**
+	 * Also allows the time that the user has been inside or outside of a building for to be
+	 * measured with {@code ticker} when testing.
+	 */
+	@VisibleForTesting
+	BuildingLocationManager(
+			Buildings buildings,
+			OrientationManager orientationManager,
+			boolean updateImmediately,
+			Ticker ticker) {
+
+		this(
+				buildings,
+				orientationManager,
+				Optional.<VisibilityTable>absent(),
+				updateImmediately,
+				ticker);
+	}
+
+	private BuildingLocationManager(
+			Buildings buildings,
+			OrientationManager orientationManager,
+			Optional<VisibilityTable> visibilityTable,
+			boolean updateImmediately,
+			Ticker ticker) {
+
 		this.updateImmediately = updateImmediately;
+		this.ticker = ticker;
 		this.orientationManager = orientationManager;
-		this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+		this.updateScheduler = new UpdateScheduler(
+				Executors.newSingleThreadScheduledExecutor(),
+				updateLocationStateRunnable);
 		this.listeners = new LinkedHashSet<Listener>();
-		this.buildingsFluentIterable = FluentIterable.from(buildings.getAll());
+
+		BuildingIndex buildingIndex = BuildingIndex.create(buildings.getAll());
+		this.locationFix = new LocationFix(buildings.getAll(), buildingIndex);
+		this.selector = new NearbyBuildingSelector(buildings.getAll().size());
+		this.visibilityTable = visibilityTable;
+		this.nearby = new int[3];
+		this.motionPredictor = new MotionPredictor();
+		this.predictedLocationFix = new LocationFix(buildings.getAll(), buildingIndex);
+		this.predictedSelector = new NearbyBuildingSelector(buildings.getAll().size());
+		this.likely = new int[MAX_LIKELY_BUILDINGS];
+		this.newLikely = new int[MAX_LIKELY_BUILDINGS];
+		this.likelyCount = 0;
+		this.entryPredictor = new EntryPredictor(buildingIndex.getGeometry());
+		this.insideHysteresis = new InsideHysteresis(buildingIndex.getGeometry());
+		this.approaching = EntryPredictor.NONE;
+		this.state = new AtomicReference<LocationState>(LocationState.INITIAL);
 	}
 	
 	public void addListener(Listener listener) {
@@ -152,6 +283,7 @@ public class BuildingLocationManager {
 	}
 	
 	public void startTracking() {
+		updateScheduler.startRequestsAfter();
 		orientationManager.addOnChangedListener(orientationListener);
 		orientationManager.start();
 	}
@@ -159,44 +291,22 @@ public class BuildingLocationManager {
 	public void stopTracking() {
 		orientationManager.stop();
 		orientationManager.removeOnChangedListener(orientationListener);
+		updateScheduler.stopRequestsAfter();
+
+		Log.d(TAG, "Updates: " + updateScheduler.getExecutedCount() + " executed, "
+				+ updateScheduler.getCoalescedCount() + " coalesced, "
+				+ updateScheduler.getSkippedCount() + " skipped");
+		Log.d(TAG, "Buildings: " + insideHysteresis.getEnteredCount() + " entered, "
+				+ insideHysteresis.getExitedCount() + " exited, "
+				+ insideHysteresis.getSuppressedCount() + " suppressed");
 	}
 	
-	public boolean isInsideBuilding() {
-		return inside != null;
-	}
-
 	/**
-	 * Returns the building that the user is within.
-	 * 
-	 * @throws IllegalStateException if the user is not within a building (see
-	 * {@link #isInsideBuilding()})
+	 * Returns the latest snapshot of the location state. It does not change, so read everything
+	 * from the same snapshot to get a consistent view.
 	 */
-	public Building getBuildingInside() {
-		if (!isInsideBuilding()) {
-			throw new IllegalStateException();
-		}
-		
-		return inside;
-	}
-	
-	public BuildingWithLocation getLeftBuilding() {
-		return left;
-	}
-	
-	public BuildingWithLocation getFrontBuilding() {
-		return front;
-	}
-	
-	public BuildingWithLocation getRightBuilding() {
-		return right;
-	}
-	
-	public boolean hasCompassInterference() {
-		return hasInterference;
-	}
-	
-	public boolean hasLocation() {
-		return hasLocation;
+	public LocationState getLocationState() {
+		return state.get();
 	}
 	
 	/**
@@ -205,335 +315,480 @@ public class BuildingLocationManager {
 	private void updateLocationState() {
 		// Cannot proceed without location.
 		if (!orientationManager.hasLocation()) {
-			if (hasLocation != false) {
-				hasLocation = false;
-				notifyHasLocation(false);
-			}
+			entryPredictor.reset();
+			approaching = EntryPredictor.NONE;
 
+			updateHasLocation(false);
 			return;
 		}
 		
-		if (hasLocation != true) {
-			hasLocation = true;
-			notifyHasLocation(true);
-		}
+		updateHasLocation(true);
 
-		Location location =
-				MathUtils.androidLocationToModelLocation(orientationManager.getLocation());
+		android.location.Location androidLocation = orientationManager.getLocation();
+		Location location = MathUtils.androidLocationToModelLocation(androidLocation);
+		float heading = orientationManager.getHeading();
+		motionPredictor.update(heading, System.nanoTime());
 
-		// Check if inside building.
-		Optional<Building> insideBuilding =
-				buildingsFluentIterable.firstMatch(makeIsInsidePredicate(location));
-		if (insideBuilding.isPresent()) {
-			if (inside != insideBuilding.get()) {
-				inside = insideBuilding.get();
-				notifyEnterBuilding();
+		// Check if inside building, once the fixes have settled on it. The time is not the fix's,
+		// since the fix does not change while the user stands still.
+		long nanos = ticker.read();
+		int insideIndex = insideHysteresis.update(
+				findInsideIndex(location),
+				location,
+				androidLocation.hasAccuracy() ? androidLocation.getAccuracy() : Float.NaN,
+				nanos);
+		requestDwellUpdate(nanos);
+		LocationState current = state.get();
+		if (insideIndex != InsideHysteresis.NONE) {
+			Building building = locationFix.getBuilding(insideIndex);
+			if (!current.isInsideBuilding() || (current.getBuildingInside() != building)) {
+				notifyEnterBuilding(publishInside(building));
 			}
-			
+
+			entryPredictor.reset();
+			approaching = EntryPredictor.NONE;
+			newLikelyCount = 0;
+			updateLikelyBuildings();
 			return;
 		}
 		
-		if (inside != null) {
-			inside = null;
+		if (current.isInsideBuilding()) {
+			current = publishInside(null);
 			
-			notifyExitBuilding();
+			notifyExitBuilding(current);
 		}
 		
 		// Retrieve nearby buildings.
-		float heading = orientationManager.getHeading();
-		
-		Ordering<Building> ordering = makeOrderingByAbsoluteHeadingOffset(location, heading)
-				.compound(makeOrderingByDistanceTo(location));
-		FluentIterable<Building> sortedBuildings =
-				FluentIterable.from(buildingsFluentIterable.toSortedList(ordering))
-						.filter(makeIsWithinHemispherePredicate(location, heading));
-		
-		Building newLeft = null;
-		Building newFront = null;
-		Building newRight = null;
-
-		Predicate<Building> isWithinConeOfVisualAttentionPredicate =
-				makeIsWithinConeOfVisualAttentionPredicate(location, heading);
-		FluentIterable<Building> buildingsInConeOfVisualAttention = sortedBuildings
-				.filter(isWithinConeOfVisualAttentionPredicate);
+		BuildingWithLocation newLocatedLeft;
+		BuildingWithLocation newLocatedFront;
+		BuildingWithLocation newLocatedRight;
+		boolean hasSelected = false;
+
+		if (visibilityTable.isPresent()
+				&& visibilityTable.get().findNearby(location, heading, nearby)) {
+			newLocatedLeft = createBuildingWithLocation(nearby[0], location, heading);
+			newLocatedFront = createBuildingWithLocation(nearby[1], location, heading);
+			newLocatedRight = createBuildingWithLocation(nearby[2], location, heading);
+		} else {
+			updateLocationFix(location);
+			selector.select(locationFix, heading);
+			hasSelected = true;
+
+			newLocatedLeft = createBuildingWithLocation(selector.getLeft(), heading);
+			newLocatedFront = createBuildingWithLocation(selector.getFront(), heading);
+			newLocatedRight = createBuildingWithLocation(selector.getRight(), heading);
+		}
 		
-		if (buildingsInConeOfVisualAttention.isEmpty()) {
-			Optional<Building> optionalLeft = sortedBuildings.firstMatch(
-					makeIsToSideOfHeadingOffsetPredicate(false, 0.0, location, heading));
-			Optional<Building> optionalRight = sortedBuildings.firstMatch(
-					makeIsToSideOfHeadingOffsetPredicate(true, 0.0, location, heading));
+		// Only notify when the display would change, since the distances and heading offsets
+		// change a tiny bit with every heading and location update.
+		BuildingWithLocation left = current.getLeftBuilding();
+		BuildingWithLocation front = current.getFrontBuilding();
+		BuildingWithLocation right = current.getRightBuilding();
+		if (!BuildingLocationView.isDisplayedSame(newLocatedLeft, left)
+				|| !BuildingLocationView.isDisplayedSame(newLocatedFront, front)
+				|| !BuildingLocationView.isDisplayedSame(newLocatedRight, right)) {
+			current = publishNearbyBuildings(newLocatedLeft, newLocatedFront, newLocatedRight);
 			
-			if (optionalLeft.isPresent()) {
-				newLeft = optionalLeft.get();
+			notifyNearbyBuildingsChange(current);
+		}
+
+		findLikelyBuildings(androidLocation, location, heading, hasSelected);
+		updateLikelyBuildings();
+
+		entryPredictor.update(location, androidLocation.getElapsedRealtimeNanos());
+		updateApproachingBuilding();
+	}
+
+	/**
+	 * Finds the buildings that are likely to be displayed next into {@link #newLikely}, from the
+	 * most to the least likely:
+	 *
+	 * <ol>
+	 * <li>the buildings at the heading that the head is turning towards,
+	 * <li>the buildings in front of where the user is walking to, and
+	 * <li>the buildings just outside of the cone of visual attention, in the direction of the turn
+	 * first, as ranked by {@link #selector}.
+	 * </ol>
+	 *
+	 * @param hasSelected whether {@link #selector} has already selected for {@code location} and
+	 *     {@code heading}
+	 */
+	private void findLikelyBuildings(
+			android.location.Location androidLocation,
+			Location location,
+			float heading,
+			boolean hasSelected) {
+
+		newLikelyCount = 0;
+		boolean isTurningLeft = motionPredictor.getTurnRate() < 0.0f;
+
+		if (motionPredictor.isTurning()) {
+			updateLocationFix(location);
+			predictedSelector.select(locationFix, motionPredictor.predictHeading(heading));
+			addLikelyBuildings(predictedSelector, isTurningLeft);
+		}
+
+		Location predictedLocation = motionPredictor.predictLocation(androidLocation);
+		if (predictedLocation != null) {
+			if (!predictedLocationFix.isFor(predictedLocation)) {
+				predictedLocationFix.update(predictedLocation);
 			}
-			
-			if (optionalRight.isPresent()) {
-				newRight = optionalRight.get();
+
+			// Entering a building is not about the buildings outside.
+			if (!predictedLocationFix.getInsideBuilding().isPresent()) {
+				predictedSelector.select(predictedLocationFix, heading);
+				addLikelyBuildings(predictedSelector, isTurningLeft);
 			}
+		}
+
+		updateOutsideBuildings(location, heading, hasSelected);
+		addLikelyBuilding(isTurningLeft ? outsideLeft : outsideRight);
+		addLikelyBuilding(isTurningLeft ? outsideRight : outsideLeft);
+	}
+
+	/**
+	 * Makes sure that {@link #outsideLeft} and {@link #outsideRight} are for {@code location} and
+	 * {@code heading}.
+	 *
+	 * @param hasSelected whether {@link #selector} has already selected for {@code location} and
+	 *     {@code heading}, otherwise the nearby buildings were looked up in {@link
+	 *     #visibilityTable}
+	 */
+	private void updateOutsideBuildings(Location location, float heading, boolean hasSelected) {
+		if (hasSelected) {
+			outsideLocation = null;
 		} else {
-			newFront = buildingsInConeOfVisualAttention.first().get();
-			double frontHeadingOffset =
-					newFront.getLocation().computeHeadingOffset(location, heading);
-			
-			// Sort remaining buildings by distance.
-			Ordering<Building> closestOrdering = makeOrderingByDistanceTo(location)
-					.compound(makeOrderingByAbsoluteHeadingOffset(location, frontHeadingOffset));
-			FluentIterable<Building> remaining = FluentIterable.from(
-					buildingsInConeOfVisualAttention.skip(1).toSortedList(closestOrdering));
-			
-			Optional<Building> optionalLeft = remaining.firstMatch(
-					makeIsToSideOfHeadingOffsetPredicate(
-							false,
-							frontHeadingOffset,
-							location,
-							heading));
-			Optional<Building> optionalRight = remaining.firstMatch(
-					makeIsToSideOfHeadingOffsetPredicate(
-							true,
-							frontHeadingOffset,
-							location,
-							heading));
-			
-			if (!optionalLeft.isPresent()) {
-				optionalLeft = sortedBuildings
-						.filter(Predicates.not(isWithinConeOfVisualAttentionPredicate))
-						.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
-								false,
-								0.0,
-								location,
-								heading));
+			// The table only changes between heading bins, and the buildings just outside of the
+			// cone are only a guess, so they don't need to follow the heading more closely.
+			int headingBin = visibilityTable.get().getHeadingBin(heading);
+			if (location.equals(outsideLocation) && (headingBin == outsideHeadingBin)) {
+				return;
 			}
-			
-			if (!optionalRight.isPresent()) {
-				optionalRight = sortedBuildings
-						.filter(Predicates.not(isWithinConeOfVisualAttentionPredicate))
-						.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
-								true,
-								0.0,
-								location,
-								heading));
+
+			updateLocationFix(location);
+			selector.select(locationFix, heading);
+			outsideLocation = location;
+			outsideHeadingBin = headingBin;
+		}
+
+		outsideLeft = selector.getOutsideLeft();
+		outsideRight = selector.getOutsideRight();
+	}
+
+	/**
+	 * Adds the front building of {@code selector} and then its side buildings, the side towards
+	 * the turn first.
+	 */
+	private void addLikelyBuildings(NearbyBuildingSelector selector, boolean isTurningLeft) {
+		addLikelyBuilding(selector.getFront());
+		addLikelyBuilding(isTurningLeft ? selector.getLeft() : selector.getRight());
+		addLikelyBuilding(isTurningLeft ? selector.getRight() : selector.getLeft());
+	}
+
+	/**
+	 * Adds a building to {@link #newLikely} unless it is {@link NearbyBuildingSelector#NONE},
+	 * displayed, already added, or there are already {@link #MAX_LIKELY_BUILDINGS}.
+	 */
+	private void addLikelyBuilding(int index) {
+		if ((index == NearbyBuildingSelector.NONE)
+				|| (newLikelyCount == MAX_LIKELY_BUILDINGS)
+				|| isDisplayed(locationFix.getBuilding(index))) {
+			return;
+		}
+
+		for (int j = 0; j < newLikelyCount; j++) {
+			if (newLikely[j] == index) {
+				return;
 			}
-			
-			if (optionalLeft.isPresent()) {
-				newLeft = optionalLeft.get();
+		}
+
+		newLikely[newLikelyCount++] = index;
+	}
+
+	private boolean isDisplayed(Building building) {
+		LocationState current = state.get();
+		BuildingWithLocation left = current.getLeftBuilding();
+		BuildingWithLocation front = current.getFrontBuilding();
+		BuildingWithLocation right = current.getRightBuilding();
+
+		return ((left != null) && (left.getBuilding() == building))
+				|| ((front != null) && (front.getBuilding() == building))
+				|| ((right != null) && (right.getBuilding() == building));
+	}
+
+	/**
+	 * Notifies the listeners if the buildings found in {@link #newLikely} are different from the
+	 * ones that they were last notified of.
+	 */
+	private void updateLikelyBuildings() {
+		if (newLikelyCount == likelyCount) {
+			int j = 0;
+			while ((j < likelyCount) && (newLikely[j] == likely[j])) {
+				j++;
 			}
-			
-			if (optionalRight.isPresent()) {
-				newRight = optionalRight.get();
+
+			if (j == likelyCount) {
+				return;
 			}
 		}
-		
-		BuildingWithLocation newLocatedLeft =
-				newLeft == null ? null : new BuildingWithLocation(newLeft, location, heading);
-		BuildingWithLocation newLocatedFront =
-				newFront == null ? null : new BuildingWithLocation(newFront, location, heading);
-		BuildingWithLocation newLocatedRight =
-				newRight == null ? null : new BuildingWithLocation(newRight, location, heading);
-		
-		if (!Objects.equal(newLocatedLeft, left)
-				|| !Objects.equal(newLocatedFront, front)
-				|| !Objects.equal(newLocatedRight, right)) {
-			left = newLocatedLeft;
-			front = newLocatedFront;
-			right = newLocatedRight;
-			
-			notifyNearbyBuildingsChange();
+
+		System.arraycopy(newLikely, 0, likely, 0, newLikelyCount);
+		likelyCount = newLikelyCount;
+
+		notifyLikelyBuildingsChange();
+	}
+	
+	/**
+	 * Notifies the listeners if {@link #entryPredictor} predicts that the user is walking into a
+	 * different building than the one they were last notified of.
+	 */
+	private void updateApproachingBuilding() {
+		int newApproaching = entryPredictor.predictEntry();
+		if ((newApproaching == EntryPredictor.NONE) || (newApproaching == approaching)) {
+			return;
+		}
+		approaching = newApproaching;
+
+		Building building = locationFix.getBuilding(approaching);
+		for (Listener listener : listeners) {
+			listener.onApproachBuilding(building);
 		}
 	}
 	
 	/**
-	 * Notifies the listeners of a nearby building change. This uses the current left, front, and
-	 * right buildings as stored in {@link #left}, {@link #front}, and {@link #right}.
+	 * Publishes a state with the nearby buildings changed, and returns it.
+	 */
+	private LocationState publishNearbyBuildings(
+			final BuildingWithLocation left,
+			final BuildingWithLocation front,
+			final BuildingWithLocation right) {
+
+		return publish(new StateChange() {
+			@Override
+			public LocationState apply(LocationState oldState) {
+				return oldState.withNearbyBuildings(left, front, right);
+			}
+		});
+	}
+
+	/**
+	 * Publishes a state with the user inside {@code inside}, or outside if it is null, and
+	 * returns it.
+	 */
+	private LocationState publishInside(final Building inside) {
+		return publish(new StateChange() {
+			@Override
+			public LocationState apply(LocationState oldState) {
+				return oldState.withInside(inside);
+			}
+		});
+	}
+
+	/**
+	 * Publishes and notifies the listeners of a change to having the user's location, if it has
+	 * changed.
 	 */
-	private void notifyNearbyBuildingsChange() {
+	private void updateHasLocation(final boolean hasLocation) {
+		LocationState newState = publish(new StateChange() {
+			@Override
+			public LocationState apply(LocationState oldState) {
+				return (oldState.hasLocation() == hasLocation)
+						? null
+						: oldState.withHasLocation(hasLocation);
+			}
+		});
+
+		if (newState != null) {
+			notifyHasLocation(newState);
+		}
+	}
+
+	/**
+	 * Publishes and notifies the listeners of a change to the compass interference, if it has
+	 * changed. Called from the sensor thread.
+	 */
+	private void updateHasInterference(final boolean hasInterference) {
+		LocationState newState = publish(new StateChange() {
+			@Override
+			public LocationState apply(LocationState oldState) {
+				return (oldState.hasCompassInterference() == hasInterference)
+						? null
+						: oldState.withHasInterference(hasInterference);
+			}
+		});
+
+		if (newState != null) {
+			notifyHasCompassInterference(newState);
+		}
+	}
+
+	/**
+	 * A change to be made to the location state by {@link #publish}.
+	 */
+	private interface StateChange {
+
+		/**
+		 * Returns the state with the change made to {@code oldState}, which is unchanged, or null
+		 * if there is nothing to change. This may be called again with a newer state if another
+		 * thread published first.
+		 */
+		LocationState apply(LocationState oldState);
+	}
+
+	/**
+	 * Makes {@code change} to the latest state and publishes it without locking, retrying if
+	 * another thread published in between, and returns the state that was published or null if
+	 * there was nothing to change.
+	 */
+	private LocationState publish(StateChange change) {
+		while (true) {
+			LocationState oldState = state.get();
+			LocationState newState = change.apply(oldState);
+			if ((newState == null) || state.compareAndSet(oldState, newState)) {
+				return newState;
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listeners of a nearby building change.
+	 */
+	private void notifyNearbyBuildingsChange(LocationState state) {
 		for (Listener listener : listeners) {
-			listener.onNearbyBuildingsChange(left, front, right);
+			listener.onNearbyBuildingsChange(state);
 		}
 	}
 	
 	/**
-	 * Notifies the listeners of entering a building. This uses the current inside building as
-	 * stored in {@link #inside}.
+	 * Notifies the listeners of the buildings likely to be displayed next, as stored in {@link
+	 * #likely}.
+	 */
+	private void notifyLikelyBuildingsChange() {
+		ImmutableList.Builder<Building> builder = ImmutableList.builder();
+		for (int j = 0; j < likelyCount; j++) {
+			builder.add(locationFix.getBuilding(likely[j]));
+		}
+		List<Building> buildings = builder.build();
+
+		for (Listener listener : listeners) {
+			listener.onLikelyBuildingsChange(buildings);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of entering the building that {@code state} is inside.
 	 */
-	private void notifyEnterBuilding() {
-		if (inside == null) {
+	private void notifyEnterBuilding(LocationState state) {
+		if (!state.isInsideBuilding()) {
 			throw new IllegalStateException();
 		}
 
 		for (Listener listener : listeners) {
-			listener.onEnterBuilding(inside);
+			listener.onEnterBuilding(state);
 		}
 	}
 	
 	/**
 	 * Notifies the listeners of exiting a building.
 	 */
-	private void notifyExitBuilding() {
+	private void notifyExitBuilding(LocationState state) {
 		for (Listener listener : listeners) {
-			listener.onExitBuilding();
+			listener.onExitBuilding(state);
 		}
 	}
 	
 	/**
 	 * Notifies the listeners of the beginning or end of compass interference.
 	 */
-	private void notifyHasCompassInterference(boolean hasInterference) {
+	private void notifyHasCompassInterference(LocationState state) {
 		for (Listener listener : listeners) {
-			listener.onCompassInterference(hasInterference);
+			listener.onCompassInterference(state);
 		}
 	}
 	
 	/**
-	 * Requests for the location state to be updated via {@link #updateLocationState}, but throttles
-	 * the requests.
+	 * Requests for the location state to be updated via {@link #updateLocationState}, but leaves
+	 * it to {@link #updateScheduler} to throttle the requests based on how the user is moving.
 	 */
-	private synchronized void requestUpdateLocationState() {
+	private void requestUpdateLocationState() {
 		if (updateImmediately) {
 			updateLocationState();
 			return;
 		}
 
-		if (!isTimerQueued()) {
-			setTimerQueued(true);
-
-			scheduledExecutorService.schedule(
-					updateLocationStateRunnable,
-					1000 / UPDATES_PER_SECOND,
-					TimeUnit.MILLISECONDS);
-		}
-	}
-	
-	private synchronized boolean isTimerQueued() {
-		return isTimerQueued;
-	}
-	
-	private synchronized void setTimerQueued(boolean isTimerQueued) {
-		this.isTimerQueued = isTimerQueued;
+		updateScheduler.request(orientationManager.getHeading(), orientationManager.getLocation());
 	}
 	
 	/**
-	 * Notifies the listeners of the beginning or end of having the user's location.
+	 * Requests an update for when the change that {@link #insideHysteresis} is waiting on will
+	 * have dwelled long enough, since the sensors stop requesting updates while the user stands
+	 * still.
 	 */
-	private void notifyHasLocation(boolean hasLocation) {
-		for (Listener listener : listeners) {
-			listener.onHasLocationChange(hasLocation);
+	private void requestDwellUpdate(long nanos) {
+		long remainingNanos = insideHysteresis.getRemainingDwellNanos(nanos);
+		if ((remainingNanos >= 0) && !updateImmediately) {
+			updateScheduler.requestAfter(remainingNanos);
 		}
 	}
-	
+
 	/**
-	 * Makes a {@link Predicate} for whether a {@link Location} is inside a {@link Building}.
+	 * Notifies the listeners of the beginning or end of having the user's location.
 	 */
-	private static Predicate<Building> makeIsInsidePredicate(final Location location) {
-		return new Predicate<Building>() {
-			@Override
-			public boolean apply(Building building) {
-				return building.getLocation().isLocationContained(location);
-			}
-		};
+	private void notifyHasLocation(LocationState state) {
+		for (Listener listener : listeners) {
+			listener.onHasLocationChange(state);
+		}
 	}
 	
 	/**
-	 * Makes a {@link Predicate} for whether a building is within one's cone of visual attention.
+	 * Returns the index of the building that {@code location} is inside, or {@link
+	 * InsideHysteresis#NONE}, looked up in {@link #visibilityTable} if it knows.
 	 */
-	private static Predicate<Building> makeIsWithinConeOfVisualAttentionPredicate(
-			final Location location,
-			final float heading) {
-		
-		return new Predicate<Building>() {
-			@Override
-			public boolean apply(Building building) {
-				double buildingHeadingOffset =
-						building.getLocation().computeHeadingOffset(location, heading);
+	private int findInsideIndex(Location location) {
+		if (visibilityTable.isPresent()) {
+			int building = visibilityTable.get().findInside(location);
 
-				return Math.abs(buildingHeadingOffset) <= CONE_OF_VISUAL_ATTENTION / 2.0;
+			if (building != VisibilityTable.UNKNOWN) {
+				return building;
 			}
-		};
+		}
+
+		updateLocationFix(location);
+		return locationFix.getInsideIndex();
 	}
-	
+
 	/**
-	 * Makes a {@link Predicate} that returns whether a building is to the left or right (depending
-	 * on value of {@code toRight} of the provided heading offset.
+	 * Makes sure that {@link #locationFix} is for {@code location}.
 	 */
-	private static Predicate<Building> makeIsToSideOfHeadingOffsetPredicate(
-			final boolean toRight,
-			final double headingOffset,
-			final Location location,
-			final float heading) {
-		
-		return new Predicate<Building>() {
-			@Override
-			public boolean apply(Building building) {
-				double buildingHeadingOffset =
-						building.getLocation().computeHeadingOffset(location, heading);
-
-				double difference = buildingHeadingOffset - headingOffset;
-				
-				// Note that the equal case is explicitly excluded, because a building with the same
-				// heading offset is in front, not to the left nor right.
-				return toRight ? difference > 0 : difference < 0;
-			}
-		};
+	private void updateLocationFix(Location location) {
+		// The location changes far less often than the heading, so only redo the work that
+		// depends on it when it changes.
+		if (!locationFix.isFor(location)) {
+			locationFix.update(location);
+		}
 	}
-	
+
 	/**
-	 * Makes a {@link Predicate} that returns whether a building is within the same hemisphere as
-	 * the heading (whether its heading offset is within 90 degrees).
+	 * Creates the {@link BuildingWithLocation} for a building looked up in {@link
+	 * #visibilityTable}, or returns null for {@link VisibilityTable#NONE}.
 	 */
-	private static Predicate<Building> makeIsWithinHemispherePredicate(
-			final Location location,
-			final float heading) { 
+	private BuildingWithLocation createBuildingWithLocation(
+			int building,
+			Location location,
+			float heading) {
 
-		return new Predicate<Building>() {
-			@Override
-			public boolean apply(Building building) {
-				double buildingHeadingOffset =
-						building.getLocation().computeHeadingOffset(location, heading);
-				return Math.abs(buildingHeadingOffset) <= 90.0;
-			}
-		};
+		return building == VisibilityTable.NONE
+				? null
+				: new BuildingWithLocation(locationFix.getBuilding(building), location, heading);
 	}
 
 	/**
-	 * Compares {@link Building}s by how far they are from {@code location} using {@link
-	 * RectangularLocation#getClosestPointWithin} to find optimal distances.
+	 * Creates the {@link BuildingWithLocation} for a building selected by {@link #selector}, or
+	 * returns null for {@link NearbyBuildingSelector#NONE}.
 	 */
-	private static Ordering<Building> makeOrderingByDistanceTo(final Location location) {
-		return new Ordering<Building>() {
-			@Override
-			public int compare(Building lhs, Building rhs) {
-				Location left = lhs.getLocation().findClosestPointWithin(location);
-				Location right = rhs.getLocation().findClosestPointWithin(location);
-
-				return Double.compare(
-						MathUtils.getDistance(
-								left.getLatitude(),
-								left.getLongitude(),
-								location.getLatitude(),
-								location.getLongitude()),
-						MathUtils.getDistance(
-								right.getLatitude(),
-								right.getLongitude(),
-								location.getLatitude(),
-								location.getLongitude()));
-			}
-		};
-	}
-	
-	/**
-	 * Compares {@link Building}s by how far its bearing is from the given location and heading
-	 * using the absolute value of {@link RectangularLocation#computeHeadingOffset}.
-	 */
-	private static Ordering<Building> makeOrderingByAbsoluteHeadingOffset(
-			final Location location,
-			final double heading) {
-		
-		return new Ordering<Building>() {
-			@Override
-			public int compare(Building lhs, Building rhs) {
-				return Double.compare(
-						Math.abs(lhs.getLocation().computeHeadingOffset(location, heading)),
-						Math.abs(rhs.getLocation().computeHeadingOffset(location, heading)));
-			}
-		};
+	private BuildingWithLocation createBuildingWithLocation(int building, float heading) {
+		return building == NearbyBuildingSelector.NONE
+				? null
+				: locationFix.getBuildingWithLocation(building, heading);
 	}
 }
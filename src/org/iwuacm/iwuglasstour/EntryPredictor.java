@@ -0,0 +1,284 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.LocalProjection;
+import org.iwuacm.iwuglasstour.model.Location;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Predicts which building the user is about to walk into, and how soon. The velocity is fit to
+ * the location fixes of the last {@link #WINDOW_SECONDS}, which smooths out the GPS noise of
+ * single fixes, and the path from the latest fix is followed for up to {@link #HORIZON_SECONDS}
+ * to the first footprint that it crosses. {@link BuildingLocationManager} reports the building so
+ * that its inside card can be prepared before the user is inside.
+ *
+ * <p>Only used from the thread that updates the location state.
+ */
+class EntryPredictor {
+
+	/**
+	 * Returned by {@link #predictEntry} when the user is not about to walk into a building.
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * How far ahead to predict entering a building, in seconds.
+	 */
+	@VisibleForTesting
+	static final float HORIZON_SECONDS = 10.0f;
+
+	/**
+	 * How old the fixes that the velocity is fit to may be, in seconds.
+	 */
+	@VisibleForTesting
+	static final float WINDOW_SECONDS = 12.0f;
+
+	/**
+	 * The fewest and most fixes that the velocity is fit to. A velocity from fewer fixes is
+	 * mostly GPS noise.
+	 */
+	private static final int MIN_FIXES = 4;
+	private static final int MAX_FIXES = 12;
+
+	/**
+	 * Walking slower than this (in meters per second) is GPS noise.
+	 */
+	private static final double STILL_METERS_PER_SECOND = 0.5;
+
+	/**
+	 * Moving faster than this (in meters per second) is not walking up to a building, or is GPS
+	 * noise.
+	 */
+	private static final double MAX_METERS_PER_SECOND = 3.0;
+
+	/**
+	 * How far the footprints are grown (in meters), since the path rarely aims exactly at a door
+	 * and the footprints are only the bounds of the buildings.
+	 */
+	@VisibleForTesting
+	static final double MARGIN_METERS = 3.0;
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final LocalProjection projection;
+
+	/**
+	 * The projected footprints in meters.
+	 */
+	private final double[] minEasts;
+	private final double[] maxEasts;
+	private final double[] minNorths;
+	private final double[] maxNorths;
+
+	/**
+	 * The projected fixes and their times, oldest first from {@link #firstFix} in a ring of
+	 * {@link #MAX_FIXES}.
+	 */
+	private final double[] fixEasts;
+	private final double[] fixNorths;
+	private final long[] fixNanos;
+	private int firstFix;
+	private int fixCount;
+
+	private Location lastLocation;
+	private int predictedBuilding;
+	private float secondsToEntry;
+
+	EntryPredictor(BuildingGeometry geometry) {
+		int buildingCount = geometry.getBuildingCount();
+
+		this.projection = LocalProjection.centeredOn(geometry);
+		this.minEasts = new double[buildingCount];
+		this.maxEasts = new double[buildingCount];
+		this.minNorths = new double[buildingCount];
+		this.maxNorths = new double[buildingCount];
+		this.fixEasts = new double[MAX_FIXES];
+		this.fixNorths = new double[MAX_FIXES];
+		this.fixNanos = new long[MAX_FIXES];
+		this.predictedBuilding = NONE;
+		this.secondsToEntry = Float.NaN;
+
+		for (int i = 0; i < buildingCount; i++) {
+			minEasts[i] = projection.getEast(geometry.getMinLongitude(i));
+			maxEasts[i] = projection.getEast(geometry.getMaxLongitude(i));
+			minNorths[i] = projection.getNorth(geometry.getMinLatitude(i));
+			maxNorths[i] = projection.getNorth(geometry.getMaxLatitude(i));
+		}
+	}
+
+	/**
+	 * Adds the fix for the user being at {@code location}, and predicts the building they are
+	 * about to walk into. Does nothing if the location has not changed since the last fix.
+	 */
+	void update(Location location, long nanos) {
+		if (location.equals(lastLocation)) {
+			return;
+		}
+		lastLocation = location;
+
+		if (fixCount == MAX_FIXES) {
+			firstFix = (firstFix + 1) % MAX_FIXES;
+			fixCount--;
+		}
+
+		int newFix = (firstFix + fixCount) % MAX_FIXES;
+		fixEasts[newFix] = projection.getEast(location.getLongitude());
+		fixNorths[newFix] = projection.getNorth(location.getLatitude());
+		fixNanos[newFix] = nanos;
+		fixCount++;
+
+		// Drop the fixes that are too old to say where the user is walking now.
+		while ((fixCount > 1)
+				&& ((nanos - fixNanos[firstFix]) / NANOS_PER_SECOND > WINDOW_SECONDS)) {
+			firstFix = (firstFix + 1) % MAX_FIXES;
+			fixCount--;
+		}
+
+		predict(newFix);
+	}
+
+	/**
+	 * Forgets the fixes, such as when the location is lost or the user is inside a building.
+	 */
+	void reset() {
+		firstFix = 0;
+		fixCount = 0;
+		lastLocation = null;
+		predictedBuilding = NONE;
+		secondsToEntry = Float.NaN;
+	}
+
+	/**
+	 * Returns the index of the building that the user is about to walk into, indexed like the
+	 * geometry, or {@link #NONE}.
+	 */
+	int predictEntry() {
+		return predictedBuilding;
+	}
+
+	/**
+	 * Returns how many seconds until the user walks into the building of {@link #predictEntry},
+	 * or NaN if there is none.
+	 */
+	float getSecondsToEntry() {
+		return secondsToEntry;
+	}
+
+	/**
+	 * Fits the velocity to the fixes, and follows it from the fix at {@code newFix} to the first
+	 * footprint it crosses within {@link #HORIZON_SECONDS}.
+	 */
+	private void predict(int newFix) {
+		predictedBuilding = NONE;
+		secondsToEntry = Float.NaN;
+
+		if (fixCount < MIN_FIXES) {
+			return;
+		}
+
+		// Least squares fit of the east and north positions against time, relative to the newest
+		// fix so that the numbers stay small.
+		double sumT = 0;
+		double sumTT = 0;
+		double sumE = 0;
+		double sumTE = 0;
+		double sumN = 0;
+		double sumTN = 0;
+		for (int j = 0; j < fixCount; j++) {
+			int i = (firstFix + j) % MAX_FIXES;
+			double t = (fixNanos[i] - fixNanos[newFix]) / NANOS_PER_SECOND;
+			double e = fixEasts[i] - fixEasts[newFix];
+			double n = fixNorths[i] - fixNorths[newFix];
+
+			sumT += t;
+			sumTT += t * t;
+			sumE += e;
+			sumTE += t * e;
+			sumN += n;
+			sumTN += t * n;
+		}
+
+		double denominator = fixCount * sumTT - sumT * sumT;
+		if (denominator <= 0) {
+			return;
+		}
+
+		double eastSpeed = (fixCount * sumTE - sumT * sumE) / denominator;
+		double northSpeed = (fixCount * sumTN - sumT * sumN) / denominator;
+		double speed = Math.hypot(eastSpeed, northSpeed);
+		if ((speed < STILL_METERS_PER_SECOND) || (speed > MAX_METERS_PER_SECOND)) {
+			return;
+		}
+
+		// Follow the fitted line rather than the newest fix, which is as noisy as any other.
+		double east = fixEasts[newFix] + (sumE - eastSpeed * sumT) / fixCount;
+		double north = fixNorths[newFix] + (sumN - northSpeed * sumT) / fixCount;
+		double soonestSeconds = HORIZON_SECONDS;
+
+		for (int i = 0; i < minEasts.length; i++) {
+			double seconds =
+					findEntrySeconds(i, MARGIN_METERS, east, north, eastSpeed, northSpeed);
+
+			// Within the margin, only walking into the footprint itself counts.
+			if (seconds < 0) {
+				seconds = findEntrySeconds(i, 0, east, north, eastSpeed, northSpeed);
+			}
+
+			if ((seconds >= 0) && (seconds <= soonestSeconds)) {
+				soonestSeconds = seconds;
+				predictedBuilding = i;
+			}
+		}
+
+		if (predictedBuilding != NONE) {
+			secondsToEntry = (float) soonestSeconds;
+		}
+	}
+
+	/**
+	 * Returns how many seconds until walking from the point at the velocity crosses into
+	 * footprint {@code i} grown by {@code margin} meters, a negative number if the point is
+	 * already within it, or NaN if it never does.
+	 */
+	private double findEntrySeconds(
+			int i,
+			double margin,
+			double east,
+			double north,
+			double eastSpeed,
+			double northSpeed) {
+
+		// Intersect the times that the path is within the footprint's east and north bounds.
+		double enterSeconds = Double.NEGATIVE_INFINITY;
+		double exitSeconds = Double.POSITIVE_INFINITY;
+
+		if (eastSpeed == 0) {
+			if ((east < minEasts[i] - margin) || (east > maxEasts[i] + margin)) {
+				return Double.NaN;
+			}
+		} else {
+			double seconds1 = (minEasts[i] - margin - east) / eastSpeed;
+			double seconds2 = (maxEasts[i] + margin - east) / eastSpeed;
+			enterSeconds = Math.max(enterSeconds, Math.min(seconds1, seconds2));
+			exitSeconds = Math.min(exitSeconds, Math.max(seconds1, seconds2));
+		}
+
+		if (northSpeed == 0) {
+			if ((north < minNorths[i] - margin) || (north > maxNorths[i] + margin)) {
+				return Double.NaN;
+			}
+		} else {
+			double seconds1 = (minNorths[i] - margin - north) / northSpeed;
+			double seconds2 = (maxNorths[i] + margin - north) / northSpeed;
+			enterSeconds = Math.max(enterSeconds, Math.min(seconds1, seconds2));
+			exitSeconds = Math.min(exitSeconds, Math.max(seconds1, seconds2));
+		}
+
+		if ((enterSeconds > exitSeconds) || (exitSeconds < 0)) {
+			return Double.NaN;
+		}
+
+		return enterSeconds;
+	}
+}
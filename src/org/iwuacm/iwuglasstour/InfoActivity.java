@@ -1,36 +1,131 @@
 package org.iwuacm.iwuglasstour;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Buildings;
 import org.iwuacm.iwuglasstour.view.InfoView;
 
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.util.Log;
 
 /**
  * Activity that contains the {@link InfoView}. Provides detailed information about a
  * {@link Building}.
  */
 public class InfoActivity extends Activity {
-	
+
 	/**
-	 * Key for the {@link Intent}'s building extra.
+	 * Key for the {@link Intent}'s extra with the building's ID (see {@link
+	 * Buildings#getBuilding}). The activity finishes without it, or if it is not a building's.
 	 */
-	public static final String BUILDING_MODEL = "buildingModel";
-	
+	public static final String BUILDING_ID = "buildingId";
+
 	/**
 	 * Key for the {@link Intent}'s extra specifying whether the user is inside a building.
 	 */
 	public static final String IS_INSIDE = "isInside";
-	
+
+	private static final String TAG = InfoActivity.class.getSimpleName();
+
+	/**
+	 * The building ID when the extra is missing.
+	 */
+	private static final int NO_BUILDING = -1;
+
+	/**
+	 * Shows the building once the buildings have loaded, on the main thread.
+	 */
+	private final FutureCallback<Buildings> onBuildingsLoaded = new FutureCallback<Buildings>() {
+		@Override
+		public void onSuccess(Buildings buildings) {
+			if (!isDestroyed) {
+				showBuilding(buildings);
+			}
+		}
+
+		@Override
+		public void onFailure(Throwable t) {
+			if (!isDestroyed) {
+				Log.wtf(TAG, "Could not load buildings", t);
+				finish();
+			}
+		}
+	};
+
+	/**
+	 * Runs the {@link #onBuildingsLoaded} callback on the main thread.
+	 */
+	private final Executor mainThreadExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			handler.post(command);
+		}
+	};
+
+	private int buildingId;
+	private Handler handler;
+	private ExecutorService loadExecutorService;
+	private boolean isDestroyed;
+
+	/**
+	 * Shows the building right away if the buildings have loaded, and otherwise loads them in the
+	 * background rather than waiting for them on the main thread.
+	 */
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
-		
-		Intent intent = getIntent();
-		Building building = (Building) intent.getSerializableExtra(BUILDING_MODEL);
-		boolean showDescriptionCardFirst = !intent.getBooleanExtra(IS_INSIDE, false);
 
-		setContentView(new InfoView(building, showDescriptionCardFirst, this));
+		buildingId = getIntent().getIntExtra(BUILDING_ID, NO_BUILDING);
+		if (buildingId == NO_BUILDING) {
+			Log.e(TAG, "No building to show");
+			finish();
+			return;
+		}
+
+		Buildings buildings = Buildings.getLoadedBuildings();
+		if (buildings != null) {
+			showBuilding(buildings);
+			return;
+		}
+
+		handler = new Handler();
+		loadExecutorService = Executors.newSingleThreadExecutor();
+		Futures.addCallback(
+				Buildings.getBuildingsAsync(getApplicationContext(), loadExecutorService),
+				onBuildingsLoaded,
+				mainThreadExecutor);
+	}
+
+	@Override
+	protected void onDestroy() {
+		isDestroyed = true;
+		if (loadExecutorService != null) {
+			loadExecutorService.shutdownNow();
+		}
+
+		super.onDestroy();
+	}
+
+	private void showBuilding(Buildings buildings) {
+		Optional<Building> building = buildings.getBuilding(buildingId);
+		if (!building.isPresent()) {
+			Log.e(TAG, "No building with ID " + buildingId);
+			finish();
+			return;
+		}
+
+		boolean showDescriptionCardFirst = !getIntent().getBooleanExtra(IS_INSIDE, false);
+
+		setContentView(new InfoView(building.get(), showDescriptionCardFirst, this));
 	}
 }
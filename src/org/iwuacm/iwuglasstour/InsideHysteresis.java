@@ -0,0 +1,166 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.LocalProjection;
+import org.iwuacm.iwuglasstour.model.Location;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Decides which building the user is inside from the building that each location fix is inside,
+ * so that GPS noise at a doorway does not switch between inside and outside with every fix. A
+ * change is only confirmed once the fixes have agreed on it for {@link #DWELL_SECONDS}, or right
+ * away if the fix is further past the edge of the building than its accuracy, since noise cannot
+ * explain that. Changes that the fixes go back on before they are confirmed are counted as
+ * suppressed.
+ *
+ * <p>Only used from the thread that updates the location state.
+ */
+class InsideHysteresis {
+
+	/**
+	 * Not inside any building.
+	 */
+	static final int NONE = NearbyBuildingSelector.NONE;
+
+	/**
+	 * How long the fixes have to agree on a change before it is confirmed, in seconds.
+	 */
+	@VisibleForTesting
+	static final float DWELL_SECONDS = 3.0f;
+
+	private static final long DWELL_NANOS = (long) (DWELL_SECONDS * 1e9);
+
+	private final BuildingGeometry geometry;
+	private final LocalProjection projection;
+
+	/**
+	 * The confirmed building, and the change to another one that is waiting to be confirmed.
+	 */
+	private int inside;
+	private boolean hasCandidate;
+	private int candidate;
+	private long candidateNanos;
+
+	private long enteredCount;
+	private long exitedCount;
+	private long suppressedCount;
+
+	InsideHysteresis(BuildingGeometry geometry) {
+		this.geometry = geometry;
+		this.projection = LocalProjection.centeredOn(geometry);
+		this.inside = NONE;
+		this.hasCandidate = false;
+	}
+
+	/**
+	 * Takes the fix at {@code location}, which is inside building {@code located} (indexed like
+	 * the geometry) or {@link #NONE}, and returns the building the user is confirmed to be inside
+	 * or {@link #NONE}.
+	 *
+	 * @param accuracy the radius in meters that the user is likely within, or NaN if unknown
+	 * @param nanos the time of the update, which keeps advancing while the fix stays the same
+	 */
+	int update(int located, Location location, float accuracy, long nanos) {
+		if (located == inside) {
+			if (hasCandidate) {
+				hasCandidate = false;
+				suppressedCount++;
+			}
+
+			return inside;
+		}
+
+		if (!hasCandidate || (candidate != located)) {
+			if (hasCandidate) {
+				suppressedCount++;
+			}
+
+			hasCandidate = true;
+			candidate = located;
+			candidateNanos = nanos;
+		}
+
+		if (isClearlyCrossed(located, location, accuracy)
+				|| (nanos - candidateNanos >= DWELL_NANOS)) {
+			if (inside != NONE) {
+				exitedCount++;
+			}
+			if (located != NONE) {
+				enteredCount++;
+			}
+
+			inside = located;
+			hasCandidate = false;
+		}
+
+		return inside;
+	}
+
+	/**
+	 * Returns how long after {@code nanos} the change waiting to be confirmed will have dwelled
+	 * long enough, or -1 if no change is waiting.
+	 */
+	long getRemainingDwellNanos(long nanos) {
+		return hasCandidate ? Math.max(0, candidateNanos + DWELL_NANOS - nanos) : -1;
+	}
+
+	/**
+	 * Returns how many changes were confirmed into a building.
+	 */
+	long getEnteredCount() {
+		return enteredCount;
+	}
+
+	/**
+	 * Returns how many changes were confirmed out of a building.
+	 */
+	long getExitedCount() {
+		return exitedCount;
+	}
+
+	/**
+	 * Returns how many changes were never confirmed because the fixes went back on them.
+	 */
+	long getSuppressedCount() {
+		return suppressedCount;
+	}
+
+	/**
+	 * Returns whether the fix is further than {@code accuracy} into {@code located} and out of
+	 * the confirmed building.
+	 */
+	private boolean isClearlyCrossed(int located, Location location, float accuracy) {
+		if (Float.isNaN(accuracy)) {
+			return false;
+		}
+
+		double east = projection.getEast(location.getLongitude());
+		double north = projection.getNorth(location.getLatitude());
+
+		return ((located == NONE) || (getEdgeDistance(located, east, north) >= accuracy))
+				&& ((inside == NONE) || (-getEdgeDistance(inside, east, north) >= accuracy));
+	}
+
+	/**
+	 * Returns how many meters the point is from the edge of building {@code index}, positive if
+	 * it is inside and negative if it is outside.
+	 */
+	private double getEdgeDistance(int index, double east, double north) {
+		double minEast = projection.getEast(geometry.getMinLongitude(index));
+		double maxEast = projection.getEast(geometry.getMaxLongitude(index));
+		double minNorth = projection.getNorth(geometry.getMinLatitude(index));
+		double maxNorth = projection.getNorth(geometry.getMaxLatitude(index));
+
+		if ((east >= minEast) && (east <= maxEast) && (north >= minNorth) && (north <= maxNorth)) {
+			return Math.min(
+					Math.min(east - minEast, maxEast - east),
+					Math.min(north - minNorth, maxNorth - north));
+		}
+
+		// The closest point of a rectangle on a plane is found by clamping to its edges.
+		double closestEast = Math.min(Math.max(east, minEast), maxEast);
+		double closestNorth = Math.min(Math.max(north, minNorth), maxNorth);
+		return -LocalProjection.getDistance(east, north, closestEast, closestNorth);
+	}
+}
@@ -0,0 +1,246 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.BuildingIndex;
+import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.model.LocalProjection;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import com.google.common.base.Optional;
+
+/**
+ * The part of locating the buildings that only depends on the user's location: which building the
+ * user is inside, the distance to each building, and the bearings to each building's corners.
+ * Location fixes arrive every few seconds at most while the heading changes constantly, so these
+ * are computed once per fix by {@link #update} and turned into heading offsets for each heading.
+ *
+ * <p>The footprints are projected onto a {@link LocalProjection} once, so the distances and
+ * bearings used to rank the buildings come from planar math. The few buildings that are actually
+ * shown get their exact spherical distance and heading offset from {@link
+ * #getBuildingWithLocation}.
+ *
+ * <p>Between fixes only the heading changes, so each update also sorts the arcs of the compass
+ * that the buildings cover into a {@link BuildingArcIndex}.
+ */
+class LocationFix {
+
+	private static final double METERS_PER_KILOMETER = 1000.0;
+
+	private final List<Building> buildings;
+	private final BuildingIndex buildingIndex;
+	private final LocalProjection projection;
+
+	/**
+	 * The projected footprints in meters, indexed like {@link #buildings}.
+	 */
+	private final double[] minEasts;
+	private final double[] maxEasts;
+	private final double[] minNorths;
+	private final double[] maxNorths;
+
+	/**
+	 * The planar distance in kilometers to each building, indexed like {@link #buildings}.
+	 */
+	private final double[] distances;
+
+	/**
+	 * The planar bearings to the corners of each building, {@link
+	 * RectangularLocation#CORNER_COUNT} per building and indexed like {@link #buildings}.
+	 */
+	private final float[] cornerBearings;
+
+	/**
+	 * The arcs covered by each building, built from {@link #cornerBearings}.
+	 */
+	private final BuildingArcIndex arcIndex;
+
+	/**
+	 * The spherical distances and bearings, only computed by {@link #computeExact} for the
+	 * buildings that are shown. {@link #exactFixes} holds the {@link #fix} each was computed for.
+	 */
+	private final double[] exactDistances;
+	private final float[] exactCornerBearings;
+	private final int[] exactFixes;
+
+	private Location location;
+	private int insideIndex;
+	private Optional<Building> insideBuilding;
+
+	/**
+	 * Counts the calls to {@link #update}, so that stale exact values can be detected.
+	 */
+	private int fix;
+
+	LocationFix(List<Building> buildings, BuildingIndex buildingIndex) {
+		int buildingCount = buildings.size();
+
+		this.buildings = buildings;
+		this.buildingIndex = buildingIndex;
+		this.projection = LocalProjection.centeredOn(buildingIndex.getGeometry());
+		this.minEasts = new double[buildingCount];
+		this.maxEasts = new double[buildingCount];
+		this.minNorths = new double[buildingCount];
+		this.maxNorths = new double[buildingCount];
+		this.distances = new double[buildingCount];
+		this.cornerBearings = new float[buildingCount * RectangularLocation.CORNER_COUNT];
+		this.arcIndex = new BuildingArcIndex(buildingCount);
+		this.exactDistances = new double[buildingCount];
+		this.exactCornerBearings = new float[buildingCount * RectangularLocation.CORNER_COUNT];
+		this.exactFixes = new int[buildingCount];
+		this.location = null;
+		this.insideIndex = NearbyBuildingSelector.NONE;
+		this.insideBuilding = Optional.absent();
+		this.fix = 0;
+
+		BuildingGeometry geometry = buildingIndex.getGeometry();
+		for (int i = 0; i < buildingCount; i++) {
+			minEasts[i] = projection.getEast(geometry.getMinLongitude(i));
+			maxEasts[i] = projection.getEast(geometry.getMaxLongitude(i));
+			minNorths[i] = projection.getNorth(geometry.getMinLatitude(i));
+			maxNorths[i] = projection.getNorth(geometry.getMaxLatitude(i));
+		}
+	}
+
+	/**
+	 * Returns whether this fix was last updated for {@code location}.
+	 */
+	boolean isFor(Location location) {
+		return location.equals(this.location);
+	}
+
+	/**
+	 * Recomputes everything that depends on the user's location. The distances and bearings are
+	 * computed even when the location is inside a building, since the user is still shown the
+	 * buildings outside until entering it is confirmed (see {@link InsideHysteresis}).
+	 */
+	void update(Location location) {
+		this.location = location;
+		fix++;
+
+		int containingIndex =
+				buildingIndex.findContainingIndex(location.getLatitude(), location.getLongitude());
+		this.insideIndex = (containingIndex < 0) ? NearbyBuildingSelector.NONE : containingIndex;
+		this.insideBuilding = (containingIndex < 0)
+				? Optional.<Building>absent()
+				: Optional.of(buildings.get(containingIndex));
+
+		double east = projection.getEast(location.getLongitude());
+		double north = projection.getNorth(location.getLatitude());
+
+		for (int i = 0; i < buildings.size(); i++) {
+			// The closest point of a rectangle on a plane is found by clamping to its edges.
+			double closestEast = Math.min(Math.max(east, minEasts[i]), maxEasts[i]);
+			double closestNorth = Math.min(Math.max(north, minNorths[i]), maxNorths[i]);
+			distances[i] = LocalProjection.getDistance(east, north, closestEast, closestNorth)
+					/ METERS_PER_KILOMETER;
+
+			// Same order of corners as RectangularLocation#computeCornerBearings.
+			int offset = i * RectangularLocation.CORNER_COUNT;
+			cornerBearings[offset] =
+					LocalProjection.getBearing(east, north, minEasts[i], maxNorths[i]);
+			cornerBearings[offset + 1] =
+					LocalProjection.getBearing(east, north, maxEasts[i], maxNorths[i]);
+			cornerBearings[offset + 2] =
+					LocalProjection.getBearing(east, north, minEasts[i], minNorths[i]);
+			cornerBearings[offset + 3] =
+					LocalProjection.getBearing(east, north, maxEasts[i], minNorths[i]);
+		}
+
+		arcIndex.update(cornerBearings);
+	}
+
+	/**
+	 * Returns the building that the location is inside, if any.
+	 */
+	Optional<Building> getInsideBuilding() {
+		return insideBuilding;
+	}
+
+	/**
+	 * Returns the index of the building that the location is inside, or {@link
+	 * NearbyBuildingSelector#NONE}.
+	 */
+	int getInsideIndex() {
+		return insideIndex;
+	}
+
+	int getBuildingCount() {
+		return buildings.size();
+	}
+
+	Building getBuilding(int index) {
+		return buildings.get(index);
+	}
+
+	/**
+	 * Returns the planar distance in kilometers to the building at {@code index}.
+	 */
+	double getDistance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * Returns the planar heading offset of the building at {@code index} for {@code heading}. See
+	 * {@link RectangularLocation#computeHeadingOffset(Location, double)}.
+	 */
+	double getHeadingOffset(int index, double heading) {
+		return RectangularLocation.computeHeadingOffset(
+				cornerBearings,
+				index * RectangularLocation.CORNER_COUNT,
+				heading);
+	}
+
+	/**
+	 * Returns the arcs covered by the buildings, for finding the buildings near a heading without
+	 * checking all of them.
+	 */
+	BuildingArcIndex getArcIndex() {
+		return arcIndex;
+	}
+
+	/**
+	 * Creates a {@link BuildingWithLocation} for the building at {@code index} and {@code heading}
+	 * using the exact spherical distance and heading offset.
+	 */
+	BuildingWithLocation getBuildingWithLocation(int index, double heading) {
+		if (exactFixes[index] != fix) {
+			computeExact(index);
+		}
+
+		return new BuildingWithLocation(
+				buildings.get(index),
+				exactDistances[index],
+				RectangularLocation.computeHeadingOffset(
+						exactCornerBearings,
+						index * RectangularLocation.CORNER_COUNT,
+						heading));
+	}
+
+	/**
+	 * Computes the spherical distance and bearings to the building at {@code index} for the
+	 * current fix, like {@link BuildingWithLocation#BuildingWithLocation(Building, Location,
+	 * double)}.
+	 */
+	private void computeExact(int index) {
+		RectangularLocation buildingLocation = buildings.get(index).getLocation();
+
+		Location closestPoint = buildingLocation.findClosestPointWithin(location);
+		exactDistances[index] = MathUtils.getDistance(
+				location.getLatitude(),
+				location.getLongitude(),
+				closestPoint.getLatitude(),
+				closestPoint.getLongitude());
+
+		buildingLocation.computeCornerBearings(
+				location,
+				exactCornerBearings,
+				index * RectangularLocation.CORNER_COUNT);
+
+		exactFixes[index] = fix;
+	}
+}
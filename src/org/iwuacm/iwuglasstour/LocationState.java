@@ -0,0 +1,142 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+
+/**
+ * What {@link BuildingLocationManager} knows about the user at one moment: the buildings in front
+ * and to the sides, the building they are inside, and whether there is a location and compass
+ * interference. Snapshots are immutable and every change makes a new one with a higher {@link
+ * #getVersion}, so a snapshot can be read on any thread without locks and never mixes the state
+ * from before and after a change.
+ */
+public final class LocationState {
+
+	/**
+	 * The state before anything is known.
+	 */
+	static final LocationState INITIAL =
+			new LocationState(0, null, null, null, null, false /* hasInterference */,
+					false /* hasLocation */);
+
+	private final long version;
+	private final BuildingWithLocation left;
+	private final BuildingWithLocation front;
+	private final BuildingWithLocation right;
+	private final Building inside;
+	private final boolean hasInterference;
+	private final boolean hasLocation;
+
+	private LocationState(
+			long version,
+			BuildingWithLocation left,
+			BuildingWithLocation front,
+			BuildingWithLocation right,
+			Building inside,
+			boolean hasInterference,
+			boolean hasLocation) {
+
+		this.version = version;
+		this.left = left;
+		this.front = front;
+		this.right = right;
+		this.inside = inside;
+		this.hasInterference = hasInterference;
+		this.hasLocation = hasLocation;
+	}
+
+	/**
+	 * Returns the number of changes before this snapshot. Later snapshots have higher versions.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the building to the left, or null if there is none. The nearby buildings are kept
+	 * from when the user was last outside while they are inside a building.
+	 */
+	public BuildingWithLocation getLeftBuilding() {
+		return left;
+	}
+
+	public BuildingWithLocation getFrontBuilding() {
+		return front;
+	}
+
+	public BuildingWithLocation getRightBuilding() {
+		return right;
+	}
+
+	public boolean isInsideBuilding() {
+		return inside != null;
+	}
+
+	/**
+	 * Returns the building that the user is within.
+	 *
+	 * @throws IllegalStateException if the user is not within a building (see
+	 * {@link #isInsideBuilding()})
+	 */
+	public Building getBuildingInside() {
+		if (!isInsideBuilding()) {
+			throw new IllegalStateException();
+		}
+
+		return inside;
+	}
+
+	/**
+	 * Returns the building that the user is inside, or else the building in front of them, or
+	 * null if there is neither.
+	 */
+	public Building getActiveBuilding() {
+		if (inside != null) {
+			return inside;
+		}
+
+		return (front == null) ? null : front.getBuilding();
+	}
+
+	public boolean hasCompassInterference() {
+		return hasInterference;
+	}
+
+	public boolean hasLocation() {
+		return hasLocation;
+	}
+
+	LocationState withNearbyBuildings(
+			BuildingWithLocation left,
+			BuildingWithLocation front,
+			BuildingWithLocation right) {
+
+		return new LocationState(
+				version + 1, left, front, right, inside, hasInterference, hasLocation);
+	}
+
+	/**
+	 * Returns the state with the user inside {@code inside}, or outside if it is null.
+	 */
+	LocationState withInside(Building inside) {
+		return new LocationState(
+				version + 1, left, front, right, inside, hasInterference, hasLocation);
+	}
+
+	LocationState withHasInterference(boolean hasInterference) {
+		return new LocationState(
+				version + 1, left, front, right, inside, hasInterference, hasLocation);
+	}
+
+	LocationState withHasLocation(boolean hasLocation) {
+		return new LocationState(
+				version + 1, left, front, right, inside, hasInterference, hasLocation);
+	}
+
+	@Override
+	public String toString() {
+		return "LocationState [version=" + version + ", left=" + left + ", front=" + front
+				+ ", right=" + right + ", inside=" + inside + ", hasInterference="
+				+ hasInterference + ", hasLocation=" + hasLocation + "]";
+	}
+}
@@ -0,0 +1,217 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.iwuacm.iwuglasstour.model.Building;
+
+import android.app.PendingIntent;
+import android.support.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Keeps the menu's {@link PendingIntent} up to date with the active building and whether the user
+ * is inside it. Updating the {@link PendingIntent} is a call into the system, and a single change
+ * such as entering a building changes both, so changes are:
+ *
+ * <ul>
+ * <li>skipped if they leave the menu the same as it was last published,
+ * <li>coalesced if a publish is already scheduled, and
+ * <li>otherwise published after {@link #DELAY_MILLIS}, which batches changes arriving together.
+ * </ul>
+ *
+ * <p>Changes may come from any thread, while publishing happens on the {@link
+ * ScheduledExecutorService} (or the caller of {@link #publishNow}). Publishing is done outside of
+ * the lock on the state, so a change never waits for the call into the system. Once {@link #stop}
+ * is called, changes are ignored, so that the executor can be shut down while changes are still
+ * arriving.
+ */
+class MenuIntentUpdater {
+
+	/**
+	 * Publishes the state of the menu.
+	 */
+	interface Publisher {
+		/**
+		 * Called with the ID of the active building (or {@link #NO_BUILDING}) and whether the user
+		 * is inside it.
+		 */
+		void publish(int activeBuildingId, boolean isInside);
+	}
+
+	/**
+	 * The active building ID when there is no active building.
+	 */
+	static final int NO_BUILDING = -1;
+
+	/**
+	 * How long changes are collected before they are published, which is about a frame.
+	 */
+	@VisibleForTesting
+	static final long DELAY_MILLIS = 1000 / 30;
+
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final Publisher publisher;
+
+	private final Runnable publishRunnable = new Runnable() {
+		@Override
+		public void run() {
+			publish(true /* isScheduled */);
+		}
+	};
+
+	/**
+	 * Held while publishing, so that publishes are made one at a time. It is taken before this.
+	 */
+	private final Object publishLock = new Object();
+
+	// All of the following are guarded by this.
+	private int activeBuildingId;
+	private boolean isInside;
+	private boolean isQueued;
+	private boolean isStopped;
+
+	private boolean hasPublished;
+	private int publishedBuildingId;
+	private boolean publishedIsInside;
+
+	private long changeCount;
+	private long publishedCount;
+	private long coalescedCount;
+	private long skippedCount;
+
+	MenuIntentUpdater(ScheduledExecutorService scheduledExecutorService, Publisher publisher) {
+		this.scheduledExecutorService = scheduledExecutorService;
+		this.publisher = publisher;
+		this.activeBuildingId = NO_BUILDING;
+		this.isInside = false;
+		this.isQueued = false;
+		this.hasPublished = false;
+		this.isStopped = false;
+	}
+
+	/**
+	 * Changes the {@link Building} that the user can get detailed information for, which may be
+	 * null for none.
+	 */
+	synchronized void setActiveBuilding(@Nullable Building activeBuilding) {
+		activeBuildingId = (activeBuilding == null) ? NO_BUILDING : activeBuilding.getId();
+		onChange();
+	}
+
+	/**
+	 * Changes whether the user is inside the active building.
+	 */
+	synchronized void setIsInside(boolean isInside) {
+		this.isInside = isInside;
+		onChange();
+	}
+
+	/**
+	 * Publishes the current state right away, even if it was already published. Any scheduled
+	 * publish then has nothing left to do.
+	 */
+	void publishNow() {
+		publish(false /* isScheduled */);
+	}
+
+	/**
+	 * Ignores changes and scheduled publishes from now on. Call this before shutting down the
+	 * {@link ScheduledExecutorService}.
+	 */
+	synchronized void stop() {
+		isStopped = true;
+	}
+
+	/**
+	 * Returns the number of changes that were made.
+	 */
+	synchronized long getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Returns the number of times the state was published.
+	 */
+	synchronized long getPublishedCount() {
+		return publishedCount;
+	}
+
+	/**
+	 * Returns the number of changes that were folded into an already scheduled publish.
+	 */
+	synchronized long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Returns the number of changes, or scheduled publishes, that left the menu as it was.
+	 */
+	synchronized long getSkippedCount() {
+		return skippedCount;
+	}
+
+	private void onChange() {
+		if (isStopped) {
+			return;
+		}
+
+		changeCount++;
+
+		if (isQueued) {
+			coalescedCount++;
+		} else if (isPublished()) {
+			skippedCount++;
+		} else {
+			isQueued = true;
+			scheduledExecutorService.schedule(
+					publishRunnable, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private boolean isPublished() {
+		return hasPublished
+				&& (publishedBuildingId == activeBuildingId)
+				&& (publishedIsInside == isInside);
+	}
+
+	/**
+	 * Publishes the state as it is when the publish starts. Since publishes are made one at a time,
+	 * the last one published is always the newest.
+	 *
+	 * @param isScheduled whether this is the scheduled publish, which is skipped if it would leave
+	 *     the menu as it was
+	 */
+	private void publish(boolean isScheduled) {
+		synchronized (publishLock) {
+			int buildingId;
+			boolean inside;
+
+			synchronized (this) {
+				if (isScheduled) {
+					isQueued = false;
+
+					if (isPublished()) {
+						skippedCount++;
+						return;
+					}
+				}
+
+				if (isStopped) {
+					return;
+				}
+
+				hasPublished = true;
+				publishedBuildingId = activeBuildingId;
+				publishedIsInside = isInside;
+				publishedCount++;
+
+				buildingId = activeBuildingId;
+				inside = isInside;
+			}
+
+			publisher.publish(buildingId, inside);
+		}
+	}
+}
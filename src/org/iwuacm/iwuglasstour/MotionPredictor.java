@@ -0,0 +1,147 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import android.support.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Predicts where the user will be facing and standing {@link #LOOKAHEAD_SECONDS} from now, from
+ * how fast their head is turning and how they are walking. {@link BuildingLocationManager} selects
+ * the buildings for the predicted poses, so that their photos can be loaded before they are
+ * displayed.
+ *
+ * <p>Only used from the thread that updates the location state.
+ */
+class MotionPredictor {
+
+	/**
+	 * How far ahead to predict, in seconds.
+	 */
+	@VisibleForTesting
+	static final float LOOKAHEAD_SECONDS = 2.0f;
+
+	/**
+	 * The furthest that the predicted heading is turned from the heading, in degrees.
+	 */
+	@VisibleForTesting
+	static final float MAX_TURN_DEGREES = 90.0f;
+
+	/**
+	 * Turning slower than this (in degrees per second) is sensor noise.
+	 */
+	private static final float STILL_DEGREES_PER_SECOND = 5.0f;
+
+	/**
+	 * Walking slower than this (in meters per second) is GPS noise.
+	 */
+	private static final float STILL_METERS_PER_SECOND = 0.5f;
+
+	/**
+	 * How much of each new turn rate measurement goes into the smoothed turn rate.
+	 */
+	private static final float SMOOTHING = 0.3f;
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private static final double METERS_PER_KILOMETER = 1000.0;
+
+	/**
+	 * The smoothed turn rate in degrees per second, positive when turning clockwise.
+	 */
+	private float turnRate;
+	private float lastHeading;
+	private long lastNanos;
+	private boolean hasHeading;
+
+	MotionPredictor() {
+		this.turnRate = 0.0f;
+		this.hasHeading = false;
+	}
+
+	/**
+	 * Measures the turn rate for the user now facing {@code heading}, which may be NaN.
+	 */
+	void update(float heading, long nanos) {
+		if (Float.isNaN(heading)) {
+			turnRate = 0.0f;
+			hasHeading = false;
+			return;
+		}
+
+		if (hasHeading && (nanos > lastNanos)) {
+			double seconds = (nanos - lastNanos) / NANOS_PER_SECOND;
+			float measuredTurnRate = (float) (getSignedDifference(heading, lastHeading) / seconds);
+
+			turnRate = SMOOTHING * measuredTurnRate + (1.0f - SMOOTHING) * turnRate;
+		}
+
+		hasHeading = true;
+		lastHeading = heading;
+		lastNanos = nanos;
+	}
+
+	/**
+	 * Returns the smoothed turn rate in degrees per second, positive when turning clockwise.
+	 */
+	float getTurnRate() {
+		return turnRate;
+	}
+
+	/**
+	 * Returns whether the head is turning faster than sensor noise.
+	 */
+	boolean isTurning() {
+		return Math.abs(turnRate) >= STILL_DEGREES_PER_SECOND;
+	}
+
+	/**
+	 * Returns the heading the user will be facing, turned from {@code heading} at the turn rate by
+	 * up to {@link #MAX_TURN_DEGREES}, or {@code heading} if the head is not turning.
+	 */
+	float predictHeading(float heading) {
+		if (!isTurning()) {
+			return heading;
+		}
+
+		float turn = Math.max(
+				-MAX_TURN_DEGREES,
+				Math.min(MAX_TURN_DEGREES, turnRate * LOOKAHEAD_SECONDS));
+		return MathUtils.mod(heading + turn, 360.0f);
+	}
+
+	/**
+	 * Returns where the user will be if they keep walking at the speed and bearing of {@code
+	 * location}, or null if it has neither or they are not walking.
+	 */
+	@Nullable
+	Location predictLocation(android.location.Location location) {
+		if (!location.hasSpeed()
+				|| !location.hasBearing()
+				|| (location.getSpeed() < STILL_METERS_PER_SECOND)) {
+			return null;
+		}
+
+		double kilometers = location.getSpeed() * LOOKAHEAD_SECONDS / METERS_PER_KILOMETER;
+		double bearing = Math.toRadians(location.getBearing());
+
+		return new Location(
+				location.getLatitude()
+						+ MathUtils.convertKilometersToDegreesLatitude(
+								kilometers * Math.cos(bearing)),
+				location.getLongitude()
+						+ MathUtils.convertKilometersToDegreesLongitude(
+								kilometers * Math.sin(bearing),
+								location.getLatitude()));
+	}
+
+	/**
+	 * Returns the difference in degrees from {@code heading2} to {@code heading1}, between -180
+	 * and 180 and positive clockwise.
+	 */
+	private static float getSignedDifference(float heading1, float heading2) {
+		return MathUtils.mod(heading1 - heading2 + 180.0f, 360.0f) - 180.0f;
+	}
+}
@@ -0,0 +1,337 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+/**
+ * Selects the buildings to the left, in front, and to the right of the user from a {@link
+ * LocationFix} and a heading. The buildings are picked with running minimums rather than by
+ * sorting, so selecting does not allocate.
+ *
+ * <p>The front building is the one within the cone of visual attention with the smallest absolute
+ * heading offset (then the smallest distance). The left and right buildings are the closest ones
+ * in the cone to either side of the front building, or otherwise the ones outside the cone but
+ * within the hemisphere with the smallest absolute heading offset to either side of the heading.
+ *
+ * <p>Only the buildings near the heading are looked at, found through the {@link
+ * BuildingArcIndex} of the fix. The index only narrows down the candidates, with a small {@link
+ * #MARGIN} for rounding; the heading offsets that decide between them are computed exactly.
+ */
+class NearbyBuildingSelector {
+
+	/**
+	 * Returned by the getters when there is no building in that position.
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * How far in degrees past the bearings that matter to still look for arcs, so that rounding in
+	 * the bearings never hides a building.
+	 */
+	private static final float MARGIN = 0.01f;
+
+	private static final float HALF_CONE = BuildingLocationManager.CONE_OF_VISUAL_ATTENTION / 2.0f;
+
+	private final double[] headingOffsets;
+
+	/**
+	 * The indices of the buildings within the cone of visual attention.
+	 */
+	private final int[] cone;
+
+	private int coneCount;
+	private int outsideLeft;
+	private int outsideRight;
+
+	private int left;
+	private int front;
+	private int right;
+
+	NearbyBuildingSelector(int buildingCount) {
+		this.headingOffsets = new double[buildingCount];
+		this.cone = new int[buildingCount];
+		this.coneCount = 0;
+		this.outsideLeft = NONE;
+		this.outsideRight = NONE;
+		this.left = NONE;
+		this.front = NONE;
+		this.right = NONE;
+	}
+
+	/**
+	 * Selects the left, front, and right buildings for the location of {@code locationFix} and
+	 * {@code heading}.
+	 */
+	void select(LocationFix locationFix, double heading) {
+		coneCount = 0;
+		outsideLeft = NONE;
+		outsideRight = NONE;
+
+		int newFront = NONE;
+
+		// No building has a heading offset without a heading.
+		if (!Double.isNaN(heading)) {
+			BuildingArcIndex arcIndex = locationFix.getArcIndex();
+
+			for (int j = 0; j < arcIndex.getWideCount(); j++) {
+				newFront = classify(arcIndex.getWideBuilding(j), newFront, locationFix, heading);
+			}
+
+			newFront = findInCone(arcIndex, newFront, locationFix, heading);
+			findOutsideLeft(arcIndex, locationFix, heading);
+			findOutsideRight(arcIndex, locationFix, heading);
+		}
+
+		int coneLeft = NONE;
+		int coneRight = NONE;
+
+		if (newFront != NONE) {
+			double frontHeadingOffset = headingOffsets[newFront];
+
+			for (int j = 0; j < coneCount; j++) {
+				int i = cone[j];
+				double difference = headingOffsets[i] - frontHeadingOffset;
+
+				// Note that the equal case is explicitly excluded, because a building with the same
+				// heading offset is in front, not to the left nor right.
+				if (difference < 0) {
+					if ((coneLeft == NONE)
+							|| isCloserThan(i, coneLeft, frontHeadingOffset, locationFix)) {
+						coneLeft = i;
+					}
+				} else if (difference > 0) {
+					if ((coneRight == NONE)
+							|| isCloserThan(i, coneRight, frontHeadingOffset, locationFix)) {
+						coneRight = i;
+					}
+				}
+			}
+		}
+
+		front = newFront;
+		left = (coneLeft == NONE) ? outsideLeft : coneLeft;
+		right = (coneRight == NONE) ? outsideRight : coneRight;
+	}
+
+	/**
+	 * Returns the index of the building to the left or {@link #NONE}.
+	 */
+	int getLeft() {
+		return left;
+	}
+
+	/**
+	 * Returns the index of the building in front or {@link #NONE}.
+	 */
+	int getFront() {
+		return front;
+	}
+
+	/**
+	 * Returns the index of the building to the right or {@link #NONE}.
+	 */
+	int getRight() {
+		return right;
+	}
+
+	/**
+	 * Returns the index of the building to the left outside of the cone but within the
+	 * hemisphere, which is the next to come into the cone when turning left, or {@link #NONE}.
+	 */
+	int getOutsideLeft() {
+		return outsideLeft;
+	}
+
+	/**
+	 * Returns the index of the building to the right outside of the cone but within the
+	 * hemisphere, which is the next to come into the cone when turning right, or {@link #NONE}.
+	 */
+	int getOutsideRight() {
+		return outsideRight;
+	}
+
+	/**
+	 * Computes the heading offset of the building at {@code index} and adds it to the cone or to
+	 * the buildings outside of it.
+	 *
+	 * @return the front building so far
+	 */
+	private int classify(int index, int front, LocationFix locationFix, double heading) {
+		double headingOffset = locationFix.getHeadingOffset(index, heading);
+		headingOffsets[index] = headingOffset;
+
+		double absoluteHeadingOffset = Math.abs(headingOffset);
+		if (!(absoluteHeadingOffset <= 90.0)) {
+			// Not within the same hemisphere as the heading.
+			return front;
+		}
+
+		if (absoluteHeadingOffset <= HALF_CONE) {
+			cone[coneCount++] = index;
+
+			if ((front == NONE) || isBefore(index, front, locationFix)) {
+				front = index;
+			}
+		} else {
+			updateOutside(index, locationFix);
+		}
+
+		return front;
+	}
+
+	/**
+	 * Adds the building at {@code index}, whose heading offset has been computed, to the buildings
+	 * outside of the cone if it is outside of the cone but within the hemisphere.
+	 */
+	private void updateOutside(int index, LocationFix locationFix) {
+		double headingOffset = headingOffsets[index];
+		double absoluteHeadingOffset = Math.abs(headingOffset);
+		if (!(absoluteHeadingOffset <= 90.0) || (absoluteHeadingOffset <= HALF_CONE)) {
+			return;
+		}
+
+		if (headingOffset < 0) {
+			if ((outsideLeft == NONE) || isBefore(index, outsideLeft, locationFix)) {
+				outsideLeft = index;
+			}
+		} else if (headingOffset > 0) {
+			if ((outsideRight == NONE) || isBefore(index, outsideRight, locationFix)) {
+				outsideRight = index;
+			}
+		}
+	}
+
+	/**
+	 * Classifies the buildings with narrow arcs that may reach into the cone. Those are the arcs
+	 * that start in the cone or at most {@link BuildingArcIndex#MAX_NARROW_WIDTH} before it.
+	 *
+	 * @return the front building so far
+	 */
+	private int findInCone(
+			BuildingArcIndex arcIndex,
+			int front,
+			LocationFix locationFix,
+			double heading) {
+
+		float from = MathUtils.mod(
+				(float) heading - HALF_CONE - BuildingArcIndex.MAX_NARROW_WIDTH - MARGIN,
+				360.0f);
+		float span = BuildingArcIndex.MAX_NARROW_WIDTH + 2.0f * (HALF_CONE + MARGIN);
+
+		int first = arcIndex.findFirstStartFrom(from);
+		for (int j = 0; j < arcIndex.getBuildingCount(); j++) {
+			int position = (first + j) % arcIndex.getBuildingCount();
+			if (MathUtils.mod(arcIndex.getStart(position) - from, 360.0f) > span) {
+				break;
+			}
+
+			int index = arcIndex.getBuildingByStart(position);
+			if (!arcIndex.isWide(index)) {
+				front = classify(index, front, locationFix, heading);
+			}
+		}
+
+		return front;
+	}
+
+	/**
+	 * Finds the buildings with narrow arcs that may be the closest outside of the cone to the
+	 * left, by going counterclockwise through the arcs that end before the cone. That stops at the
+	 * edge of the hemisphere or once the arcs are further away than the best building found.
+	 */
+	private void findOutsideLeft(
+			BuildingArcIndex arcIndex,
+			LocationFix locationFix,
+			double heading) {
+
+		float from = MathUtils.mod((float) heading - HALF_CONE + MARGIN, 360.0f);
+
+		int first = arcIndex.findLastEndUpTo(from);
+		for (int j = 0; j < arcIndex.getBuildingCount(); j++) {
+			int position = (first - j + arcIndex.getBuildingCount()) % arcIndex.getBuildingCount();
+			float approximateOffset =
+					HALF_CONE + MathUtils.mod(from - arcIndex.getEnd(position), 360.0f);
+			if (approximateOffset > getSearchLimit(outsideLeft)) {
+				break;
+			}
+
+			int index = arcIndex.getBuildingByEnd(position);
+			if (!arcIndex.isWide(index)) {
+				headingOffsets[index] = locationFix.getHeadingOffset(index, heading);
+				updateOutside(index, locationFix);
+			}
+		}
+	}
+
+	/**
+	 * Finds the buildings with narrow arcs that may be the closest outside of the cone to the
+	 * right, like {@link #findOutsideLeft} but clockwise through the arcs that start after the
+	 * cone.
+	 */
+	private void findOutsideRight(
+			BuildingArcIndex arcIndex,
+			LocationFix locationFix,
+			double heading) {
+
+		float from = MathUtils.mod((float) heading + HALF_CONE - MARGIN, 360.0f);
+
+		int first = arcIndex.findFirstStartFrom(from);
+		for (int j = 0; j < arcIndex.getBuildingCount(); j++) {
+			int position = (first + j) % arcIndex.getBuildingCount();
+			float approximateOffset =
+					HALF_CONE + MathUtils.mod(arcIndex.getStart(position) - from, 360.0f);
+			if (approximateOffset > getSearchLimit(outsideRight)) {
+				break;
+			}
+
+			int index = arcIndex.getBuildingByStart(position);
+			if (!arcIndex.isWide(index)) {
+				headingOffsets[index] = locationFix.getHeadingOffset(index, heading);
+				updateOutside(index, locationFix);
+			}
+		}
+	}
+
+	/**
+	 * Returns how far from the heading, in degrees, a building outside of the cone can still beat
+	 * {@code best}, including the margins on either side.
+	 */
+	private float getSearchLimit(int best) {
+		double limit = (best == NONE) ? 90.0 : Math.abs(headingOffsets[best]);
+		return (float) limit + 2.0f * MARGIN;
+	}
+
+	/**
+	 * Returns whether building {@code a} comes before building {@code b} when ordered by absolute
+	 * heading offset, then by distance, then by index.
+	 */
+	private boolean isBefore(int a, int b, LocationFix locationFix) {
+		int compareValue =
+				Double.compare(Math.abs(headingOffsets[a]), Math.abs(headingOffsets[b]));
+		if (compareValue == 0) {
+			compareValue = Double.compare(locationFix.getDistance(a), locationFix.getDistance(b));
+		}
+
+		return (compareValue == 0) ? (a < b) : (compareValue < 0);
+	}
+
+	/**
+	 * Returns whether building {@code a} comes before building {@code b} when ordered by distance,
+	 * then by absolute heading offset relative to the front building, then by {@link #isBefore}.
+	 */
+	private boolean isCloserThan(
+			int a,
+			int b,
+			double frontHeadingOffset,
+			LocationFix locationFix) {
+
+		int compareValue =
+				Double.compare(locationFix.getDistance(a), locationFix.getDistance(b));
+		if (compareValue == 0) {
+			compareValue = Double.compare(
+					Math.abs(locationFix.getHeadingOffset(a, frontHeadingOffset)),
+					Math.abs(locationFix.getHeadingOffset(b, frontHeadingOffset)));
+		}
+
+		return (compareValue == 0) ? isBefore(a, b, locationFix) : (compareValue < 0);
+	}
+}
@@ -1,6 +1,7 @@
 package org.iwuacm.iwuglasstour;
 
 import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Buildings;
 
 import android.app.Activity;
 import android.content.Intent;
@@ -12,10 +13,10 @@ import android.view.MenuItem;
 public class TourMenuActivity extends Activity {
 	
 	/**
-	 * The {@link Intent} extra that contains the active building to provide detailed information
-	 * for.
+	 * The {@link Intent} extra that contains the ID of the active building to provide detailed
+	 * information for (see {@link Buildings#getBuilding}). It is absent if there is none.
 	 */
-	public static final String ACTIVE_BUILDING_MODEL = "activeBuildingModel";
+	public static final String ACTIVE_BUILDING_ID = "activeBuildingId";
 	
 	/**
 	 * The {@link Intent} extra that specifies whether a user is inside a building.
@@ -50,8 +51,16 @@ public class TourMenuActivity extends Activity {
 	public boolean onPrepareOptionsMenu(Menu menu) {
 		MenuItem infoItem = menu.findItem(R.id.building_info);
 
+		// The info item is hidden until the buildings have loaded, rather than waiting for them on
+		// the main thread. It is also hidden for an ID that is not a building's, which includes
+		// MenuIntentUpdater.NO_BUILDING.
 		Intent intent = getIntent();
-		activeBuilding = (Building) intent.getSerializableExtra(ACTIVE_BUILDING_MODEL);
+		int activeBuildingId =
+				intent.getIntExtra(ACTIVE_BUILDING_ID, MenuIntentUpdater.NO_BUILDING);
+		Buildings buildings = Buildings.getLoadedBuildings();
+		activeBuilding = (buildings != null)
+				? buildings.getBuilding(activeBuildingId).orNull()
+				: null;
 		isInside = intent.getBooleanExtra(IS_INSIDE, false);
 		if (activeBuilding == null) {
 			infoItem.setVisible(false);
@@ -76,7 +85,7 @@ public class TourMenuActivity extends Activity {
 					@Override
 					public void run() {
 						Intent intent = new Intent(TourMenuActivity.this, InfoActivity.class);
-						intent.putExtra(InfoActivity.BUILDING_MODEL, activeBuilding);
+						intent.putExtra(InfoActivity.BUILDING_ID, activeBuilding.getId());
 						intent.putExtra(InfoActivity.IS_INSIDE, isInside);
 						startActivity(intent);
 					}
@@ -115,4 +124,4 @@ public class TourMenuActivity extends Activity {
 	public void onOptionsMenuClosed(Menu menu) {
 		finish();
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
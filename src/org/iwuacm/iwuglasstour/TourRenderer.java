@@ -1,7 +1,9 @@
 package org.iwuacm.iwuglasstour;
 
+import java.util.List;
+
 import org.iwuacm.iwuglasstour.model.Building;
-import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.view.BuildingPhotoPrefetcher;
 import org.iwuacm.iwuglasstour.view.InsideView;
 import org.iwuacm.iwuglasstour.view.OutsideView;
 import org.iwuacm.iwuglasstour.view.ViewChangeListener;
@@ -17,72 +19,103 @@ import com.google.android.glass.timeline.DirectRenderingCallback;
 /**
  * Surface callback that provides rendering logic for the tour card. This takes care of both the
  * outside building and building information views. Also manages location tracking
- * lifespan.
+ * lifespan. Until the buildings have loaded and {@link #setBuildingLocationManager} is called, it
+ * shows a loading message. While tracking, the photos of the buildings likely to come into view
+ * next are prefetched, and the inside card of the building the user is predicted to walk into is
+ * prepared.
  */
 public class TourRenderer implements DirectRenderingCallback {
 	
 	private static final String TAG = TourRenderer.class.getSimpleName();
 	
-	private final BuildingLocationManager buildingLocationManager;
 	private final OutsideView outsideView;
 	private final InsideView insideView;
+	private final BuildingPhotoPrefetcher photoPrefetcher;
 	
 	private final BuildingLocationManager.Listener buildingLocationListener =
 			new BuildingLocationManager.Listener() {
 				@Override
-				public void onNearbyBuildingsChange(
-						BuildingWithLocation left,
-						BuildingWithLocation front,
-						BuildingWithLocation right) {
-					
-					outsideView.setNearbyBuildings(left, front, right);
+				public void onNearbyBuildingsChange(LocationState state) {
+					outsideView.setNearbyBuildings(
+							state.getLeftBuilding(),
+							state.getFrontBuilding(),
+							state.getRightBuilding());
+					photoPrefetcher.setDisplayedBuildings(
+							state.getLeftBuilding(),
+							state.getFrontBuilding(),
+							state.getRightBuilding());
 				}
 				
 				@Override
-				public void onExitBuilding() {
+				public void onExitBuilding(LocationState state) {
 					isInside = false;
 
 					outsideView.setNearbyBuildings(
-							buildingLocationManager.getLeftBuilding(),
-							buildingLocationManager.getFrontBuilding(),
-							buildingLocationManager.getRightBuilding());
+							state.getLeftBuilding(),
+							state.getFrontBuilding(),
+							state.getRightBuilding());
 				}
 				
 				@Override
-				public void onEnterBuilding(Building building) {
+				public void onEnterBuilding(LocationState state) {
 					isInside = true;
 					
-					insideView.setBuilding(building);
+					insideView.setBuilding(state.getBuildingInside());
 				}
 
 				@Override
-				public void onCompassInterference(boolean hasInterference) {
-					outsideView.setHasCompassInterference(hasInterference);
+				public void onCompassInterference(LocationState state) {
+					outsideView.setHasCompassInterference(state.hasCompassInterference());
 				}
 				
-				public void onHasLocationChange(boolean hasLocation) {
-					outsideView.setHasLocation(hasLocation);
+				public void onHasLocationChange(LocationState state) {
+					outsideView.setHasLocation(state.hasLocation());
+				}
+
+				@Override
+				public void onLikelyBuildingsChange(List<Building> buildings) {
+					photoPrefetcher.setLikelyBuildings(buildings);
+				}
+
+				@Override
+				public void onApproachBuilding(Building building) {
+					insideView.prepareBuilding(building);
 				}
 			};
 	
+	private BuildingLocationManager buildingLocationManager;
 	private boolean renderingPaused;
 	private boolean isRendering;
 	private SurfaceHolder holder;
 	private boolean isInside;
 	
-	public TourRenderer(Context context, BuildingLocationManager buildingLocationManager) {
-		this.buildingLocationManager = buildingLocationManager;
+	public TourRenderer(Context context) {
 		this.outsideView = new OutsideView(context);
 		this.insideView = new InsideView(context);
+		this.photoPrefetcher = new BuildingPhotoPrefetcher(context);
 		
 		outsideView.setListener(createViewChangeListenerFor(outsideView));
 		insideView.setListener(createViewChangeListenerFor(insideView));
+		outsideView.setIsLoading(true);
 
 		renderingPaused = false;
 		isRendering = false;
 		isInside = false;
 	}
 
+	/**
+	 * Starts showing the buildings located by {@code buildingLocationManager}, once they have
+	 * loaded. This must be called on the main thread.
+	 */
+	public void setBuildingLocationManager(BuildingLocationManager buildingLocationManager) {
+		this.buildingLocationManager = buildingLocationManager;
+		outsideView.setIsLoading(false);
+
+		if (isRendering) {
+			startTracking();
+		}
+	}
+
 	@Override
 	public void surfaceCreated(SurfaceHolder holder) {
 		renderingPaused = false;
@@ -136,26 +169,48 @@ public class TourRenderer implements DirectRenderingCallback {
 		isRendering = shouldRender;
 		
 		if (shouldRender) {
-			buildingLocationManager.startTracking();
-			buildingLocationManager.addListener(buildingLocationListener);
-
-			isInside = buildingLocationManager.isInsideBuilding();
-			if (isInside) {
-				insideView.setBuilding(buildingLocationManager.getBuildingInside());
-			} else {
-				outsideView.setNearbyBuildings(
-						buildingLocationManager.getLeftBuilding(),
-						buildingLocationManager.getFrontBuilding(),
-						buildingLocationManager.getRightBuilding());
-			}
-			
-			outsideView.setHasCompassInterference(buildingLocationManager.hasCompassInterference());
-			outsideView.setHasLocation(buildingLocationManager.hasLocation());
+			startTracking();
 		} else {
-			buildingLocationManager.stopTracking();
-			buildingLocationManager.removeListener(buildingLocationListener);
+			stopTracking();
 		}
 	}
+
+	/**
+	 * Starts tracking the location and shows the current buildings, if they have loaded.
+	 */
+	private void startTracking() {
+		if (buildingLocationManager == null) {
+			return;
+		}
+
+		buildingLocationManager.startTracking();
+		buildingLocationManager.addListener(buildingLocationListener);
+
+		LocationState state = buildingLocationManager.getLocationState();
+		isInside = state.isInsideBuilding();
+		if (isInside) {
+			insideView.setBuilding(state.getBuildingInside());
+		} else {
+			outsideView.setNearbyBuildings(
+					state.getLeftBuilding(),
+					state.getFrontBuilding(),
+					state.getRightBuilding());
+		}
+		
+		outsideView.setHasCompassInterference(state.hasCompassInterference());
+		outsideView.setHasLocation(state.hasLocation());
+	}
+
+	private void stopTracking() {
+		if (buildingLocationManager == null) {
+			return;
+		}
+
+		buildingLocationManager.stopTracking();
+		buildingLocationManager.removeListener(buildingLocationListener);
+		photoPrefetcher.clear();
+		insideView.release();
+	}
 	
 	/**
 	 * Repaints the active layout.
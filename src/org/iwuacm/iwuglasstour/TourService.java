@@ -1,11 +1,20 @@
 package org.iwuacm.iwuglasstour;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import org.iwuacm.iwuglasstour.model.Building;
-import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
 import org.iwuacm.iwuglasstour.model.Buildings;
 
 import com.google.android.glass.timeline.LiveCard;
 import com.google.android.glass.timeline.LiveCard.PublishMode;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import android.app.PendingIntent;
 import android.app.Service;
@@ -13,68 +22,177 @@ import android.content.Context;
 import android.content.Intent;
 import android.hardware.SensorManager;
 import android.location.LocationManager;
+import android.os.Handler;
 import android.os.IBinder;
+import android.util.Log;
 
 /**
  * Main application service. Manages cards and services.
  */
 public class TourService extends Service {
 	
+	private static final String TAG = TourService.class.getSimpleName();
 	private static final String LIVE_CARD_TAG = "iwu-tour";
 	
 	private final BuildingLocationManager.Listener buildingLocationListener =
 			new BuildingLocationManager.Listener() {
 				@Override
-				public void onNearbyBuildingsChange(
-						BuildingWithLocation left,
-						BuildingWithLocation front,
-						BuildingWithLocation right) {
-					
-					if (!buildingLocationManager.isInsideBuilding()) {
-						setActiveBuilding(front == null ? null : front.getBuilding());
+				public void onNearbyBuildingsChange(LocationState state) {
+					if (!state.isInsideBuilding()) {
+						menuIntentUpdater.setActiveBuilding(state.getActiveBuilding());
 					}
 				}
 				
 				@Override
-				public void onExitBuilding() {
-					BuildingWithLocation frontBuilding = buildingLocationManager.getFrontBuilding();
-					setActiveBuilding(frontBuilding == null ? null : frontBuilding.getBuilding());
-					setIsInside(false);
+				public void onExitBuilding(LocationState state) {
+					menuIntentUpdater.setActiveBuilding(state.getActiveBuilding());
+					menuIntentUpdater.setIsInside(false);
 				}
 				
 				@Override
-				public void onEnterBuilding(Building building) {
-					setActiveBuilding(building);
-					setIsInside(true);
+				public void onEnterBuilding(LocationState state) {
+					menuIntentUpdater.setActiveBuilding(state.getBuildingInside());
+					menuIntentUpdater.setIsInside(true);
 				}
 
 				@Override
-				public void onCompassInterference(boolean hasInterference) {
+				public void onCompassInterference(LocationState state) {
 					// Do not care here.
 				}
 				
 				@Override
-				public void onHasLocationChange(boolean hasLocation) {
+				public void onHasLocationChange(LocationState state) {
+					// Do not care here.
+				}
+
+				@Override
+				public void onLikelyBuildingsChange(List<Building> buildings) {
+					// Do not care here.
+				}
+
+				@Override
+				public void onApproachBuilding(Building building) {
 					// Do not care here.
 				}
 			};
 	
+	/**
+	 * Writes the menu state into {@link #menuIntent} and updates the {@link PendingIntent}, so
+	 * that the menu will reflect the changes.
+	 */
+	private final MenuIntentUpdater.Publisher menuIntentPublisher =
+			new MenuIntentUpdater.Publisher() {
+				@Override
+				public void publish(int activeBuildingId, boolean isInside) {
+					// Only the ID is passed, since the whole building would be serialized every
+					// time.
+					if (activeBuildingId == MenuIntentUpdater.NO_BUILDING) {
+						menuIntent.removeExtra(TourMenuActivity.ACTIVE_BUILDING_ID);
+					} else {
+						menuIntent.putExtra(TourMenuActivity.ACTIVE_BUILDING_ID, activeBuildingId);
+					}
+					menuIntent.putExtra(TourMenuActivity.IS_INSIDE, isInside);
+
+					// FLAG_UPDATE_CURRENT makes sure that the previous intent is overriden.
+					menuPendingIntent = PendingIntent.getActivity(
+							TourService.this, 0, menuIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+				}
+			};
+	
+	/**
+	 * Creates the {@link BuildingLocationManager} from the loaded buildings, on the loading
+	 * thread.
+	 */
+	private final Function<Buildings, BuildingLocationManager> createBuildingLocationManager =
+			new Function<Buildings, BuildingLocationManager>() {
+				@Override
+				public BuildingLocationManager apply(Buildings buildings) {
+					return new BuildingLocationManager(
+							buildings,
+							orientationManager,
+							VisibilityTable.load(getApplicationContext(), buildings.getAll()));
+				}
+			};
+	
+	/**
+	 * Starts locating the buildings once they have loaded, on the main thread.
+	 */
+	private final FutureCallback<BuildingLocationManager> onBuildingLocationManagerCreated =
+			new FutureCallback<BuildingLocationManager>() {
+				@Override
+				public void onSuccess(BuildingLocationManager buildingLocationManager) {
+					if (isDestroyed) {
+						return;
+					}
+
+					Log.d(TAG, "Buildings loaded " + getMillisSinceCreate() + " ms after onCreate");
+					TourService.this.buildingLocationManager = buildingLocationManager;
+					if (liveCard != null) {
+						startLocating();
+					}
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					if (!isDestroyed) {
+						Log.wtf(TAG, "Could not load buildings", t);
+					}
+				}
+			};
+	
+	/**
+	 * Runs the {@link #onBuildingLocationManagerCreated} callback on the main thread.
+	 */
+	private final Executor mainThreadExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			handler.post(command);
+		}
+	};
+	
+	private Handler handler;
+	private OrientationManager orientationManager;
+	private ExecutorService loadExecutorService;
+	private long createNanos;
+	private boolean isDestroyed;
+
+	/**
+	 * Null until the buildings have loaded.
+	 */
 	private BuildingLocationManager buildingLocationManager;
 	private LiveCard liveCard;
+	private TourRenderer renderer;
+	private ScheduledExecutorService menuExecutorService;
+	private MenuIntentUpdater menuIntentUpdater;
 	private Intent menuIntent;
+	private volatile PendingIntent menuPendingIntent;
 	
+	/**
+	 * Starts loading the buildings in the background, so that the live card can be published
+	 * without waiting for them.
+	 */
 	@Override
 	public void onCreate() {
 		super.onCreate();
 		
-		Buildings buildings = Buildings.getBuildings(getApplicationContext());
+		createNanos = System.nanoTime();
+		isDestroyed = false;
+		handler = new Handler();
+
 		LocationManager locationManager =
 				(LocationManager) getSystemService(Context.LOCATION_SERVICE);
 		SensorManager sensorManager =
 				(SensorManager) getSystemService(Context.SENSOR_SERVICE);
-		OrientationManager orientationManager =
-				new OrientationManager(sensorManager, locationManager);
-		buildingLocationManager = new BuildingLocationManager(buildings, orientationManager);
+		orientationManager = new OrientationManager(sensorManager, locationManager);
+
+		loadExecutorService = Executors.newSingleThreadExecutor();
+		Futures.addCallback(
+				Futures.transform(
+						Buildings.getBuildingsAsync(getApplicationContext(), loadExecutorService),
+						createBuildingLocationManager,
+						loadExecutorService),
+				onBuildingLocationManagerCreated,
+				mainThreadExecutor);
 	}
 
 	@Override
@@ -88,32 +206,28 @@ public class TourService extends Service {
 		if (liveCard == null) {
 			liveCard = new LiveCard(this, LIVE_CARD_TAG);
 			
-			TourRenderer renderer = new TourRenderer(this, buildingLocationManager);
+			renderer = new TourRenderer(this);
 			liveCard.setDirectRenderingEnabled(true).getSurfaceHolder().addCallback(renderer);
 			
             // Display the options menu on tap.
             menuIntent = new Intent(this, TourMenuActivity.class);
             menuIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            menuExecutorService = Executors.newSingleThreadScheduledExecutor();
+            menuIntentUpdater = new MenuIntentUpdater(menuExecutorService, menuIntentPublisher);
 
-            Building activeBuilding;
-            if (buildingLocationManager.isInsideBuilding()) {
-            	activeBuilding = buildingLocationManager.getBuildingInside();
-            } else {
-            	BuildingWithLocation frontBuilding = buildingLocationManager.getFrontBuilding();
-            	activeBuilding = frontBuilding == null ? null : frontBuilding.getBuilding();
-            }
+			if (buildingLocationManager != null) {
+				startLocating();
+			}
 
-			setActiveBuilding(activeBuilding, false);
-			setIsInside(buildingLocationManager.isInsideBuilding(), false);
-            liveCard.setAction(updatePendingIntent());
+			menuIntentUpdater.publishNow();
+            liveCard.setAction(menuPendingIntent);
 
 			liveCard.attach(this);
 			
 			// Only show card if started explicitly. It's possible it was restarted automatically,
 			// and we don't want to show it in that case.
             liveCard.publish((intent == null) ? PublishMode.SILENT : PublishMode.REVEAL);
-
-			buildingLocationManager.addListener(buildingLocationListener);
+			Log.d(TAG, "Card published " + getMillisSinceCreate() + " ms after onCreate");
 		} else {
 			liveCard.navigate();
 		}
@@ -123,58 +237,47 @@ public class TourService extends Service {
 	
 	@Override
 	public void onDestroy() {
+		isDestroyed = true;
+		loadExecutorService.shutdownNow();
+
 		if ((liveCard != null) && liveCard.isPublished()) {
 			liveCard.unpublish();
 			liveCard = null;
 		}
 		
-		buildingLocationManager.stopTracking();
-		buildingLocationManager = null;
+		if (buildingLocationManager != null) {
+			buildingLocationManager.removeListener(buildingLocationListener);
+			buildingLocationManager.stopTracking();
+			buildingLocationManager = null;
+		}
+		
+		if (menuIntentUpdater != null) {
+			// A listener callback may still be changing the menu on the update thread.
+			menuIntentUpdater.stop();
+			menuExecutorService.shutdownNow();
+			Log.d(TAG, "Menu: " + menuIntentUpdater.getChangeCount() + " changes, "
+					+ menuIntentUpdater.getPublishedCount() + " published, "
+					+ menuIntentUpdater.getCoalescedCount() + " coalesced, "
+					+ menuIntentUpdater.getSkippedCount() + " skipped");
+		}
 
 		super.onDestroy();
 	}
-	
-	/**
-	 * Changes the {@link Building} that the user can get detailed information for and updates the
-	 * pending intent, so that the menu will reflect the changes.
-	 */
-	private void setActiveBuilding(Building activeBuilding) {
-		setActiveBuilding(activeBuilding, true);
-	}
 
-	private void setActiveBuilding(Building activeBuilding, boolean updatePendingIntent) {
-		if (activeBuilding == null) {
-			menuIntent.removeExtra(TourMenuActivity.ACTIVE_BUILDING_MODEL);
-		} else {
-			menuIntent.putExtra(TourMenuActivity.ACTIVE_BUILDING_MODEL, activeBuilding);
-		}
-
-		if (updatePendingIntent) {
-			updatePendingIntent();
-		}
-	}
-	
 	/**
-	 * Changes whether the user is inside for the pending intent, so that the menu will reflect the
-	 * changes.
+	 * Shows the buildings on the card and keeps the menu up to date with them, once both the card
+	 * and the buildings are ready.
 	 */
-	private void setIsInside(boolean isInside) {
-		setIsInside(isInside, true);
-	}
+	private void startLocating() {
+		LocationState state = buildingLocationManager.getLocationState();
+		menuIntentUpdater.setActiveBuilding(state.getActiveBuilding());
+		menuIntentUpdater.setIsInside(state.isInsideBuilding());
+		buildingLocationManager.addListener(buildingLocationListener);
 
-	private void setIsInside(boolean isInside, boolean updatePendingIntent) {
-		menuIntent.putExtra(TourMenuActivity.IS_INSIDE, isInside);
-
-		if (updatePendingIntent) {
-			updatePendingIntent();
-		}
+		renderer.setBuildingLocationManager(buildingLocationManager);
 	}
-	
-	/**
-	 * Updates and returns a {@link PendingIntent} from the {@link #menuIntent}.
-	 */
-	private PendingIntent updatePendingIntent() {
-		// FLAG_UPDATE_CURRENT makes sure that the previous intent is overriden.
-		return PendingIntent.getActivity(this, 0, menuIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+
+	private long getMillisSinceCreate() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createNanos);
 	}
 }
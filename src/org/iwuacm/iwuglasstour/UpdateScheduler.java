@@ -0,0 +1,281 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import android.location.Location;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Schedules the updates of {@link BuildingLocationManager} based on how the user is moving. The
+ * sensors report a new heading many times a second even while the user stands still, so requests
+ * are:
+ *
+ * <ul>
+ * <li>skipped if neither the heading nor the location have really changed since the last update,
+ * <li>coalesced if an update is already scheduled, and
+ * <li>otherwise scheduled sooner the faster the head is turning, or right away for a new location.
+ * </ul>
+ *
+ * <p>Requests are expected to come from a single thread (the sensor callbacks on the main thread),
+ * while the updates run on the {@link ScheduledExecutorService}. The only state they share is
+ * atomic, so neither has to wait on the other.
+ */
+class UpdateScheduler {
+
+	/**
+	 * The shortest delay before an update, used for fast head turns and new locations.
+	 */
+	@VisibleForTesting
+	static final long MIN_DELAY_MILLIS = 1000 / 30;
+
+	/**
+	 * The longest delay before an update, used when the head is barely turning.
+	 */
+	@VisibleForTesting
+	static final long MAX_DELAY_MILLIS = 500;
+
+	/**
+	 * How far the head should turn between updates, in degrees.
+	 */
+	private static final float DEGREES_PER_UPDATE = 2.0f;
+
+	/**
+	 * Heading changes smaller than this since the last update (in degrees) are sensor noise.
+	 */
+	private static final float STILL_DEGREES = 0.5f;
+
+	/**
+	 * Location changes smaller than this since the last update (in kilometers) are GPS noise.
+	 */
+	private static final float STILL_KILOMETERS = 0.002f;
+
+	/**
+	 * How much of each new angular velocity measurement goes into the smoothed angular velocity.
+	 */
+	private static final float SMOOTHING = 0.3f;
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final Runnable update;
+	private final AtomicBoolean isQueued;
+	private final AtomicLong executedCount;
+	private final AtomicLong coalescedCount;
+	private final AtomicLong skippedCount;
+
+	private final Runnable updateRunnable = new Runnable() {
+		@Override
+		public void run() {
+			// Before the update, so that requests during the update schedule another one.
+			isQueued.set(false);
+
+			updatedHeading = requestedHeading;
+			updatedLocation = requestedLocation;
+			executedCount.incrementAndGet();
+
+			update.run();
+		}
+	};
+
+	private final Runnable timedUpdateRunnable = new Runnable() {
+		@Override
+		public void run() {
+			// Before the update, so that the update can request another one.
+			timedUpdate = null;
+			executedCount.incrementAndGet();
+
+			update.run();
+		}
+	};
+
+	/**
+	 * The update scheduled by {@link #requestAfter}, which is only scheduled from the update
+	 * thread but may be cancelled from any.
+	 */
+	private volatile ScheduledFuture<?> timedUpdate;
+
+	/**
+	 * Whether {@link #requestAfter} is ignored, since the updates have been stopped.
+	 */
+	private volatile boolean areRequestsAfterStopped;
+
+	/**
+	 * The pose of the latest request, read when an update starts.
+	 */
+	private volatile float requestedHeading;
+	private volatile Location requestedLocation;
+
+	/**
+	 * The pose that the last update started with.
+	 */
+	private volatile float updatedHeading;
+	private volatile Location updatedLocation;
+
+	/**
+	 * The angular velocity in degrees per second, only used from the requesting thread.
+	 */
+	private float angularVelocity;
+	private long lastRequestNanos;
+	private boolean hasRequested;
+
+	UpdateScheduler(ScheduledExecutorService scheduledExecutorService, Runnable update) {
+		this.scheduledExecutorService = scheduledExecutorService;
+		this.update = update;
+		this.isQueued = new AtomicBoolean(false);
+		this.executedCount = new AtomicLong();
+		this.coalescedCount = new AtomicLong();
+		this.skippedCount = new AtomicLong();
+		this.updatedHeading = Float.NaN;
+		this.angularVelocity = 0.0f;
+		this.hasRequested = false;
+	}
+
+	/**
+	 * Requests an update for the user now facing {@code heading} at {@code location}, which is
+	 * null without a location.
+	 */
+	void request(float heading, Location location) {
+		request(heading, location, System.nanoTime());
+	}
+
+	@VisibleForTesting
+	void request(float heading, Location location, long nanos) {
+		if (hasRequested && (nanos > lastRequestNanos)) {
+			double seconds = (nanos - lastRequestNanos) / NANOS_PER_SECOND;
+			float measuredVelocity =
+					(float) (getHeadingDifference(heading, requestedHeading) / seconds);
+
+			angularVelocity = SMOOTHING * measuredVelocity + (1.0f - SMOOTHING) * angularVelocity;
+		}
+
+		hasRequested = true;
+		lastRequestNanos = nanos;
+		requestedHeading = heading;
+		requestedLocation = location;
+
+		boolean hasMoved = hasMoved(location, updatedLocation);
+		if (!hasMoved && (getHeadingDifference(heading, updatedHeading) < STILL_DEGREES)) {
+			skippedCount.incrementAndGet();
+			return;
+		}
+
+		if (!isQueued.compareAndSet(false, true)) {
+			coalescedCount.incrementAndGet();
+			return;
+		}
+
+		scheduledExecutorService.schedule(
+				updateRunnable,
+				hasMoved ? MIN_DELAY_MILLIS : computeDelayMillis(angularVelocity),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Requests an update in {@code delayNanos} even if the user has not moved by then, for state
+	 * that changes with time alone. Does nothing if such an update is already scheduled, since
+	 * that update can request another one once it runs, or if {@link #stopRequestsAfter} was
+	 * called. Must be called from the update thread.
+	 */
+	void requestAfter(long delayNanos) {
+		if (areRequestsAfterStopped || (timedUpdate != null)) {
+			return;
+		}
+
+		timedUpdate = scheduledExecutorService.schedule(
+				timedUpdateRunnable,
+				delayNanos,
+				TimeUnit.NANOSECONDS);
+
+		// The updates may have been stopped while scheduling.
+		if (areRequestsAfterStopped) {
+			cancelTimedUpdate();
+		}
+	}
+
+	/**
+	 * Cancels the update scheduled by {@link #requestAfter} if it has not run yet, and ignores
+	 * {@link #requestAfter} until {@link #startRequestsAfter}, so that an update that is already
+	 * running cannot schedule another one.
+	 */
+	void stopRequestsAfter() {
+		areRequestsAfterStopped = true;
+		cancelTimedUpdate();
+	}
+
+	/**
+	 * Lets {@link #requestAfter} schedule updates again after {@link #stopRequestsAfter}.
+	 */
+	void startRequestsAfter() {
+		areRequestsAfterStopped = false;
+	}
+
+	private void cancelTimedUpdate() {
+		ScheduledFuture<?> scheduledUpdate = timedUpdate;
+		if (scheduledUpdate != null) {
+			scheduledUpdate.cancel(false);
+		}
+		timedUpdate = null;
+	}
+
+	/**
+	 * Returns the number of updates that have run.
+	 */
+	long getExecutedCount() {
+		return executedCount.get();
+	}
+
+	/**
+	 * Returns the number of requests that were folded into an already scheduled update.
+	 */
+	long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/**
+	 * Returns the number of requests that did not need an update because the user had not moved.
+	 */
+	long getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * Returns how long to wait before an update while the head is turning at {@code
+	 * angularVelocity} degrees per second, so that it turns about {@link #DEGREES_PER_UPDATE}
+	 * between updates.
+	 */
+	@VisibleForTesting
+	static long computeDelayMillis(float angularVelocity) {
+		if (!(angularVelocity > 0.0f)) {
+			return MAX_DELAY_MILLIS;
+		}
+
+		double delayMillis = 1000.0 * DEGREES_PER_UPDATE / angularVelocity;
+		return Math.max(MIN_DELAY_MILLIS, Math.min(MAX_DELAY_MILLIS, (long) delayMillis));
+	}
+
+	/**
+	 * Returns the absolute difference in degrees between two headings, which is NaN if either is.
+	 */
+	private static float getHeadingDifference(float heading1, float heading2) {
+		return Math.abs(MathUtils.mod(heading1 - heading2 + 180.0f, 360.0f) - 180.0f);
+	}
+
+	private static boolean hasMoved(Location location, Location previousLocation) {
+		if ((location == null) || (previousLocation == null)) {
+			return location != previousLocation;
+		}
+
+		return MathUtils.getDistance(
+				location.getLatitude(),
+				location.getLongitude(),
+				previousLocation.getLatitude(),
+				previousLocation.getLongitude()) >= STILL_KILOMETERS;
+	}
+}
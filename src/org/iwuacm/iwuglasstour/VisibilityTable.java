@@ -0,0 +1,305 @@
+package org.iwuacm.iwuglasstour;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The buildings to the left, in front, and to the right of the user, or the building the user is
+ * inside, precomputed by the {@code VisibilityTableGenerator} tool for a grid of cells over the
+ * campus and for bins of headings. Looking up a location and heading replaces locating the
+ * buildings with {@link LocationFix} and {@link NearbyBuildingSelector}.
+ *
+ * <p>The generator only stores an entry when every sample it took across the cell and bin agreed,
+ * so entries near the edges of buildings and near the headings where the selection changes are
+ * unknown, as are locations outside of the grid. The buildings then have to be located as usual.
+ *
+ * <p>The table is a big-endian binary file, which is read into memory. aapt compresses raw
+ * resources, so it cannot be memory-mapped from the APK:
+ *
+ * <pre>
+ * int    magic, version
+ * long   fingerprint of the building footprints (see {@link #computeFingerprint})
+ * int    building count, rows, columns, heading bins
+ * double southern latitude, western longitude, cell height and width in degrees
+ * byte   inside code of each cell, row by row
+ * int    index of the first run of each cell, plus the total number of runs
+ * run    for each cell, the runs of heading bins with the same codes:
+ *            short first bin, byte left code, byte front code, byte right code
+ * </pre>
+ *
+ * <p>A code is 0 for no building, the index of the building in {@link
+ * org.iwuacm.iwuglasstour.model.Buildings#getAll} plus 1, or {@link #UNKNOWN_CODE}.
+ */
+class VisibilityTable {
+
+	/**
+	 * Returned when there is no building.
+	 */
+	static final int NONE = NearbyBuildingSelector.NONE;
+
+	/**
+	 * Returned when the table does not know the answer.
+	 */
+	static final int UNKNOWN = -2;
+
+	static final int MAGIC = 0x49575654;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int RUN_SIZE = 5;
+	static final int NONE_CODE = 0;
+	static final int UNKNOWN_CODE = 0xFF;
+
+	/**
+	 * The most buildings that fit in a code.
+	 */
+	static final int MAX_BUILDING_COUNT = UNKNOWN_CODE - 2;
+
+	/**
+	 * The resource for the table. This is visible for testing.
+	 */
+	static final int VISIBILITY_TABLE_RAW_RESOURCE = R.raw.visibility_table;
+
+	private static final String TAG = VisibilityTable.class.getSimpleName();
+
+	private final ByteBuffer buffer;
+	private final int rows;
+	private final int columns;
+	private final int headingBins;
+	private final double southLatitude;
+	private final double westLongitude;
+	private final double cellHeight;
+	private final double cellWidth;
+	private final int runIndicesOffset;
+	private final int runsOffset;
+
+	private VisibilityTable(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.rows = buffer.getInt(20);
+		this.columns = buffer.getInt(24);
+		this.headingBins = buffer.getInt(28);
+		this.southLatitude = buffer.getDouble(32);
+		this.westLongitude = buffer.getDouble(40);
+		this.cellHeight = buffer.getDouble(48);
+		this.cellWidth = buffer.getDouble(56);
+		this.runIndicesOffset = HEADER_SIZE + rows * columns;
+		this.runsOffset = runIndicesOffset + (rows * columns + 1) * 4;
+	}
+
+	/**
+	 * Loads the table from the resources if it exists and was generated for {@code buildings}.
+	 */
+	static Optional<VisibilityTable> load(Context context, List<Building> buildings) {
+		try {
+			return read(
+					readResource(context.getResources(), VISIBILITY_TABLE_RAW_RESOURCE),
+					buildings);
+		} catch (IOException e) {
+			Log.w(TAG, "Could not read visibility table: " + e.getMessage());
+			return Optional.absent();
+		} catch (Resources.NotFoundException e) {
+			Log.w(TAG, "No visibility table: " + e.getMessage());
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Reads a table from {@code buffer}, which is absent if it is not a table for {@code
+	 * buildings}.
+	 */
+	static Optional<VisibilityTable> read(ByteBuffer buffer, List<Building> buildings) {
+		if ((buffer.capacity() < HEADER_SIZE)
+				|| (buffer.getInt(0) != MAGIC)
+				|| (buffer.getInt(4) != VERSION)) {
+			Log.w(TAG, "Not a visibility table.");
+			return Optional.absent();
+		}
+
+		if ((buffer.getLong(8) != computeFingerprint(buildings))
+				|| (buffer.getInt(16) != buildings.size())) {
+			Log.w(TAG, "Visibility table is for different buildings.");
+			return Optional.absent();
+		}
+
+		VisibilityTable table = new VisibilityTable(buffer);
+		int cellCount = table.rows * table.columns;
+		if ((table.rows < 0)
+				|| (table.columns < 0)
+				|| (table.headingBins <= 0)
+				|| (buffer.capacity() < table.runsOffset)
+				|| (buffer.capacity() != table.getRunOffset(table.getRunIndex(cellCount)))) {
+			Log.w(TAG, "Visibility table is corrupt.");
+			return Optional.absent();
+		}
+
+		return Optional.of(table);
+	}
+
+	/**
+	 * Computes a fingerprint of the order and footprints of {@code buildings}, so that a table
+	 * generated for other buildings is not used.
+	 */
+	static long computeFingerprint(List<Building> buildings) {
+		long fingerprint = buildings.size();
+
+		for (Building building : buildings) {
+			RectangularLocation location = building.getLocation();
+
+			fingerprint = 31 * fingerprint + Double.doubleToLongBits(
+					location.getSouthWestCorner().getLatitude());
+			fingerprint = 31 * fingerprint + Double.doubleToLongBits(
+					location.getSouthWestCorner().getLongitude());
+			fingerprint = 31 * fingerprint + Double.doubleToLongBits(
+					location.getNorthEastCorner().getLatitude());
+			fingerprint = 31 * fingerprint + Double.doubleToLongBits(
+					location.getNorthEastCorner().getLongitude());
+		}
+
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the size of the table in bytes.
+	 */
+	int getSize() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * Returns the index of the building that {@code location} is inside, {@link #NONE} if it is
+	 * not inside any, or {@link #UNKNOWN}.
+	 */
+	int findInside(Location location) {
+		int cell = findCell(location);
+		return (cell < 0) ? UNKNOWN : decode(buffer.get(HEADER_SIZE + cell) & 0xFF);
+	}
+
+	/**
+	 * Looks up the buildings to the left, in front, and to the right of a user outside of the
+	 * buildings at {@code location} facing {@code heading}, and puts their indices (or {@link
+	 * #NONE}) in {@code nearby} in that order.
+	 *
+	 * @return whether the buildings were found, otherwise {@code nearby} is left unchanged
+	 */
+	boolean findNearby(Location location, double heading, int[] nearby) {
+		int cell = findCell(location);
+		int bin = getHeadingBin(heading);
+		if ((cell < 0) || (bin < 0)) {
+			return false;
+		}
+
+		// Find the last run that starts at or before the bin.
+		int low = getRunIndex(cell);
+		int high = getRunIndex(cell + 1) - 1;
+		if (high < low) {
+			return false;
+		}
+
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (buffer.getShort(getRunOffset(middle)) <= bin) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		int offset = getRunOffset(low);
+		int left = decode(buffer.get(offset + 2) & 0xFF);
+		int front = decode(buffer.get(offset + 3) & 0xFF);
+		int right = decode(buffer.get(offset + 4) & 0xFF);
+		if ((left == UNKNOWN) || (front == UNKNOWN) || (right == UNKNOWN)) {
+			return false;
+		}
+
+		nearby[0] = left;
+		nearby[1] = front;
+		nearby[2] = right;
+		return true;
+	}
+
+	/**
+	 * Returns the bin that {@code heading} is in, or -1 if it is not a finite number. The nearby
+	 * buildings are the same for every heading in a bin.
+	 */
+	int getHeadingBin(double heading) {
+		if (Double.isNaN(heading) || Double.isInfinite(heading)) {
+			return -1;
+		}
+
+		double normalizedHeading = heading % 360.0;
+		if (normalizedHeading < 0.0) {
+			normalizedHeading += 360.0;
+		}
+		return Math.min((int) (normalizedHeading / 360.0 * headingBins), headingBins - 1);
+	}
+
+	/**
+	 * Returns the cell that {@code location} is in, or -1 if it is outside of the grid.
+	 */
+	private int findCell(Location location) {
+		double row = Math.floor((location.getLatitude() - southLatitude) / cellHeight);
+		double column = Math.floor((location.getLongitude() - westLongitude) / cellWidth);
+
+		// Also catches NaN.
+		if (!((row >= 0) && (row < rows) && (column >= 0) && (column < columns))) {
+			return -1;
+		}
+
+		return (int) row * columns + (int) column;
+	}
+
+	private int getRunIndex(int cell) {
+		return buffer.getInt(runIndicesOffset + cell * 4);
+	}
+
+	private int getRunOffset(int run) {
+		return runsOffset + run * RUN_SIZE;
+	}
+
+	/**
+	 * Returns the code for a building index, {@link #NONE}, or {@link #UNKNOWN}.
+	 */
+	static int encode(int building) {
+		if (building == UNKNOWN) {
+			return UNKNOWN_CODE;
+		}
+
+		return building + 1;
+	}
+
+	/**
+	 * Returns the building index, {@link #NONE}, or {@link #UNKNOWN} for a code.
+	 */
+	static int decode(int code) {
+		if (code == UNKNOWN_CODE) {
+			return UNKNOWN;
+		}
+
+		return code - 1;
+	}
+
+	/**
+	 * Reads the resource {@code id} into memory.
+	 */
+	private static ByteBuffer readResource(Resources resources, int id) throws IOException {
+		InputStream in = resources.openRawResource(id);
+		try {
+			return ByteBuffer.wrap(ByteStreams.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -3,25 +3,34 @@ package org.iwuacm.iwuglasstour.model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
- * An attraction or interesting place within a {@link Building}.
+ * An attraction or interesting place within a {@link Building}. Attractions are identified by
+ * their ID, which {@link Buildings} assigns in the order that it reads them.
  */
 public class Attraction implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
+	private final int id;
 	private final String name;
 	private final String description;
 	private final List<Photo> photos;
 	
 	private Attraction(Builder builder) {
+		this.id = builder.id;
 		this.name = builder.name;
 		this.description = builder.description;
 		this.photos = builder.photos;
 	}
 	
+	/**
+	 * Returns the ID of this attraction, unique among the attractions of all buildings.
+	 */
+	public int getId() {
+		return id;
+	}
+	
 	/**
 	 * Returns the name of this attraction.
 	 */
@@ -49,17 +58,18 @@ public class Attraction implements Serializable {
 			return false;
 		}
 		
-		Attraction other = (Attraction) o;
-		
-		return Objects.equals(name, other.name)
-				&& Objects.equals(description, other.description)
-				&& Objects.equals(photos, other.photos);
+		return id == ((Attraction) o).id;
+	}
+	
+	@Override
+	public int hashCode() {
+		return id;
 	}
 	
 	@Override
 	public String toString() {
-		return "Attraction [name=" + name + ", description=" + description + ", photos=" + photos
-				+ "]";
+		return "Attraction [id=" + id + ", name=" + name + ", description=" + description
+				+ ", photos=" + photos + "]";
 	}
 
 	/**
@@ -76,6 +86,7 @@ public class Attraction implements Serializable {
 
 		private final List<Photo> photos;
 		
+		private Integer id;
 		private String name;
 		private String description;
 		
@@ -83,6 +94,14 @@ public class Attraction implements Serializable {
 			this.photos = new ArrayList<Photo>();
 		}
 		
+		/**
+		 * Sets the ID of this attraction.
+		 */
+		public Builder withId(int id) {
+			this.id = id;
+			return this;
+		}
+		
 		/**
 		 * Sets the name of this attraction.
 		 */
@@ -110,10 +129,10 @@ public class Attraction implements Serializable {
 		/**
 		 * Creates a new {@link Attraction} using this {@link Builder}.
 		 * 
-		 * @throws IllegalArgumentException if no name is given
+		 * @throws IllegalArgumentException if no ID or name is given
 		 */
 		public Attraction build() {
-			if (name == null) {
+			if ((id == null) || (name == null)) {
 				throw new IllegalArgumentException();
 			}
 
@@ -1,32 +1,56 @@
 package org.iwuacm.iwuglasstour.model;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
 
 /**
- * Represents a building on the IWU campus.
+ * Represents a building on the IWU campus. Buildings are identified by their ID, which {@link
+ * Buildings} assigns as the building's position in the list of all buildings.
+ *
+ * <p>The description, photos, and attractions may be loaded when one of them is first accessed
+ * (see {@link BuildingDetails}), since locating the buildings only needs their locations.
  */
 public class Building implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 
+	private final int id;
 	private final String name;
 	private final String shortName;
-	private final String description;
 	private final RectangularLocation location;
-	private final List<Photo> photos;
-	private final List<Attraction> attractions;
+
+	/**
+	 * Loads {@link #details}, or null once they are loaded. Guarded by this.
+	 */
+	private transient Supplier<BuildingDetails> detailsSupplier;
+	private volatile BuildingDetails details;
 	
 	private Building(Builder builder) {
+		this.id = builder.id;
 		this.name = builder.name;
 		this.shortName = builder.shortName;
-		this.description = builder.description;
 		this.location = builder.location;
-		this.photos = builder.photos;
-		this.attractions = builder.attractions;
+
+		if (builder.detailsSupplier != null) {
+			this.detailsSupplier = builder.detailsSupplier;
+		} else {
+			this.details = new BuildingDetails(
+					builder.description, builder.photos, builder.attractions);
+		}
+	}
+	
+	/**
+	 * Returns the ID of the building, which is its index in {@link Buildings#getAll}.
+	 */
+	public int getId() {
+		return id;
 	}
 	
 	/**
@@ -47,7 +71,7 @@ public class Building implements Serializable {
 	 * Returns a description of the building (if present).
 	 */
 	public String getDescription() {
-		return description;
+		return getDetails().getDescription();
 	}
 	
 	/**
@@ -61,14 +85,44 @@ public class Building implements Serializable {
 	 * Returns the {@link Photo}s of this building.
 	 */
 	public List<Photo> getPhotos() {
-		return photos;
+		return getDetails().getPhotos();
 	}
 	
 	/**
 	 * Returns the attractions in the building.
 	 */
 	public List<Attraction> getAttractions() {
-		return attractions;
+		return getDetails().getAttractions();
+	}
+	
+	/**
+	 * Returns whether the description, photos, and attractions have been loaded.
+	 */
+	@VisibleForTesting
+	boolean hasLoadedDetails() {
+		return details != null;
+	}
+	
+	private BuildingDetails getDetails() {
+		BuildingDetails loadedDetails = details;
+		if (loadedDetails != null) {
+			return loadedDetails;
+		}
+
+		synchronized (this) {
+			if (details == null) {
+				details = detailsSupplier.get();
+				detailsSupplier = null;
+			}
+
+			return details;
+		}
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		// The details are written with the building, since the supplier cannot be.
+		getDetails();
+		out.defaultWriteObject();
 	}
 	
 	@Override
@@ -77,21 +131,19 @@ public class Building implements Serializable {
 			return false;
 		}
 		
-		Building other = (Building) o;
-		
-		return Objects.equals(name, other.name)
-				&& Objects.equals(shortName, other.shortName)
-				&& Objects.equals(description, other.description)
-				&& Objects.equals(location, other.location)
-				&& Objects.equals(photos, other.photos)
-				&& Objects.equals(attractions, other.attractions);
+		return id == ((Building) o).id;
+	}
+	
+	@Override
+	public int hashCode() {
+		return id;
 	}
 	
 	@Override
 	public String toString() {
-		return "Building [name=" + name + ", shortName=" + shortName + ", description="
-				+ description + ", location=" + location + ", photos=" + photos + ", attractions="
-				+ attractions + "]";
+		return "Building [id=" + id + ", name=" + name + ", shortName=" + shortName
+				+ ", description=" + getDescription() + ", location=" + location
+				+ ", photos=" + getPhotos() + ", attractions=" + getAttractions() + "]";
 	}
 
 	/**
@@ -109,16 +161,26 @@ public class Building implements Serializable {
 		private final List<Photo> photos;
 		private final List<Attraction> attractions;
 
+		private Integer id;
 		private String name;
 		private String shortName;
 		private String description;
 		private RectangularLocation location;
+		private Supplier<BuildingDetails> detailsSupplier;
 
 		private Builder() {
 			this.photos = new ArrayList<Photo>();
 			this.attractions = new ArrayList<Attraction>();
 		}
 		
+		/**
+		 * Sets the ID of the building, which should be its index in {@link Buildings#getAll}.
+		 */
+		public Builder withId(int id) {
+			this.id = id;
+			return this;
+		}
+		
 		/**
 		 * Sets the full name of the building.
 		 */
@@ -167,13 +229,23 @@ public class Building implements Serializable {
 			return this;
 		}
 		
+		/**
+		 * Has the building load its description, photos, and attractions from {@code
+		 * detailsSupplier} when they are first accessed, instead of using the ones added to this
+		 * {@link Builder}.
+		 */
+		Builder withDetails(Supplier<BuildingDetails> detailsSupplier) {
+			this.detailsSupplier = detailsSupplier;
+			return this;
+		}
+		
 		/**
 		 * Creates a new {@link Building} from this {@link Builder}.
 		 *
 		 * @throws IllegalArgumentException if any necessary fields are not included
 		 */
 		public Building build() {
-			List<Object> requiredFields = Arrays.<Object>asList(name, shortName, location);
+			List<Object> requiredFields = Arrays.<Object>asList(id, name, shortName, location);
 			for (Object field : requiredFields) {
 				if (field == null) {
 					throw new IllegalArgumentException();
@@ -0,0 +1,36 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The parts of a {@link Building} that are only needed once the user looks at it: its
+ * description, photos, and attractions. They take up most of the memory of the buildings, so
+ * {@link CampusBundle} only reads them when they are first accessed.
+ */
+class BuildingDetails implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String description;
+	private final List<Photo> photos;
+	private final List<Attraction> attractions;
+
+	BuildingDetails(String description, List<Photo> photos, List<Attraction> attractions) {
+		this.description = description;
+		this.photos = photos;
+		this.attractions = attractions;
+	}
+
+	String getDescription() {
+		return description;
+	}
+
+	List<Photo> getPhotos() {
+		return photos;
+	}
+
+	List<Attraction> getAttractions() {
+		return attractions;
+	}
+}
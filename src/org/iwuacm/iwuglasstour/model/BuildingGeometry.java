@@ -0,0 +1,94 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.List;
+
+/**
+ * The footprints of a list of {@link Building}s packed into parallel arrays of their bounds,
+ * indexed like the list. Scanning the footprints then reads a few contiguous arrays instead of
+ * following each {@link Building} to its {@link RectangularLocation} and its four {@link
+ * Location}s.
+ */
+public class BuildingGeometry {
+
+	private final double[] minLatitudes;
+	private final double[] maxLatitudes;
+	private final double[] minLongitudes;
+	private final double[] maxLongitudes;
+
+	private BuildingGeometry(
+			double[] minLatitudes,
+			double[] maxLatitudes,
+			double[] minLongitudes,
+			double[] maxLongitudes) {
+
+		this.minLatitudes = minLatitudes;
+		this.maxLatitudes = maxLatitudes;
+		this.minLongitudes = minLongitudes;
+		this.maxLongitudes = maxLongitudes;
+	}
+
+	/**
+	 * Creates a {@link BuildingGeometry} from the footprints of {@code buildings}.
+	 */
+	public static BuildingGeometry create(List<Building> buildings) {
+		int buildingCount = buildings.size();
+		double[] minLatitudes = new double[buildingCount];
+		double[] maxLatitudes = new double[buildingCount];
+		double[] minLongitudes = new double[buildingCount];
+		double[] maxLongitudes = new double[buildingCount];
+
+		for (int i = 0; i < buildingCount; i++) {
+			RectangularLocation location = buildings.get(i).getLocation();
+
+			minLatitudes[i] = location.getSouthWestCorner().getLatitude();
+			maxLatitudes[i] = location.getNorthEastCorner().getLatitude();
+			minLongitudes[i] = location.getSouthWestCorner().getLongitude();
+			maxLongitudes[i] = location.getNorthEastCorner().getLongitude();
+		}
+
+		return new BuildingGeometry(minLatitudes, maxLatitudes, minLongitudes, maxLongitudes);
+	}
+
+	public int getBuildingCount() {
+		return minLatitudes.length;
+	}
+
+	/**
+	 * Returns the latitude of the southern edge of building {@code index}.
+	 */
+	public double getMinLatitude(int index) {
+		return minLatitudes[index];
+	}
+
+	/**
+	 * Returns the latitude of the northern edge of building {@code index}.
+	 */
+	public double getMaxLatitude(int index) {
+		return maxLatitudes[index];
+	}
+
+	/**
+	 * Returns the longitude of the western edge of building {@code index}.
+	 */
+	public double getMinLongitude(int index) {
+		return minLongitudes[index];
+	}
+
+	/**
+	 * Returns the longitude of the eastern edge of building {@code index}.
+	 */
+	public double getMaxLongitude(int index) {
+		return maxLongitudes[index];
+	}
+
+	/**
+	 * Returns whether building {@code index} contains the location, including its edges, like
+	 * {@link RectangularLocation#isLocationContained}.
+	 */
+	public boolean contains(int index, double latitude, double longitude) {
+		return (latitude >= minLatitudes[index])
+				&& (latitude <= maxLatitudes[index])
+				&& (longitude >= minLongitudes[index])
+				&& (longitude <= maxLongitudes[index]);
+	}
+}
@@ -0,0 +1,229 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import com.google.common.base.Optional;
+
+/**
+ * A spatial index over the footprints of a list of {@link Building}s. The footprints are placed
+ * into a uniform grid of latitude and longitude cells, so that finding the building containing a
+ * location only has to look at the buildings overlapping a single cell, and finding the buildings
+ * near a location only has to look at the cells around it.
+ */
+public class BuildingIndex {
+
+	/**
+	 * The length of a side of a cell as a multiple of the average footprint size. Larger cells mean
+	 * more buildings per cell, while smaller cells mean more cells per building.
+	 */
+	private static final double CELL_SIZE_FACTOR = 2.0;
+
+	/**
+	 * The smallest allowed length of a side of a cell in degrees (about a meter). Keeps the grid
+	 * reasonable when the footprints are degenerate.
+	 */
+	private static final double MIN_CELL_SIZE = 0.00001;
+
+	private final List<Building> buildings;
+	private final BuildingGeometry geometry;
+	private final double cellSize;
+
+	/**
+	 * Maps a cell key (see {@link #getCellKey}) to the indices of the buildings overlapping it in
+	 * ascending order.
+	 */
+	private final Map<Long, int[]> cells;
+
+	private BuildingIndex(
+			List<Building> buildings,
+			BuildingGeometry geometry,
+			double cellSize,
+			Map<Long, int[]> cells) {
+
+		this.buildings = buildings;
+		this.geometry = geometry;
+		this.cellSize = cellSize;
+		this.cells = cells;
+	}
+
+	/**
+	 * Creates a {@link BuildingIndex} for {@code buildings}. The list must not change afterwards.
+	 */
+	public static BuildingIndex create(List<Building> buildings) {
+		BuildingGeometry geometry = BuildingGeometry.create(buildings);
+		double cellSize = computeCellSize(geometry);
+
+		Map<Long, List<Integer>> cellLists = new HashMap<Long, List<Integer>>();
+		for (int i = 0; i < geometry.getBuildingCount(); i++) {
+			int minRow = getCell(geometry.getMinLatitude(i), cellSize);
+			int maxRow = getCell(geometry.getMaxLatitude(i), cellSize);
+			int minColumn = getCell(geometry.getMinLongitude(i), cellSize);
+			int maxColumn = getCell(geometry.getMaxLongitude(i), cellSize);
+
+			for (int row = minRow; row <= maxRow; row++) {
+				for (int column = minColumn; column <= maxColumn; column++) {
+					Long key = getCellKey(row, column);
+
+					List<Integer> cell = cellLists.get(key);
+					if (cell == null) {
+						cell = new ArrayList<Integer>();
+						cellLists.put(key, cell);
+					}
+
+					cell.add(i);
+				}
+			}
+		}
+
+		Map<Long, int[]> cells = new HashMap<Long, int[]>();
+		for (Map.Entry<Long, List<Integer>> entry : cellLists.entrySet()) {
+			List<Integer> cellList = entry.getValue();
+
+			int[] cell = new int[cellList.size()];
+			for (int i = 0; i < cell.length; i++) {
+				cell[i] = cellList.get(i);
+			}
+
+			cells.put(entry.getKey(), cell);
+		}
+
+		return new BuildingIndex(buildings, geometry, cellSize, cells);
+	}
+
+	/**
+	 * Returns the packed footprints of the buildings, indexed in the order given to {@link
+	 * #create}.
+	 */
+	public BuildingGeometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * Returns the first {@link Building} (in the order given to {@link #create}) that contains
+	 * {@code location}, if any.
+	 */
+	public Optional<Building> findContaining(Location location) {
+		int index = findContainingIndex(location.getLatitude(), location.getLongitude());
+		return (index < 0) ? Optional.<Building>absent() : Optional.of(buildings.get(index));
+	}
+
+	/**
+	 * Returns the index (in the order given to {@link #create}) of the first building that
+	 * contains the location, or -1 if there is none.
+	 */
+	public int findContainingIndex(double latitude, double longitude) {
+		int[] cell = cells.get(getCellKey(
+				getCell(latitude, cellSize),
+				getCell(longitude, cellSize)));
+
+		if (cell != null) {
+			for (int index : cell) {
+				if (geometry.contains(index, latitude, longitude)) {
+					return index;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the {@link Building}s whose closest point (see {@link
+	 * RectangularLocation#findClosestPointWithin}) is within {@code kilometers} of {@code
+	 * location}. The buildings are returned in the order given to {@link #create}.
+	 */
+	public List<Building> findWithin(Location location, double kilometers) {
+		double latitudeRadius = MathUtils.convertKilometersToDegreesLatitude(kilometers);
+		double longitudeRadius =
+				MathUtils.convertKilometersToDegreesLongitude(kilometers, location.getLatitude());
+
+		int minRow = getCell(location.getLatitude() - latitudeRadius, cellSize);
+		int maxRow = getCell(location.getLatitude() + latitudeRadius, cellSize);
+		int minColumn = getCell(location.getLongitude() - longitudeRadius, cellSize);
+		int maxColumn = getCell(location.getLongitude() + longitudeRadius, cellSize);
+
+		SortedSet<Integer> candidates = new TreeSet<Integer>();
+		long cellCount = ((long) maxRow - minRow + 1) * ((long) maxColumn - minColumn + 1);
+		if (cellCount > cells.size()) {
+			// The query covers more cells than are occupied, so just look at the occupied ones.
+			for (Map.Entry<Long, int[]> entry : cells.entrySet()) {
+				int row = (int) (entry.getKey() >> 32);
+				int column = (int) (long) entry.getKey();
+
+				if ((row >= minRow) && (row <= maxRow)
+						&& (column >= minColumn) && (column <= maxColumn)) {
+					addAll(candidates, entry.getValue());
+				}
+			}
+		} else {
+			for (int row = minRow; row <= maxRow; row++) {
+				for (int column = minColumn; column <= maxColumn; column++) {
+					int[] cell = cells.get(getCellKey(row, column));
+
+					if (cell != null) {
+						addAll(candidates, cell);
+					}
+				}
+			}
+		}
+
+		List<Building> result = new ArrayList<Building>();
+		for (int index : candidates) {
+			Building building = buildings.get(index);
+			Location closestPoint = building.getLocation().findClosestPointWithin(location);
+
+			double distance = MathUtils.getDistance(
+					location.getLatitude(),
+					location.getLongitude(),
+					closestPoint.getLatitude(),
+					closestPoint.getLongitude());
+			if (distance <= kilometers) {
+				result.add(building);
+			}
+		}
+
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Picks the size of a cell in degrees from the average size of the footprints.
+	 */
+	private static double computeCellSize(BuildingGeometry geometry) {
+		if (geometry.getBuildingCount() == 0) {
+			return MIN_CELL_SIZE;
+		}
+
+		double totalSize = 0.0;
+		for (int i = 0; i < geometry.getBuildingCount(); i++) {
+			double latitudeSpan = geometry.getMaxLatitude(i) - geometry.getMinLatitude(i);
+			double longitudeSpan = geometry.getMaxLongitude(i) - geometry.getMinLongitude(i);
+			totalSize += Math.max(latitudeSpan, longitudeSpan);
+		}
+
+		return Math.max(
+				CELL_SIZE_FACTOR * totalSize / geometry.getBuildingCount(),
+				MIN_CELL_SIZE);
+	}
+
+	private static int getCell(double degrees, double cellSize) {
+		return (int) Math.floor(degrees / cellSize);
+	}
+
+	private static Long getCellKey(int row, int column) {
+		return ((long) row << 32) | (column & 0xFFFFFFFFL);
+	}
+
+	private static void addAll(SortedSet<Integer> set, int[] values) {
+		for (int value : values) {
+			set.add(value);
+		}
+	}
+}
@@ -37,6 +37,18 @@ public class BuildingWithLocation {
 
 		this.headingOffset = buildingLocation.computeHeadingOffset(location, userHeading);
 	}
+
+	/**
+	 * Creates a {@link BuildingWithLocation} given a {@link Building} with its already computed
+	 * distance (in kilometers) and heading offset.
+	 */
+	public BuildingWithLocation(Building building, double distance, double headingOffset) {
+		Preconditions.checkNotNull(building);
+
+		this.building = building;
+		this.distance = distance;
+		this.headingOffset = headingOffset;
+	}
 	
 	/**
 	 * Returns the {@link Building} associated with this object.
@@ -6,15 +6,20 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.iwuacm.iwuglasstour.R;
-import org.iwuacm.iwuglasstour.model.common.ResourceHelpers;
 
 import android.content.Context;
 import android.util.JsonReader;
 import android.util.JsonToken;
 import android.util.Log;
 
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
 /**
  * A collection of {@link Building}s.
  */
@@ -27,7 +32,7 @@ public class Buildings {
 	 */
 	static final int BUILDINGS_RAW_RESOURCE = R.raw.buildings;
 	
-	private static Buildings instance;
+	private static volatile Buildings instance;
 
 	private final List<Building> buildings;
 
@@ -38,52 +43,125 @@ public class Buildings {
 	public List<Building> getAll() {
 		return buildings;
 	}
+	
+	/**
+	 * Returns the {@link Building} with the given ID (see {@link Building#getId}). IDs are the same
+	 * every time the buildings are read, so they can be passed between components, even if the
+	 * process was restarted in between. The building is absent if there is none with the ID, such
+	 * as for an ID from an older version of the app with other buildings.
+	 */
+	public Optional<Building> getBuilding(int id) {
+		return ((id >= 0) && (id < buildings.size()))
+				? Optional.of(buildings.get(id))
+				: Optional.<Building>absent();
+	}
 
 	/**
 	 * Reads in the buildings resource and returns an instance of {@link Buildings} containing them.
+	 * They are read from the {@link CampusBundle} compiled from the resource when it is up to
+	 * date, which is much faster than parsing the JSON. If another thread is reading them, this
+	 * waits for it to finish.
 	 */
-	public static Buildings getBuildings(Context context) {
+	public static synchronized Buildings getBuildings(Context context) {
 		if (instance == null) {
-			InputStream buildingsInputStream =
-					context.getResources().openRawResource(BUILDINGS_RAW_RESOURCE);
+			Optional<List<Building>> bundledBuildings = CampusBundle.load(context);
+			List<Building> buildings = bundledBuildings.isPresent()
+					? bundledBuildings.get()
+					: readBuildingsResource(context);
 
-			JsonReader reader = null;
-			try {
-				reader = getJsonReader(buildingsInputStream);
-				instance = new Buildings(readBuildingsArray(reader, context));
-			} catch (IOException e) {
-				Log.wtf(TAG, "Could not read buildings: " + e.getMessage());
-			} finally {
-				try {
-					reader.close();
-				} catch (Exception e) {
-					// Probably did not need to be closed.
-				}
+			if (buildings != null) {
+				instance = new Buildings(buildings);
 			}
 		}
 		
 		return instance;
 	}
 
+	/**
+	 * Returns the buildings if they have already been read, or null, without waiting for a thread
+	 * that is reading them. This is for the main thread, which should not block on {@link
+	 * #getBuildings}.
+	 */
+	public static Buildings getLoadedBuildings() {
+		return instance;
+	}
+
+	/**
+	 * Reads in the buildings like {@link #getBuildings} on {@code executor}, so that the caller
+	 * does not have to wait. The future fails if the buildings could not be read.
+	 */
+	public static ListenableFuture<Buildings> getBuildingsAsync(
+			final Context context,
+			Executor executor) {
+
+		ListenableFutureTask<Buildings> task = ListenableFutureTask.create(
+				new Callable<Buildings>() {
+					@Override
+					public Buildings call() {
+						Buildings buildings = getBuildings(context);
+						if (buildings == null) {
+							throw new IllegalStateException("Could not read buildings");
+						}
+
+						return buildings;
+					}
+				});
+		executor.execute(task);
+
+		return task;
+	}
+
+	/**
+	 * Parses the buildings resource, returning null if it could not be read. This is visible for
+	 * testing.
+	 */
+	static List<Building> readBuildingsResource(Context context) {
+		InputStream buildingsInputStream =
+				context.getResources().openRawResource(BUILDINGS_RAW_RESOURCE);
+
+		JsonReader reader = null;
+		try {
+			reader = getJsonReader(buildingsInputStream);
+			return readBuildingsArray(reader);
+		} catch (IOException e) {
+			Log.wtf(TAG, "Could not read buildings: " + e.getMessage());
+			return null;
+		} finally {
+			try {
+				reader.close();
+			} catch (Exception e) {
+				// Probably did not need to be closed.
+			}
+		}
+	}
+
 	private static JsonReader getJsonReader(InputStream in) throws UnsupportedEncodingException {
 		return new JsonReader(new InputStreamReader(in, "UTF-8"));
 	}
 
-	private static List<Building> readBuildingsArray(JsonReader reader, Context context)
-			throws IOException {
+	private static List<Building> readBuildingsArray(JsonReader reader) throws IOException {
 
 		List<Building> buildings = new ArrayList<Building>();
+		IdSequence attractionIds = new IdSequence();
+		IdSequence photoIds = new IdSequence();
 
 		reader.beginArray();
 		while (reader.hasNext()) {
-			buildings.add(readBuilding(reader, context));
+			// Each building's ID is its index.
+			buildings.add(
+					readBuilding(reader, buildings.size(), attractionIds, photoIds));
 		}
 		reader.endArray();
 		return buildings;
 	}
 
-	private static Building readBuilding(JsonReader reader, Context context) throws IOException {
-		Building.Builder myBuilder=Building.builder();
+	private static Building readBuilding(
+			JsonReader reader,
+			int id,
+			IdSequence attractionIds,
+			IdSequence photoIds) throws IOException {
+
+		Building.Builder myBuilder=Building.builder().withId(id);
 		reader.beginObject();
 		while (reader.hasNext()) {
 			String name = reader.nextName();
@@ -100,12 +178,13 @@ public class Buildings {
 				RectangularLocation location = readLocation(reader);
 				myBuilder.withLocation(location);
 			} else if (name.equals("photos") && reader.peek() != JsonToken.NULL) {
-				List<Photo> photos = readPhotosArray(reader, context);
+				List<Photo> photos = readPhotosArray(reader, photoIds);
 				for (Photo photo : photos) {
 					myBuilder.addPhoto(photo);
 				}
 			} else if (name.equals("attractions") && reader.peek() != JsonToken.NULL){
-				List<Attraction> attractions = readAttractionsArray(reader, context);
+				List<Attraction> attractions =
+						readAttractionsArray(reader, attractionIds, photoIds);
 				for (Attraction attraction: attractions){
 					myBuilder.addAttraction(attraction);
 				}
@@ -119,14 +198,16 @@ public class Buildings {
 		return myBuilding;
 	}
 
-	private static List<Attraction> readAttractionsArray(JsonReader reader, Context context)
-			throws IOException {
+	private static List<Attraction> readAttractionsArray(
+			JsonReader reader,
+			IdSequence attractionIds,
+			IdSequence photoIds) throws IOException {
 
 		List<Attraction> result=new ArrayList<Attraction>();
 		
 		reader.beginArray();
 		while (reader.hasNext()) {
-			Attraction.Builder builder=Attraction.builder();
+			Attraction.Builder builder=Attraction.builder().withId(attractionIds.next());
 			
 			reader.beginObject();
 			while(reader.hasNext()){
@@ -136,7 +217,7 @@ public class Buildings {
 				}  else if (name.equals("description")) {
 					builder.withDescription(reader.nextString());
 				}  else if (name.equals("photos") && reader.peek() != JsonToken.NULL) {
-					List<Photo> photos = readPhotosArray(reader, context);
+					List<Photo> photos = readPhotosArray(reader, photoIds);
 					for (Photo photo : photos) {
 						builder.addPhoto(photo);
 					}
@@ -153,21 +234,20 @@ public class Buildings {
 		return result;
 	}
 
-	private static List<Photo> readPhotosArray(JsonReader reader, Context context)
+	private static List<Photo> readPhotosArray(JsonReader reader, IdSequence photoIds)
 			throws IOException {
 
 		List<Photo> photos = new ArrayList<Photo>();
 		
 		reader.beginArray();
 		while (reader.hasNext()) {
-			Photo.Builder builder = Photo.builder();
+			Photo.Builder builder = Photo.builder().withId(photoIds.next());
 			
 			reader.beginObject();
 			while(reader.hasNext()){
 				String name = reader.nextName();
 				if (name.equals("drawableName")) {
-					builder.withDrawableId(
-							ResourceHelpers.getPhotoId(reader.nextString(), context));
+					builder.withDrawableId(CampusDrawables.getId(reader.nextString()));
 				} else if (name.equals("description")) {
 					builder.withDescription(reader.nextString());
 				} else {
@@ -210,4 +290,16 @@ public class Buildings {
 		Location d=new Location(latitude.get(1), longitude.get(1));
 		return new RectangularLocation(a,b,c,d);
 	}
+	
+	/**
+	 * Hands out consecutive IDs starting from 0.
+	 */
+	private static class IdSequence {
+		
+		private int nextId = 0;
+		
+		int next() {
+			return nextId++;
+		}
+	}
 }
@@ -0,0 +1,360 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.iwuacm.iwuglasstour.R;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The buildings resource precompiled by the {@code CampusBundleCompiler} tool, which {@link
+ * Buildings} reads instead of parsing the JSON. The photos refer to their drawables by index into
+ * {@link CampusDrawables#IDS}, so their resource IDs are resolved when the app is compiled rather
+ * than looked up by name.
+ *
+ * <p>The bundle is a big-endian binary file, which is read into memory:
+ *
+ * <pre>
+ * int    magic, version
+ * long   CRC-32 of the buildings resource that the bundle was compiled from
+ * long   fingerprint of the drawables ({@link CampusDrawables#FINGERPRINT})
+ * int    building, attraction, photo, and string counts
+ * double for each building, the two corners of its location as in the buildings resource:
+ *            first latitude, first longitude, second latitude, second longitude
+ * int    for each building: name, short name, description, first photo, photo count,
+ *            first attraction, attraction count
+ * int    for each attraction: name, description, first photo, photo count
+ * int    for each photo: drawable index, description
+ * int    offset of each string in the string data, plus the length of the string data
+ * byte   string data, in UTF-8
+ * </pre>
+ *
+ * <p>Strings are referred to by index, or {@link #NO_STRING} when absent. Buildings, attractions,
+ * and photos are stored in order of their IDs, which are assigned as when reading the JSON.
+ *
+ * <p>Only the names and locations of the buildings are read up front. The rest (see {@link
+ * BuildingDetails}) is read from the bundle when a building's details are first accessed, so
+ * the bundle stays open for as long as the buildings are in use.
+ */
+class CampusBundle {
+
+	static final int MAGIC = 0x49575542;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 40;
+	static final int BUILDING_LOCATION_SIZE = 4 * 8;
+	static final int BUILDING_SIZE = 7 * 4;
+	static final int ATTRACTION_SIZE = 4 * 4;
+	static final int PHOTO_SIZE = 2 * 4;
+	static final int NO_STRING = -1;
+
+	/**
+	 * The resource for the bundle. This is visible for testing.
+	 */
+	static final int CAMPUS_BUNDLE_RAW_RESOURCE = R.raw.campus_bundle;
+
+	private static final String TAG = CampusBundle.class.getSimpleName();
+
+	private final ByteBuffer buffer;
+	private final int[] drawableIds;
+	private final int buildingCount;
+	private final int attractionCount;
+	private final int photoCount;
+	private final int stringCount;
+	private final int buildingsOffset;
+	private final int attractionsOffset;
+	private final int photosOffset;
+	private final int stringOffsetsOffset;
+	private final int stringDataOffset;
+
+	private CampusBundle(ByteBuffer buffer, int[] drawableIds) {
+		this.buffer = buffer;
+		this.drawableIds = drawableIds;
+		this.buildingCount = buffer.getInt(24);
+		this.attractionCount = buffer.getInt(28);
+		this.photoCount = buffer.getInt(32);
+		this.stringCount = buffer.getInt(36);
+		this.buildingsOffset = HEADER_SIZE + buildingCount * BUILDING_LOCATION_SIZE;
+		this.attractionsOffset = buildingsOffset + buildingCount * BUILDING_SIZE;
+		this.photosOffset = attractionsOffset + attractionCount * ATTRACTION_SIZE;
+		this.stringOffsetsOffset = photosOffset + photoCount * PHOTO_SIZE;
+		this.stringDataOffset = stringOffsetsOffset + (stringCount + 1) * 4;
+	}
+
+	/**
+	 * Loads the buildings from the bundle in the resources, if it exists and was compiled from the
+	 * current buildings resource.
+	 */
+	static Optional<List<Building>> load(Context context) {
+		Resources resources = context.getResources();
+
+		try {
+			return read(
+					readResource(resources, CAMPUS_BUNDLE_RAW_RESOURCE),
+					computeChecksum(resources, Buildings.BUILDINGS_RAW_RESOURCE),
+					CampusDrawables.FINGERPRINT,
+					CampusDrawables.IDS);
+		} catch (IOException e) {
+			Log.w(TAG, "Could not read campus bundle: " + e.getMessage());
+			return Optional.absent();
+		} catch (Resources.NotFoundException e) {
+			Log.w(TAG, "No campus bundle: " + e.getMessage());
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Reads the buildings from {@code buffer}, which are absent if it is not a bundle compiled from
+	 * a buildings resource with the CRC-32 {@code checksum}. The photos' drawables are looked up in
+	 * {@code drawableIds}, which must have been generated with the bundle, as checked by {@code
+	 * drawablesFingerprint}.
+	 */
+	static Optional<List<Building>> read(
+			ByteBuffer buffer,
+			long checksum,
+			long drawablesFingerprint,
+			int[] drawableIds) {
+
+		if ((buffer.capacity() < HEADER_SIZE)
+				|| (buffer.getInt(0) != MAGIC)
+				|| (buffer.getInt(4) != VERSION)) {
+			Log.w(TAG, "Not a campus bundle.");
+			return Optional.absent();
+		}
+
+		if ((buffer.getLong(8) != checksum)
+				|| (buffer.getLong(16) != drawablesFingerprint)) {
+			Log.w(TAG, "Campus bundle is out of date.");
+			return Optional.absent();
+		}
+
+		CampusBundle bundle = new CampusBundle(buffer, drawableIds);
+		try {
+			bundle.validate();
+		} catch (IndexOutOfBoundsException e) {
+			Log.w(TAG, "Campus bundle is corrupt: " + e.getMessage());
+			return Optional.absent();
+		}
+
+		return Optional.of(bundle.readBuildings());
+	}
+
+	/**
+	 * Reads the buildings with their names and locations, leaving their details to be read when
+	 * they are first accessed.
+	 */
+	private List<Building> readBuildings() {
+		List<Building> buildings = new ArrayList<Building>(buildingCount);
+		for (int i = 0; i < buildingCount; i++) {
+			final int building = i;
+			int offset = buildingsOffset + building * BUILDING_SIZE;
+
+			buildings.add(Building.builder()
+					.withId(building)
+					.withName(readString(buffer.getInt(offset)))
+					.withShortName(readString(buffer.getInt(offset + 4)))
+					.withLocation(readLocation(building))
+					.withDetails(new Supplier<BuildingDetails>() {
+						@Override
+						public BuildingDetails get() {
+							return readDetails(building);
+						}
+					})
+					.build());
+		}
+
+		return buildings;
+	}
+
+	/**
+	 * Reads the description, photos, and attractions of a building. This may be called from any
+	 * thread, since the buffer is only read at absolute offsets.
+	 */
+	private BuildingDetails readDetails(int building) {
+		int offset = buildingsOffset + building * BUILDING_SIZE;
+
+		int firstAttraction = buffer.getInt(offset + 20);
+		int count = buffer.getInt(offset + 24);
+		List<Attraction> attractions = new ArrayList<Attraction>(count);
+		for (int i = firstAttraction; i < firstAttraction + count; i++) {
+			int attractionOffset = attractionsOffset + i * ATTRACTION_SIZE;
+
+			Attraction.Builder builder = Attraction.builder()
+					.withId(i)
+					.withName(readString(buffer.getInt(attractionOffset)));
+			String description = readString(buffer.getInt(attractionOffset + 4));
+			if (description != null) {
+				builder.withDescription(description);
+			}
+			for (Photo photo : readPhotos(attractionOffset + 8)) {
+				builder.addPhoto(photo);
+			}
+
+			attractions.add(builder.build());
+		}
+
+		return new BuildingDetails(
+				readString(buffer.getInt(offset + 8)),
+				readPhotos(offset + 12),
+				attractions);
+	}
+
+	/**
+	 * Reads the photos in a range stored as a first photo at {@code offset} and a count after it.
+	 */
+	private List<Photo> readPhotos(int offset) {
+		int firstPhoto = buffer.getInt(offset);
+		int count = buffer.getInt(offset + 4);
+
+		List<Photo> photos = new ArrayList<Photo>(count);
+		for (int i = firstPhoto; i < firstPhoto + count; i++) {
+			int photoOffset = photosOffset + i * PHOTO_SIZE;
+
+			Photo.Builder builder = Photo.builder()
+					.withId(i)
+					.withDrawableId(drawableIds[buffer.getInt(photoOffset)]);
+			String description = readString(buffer.getInt(photoOffset + 4));
+			if (description != null) {
+				builder.withDescription(description);
+			}
+
+			photos.add(builder.build());
+		}
+
+		return photos;
+	}
+
+	/**
+	 * Checks that everything the records refer to is in the bundle, so that reading the details
+	 * later cannot fail.
+	 *
+	 * @throws IndexOutOfBoundsException if something is not
+	 */
+	private void validate() {
+		// In longs, since the offsets overflow for huge counts.
+		long recordsSize = HEADER_SIZE
+				+ (long) buildingCount * (BUILDING_LOCATION_SIZE + BUILDING_SIZE)
+				+ (long) attractionCount * ATTRACTION_SIZE
+				+ (long) photoCount * PHOTO_SIZE
+				+ ((long) stringCount + 1) * 4;
+		if ((buildingCount < 0) || (attractionCount < 0) || (photoCount < 0) || (stringCount < 0)
+				|| (buffer.capacity() < recordsSize)) {
+			throw new IndexOutOfBoundsException("The records do not fit in the bundle.");
+		}
+
+		int stringDataLength = buffer.capacity() - stringDataOffset;
+		int previousStringOffset = 0;
+		for (int i = 0; i <= stringCount; i++) {
+			int stringOffset = buffer.getInt(stringOffsetsOffset + i * 4);
+			checkIndex(stringOffset, previousStringOffset, stringDataLength + 1);
+			previousStringOffset = stringOffset;
+		}
+		if (previousStringOffset != stringDataLength) {
+			throw new IndexOutOfBoundsException("The string data does not end the bundle.");
+		}
+
+		for (int i = 0; i < buildingCount; i++) {
+			int offset = buildingsOffset + i * BUILDING_SIZE;
+			checkIndex(buffer.getInt(offset), 0, stringCount);
+			checkIndex(buffer.getInt(offset + 4), 0, stringCount);
+			checkIndex(buffer.getInt(offset + 8), NO_STRING, stringCount);
+			checkRange(offset + 12, photoCount);
+			checkRange(offset + 20, attractionCount);
+		}
+
+		for (int i = 0; i < attractionCount; i++) {
+			int offset = attractionsOffset + i * ATTRACTION_SIZE;
+			checkIndex(buffer.getInt(offset), 0, stringCount);
+			checkIndex(buffer.getInt(offset + 4), NO_STRING, stringCount);
+			checkRange(offset + 8, photoCount);
+		}
+
+		for (int i = 0; i < photoCount; i++) {
+			int offset = photosOffset + i * PHOTO_SIZE;
+			checkIndex(buffer.getInt(offset), 0, drawableIds.length);
+			checkIndex(buffer.getInt(offset + 4), NO_STRING, stringCount);
+		}
+	}
+
+	private static void checkIndex(int index, int start, int end) {
+		if ((index < start) || (index >= end)) {
+			throw new IndexOutOfBoundsException(index + " is not in [" + start + ", " + end + ")");
+		}
+	}
+
+	/**
+	 * Checks a range stored as a first index at {@code offset} and a count after it.
+	 */
+	private void checkRange(int offset, int count) {
+		int first = buffer.getInt(offset);
+		checkIndex(first, 0, count + 1);
+		checkIndex(buffer.getInt(offset + 4), 0, count - first + 1);
+	}
+
+	/**
+	 * Reads the location of a building, with its corners arranged like {@link Buildings} does.
+	 */
+	private RectangularLocation readLocation(int building) {
+		int offset = HEADER_SIZE + building * BUILDING_LOCATION_SIZE;
+		double latitude1 = buffer.getDouble(offset);
+		double longitude1 = buffer.getDouble(offset + 8);
+		double latitude2 = buffer.getDouble(offset + 16);
+		double longitude2 = buffer.getDouble(offset + 24);
+
+		return new RectangularLocation(
+				new Location(latitude1, longitude1),
+				new Location(latitude1, longitude2),
+				new Location(latitude2, longitude1),
+				new Location(latitude2, longitude2));
+	}
+
+	/**
+	 * Reads the string at {@code index}, which is null for {@link #NO_STRING}.
+	 */
+	private String readString(int index) {
+		if (index == NO_STRING) {
+			return null;
+		}
+
+		int start = buffer.getInt(stringOffsetsOffset + index * 4);
+		byte[] bytes = new byte[buffer.getInt(stringOffsetsOffset + (index + 1) * 4) - start];
+
+		// A duplicate, so that its position is not shared with other threads.
+		ByteBuffer data = buffer.duplicate();
+		data.position(stringDataOffset + start);
+		data.get(bytes);
+
+		return new String(bytes, Charsets.UTF_8);
+	}
+
+	private static long computeChecksum(Resources resources, int id) throws IOException {
+		InputStream in = resources.openRawResource(id);
+		try {
+			CRC32 crc = new CRC32();
+			crc.update(ByteStreams.toByteArray(in));
+			return crc.getValue();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static ByteBuffer readResource(Resources resources, int id) throws IOException {
+		InputStream in = resources.openRawResource(id);
+		try {
+			return ByteBuffer.wrap(ByteStreams.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,569 @@
+// Generated by CampusBundleCompiler from res/drawable-hdpi. Do not edit.
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.Arrays;
+
+import org.iwuacm.iwuglasstour.R;
+
+/**
+ * The drawables of the app by name, so that the photos in the resources can be resolved
+ * without looking up their names in the {@link android.content.res.Resources}. The {@link
+ * CampusBundle} refers to them by their index.
+ */
+final class CampusDrawables {
+
+	/**
+	 * Identifies the drawables, so that the bundle can check that it was compiled with them.
+	 */
+	static final long FINGERPRINT = -1387829736140222840L;
+
+	/**
+	 * The names of the drawables in sorted order.
+	 */
+	static final String[] NAMES = {
+		"ames_01",
+		"ames_01_thumb",
+		"ames_02",
+		"ames_02_thumb",
+		"ames_03",
+		"ames_03_thumb",
+		"ames_04",
+		"ames_04_thumb",
+		"ames_05",
+		"ames_05_thumb",
+		"ames_06",
+		"ames_06_thumb",
+		"ames_07",
+		"ames_07_thumb",
+		"ames_08",
+		"ames_08_thumb",
+		"ames_09",
+		"ames_09_thumb",
+		"ames_10",
+		"ames_10_thumb",
+		"ames_11",
+		"ames_11_thumb",
+		"ames_12",
+		"ames_12_thumb",
+		"ames_13",
+		"ames_13_thumb",
+		"ames_14",
+		"ames_14_thumb",
+		"ames_15",
+		"ames_15_thumb",
+		"ames_16",
+		"ames_16_thumb",
+		"ames_17",
+		"ames_17_thumb",
+		"ames_18",
+		"ames_18_thumb",
+		"ames_19",
+		"ames_19_thumb",
+		"ames_20",
+		"ames_20_thumb",
+		"ames_21",
+		"ames_21_thumb",
+		"ames_22",
+		"ames_22_thumb",
+		"ames_23",
+		"ames_23_thumb",
+		"ames_24",
+		"ames_24_thumb",
+		"ames_25",
+		"ames_25_thumb",
+		"ames_26",
+		"ames_26_thumb",
+		"ames_27",
+		"ames_27_thumb",
+		"ames_28",
+		"ames_28_thumb",
+		"art_01",
+		"art_01_thumb",
+		"art_02",
+		"art_02_thumb",
+		"art_03",
+		"art_03_thumb",
+		"art_04",
+		"art_04_thumb",
+		"art_05",
+		"art_05_thumb",
+		"art_06",
+		"art_06_thumb",
+		"art_07",
+		"art_07_thumb",
+		"art_08",
+		"art_08_thumb",
+		"art_09",
+		"art_09_thumb",
+		"art_10",
+		"art_10_thumb",
+		"buck_01",
+		"buck_01_thumb",
+		"buck_02",
+		"buck_02_thumb",
+		"buck_03",
+		"buck_03_thumb",
+		"buck_04",
+		"buck_04_thumb",
+		"chapel_01",
+		"chapel_01_thumb",
+		"chapel_02",
+		"chapel_02_thumb",
+		"chapel_03",
+		"chapel_03_thumb",
+		"chapel_04",
+		"chapel_04_thumb",
+		"cla_01",
+		"cla_01_thumb",
+		"cla_02",
+		"cla_02_thumb",
+		"cla_03",
+		"cla_03_thumb",
+		"cla_04",
+		"cla_04_thumb",
+		"cla_05",
+		"cla_05_thumb",
+		"cla_06",
+		"cla_06_thumb",
+		"cns_01",
+		"cns_01_thumb",
+		"cns_02",
+		"cns_02_thumb",
+		"cns_03",
+		"cns_03_thumb",
+		"cns_04",
+		"cns_04_thumb",
+		"cns_05",
+		"cns_05_thumb",
+		"cns_06",
+		"cns_06_thumb",
+		"cns_07",
+		"cns_07_thumb",
+		"cns_08",
+		"cns_08_thumb",
+		"cns_09",
+		"cns_09_thumb",
+		"cns_10",
+		"cns_10_thumb",
+		"cns_11",
+		"cns_11_thumb",
+		"credit_agast",
+		"credit_agast_thumb",
+		"credit_arussian",
+		"credit_arussian_thumb",
+		"credit_jalbert1",
+		"credit_jalbert1_thumb",
+		"credit_lbui",
+		"credit_lbui_thumb",
+		"credit_lnguyen",
+		"credit_lnguyen_thumb",
+		"credit_mnguyen3",
+		"credit_mnguyen3_thumb",
+		"credit_sschaef1",
+		"credit_sschaef1_thumb",
+		"credits",
+		"hansen_01",
+		"hansen_01_thumb",
+		"hansen_02",
+		"hansen_02_thumb",
+		"hansen_03",
+		"hansen_03_thumb",
+		"hansen_04",
+		"hansen_04_thumb",
+		"holmes_01",
+		"holmes_01_thumb",
+		"holmes_02",
+		"holmes_02_thumb",
+		"holmes_03",
+		"holmes_03_thumb",
+		"ic_arrow_right",
+		"ic_building",
+		"ic_building_info",
+		"ic_credits",
+		"ic_launcher",
+		"ic_person",
+		"ic_stop_this",
+		"mcpherson_01",
+		"mcpherson_01_thumb",
+		"mcpherson_02",
+		"mcpherson_02_thumb",
+		"mcpherson_03",
+		"mcpherson_03_thumb",
+		"mcpherson_04",
+		"mcpherson_04_thumb",
+		"mcpherson_05",
+		"mcpherson_05_thumb",
+		"memorial_ctr_01",
+		"memorial_ctr_01_thumb",
+		"memorial_ctr_02",
+		"memorial_ctr_02_thumb",
+		"memorial_ctr_03",
+		"memorial_ctr_03_thumb",
+		"memorial_ctr_04",
+		"memorial_ctr_04_thumb",
+		"memorial_ctr_05",
+		"memorial_ctr_05_thumb",
+		"memorial_ctr_06",
+		"memorial_ctr_06_thumb",
+		"observatory_01",
+		"observatory_01_thumb",
+		"president_01",
+		"president_01_thumb",
+		"president_02",
+		"president_02_thumb",
+		"presser_01",
+		"presser_01_thumb",
+		"presser_02",
+		"presser_02_thumb",
+		"presser_03",
+		"presser_03_thumb",
+		"presser_04",
+		"presser_04_thumb",
+		"presser_05",
+		"presser_05_thumb",
+		"presser_06",
+		"presser_06_thumb",
+		"presser_07",
+		"presser_07_thumb",
+		"sfh_01",
+		"sfh_01_thumb",
+		"sfh_02",
+		"sfh_02_thumb",
+		"sfh_03",
+		"sfh_03_thumb",
+		"sfh_04",
+		"sfh_04_thumb",
+		"sfh_05",
+		"sfh_05_thumb",
+		"sfh_06",
+		"sfh_06_thumb",
+		"sfh_07",
+		"sfh_07_thumb",
+		"sfh_08",
+		"sfh_08_thumb",
+		"sfh_09",
+		"sfh_09_thumb",
+		"sfh_10",
+		"sfh_10_thumb",
+		"shaw_01",
+		"shaw_01_thumb",
+		"shaw_02",
+		"shaw_02_thumb",
+		"shaw_03",
+		"shaw_03_thumb",
+		"shirk_01",
+		"shirk_01_thumb",
+		"shirk_02",
+		"shirk_02_thumb",
+		"shirk_03",
+		"shirk_03_thumb",
+		"shirk_04",
+		"shirk_04_thumb",
+		"shirk_05",
+		"shirk_05_thumb",
+		"shirk_06",
+		"shirk_06_thumb",
+		"stevenson_01",
+		"stevenson_01_thumb",
+		"stevenson_02",
+		"stevenson_02_thumb",
+		"stevenson_03",
+		"stevenson_03_thumb",
+		"stevenson_04",
+		"stevenson_04_thumb",
+		"stevenson_05",
+		"stevenson_05_thumb",
+		"test_1",
+		"test_2",
+		"test_3",
+		"test_4",
+		"welcome_ctr_01",
+		"welcome_ctr_01_thumb",
+		"welcome_ctr_02",
+		"welcome_ctr_02_thumb",
+		"welcome_ctr_03",
+		"welcome_ctr_03_thumb",
+		"welcome_ctr_04",
+		"welcome_ctr_04_thumb",
+	};
+
+	/**
+	 * The IDs of the drawables, in the same order as {@link #NAMES}.
+	 */
+	static final int[] IDS = {
+		R.drawable.ames_01,
+		R.drawable.ames_01_thumb,
+		R.drawable.ames_02,
+		R.drawable.ames_02_thumb,
+		R.drawable.ames_03,
+		R.drawable.ames_03_thumb,
+		R.drawable.ames_04,
+		R.drawable.ames_04_thumb,
+		R.drawable.ames_05,
+		R.drawable.ames_05_thumb,
+		R.drawable.ames_06,
+		R.drawable.ames_06_thumb,
+		R.drawable.ames_07,
+		R.drawable.ames_07_thumb,
+		R.drawable.ames_08,
+		R.drawable.ames_08_thumb,
+		R.drawable.ames_09,
+		R.drawable.ames_09_thumb,
+		R.drawable.ames_10,
+		R.drawable.ames_10_thumb,
+		R.drawable.ames_11,
+		R.drawable.ames_11_thumb,
+		R.drawable.ames_12,
+		R.drawable.ames_12_thumb,
+		R.drawable.ames_13,
+		R.drawable.ames_13_thumb,
+		R.drawable.ames_14,
+		R.drawable.ames_14_thumb,
+		R.drawable.ames_15,
+		R.drawable.ames_15_thumb,
+		R.drawable.ames_16,
+		R.drawable.ames_16_thumb,
+		R.drawable.ames_17,
+		R.drawable.ames_17_thumb,
+		R.drawable.ames_18,
+		R.drawable.ames_18_thumb,
+		R.drawable.ames_19,
+		R.drawable.ames_19_thumb,
+		R.drawable.ames_20,
+		R.drawable.ames_20_thumb,
+		R.drawable.ames_21,
+		R.drawable.ames_21_thumb,
+		R.drawable.ames_22,
+		R.drawable.ames_22_thumb,
+		R.drawable.ames_23,
+		R.drawable.ames_23_thumb,
+		R.drawable.ames_24,
+		R.drawable.ames_24_thumb,
+		R.drawable.ames_25,
+		R.drawable.ames_25_thumb,
+		R.drawable.ames_26,
+		R.drawable.ames_26_thumb,
+		R.drawable.ames_27,
+		R.drawable.ames_27_thumb,
+		R.drawable.ames_28,
+		R.drawable.ames_28_thumb,
+		R.drawable.art_01,
+		R.drawable.art_01_thumb,
+		R.drawable.art_02,
+		R.drawable.art_02_thumb,
+		R.drawable.art_03,
+		R.drawable.art_03_thumb,
+		R.drawable.art_04,
+		R.drawable.art_04_thumb,
+		R.drawable.art_05,
+		R.drawable.art_05_thumb,
+		R.drawable.art_06,
+		R.drawable.art_06_thumb,
+		R.drawable.art_07,
+		R.drawable.art_07_thumb,
+		R.drawable.art_08,
+		R.drawable.art_08_thumb,
+		R.drawable.art_09,
+		R.drawable.art_09_thumb,
+		R.drawable.art_10,
+		R.drawable.art_10_thumb,
+		R.drawable.buck_01,
+		R.drawable.buck_01_thumb,
+		R.drawable.buck_02,
+		R.drawable.buck_02_thumb,
+		R.drawable.buck_03,
+		R.drawable.buck_03_thumb,
+		R.drawable.buck_04,
+		R.drawable.buck_04_thumb,
+		R.drawable.chapel_01,
+		R.drawable.chapel_01_thumb,
+		R.drawable.chapel_02,
+		R.drawable.chapel_02_thumb,
+		R.drawable.chapel_03,
+		R.drawable.chapel_03_thumb,
+		R.drawable.chapel_04,
+		R.drawable.chapel_04_thumb,
+		R.drawable.cla_01,
+		R.drawable.cla_01_thumb,
+		R.drawable.cla_02,
+		R.drawable.cla_02_thumb,
+		R.drawable.cla_03,
+		R.drawable.cla_03_thumb,
+		R.drawable.cla_04,
+		R.drawable.cla_04_thumb,
+		R.drawable.cla_05,
+		R.drawable.cla_05_thumb,
+		R.drawable.cla_06,
+		R.drawable.cla_06_thumb,
+		R.drawable.cns_01,
+		R.drawable.cns_01_thumb,
+		R.drawable.cns_02,
+		R.drawable.cns_02_thumb,
+		R.drawable.cns_03,
+		R.drawable.cns_03_thumb,
+		R.drawable.cns_04,
+		R.drawable.cns_04_thumb,
+		R.drawable.cns_05,
+		R.drawable.cns_05_thumb,
+		R.drawable.cns_06,
+		R.drawable.cns_06_thumb,
+		R.drawable.cns_07,
+		R.drawable.cns_07_thumb,
+		R.drawable.cns_08,
+		R.drawable.cns_08_thumb,
+		R.drawable.cns_09,
+		R.drawable.cns_09_thumb,
+		R.drawable.cns_10,
+		R.drawable.cns_10_thumb,
+		R.drawable.cns_11,
+		R.drawable.cns_11_thumb,
+		R.drawable.credit_agast,
+		R.drawable.credit_agast_thumb,
+		R.drawable.credit_arussian,
+		R.drawable.credit_arussian_thumb,
+		R.drawable.credit_jalbert1,
+		R.drawable.credit_jalbert1_thumb,
+		R.drawable.credit_lbui,
+		R.drawable.credit_lbui_thumb,
+		R.drawable.credit_lnguyen,
+		R.drawable.credit_lnguyen_thumb,
+		R.drawable.credit_mnguyen3,
+		R.drawable.credit_mnguyen3_thumb,
+		R.drawable.credit_sschaef1,
+		R.drawable.credit_sschaef1_thumb,
+		R.drawable.credits,
+		R.drawable.hansen_01,
+		R.drawable.hansen_01_thumb,
+		R.drawable.hansen_02,
+		R.drawable.hansen_02_thumb,
+		R.drawable.hansen_03,
+		R.drawable.hansen_03_thumb,
+		R.drawable.hansen_04,
+		R.drawable.hansen_04_thumb,
+		R.drawable.holmes_01,
+		R.drawable.holmes_01_thumb,
+		R.drawable.holmes_02,
+		R.drawable.holmes_02_thumb,
+		R.drawable.holmes_03,
+		R.drawable.holmes_03_thumb,
+		R.drawable.ic_arrow_right,
+		R.drawable.ic_building,
+		R.drawable.ic_building_info,
+		R.drawable.ic_credits,
+		R.drawable.ic_launcher,
+		R.drawable.ic_person,
+		R.drawable.ic_stop_this,
+		R.drawable.mcpherson_01,
+		R.drawable.mcpherson_01_thumb,
+		R.drawable.mcpherson_02,
+		R.drawable.mcpherson_02_thumb,
+		R.drawable.mcpherson_03,
+		R.drawable.mcpherson_03_thumb,
+		R.drawable.mcpherson_04,
+		R.drawable.mcpherson_04_thumb,
+		R.drawable.mcpherson_05,
+		R.drawable.mcpherson_05_thumb,
+		R.drawable.memorial_ctr_01,
+		R.drawable.memorial_ctr_01_thumb,
+		R.drawable.memorial_ctr_02,
+		R.drawable.memorial_ctr_02_thumb,
+		R.drawable.memorial_ctr_03,
+		R.drawable.memorial_ctr_03_thumb,
+		R.drawable.memorial_ctr_04,
+		R.drawable.memorial_ctr_04_thumb,
+		R.drawable.memorial_ctr_05,
+		R.drawable.memorial_ctr_05_thumb,
+		R.drawable.memorial_ctr_06,
+		R.drawable.memorial_ctr_06_thumb,
+		R.drawable.observatory_01,
+		R.drawable.observatory_01_thumb,
+		R.drawable.president_01,
+		R.drawable.president_01_thumb,
+		R.drawable.president_02,
+		R.drawable.president_02_thumb,
+		R.drawable.presser_01,
+		R.drawable.presser_01_thumb,
+		R.drawable.presser_02,
+		R.drawable.presser_02_thumb,
+		R.drawable.presser_03,
+		R.drawable.presser_03_thumb,
+		R.drawable.presser_04,
+		R.drawable.presser_04_thumb,
+		R.drawable.presser_05,
+		R.drawable.presser_05_thumb,
+		R.drawable.presser_06,
+		R.drawable.presser_06_thumb,
+		R.drawable.presser_07,
+		R.drawable.presser_07_thumb,
+		R.drawable.sfh_01,
+		R.drawable.sfh_01_thumb,
+		R.drawable.sfh_02,
+		R.drawable.sfh_02_thumb,
+		R.drawable.sfh_03,
+		R.drawable.sfh_03_thumb,
+		R.drawable.sfh_04,
+		R.drawable.sfh_04_thumb,
+		R.drawable.sfh_05,
+		R.drawable.sfh_05_thumb,
+		R.drawable.sfh_06,
+		R.drawable.sfh_06_thumb,
+		R.drawable.sfh_07,
+		R.drawable.sfh_07_thumb,
+		R.drawable.sfh_08,
+		R.drawable.sfh_08_thumb,
+		R.drawable.sfh_09,
+		R.drawable.sfh_09_thumb,
+		R.drawable.sfh_10,
+		R.drawable.sfh_10_thumb,
+		R.drawable.shaw_01,
+		R.drawable.shaw_01_thumb,
+		R.drawable.shaw_02,
+		R.drawable.shaw_02_thumb,
+		R.drawable.shaw_03,
+		R.drawable.shaw_03_thumb,
+		R.drawable.shirk_01,
+		R.drawable.shirk_01_thumb,
+		R.drawable.shirk_02,
+		R.drawable.shirk_02_thumb,
+		R.drawable.shirk_03,
+		R.drawable.shirk_03_thumb,
+		R.drawable.shirk_04,
+		R.drawable.shirk_04_thumb,
+		R.drawable.shirk_05,
+		R.drawable.shirk_05_thumb,
+		R.drawable.shirk_06,
+		R.drawable.shirk_06_thumb,
+		R.drawable.stevenson_01,
+		R.drawable.stevenson_01_thumb,
+		R.drawable.stevenson_02,
+		R.drawable.stevenson_02_thumb,
+		R.drawable.stevenson_03,
+		R.drawable.stevenson_03_thumb,
+		R.drawable.stevenson_04,
+		R.drawable.stevenson_04_thumb,
+		R.drawable.stevenson_05,
+		R.drawable.stevenson_05_thumb,
+		R.drawable.test_1,
+		R.drawable.test_2,
+		R.drawable.test_3,
+		R.drawable.test_4,
+		R.drawable.welcome_ctr_01,
+		R.drawable.welcome_ctr_01_thumb,
+		R.drawable.welcome_ctr_02,
+		R.drawable.welcome_ctr_02_thumb,
+		R.drawable.welcome_ctr_03,
+		R.drawable.welcome_ctr_03_thumb,
+		R.drawable.welcome_ctr_04,
+		R.drawable.welcome_ctr_04_thumb,
+	};
+
+	private CampusDrawables() {}
+
+	/**
+	 * Returns the ID of the drawable named {@code drawableName}, or 0 if there is none.
+	 */
+	static int getId(String drawableName) {
+		int index = Arrays.binarySearch(NAMES, drawableName);
+		return (index >= 0) ? IDS[index] : 0;
+	}
+}
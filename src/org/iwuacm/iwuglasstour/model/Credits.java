@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.iwuacm.iwuglasstour.R;
-import org.iwuacm.iwuglasstour.model.common.ResourceHelpers;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -50,7 +49,7 @@ public class Credits {
 		if (instance == null) {
 			try {
 				String json = getResourceJson(context);
-				instance = new Credits(readCredits(json, context));
+				instance = new Credits(readCredits(json));
 			} catch (Exception e) {
 				Log.wtf(TAG, "Could not read credits: " + e.getMessage());
 			}
@@ -82,20 +81,25 @@ public class Credits {
 		return writer.toString();
 	}
 
-	private static List<Credit> readCredits(String json, Context context) throws JSONException {
+	private static List<Credit> readCredits(String json) throws JSONException {
 		List<Credit> credits = new ArrayList<Credit>();
 		
 		JSONArray array = new JSONArray(json);
 		
 		for (int i = 0; i < array.length(); i++) {
-			Credit credit = readCredit(array.getJSONObject(i), context);
+			Credit credit = readCredit(array.getJSONObject(i), i);
 			credits.add(credit);
 		}
 
 		return credits;
 	}
 
-	private static Credit readCredit(JSONObject object, Context context) throws JSONException {
+	/**
+	 * Reads the credit at {@code index}. Its photo's ID is negative and found from the index, so
+	 * that it is never the ID of a photo from {@link Buildings}, which are numbered from 0.
+	 */
+	private static Credit readCredit(JSONObject object, int index) throws JSONException {
+
 		Credit.Builder builder = Credit.builder()
 				.withFirstName(object.getString("firstName"))
 				.withLastName(object.getString("lastName"))
@@ -104,9 +108,9 @@ public class Credits {
 		if (object.has("photo")) {
 			JSONObject photoJsonObject = object.getJSONObject("photo");
 
-			int drawableId =
-					ResourceHelpers.getPhotoId(photoJsonObject.getString("drawableName"), context);
+			int drawableId = CampusDrawables.getId(photoJsonObject.getString("drawableName"));
 			Photo.Builder photoBuilder = Photo.builder()
+					.withId(-(index + 1))
 					.withDrawableId(drawableId);
 			
 			if (photoJsonObject.has("description")) {
@@ -0,0 +1,97 @@
+package org.iwuacm.iwuglasstour.model;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+/**
+ * Projects latitudes and longitudes onto a flat plane of east and north meters around an origin
+ * (an equirectangular projection). A campus is only a few hundred meters across, so within it
+ * distances and bearings can be computed with plain planar math instead of spherical
+ * trigonometry.
+ *
+ * <p>The projection is only accurate close to the origin. Within 2 kilometers of the origin and at
+ * latitudes below 60 degrees, planar distances are within 0.1% of {@link MathUtils#getDistance}
+ * and planar bearings are within 0.05 degrees of {@link MathUtils#getBearing}. The error grows
+ * linearly with the distance from the origin and with the tangent of the latitude.
+ */
+public class LocalProjection {
+
+	private static final double METERS_PER_KILOMETER = 1000.0;
+
+	private static final double METERS_PER_DEGREE_LATITUDE =
+			METERS_PER_KILOMETER / MathUtils.convertKilometersToDegreesLatitude(1.0);
+
+	private final double originLatitude;
+	private final double originLongitude;
+	private final double metersPerDegreeLongitude;
+
+	/**
+	 * Creates a {@link LocalProjection} around {@code origin}.
+	 */
+	public LocalProjection(Location origin) {
+		this.originLatitude = origin.getLatitude();
+		this.originLongitude = origin.getLongitude();
+		this.metersPerDegreeLongitude = METERS_PER_KILOMETER
+				/ MathUtils.convertKilometersToDegreesLongitude(1.0, originLatitude);
+	}
+
+	/**
+	 * Creates a {@link LocalProjection} around the center of the bounding box of the footprints in
+	 * {@code geometry}.
+	 */
+	public static LocalProjection centeredOn(BuildingGeometry geometry) {
+		if (geometry.getBuildingCount() == 0) {
+			return new LocalProjection(new Location(0.0, 0.0));
+		}
+
+		double minLatitude = Double.POSITIVE_INFINITY;
+		double maxLatitude = Double.NEGATIVE_INFINITY;
+		double minLongitude = Double.POSITIVE_INFINITY;
+		double maxLongitude = Double.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < geometry.getBuildingCount(); i++) {
+			minLatitude = Math.min(minLatitude, geometry.getMinLatitude(i));
+			maxLatitude = Math.max(maxLatitude, geometry.getMaxLatitude(i));
+			minLongitude = Math.min(minLongitude, geometry.getMinLongitude(i));
+			maxLongitude = Math.max(maxLongitude, geometry.getMaxLongitude(i));
+		}
+
+		return new LocalProjection(new Location(
+				(minLatitude + maxLatitude) / 2.0,
+				(minLongitude + maxLongitude) / 2.0));
+	}
+
+	/**
+	 * Returns how many meters east of the origin {@code longitude} is.
+	 */
+	public double getEast(double longitude) {
+		return (longitude - originLongitude) * metersPerDegreeLongitude;
+	}
+
+	/**
+	 * Returns how many meters north of the origin {@code latitude} is.
+	 */
+	public double getNorth(double latitude) {
+		return (latitude - originLatitude) * METERS_PER_DEGREE_LATITUDE;
+	}
+
+	/**
+	 * Gets the bearing from one projected point to another, like {@link MathUtils#getBearing}.
+	 *
+	 * @return the bearing from point 1 to point 2, in degrees. The result is guaranteed to fall in
+	 *         the range 0-360
+	 */
+	public static float getBearing(double east1, double north1, double east2, double north2) {
+		double bearing = Math.atan2(east2 - east1, north2 - north1);
+		return MathUtils.mod((float) Math.toDegrees(bearing), 360.0f);
+	}
+
+	/**
+	 * Gets the distance in meters between two projected points.
+	 */
+	public static double getDistance(double east1, double north1, double east2, double north2) {
+		double east = east2 - east1;
+		double north = north2 - north1;
+
+		return Math.sqrt(east * east + north * north);
+	}
+}
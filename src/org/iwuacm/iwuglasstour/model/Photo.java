@@ -1,20 +1,34 @@
 package org.iwuacm.iwuglasstour.model;
 
 import java.io.Serializable;
-import java.util.Objects;
 
+/**
+ * A photo of a {@link Building}, {@link Attraction}, or {@link Credit}. Photos are identified by
+ * their ID. {@link Buildings} numbers the photos of buildings and attractions from 0 in the order
+ * that it reads them, while {@link Credits} gives the photos of credits negative IDs, so IDs are
+ * unique across both.
+ */
 public class Photo implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
+	private final int id;
 	private final int drawableId;
 	private final String description;
 
 	private Photo(Builder builder) {
+		this.id = builder.id;
 		this.drawableId = builder.drawableId;
 		this.description = builder.description;
 	}
 	
+	/**
+	 * Returns the photo's ID, which is not the same as its drawable resource ID.
+	 */
+	public int getId() {
+		return id;
+	}
+	
 	/**
 	 * Returns the photo's drawable resource ID.
 	 */
@@ -35,14 +49,18 @@ public class Photo implements Serializable {
 			return false;
 		}
 		
-		Photo other = (Photo) o;
-		
-		return (drawableId == other.drawableId) && Objects.equals(description, other.description);
+		return id == ((Photo) o).id;
+	}
+	
+	@Override
+	public int hashCode() {
+		return id;
 	}
 	
 	@Override
 	public String toString() {
-		return "Photo [drawableId=" + drawableId + ", description=" + description + "]";
+		return "Photo [id=" + id + ", drawableId=" + drawableId + ", description=" + description
+				+ "]";
 	}
 
 	/**
@@ -57,11 +75,20 @@ public class Photo implements Serializable {
 	 */
 	public static class Builder {
 		
+		private Integer id;
 		private Integer drawableId;
 		private String description;
 		
 		private Builder() {}
 		
+		/**
+		 * Sets the ID of the photo.
+		 */
+		public Builder withId(int id) {
+			this.id = id;
+			return this;
+		}
+		
 		/**
 		 * Sets the drawable ID of the photo.
 		 */
@@ -81,10 +108,10 @@ public class Photo implements Serializable {
 		/**
 		 * Returns a {@link Photo} from this {@link Builder}.
 		 * 
-		 * @throws IllegalArgumentException if no drawable ID is provided
+		 * @throws IllegalArgumentException if no ID or drawable ID is provided
 		 */
 		public Photo build() {
-			if (drawableId == null) {
+			if ((id == null) || (drawableId == null)) {
 				throw new IllegalArgumentException();
 			}
 
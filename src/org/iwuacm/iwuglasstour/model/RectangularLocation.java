@@ -12,9 +12,6 @@ import java.util.Set;
 
 import org.iwuacm.iwuglasstour.util.MathUtils;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Ordering;
-
 /**
  * Defines the location of a place as a rectangle with four {@link Location}s as the corners. The
  * edges must be parallel to the horizontal and vertical axes, so there can only be two distinct
@@ -23,6 +20,12 @@ import com.google.common.collect.Ordering;
 public class RectangularLocation implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The number of corners of a rectangle, and so the number of bearings written by {@link
+	 * #computeCornerBearings}.
+	 */
+	public static final int CORNER_COUNT = 4;
 
 	private static final Comparator<Location> COMPARE_BY_LONGITUDE_THEN_LATITUDE =
 			new Comparator<Location>() {
@@ -37,12 +40,6 @@ public class RectangularLocation implements Serializable {
 					return compareValue;
 				}
 			};
-			
-	private static final Ordering<Double> ORDER_BY_ABSOULTE_VALUE = new Ordering<Double>() {
-		@Override
-		public int compare(Double lhs, Double rhs) {
-			return Double.compare(Math.abs(lhs), Math.abs(rhs));
-		}};
 	
 	private final Location northWest;
 	private final Location northEast;
@@ -162,16 +159,37 @@ public class RectangularLocation implements Serializable {
 	 * guaranteed to be within: -180 <= bearing <= 180.
 	 */
 	public double computeHeadingOffset(Location location, double heading) {
-		List<Location> coordinates = ImmutableList.of(northWest, northEast, southWest, southEast);
+		float[] cornerBearings = new float[CORNER_COUNT];
+		computeCornerBearings(location, cornerBearings, 0);
 		
-		ImmutableList.Builder<Double> headingOffsetsBuilder = ImmutableList.builder();
-		for (Location corner : coordinates) {
-			double bearing = MathUtils.getBearing(
-					location.getLatitude(),
-					location.getLongitude(),
-					corner.getLatitude(),
-					corner.getLongitude());
-			double headingOffset = bearing - heading;
+		return computeHeadingOffset(cornerBearings, 0, heading);
+	}
+	
+	/**
+	 * Computes the bearings from {@code location} to each of the {@link #CORNER_COUNT} corners and
+	 * stores them in {@code cornerBearings} starting at {@code offset}. The bearings only depend on
+	 * the location, so they can be reused with {@link #computeHeadingOffset(float[], int, double)}
+	 * for any number of headings.
+	 */
+	public void computeCornerBearings(Location location, float[] cornerBearings, int offset) {
+		cornerBearings[offset] = computeBearing(location, northWest);
+		cornerBearings[offset + 1] = computeBearing(location, northEast);
+		cornerBearings[offset + 2] = computeBearing(location, southWest);
+		cornerBearings[offset + 3] = computeBearing(location, southEast);
+	}
+	
+	/**
+	 * Computes the minimal relative bearing of a rectangle given the bearings to its corners (see
+	 * {@link #computeCornerBearings}) and a heading. Bearing is guaranteed to be within: -180 <=
+	 * bearing <= 180.
+	 */
+	public static double computeHeadingOffset(float[] cornerBearings, int offset, double heading) {
+		double maxHeadingOffset = Double.NEGATIVE_INFINITY;
+		double minHeadingOffset = Double.POSITIVE_INFINITY;
+		double closestHeadingOffset = Double.NaN;
+
+		for (int i = 0; i < CORNER_COUNT; i++) {
+			double headingOffset = cornerBearings[offset + i] - heading;
 			
 			if (headingOffset > 180.0) {
 				headingOffset = -360.0 + headingOffset;
@@ -179,23 +197,26 @@ public class RectangularLocation implements Serializable {
 				headingOffset = 360.0 + headingOffset;
 			}
 			
-			headingOffsetsBuilder.add(headingOffset);
+			maxHeadingOffset = Math.max(maxHeadingOffset, headingOffset);
+			minHeadingOffset = Math.min(minHeadingOffset, headingOffset);
+
+			// Prefer the smallest absolute value followed by the largest actual value, so that
+			// right is preferred over left if they have the same absolute value.
+			if ((i == 0)
+					|| (Math.abs(headingOffset) < Math.abs(closestHeadingOffset))
+					|| ((Math.abs(headingOffset) == Math.abs(closestHeadingOffset))
+							&& (headingOffset > closestHeadingOffset))) {
+				closestHeadingOffset = headingOffset;
+			}
 		}
 		
-		ImmutableList<Double> headingOffsets = headingOffsetsBuilder.build();
-		
 		// Handle case where the rectangle is directly within the rectangle.
-		double maxHeadingOffset = Collections.max(headingOffsets);
-		double minHeadingOffset = Collections.min(headingOffsets);
 		if ((maxHeadingOffset >= 0.0) && (minHeadingOffset <= 0.0)
 				&& (maxHeadingOffset - minHeadingOffset <= 180.0)) {
 			return 0.0;
 		}
 		
-		// Order by smallest to greatest absolute value followed by largest to smallest actual
-		// value, so that right is preferred over left if they have the same absolute value.
-		Ordering<Double> ordering = ORDER_BY_ABSOULTE_VALUE.compound(Ordering.natural().reverse());
-		return Collections.min(headingOffsets, ordering);
+		return closestHeadingOffset;
 	}
 	
 	/**
@@ -208,6 +229,14 @@ public class RectangularLocation implements Serializable {
 				&& (location.getLongitude() <= northEast.getLongitude());
 	}
 	
+	private static float computeBearing(Location from, Location to) {
+		return MathUtils.getBearing(
+				from.getLatitude(),
+				from.getLongitude(),
+				to.getLatitude(),
+				to.getLongitude());
+	}
+	
 	@Override
 	public boolean equals(Object o) {
 		if (!(o instanceof RectangularLocation)) {
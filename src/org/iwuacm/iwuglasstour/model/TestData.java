@@ -35,34 +35,41 @@ class TestData {
 	private static final double LOCATION_SIZE_IN_CARTESIAN = 0.001;
 	
 	public static final Photo PHOTO_1 = Photo.builder()
+			.withId(0)
 			.withDrawableId(R.drawable.test_1)
 			.withDescription(generateRandomDescription())
 			.build();
 	public static final Photo PHOTO_2 = Photo.builder()
+			.withId(1)
 			.withDrawableId(R.drawable.test_2)
 			.withDescription(generateRandomDescription())
 			.build();
 	public static final Photo PHOTO_3 = Photo.builder()
+			.withId(2)
 			.withDrawableId(R.drawable.test_3)
 			.withDescription(generateRandomDescription())
 			.build();
 	public static final Photo PHOTO_4 = Photo.builder()
+			.withId(3)
 			.withDrawableId(R.drawable.test_4)
 			.withDescription(generateRandomDescription())
 			.build();
 	
 	public static final Attraction ATTRACTION_1 = Attraction.builder()
+			.withId(0)
 			.withName("Lab")
 			.withDescription(generateRandomDescription())
 			.addPhoto(PHOTO_1)
 			.addPhoto(PHOTO_2)
 			.build();
 	public static final Attraction ATTRACTION_2 = Attraction.builder()
+			.withId(1)
 			.withName("Classroom")
 			.withDescription(generateRandomDescription())
 			.addPhoto(PHOTO_3)
 			.build();
 	public static final Attraction ATTRACTION_3 = Attraction.builder()
+			.withId(2)
 			.withName("ACM Lounge")
 			.withDescription(generateRandomDescription())
 			.addPhoto(PHOTO_4)
@@ -74,36 +81,43 @@ class TestData {
 	 */
 	public static final List<Building> BUILDINGS = Arrays.asList(
 			getCommonBuilder()
+				.withId(0)
 				.withName("Center for Natural Sciences")
 				.withShortName("CNS")
 				.withLocation(createRectangularLocation(40.49157691582489, -88.99231284856796))
 				.build(),
 			getCommonBuilder()
+				.withId(1)
 				.withName("Center for Liberal Arts")
 				.withShortName("CLA")
 				.withLocation(createRectangularLocation(40.49180537570156, -88.9907893538475))
 				.build(),
 			getCommonBuilder()
+				.withId(2)
 				.withName("Memorial Center")
 				.withShortName("Memorial Ctr.")
 				.withLocation(createRectangularLocation(40.49081809708109, -88.99275809526443))
 				.build(),
 			getCommonBuilder()
+				.withId(3)
 				.withName("Buck Memorial Library")
 				.withShortName("Buck")
 				.withLocation(createRectangularLocation(40.48987160146062, -88.99198561906815))
 				.build(),
 			getCommonBuilder()
+				.withId(4)
 				.withName("State Farm Hall")
 				.withShortName("SFH")
 				.withLocation(createRectangularLocation(40.49126686189105, -88.99119704961777))
 				.build(),
 			getCommonBuilder()
+				.withId(5)
 				.withName("The Ames Library")
 				.withShortName("Ames")
 				.withLocation(createRectangularLocation(40.48890469344348, -88.99117559194565))
 				.build(),
 			getCommonBuilder()
+				.withId(6)
 				.withName("Presser Hall")
 				.withShortName("Presser")
 				.withLocation(createRectangularLocation(40.48967169335051, -88.99041920900345))
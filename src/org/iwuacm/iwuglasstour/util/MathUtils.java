@@ -29,6 +29,12 @@ public class MathUtils {
     /** The Earth's radius, in kilometers. */
     private static final double EARTH_RADIUS_KM = 6371.0;
 
+    /**
+     * Lower bound for the cosine of a latitude, so conversions to degrees of longitude stay finite
+     * near the poles.
+     */
+    private static final double MIN_COS_LATITUDE = 1e-6;
+
 	private static final double MILES_IN_KILOMETER = 0.621371;
 	private static final double FEET_IN_MILE = 5280;
 
@@ -141,6 +147,23 @@ public class MathUtils {
     			androidLocation.getLongitude());
     }
     
+    /**
+     * Converts a north-south distance in kilometers to the number of degrees of latitude it spans.
+     */
+    public static double convertKilometersToDegreesLatitude(double kilometers) {
+        return Math.toDegrees(kilometers / EARTH_RADIUS_KM);
+    }
+
+    /**
+     * Converts an east-west distance in kilometers at {@code latitude} to the number of degrees of
+     * longitude it spans. Meridians converge towards the poles, so a kilometer spans more degrees
+     * of longitude the further the latitude is from the equator.
+     */
+    public static double convertKilometersToDegreesLongitude(double kilometers, double latitude) {
+        double cosLatitude = Math.max(Math.cos(Math.toRadians(latitude)), MIN_COS_LATITUDE);
+        return convertKilometersToDegreesLatitude(kilometers) / cosLatitude;
+    }
+    
     /**
      * Converts a distance in kilometers to miles.
      */
@@ -0,0 +1,188 @@
+package org.iwuacm.iwuglasstour.view;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.view.common.CardBuilders;
+import org.iwuacm.iwuglasstour.view.common.CardPhotos;
+
+import com.google.android.glass.widget.CardBuilder;
+import com.google.common.annotations.VisibleForTesting;
+
+import android.content.Context;
+import android.util.LruCache;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Keeps the inflated description cards (see {@link CardBuilders#createBuildingDescriptionCard}) of
+ * the last few buildings that {@link InsideView} showed or prepared, keyed by building, so that
+ * showing one of them again only has to add its view. A card's photos keep loading while it is
+ * cached, at {@link org.iwuacm.iwuglasstour.view.common.PhotoLoader.Priority#PREFETCH} until it
+ * is shown. The photos are decoded at the size of the card's mosaic (see {@link
+ * CardPhotos#addMosaicImages}), and are released once the card has left the cache and is not
+ * shown.
+ *
+ * <p>Must only be used on the main thread.
+ */
+class BuildingCardCache {
+
+	/**
+	 * The most cards that are kept: the building the user is in, the one they left, and the one
+	 * they are approaching.
+	 */
+	@VisibleForTesting
+	static final int MAX_CARDS = 3;
+
+	/**
+	 * Receives a new view of the shown card.
+	 */
+	interface Listener {
+
+		/**
+		 * Called when photos were added to the shown card, so it has a new view.
+		 */
+		void onShownCardChange(View view);
+	}
+
+	private final Context context;
+	private final ViewGroup parent;
+	private final Listener listener;
+	private final LruCache<Integer, CachedCard> cards;
+
+	private CachedCard shownCard;
+
+	/**
+	 * Creates a cache for cards whose views are shown in {@code parent}.
+	 */
+	BuildingCardCache(Context context, ViewGroup parent, Listener listener) {
+		this.context = context;
+		this.parent = parent;
+		this.listener = listener;
+		this.cards = new LruCache<Integer, CachedCard>(MAX_CARDS) {
+			@Override
+			protected void entryRemoved(
+					boolean evicted,
+					Integer buildingId,
+					CachedCard oldCard,
+					CachedCard newCard) {
+
+				oldCard.isCached = false;
+				if (oldCard != shownCard) {
+					oldCard.release();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Creates and inflates the card of {@code building} if it is not cached, so that it can be
+	 * shown right away later.
+	 */
+	void prepare(Building building) {
+		getCard(building);
+	}
+
+	/**
+	 * Returns the view of the card of {@code building}, and loads its photos before those of the
+	 * other cards. The view of the card that was shown before must be removed from the parent.
+	 */
+	View show(Building building) {
+		CachedCard card = getCard(building);
+		CachedCard oldCard = shownCard;
+		shownCard = card;
+		card.cardPhotos.setVisibleCard(card.card);
+
+		if ((oldCard != null) && (oldCard != card) && !oldCard.isCached) {
+			oldCard.release();
+		}
+
+		return card.view;
+	}
+
+	/**
+	 * Evicts all of the cards and releases their photos, as well as those of the shown card. The
+	 * view of the shown card must be removed from the parent.
+	 */
+	void clear() {
+		CachedCard oldCard = shownCard;
+		shownCard = null;
+		cards.evictAll();
+
+		// The shown card may have already left the cache.
+		if (oldCard != null) {
+			oldCard.release();
+		}
+	}
+
+	/**
+	 * Returns whether the card of {@code building} is cached, without counting it as used.
+	 */
+	@VisibleForTesting
+	boolean isCached(Building building) {
+		return cards.snapshot().containsKey(building.getId());
+	}
+
+	/**
+	 * Returns the cached card of {@code building}, creating it if it is not cached.
+	 */
+	private CachedCard getCard(Building building) {
+		CachedCard card = cards.get(building.getId());
+		if (card == null) {
+			card = new CachedCard(building);
+			cards.put(building.getId(), card);
+		}
+
+		return card;
+	}
+
+	/**
+	 * The card of a building with its photos and view.
+	 */
+	private class CachedCard {
+
+		private final CardPhotos cardPhotos;
+		private final CardBuilder card;
+		private View view;
+		private boolean isCached = true;
+
+		private CachedCard(Building building) {
+			this.cardPhotos = new CardPhotos(context, new Runnable() {
+				@Override
+				public void run() {
+					onPhotosAdded();
+				}
+			});
+			this.card = CardBuilders.createBuildingDescriptionCard(building, context, cardPhotos);
+			this.view = createView();
+		}
+
+		/**
+		 * Creates the view of the card, laid out for the parent's size if it is known so that
+		 * adding the view does not have to measure it.
+		 */
+		private View createView() {
+			View cardView = card.getView();
+			if ((parent.getWidth() > 0) && (parent.getHeight() > 0)) {
+				int measuredWidth = View.MeasureSpec.makeMeasureSpec(
+						parent.getWidth(), View.MeasureSpec.EXACTLY);
+				int measuredHeight = View.MeasureSpec.makeMeasureSpec(
+						parent.getHeight(), View.MeasureSpec.EXACTLY);
+
+				cardView.measure(measuredWidth, measuredHeight);
+				cardView.layout(0, 0, cardView.getMeasuredWidth(), cardView.getMeasuredHeight());
+			}
+
+			return cardView;
+		}
+
+		private void onPhotosAdded() {
+			view = createView();
+			if (this == shownCard) {
+				listener.onShownCardChange(view);
+			}
+		}
+
+		private void release() {
+			cardPhotos.release();
+		}
+	}
+}
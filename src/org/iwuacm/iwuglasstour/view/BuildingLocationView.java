@@ -8,14 +8,19 @@ import org.iwuacm.iwuglasstour.model.Building;
 import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
 import org.iwuacm.iwuglasstour.model.Photo;
 import org.iwuacm.iwuglasstour.util.MathUtils;
+import org.iwuacm.iwuglasstour.view.common.PhotoLoader;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.os.Handler;
+import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
@@ -36,10 +41,21 @@ public class BuildingLocationView extends RelativeLayout {
 	 */
 	private static final double ARROW_ROTATION_ANGLE = 90.0;
 	
+	/**
+	 * Arrow rotations closer than this many degrees look the same.
+	 */
+	private static final double ARROW_PRECISION = 1.0;
+	
+	/**
+	 * The number of steps that a mile is displayed in, matching {@link #MILES_FORMAT}.
+	 */
+	private static final double MILE_STEPS = 100.0;
+	
 	private static final DecimalFormat MILES_FORMAT = new DecimalFormat("0.00");
 	private static final DecimalFormat FEET_FORMAT = new DecimalFormat("0");
 	
 	private final Handler handler;
+	private final PhotoLoader photoLoader;
 
 	private final ImageView photoView;
 	private final TextView nameView;
@@ -49,6 +65,19 @@ public class BuildingLocationView extends RelativeLayout {
 	private final String milesUnit;
 	private final String feetUnit;
 
+	private ViewChangeListener listener;
+	private PhotoLoader.Priority photoPriority;
+
+	/**
+	 * The photo resource that was last requested and the one that is displayed, with its photo
+	 * and the request while it is loading. Only used on the main thread.
+	 */
+	private int photoResource;
+	private int displayedPhotoResource;
+	private Bitmap photo;
+	private boolean isLoadingPhoto;
+	private PhotoLoader.Request photoRequest;
+
 	public BuildingLocationView(Context context) {
 		this(context, null, 0);
 	}
@@ -62,6 +91,7 @@ public class BuildingLocationView extends RelativeLayout {
 		LayoutInflater.from(context).inflate(R.layout.building_location, this);
 		
 		this.handler = new Handler();
+		this.photoLoader = PhotoLoader.getPhotoLoader(context);
 		
 		this.photoView = (ImageView) findViewById(R.id.building_location_photo);
 		this.nameView = (TextView) findViewById(R.id.building_location_name);
@@ -70,6 +100,8 @@ public class BuildingLocationView extends RelativeLayout {
 		
 		this.milesUnit = context.getResources().getString(R.string.miles_unit);
 		this.feetUnit = context.getResources().getString(R.string.feet_unit);
+
+		this.photoPriority = PhotoLoader.Priority.SIDE;
 		
 		setVisibility(View.GONE);
 	}
@@ -94,12 +126,11 @@ public class BuildingLocationView extends RelativeLayout {
 		BuildingWithLocation buildingWithLocation = buildingWithLocationOptional.get();
 		Building building = buildingWithLocation.getBuilding();
 
-		List<Photo> photos = building.getPhotos();
-		final int photoResource =
-				photos.isEmpty() ? R.drawable.ic_building : photos.get(0).getDrawableId();
+		final int photoResource = getPhotoResource(building);
 		
 		final String nameText = building.getShortName();
-		final String distanceText = formatDistance(buildingWithLocation.getDistance());
+		final String distanceText =
+				formatDistance(getDisplayedDistance(buildingWithLocation.getDistance()));
 
 		final float arrowRotation =
 				(float) (buildingWithLocation.getHeadingOffset() - ARROW_ROTATION_ANGLE);
@@ -107,7 +138,7 @@ public class BuildingLocationView extends RelativeLayout {
 		post(new Runnable() {
 			@Override
 			public void run() {
-				photoView.setImageResource(photoResource);
+				showPhoto(photoResource);
 
 				nameView.setText(nameText);
 				distanceView.setText(distanceText);
@@ -119,23 +150,132 @@ public class BuildingLocationView extends RelativeLayout {
 		});
 	}
 	
+	/**
+	 * Sets a listener for when a photo is displayed after the building was set.
+	 */
+	public void setListener(ViewChangeListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the priority of loading the photos, which depends on where this is displayed. Defaults
+	 * to {@link PhotoLoader.Priority#SIDE}.
+	 */
+	public void setPhotoPriority(PhotoLoader.Priority photoPriority) {
+		this.photoPriority = photoPriority;
+	}
+	
 	@Override
 	public boolean post(Runnable action) {
 		return handler.post(action);
 	}
 	
-	// TODO: Internationalize.
-	private String formatDistance(double kmDistance) {
+	/**
+	 * Loads and displays a photo, unless it is already displayed or loading. Until it is loaded,
+	 * no photo is displayed rather than the photo of another building, and the photo of the
+	 * previous building is no longer loaded.
+	 */
+	private void showPhoto(int newPhotoResource) {
+		if (newPhotoResource == photoResource) {
+			return;
+		}
+		
+		photoResource = newPhotoResource;
+		isLoadingPhoto = false;
+
+		if (photoRequest != null) {
+			photoRequest.cancel();
+		}
+
+		ViewGroup.LayoutParams layoutParams = photoView.getLayoutParams();
+		photoRequest = photoLoader.load(
+				newPhotoResource,
+				layoutParams.width,
+				layoutParams.height,
+				photoPriority,
+				new PhotoLoader.Callback() {
+					@Override
+					public void onPhotoLoaded(int drawableId, Bitmap bitmap) {
+						photoRequest = null;
+						setPhoto(drawableId, bitmap);
+
+						if (isLoadingPhoto) {
+							isLoadingPhoto = false;
+							if (listener != null) {
+								listener.onChange();
+							}
+						}
+					}
+				});
+
+		if (displayedPhotoResource != photoResource) {
+			setPhoto(0, null);
+			isLoadingPhoto = true;
+		}
+	}
+	
+	private void setPhoto(int drawableId, @Nullable Bitmap bitmap) {
+		photoView.setImageBitmap(bitmap);
+		photoLoader.release(photo);
+
+		displayedPhotoResource = drawableId;
+		photo = bitmap;
+	}
+	
+	/**
+	 * Returns the drawable of the photo that is displayed for {@code building}.
+	 */
+	public static int getPhotoResource(Building building) {
+		List<Photo> photos = building.getPhotos();
+		return photos.isEmpty() ? R.drawable.ic_building : photos.get(0).getDrawableId();
+	}
+
+	/**
+	 * Returns whether the two would be displayed the same way, so that there is no need to update
+	 * the display when going from one to the other. Either may be null for no building.
+	 *
+	 * <p>The distances must display the same text, while the arrows only need to be within {@link
+	 * #ARROW_PRECISION}. Rounding the arrows instead would flicker between two rotations whenever
+	 * sensor noise crosses a rounding boundary.
+	 */
+	public static boolean isDisplayedSame(
+			@Nullable BuildingWithLocation buildingWithLocation1,
+			@Nullable BuildingWithLocation buildingWithLocation2) {
+
+		if ((buildingWithLocation1 == null) || (buildingWithLocation2 == null)) {
+			return buildingWithLocation1 == buildingWithLocation2;
+		}
+
+		return Objects.equal(buildingWithLocation1.getBuilding(), buildingWithLocation2.getBuilding())
+				&& (getDisplayedDistance(buildingWithLocation1.getDistance())
+						== getDisplayedDistance(buildingWithLocation2.getDistance()))
+				&& (Math.abs(buildingWithLocation1.getHeadingOffset()
+						- buildingWithLocation2.getHeadingOffset()) < ARROW_PRECISION);
+	}
+	
+	/**
+	 * Rounds a distance in kilometers to what {@link #formatDistance} displays: hundredths of a
+	 * mile when over {@link #MILES_THRESHOLD}, or else negative whole feet minus one.
+	 */
+	private static long getDisplayedDistance(double kmDistance) {
 		double miles = MathUtils.convertKilometersToMiles(kmDistance);
 		
+		if (miles > MILES_THRESHOLD) {
+			return Math.round(miles * MILE_STEPS);
+		} else {
+			return -Math.round(MathUtils.convertMilesToFeet(miles)) - 1;
+		}
+	}
+	
+	// TODO: Internationalize.
+	private String formatDistance(long displayedDistance) {
 		String number;
 		String unit;
-		if (miles > MILES_THRESHOLD) {
-			number = MILES_FORMAT.format(miles);
+		if (displayedDistance >= 0) {
+			number = MILES_FORMAT.format(displayedDistance / MILE_STEPS);
 			unit = milesUnit;
 		} else {
-			double feet = MathUtils.convertMilesToFeet(miles);
-			number = FEET_FORMAT.format(feet);
+			number = FEET_FORMAT.format(-displayedDistance - 1);
 			unit = feetUnit;
 		}
 		
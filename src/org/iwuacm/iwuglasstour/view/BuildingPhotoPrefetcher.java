@@ -0,0 +1,281 @@
+package org.iwuacm.iwuglasstour.view;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.iwuacm.iwuglasstour.BuildingLocationManager;
+import org.iwuacm.iwuglasstour.R;
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.view.common.PhotoLoader;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Loads the photos of the buildings that are likely to be displayed next by the {@link
+ * BuildingLocationView}s, so that they are cached by the time a building comes into view. The
+ * photos are decoded on the {@link PhotoLoader}'s background thread and held until the building is
+ * displayed or is no longer likely, up to {@link #MAX_BYTES} including the photos still loading.
+ * Loading is cancelled for buildings that are no longer likely before their photos are decoded.
+ *
+ * <p>Every time a building comes into view, it is counted as a hit if its photo was prefetched and
+ * as a miss otherwise. The counts are logged by {@link #clear}.
+ *
+ * <p>The methods may be called on any thread, and do their work on the main thread.
+ */
+public class BuildingPhotoPrefetcher {
+
+	private static final String TAG = BuildingPhotoPrefetcher.class.getSimpleName();
+
+	/**
+	 * The most memory that the prefetched photos may hold, in bytes. This is about twice what the
+	 * thumbnails of all of the likely buildings that {@link BuildingLocationManager} reports need.
+	 */
+	@VisibleForTesting
+	static final int MAX_BYTES = 512 * 1024;
+
+	private final PhotoLoader photoLoader;
+	private final Handler handler;
+	private final int photoWidth;
+	private final int photoHeight;
+
+	/**
+	 * The bytes that a photo is expected to take once it is decoded with 4 bytes per pixel, which
+	 * are counted against {@link #MAX_BYTES} while it is loading.
+	 */
+	private final int requestByteCount;
+
+	/**
+	 * The prefetched photos by drawable. Only used on the main thread, like the rest of the state.
+	 */
+	private final Map<Integer, Bitmap> photos = new HashMap<Integer, Bitmap>();
+
+	/**
+	 * The photos that are still loading by drawable.
+	 */
+	private final Map<Integer, PhotoLoader.Request> requests =
+			new HashMap<Integer, PhotoLoader.Request>();
+
+	/**
+	 * The drawables of the photos that are displayed.
+	 */
+	private final Set<Integer> displayedPhotos = new HashSet<Integer>();
+
+	private int byteCount = 0;
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long loadedCount = 0;
+	private long cancelledCount = 0;
+	private long unusedCount = 0;
+	private long overBudgetCount = 0;
+
+	public BuildingPhotoPrefetcher(Context context) {
+		this.photoLoader = PhotoLoader.getPhotoLoader(context);
+		this.handler = new Handler(Looper.getMainLooper());
+
+		Resources resources = context.getResources();
+		this.photoWidth = resources.getDimensionPixelSize(R.dimen.building_location_photo_width);
+		this.photoHeight = resources.getDimensionPixelSize(R.dimen.building_location_photo_height);
+		this.requestByteCount = photoWidth * photoHeight * 4;
+	}
+
+	/**
+	 * Prefetches the photos of {@code buildings}, ordered from most to least likely to be
+	 * displayed, as far as the budget allows. Cancels or releases the photos of all other buildings
+	 * that are not displayed.
+	 */
+	public void setLikelyBuildings(final List<Building> buildings) {
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				updateLikelyPhotos(buildings);
+			}
+		});
+	}
+
+	/**
+	 * Counts the hits and misses for the buildings that have come into view, and releases their
+	 * prefetched photos since the views now hold them. Each may be null for no building.
+	 */
+	public void setDisplayedBuildings(
+			BuildingWithLocation left,
+			BuildingWithLocation front,
+			BuildingWithLocation right) {
+
+		final int[] drawableIds = new int[] {
+				getPhotoResource(left),
+				getPhotoResource(front),
+				getPhotoResource(right),
+		};
+
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				updateDisplayedPhotos(drawableIds);
+			}
+		});
+	}
+
+	/**
+	 * Cancels and releases all of the prefetched photos, and logs the hits and misses so far.
+	 */
+	public void clear() {
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				for (PhotoLoader.Request request : requests.values()) {
+					request.cancel();
+					cancelledCount++;
+				}
+				requests.clear();
+
+				for (Bitmap bitmap : photos.values()) {
+					photoLoader.release(bitmap);
+					unusedCount++;
+				}
+				photos.clear();
+				byteCount = 0;
+				displayedPhotos.clear();
+
+				Log.d(TAG, "Prefetching: " + hitCount + " hits, " + missCount + " misses ("
+						+ formatHitRate() + "), " + loadedCount + " loaded, " + cancelledCount
+						+ " cancelled, " + unusedCount + " unused, " + overBudgetCount
+						+ " over budget");
+			}
+		});
+	}
+
+	private void updateLikelyPhotos(List<Building> buildings) {
+		Set<Integer> likelyPhotos = new HashSet<Integer>();
+		for (Building building : buildings) {
+			likelyPhotos.add(BuildingLocationView.getPhotoResource(building));
+		}
+
+		Iterator<Map.Entry<Integer, PhotoLoader.Request>> requestIterator =
+				requests.entrySet().iterator();
+		while (requestIterator.hasNext()) {
+			Map.Entry<Integer, PhotoLoader.Request> entry = requestIterator.next();
+			if (!likelyPhotos.contains(entry.getKey())) {
+				entry.getValue().cancel();
+				requestIterator.remove();
+				cancelledCount++;
+			}
+		}
+
+		Iterator<Map.Entry<Integer, Bitmap>> photoIterator = photos.entrySet().iterator();
+		while (photoIterator.hasNext()) {
+			Map.Entry<Integer, Bitmap> entry = photoIterator.next();
+			if (!likelyPhotos.contains(entry.getKey())) {
+				release(entry.getValue());
+				photoIterator.remove();
+				unusedCount++;
+			}
+		}
+
+		for (Building building : buildings) {
+			if (byteCount + requests.size() * requestByteCount >= MAX_BYTES) {
+				break;
+			}
+
+			int drawableId = BuildingLocationView.getPhotoResource(building);
+
+			if (photos.containsKey(drawableId)
+					|| requests.containsKey(drawableId)
+					|| displayedPhotos.contains(drawableId)) {
+				continue;
+			}
+
+			// Requests are put in the map before loading, since cached photos are passed to the
+			// callback right away.
+			requests.put(drawableId, null);
+			PhotoLoader.Request request = photoLoader.load(
+					drawableId,
+					photoWidth,
+					photoHeight,
+					PhotoLoader.Priority.PREFETCH,
+					new PhotoLoader.Callback() {
+						@Override
+						public void onPhotoLoaded(int drawableId, Bitmap bitmap) {
+							onPhotoPrefetched(drawableId, bitmap);
+						}
+					});
+
+			if (requests.containsKey(drawableId)) {
+				requests.put(drawableId, request);
+			}
+		}
+	}
+
+	private void onPhotoPrefetched(int drawableId, Bitmap bitmap) {
+		requests.remove(drawableId);
+		if (bitmap == null) {
+			return;
+		}
+
+		if (byteCount + bitmap.getAllocationByteCount() > MAX_BYTES) {
+			photoLoader.release(bitmap);
+			overBudgetCount++;
+			return;
+		}
+
+		photos.put(drawableId, bitmap);
+		byteCount += bitmap.getAllocationByteCount();
+		loadedCount++;
+	}
+
+	private void updateDisplayedPhotos(int[] drawableIds) {
+		Set<Integer> newDisplayedPhotos = new HashSet<Integer>();
+		for (int drawableId : drawableIds) {
+			if (drawableId == 0) {
+				continue;
+			}
+			newDisplayedPhotos.add(drawableId);
+
+			if (displayedPhotos.contains(drawableId)) {
+				continue;
+			}
+
+			Bitmap bitmap = photos.remove(drawableId);
+			if (bitmap != null) {
+				release(bitmap);
+				hitCount++;
+			} else {
+				missCount++;
+			}
+		}
+
+		displayedPhotos.clear();
+		displayedPhotos.addAll(newDisplayedPhotos);
+	}
+
+	private void release(Bitmap bitmap) {
+		byteCount -= bitmap.getAllocationByteCount();
+		photoLoader.release(bitmap);
+	}
+
+	private String formatHitRate() {
+		long count = hitCount + missCount;
+		return (count == 0) ? "no hit rate" : (100 * hitCount / count) + "% hit rate";
+	}
+
+	/**
+	 * Returns the drawable of the photo displayed for a building, or 0 for no building.
+	 */
+	private static int getPhotoResource(BuildingWithLocation buildingWithLocation) {
+		return (buildingWithLocation == null)
+				? 0
+				: BuildingLocationView.getPhotoResource(buildingWithLocation.getBuilding());
+	}
+}
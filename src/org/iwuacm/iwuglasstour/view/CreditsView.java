@@ -9,18 +9,21 @@ import org.iwuacm.iwuglasstour.R;
 import org.iwuacm.iwuglasstour.model.Credit;
 import org.iwuacm.iwuglasstour.model.Credits;
 import org.iwuacm.iwuglasstour.model.Photo;
+import org.iwuacm.iwuglasstour.view.common.CardPhotos;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter.CardDescriptor;
 
 import com.google.android.glass.widget.CardBuilder;
-import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.ViewGroup;
+import android.widget.AdapterView;
 
 /**
- * Displays a multiple card view with credits for the app.
+ * Displays a multiple card view with credits for the app. The cards are only created as they are
+ * scrolled to (see {@link LazyCardScrollAdapter}).
  */
 public class CreditsView extends CardScrollView {
 
@@ -31,29 +34,26 @@ public class CreditsView extends CardScrollView {
 		}
 	};
 
-	private final List<CardBuilder> cards;
-	
-	private final CardScrollAdapter cardScrollAdapter = new CardScrollAdapter() {
-		@Override
-		public int getCount() {
-			return cards.size();
-		}
+	private final LazyCardScrollAdapter cardScrollAdapter;
 
-		@Override
-		public Object getItem(int index) {
-			return cards.get(index);
-		}
+	/**
+	 * Keeps the cards near the selected card and loads its photos first.
+	 */
+	private final AdapterView.OnItemSelectedListener onItemSelectedListener =
+			new AdapterView.OnItemSelectedListener() {
+				@Override
+				public void onItemSelected(
+						AdapterView<?> parent,
+						View view,
+						int position,
+						long id) {
 
-		@Override
-		public int getPosition(Object item) {
-			return cards.indexOf(item);
-		}
+					cardScrollAdapter.setSelectedPosition(position);
+				}
 
-		@Override
-		public View getView(int index, View convertView, ViewGroup parent) {
-			return cards.get(index).getView(convertView, parent);
-		}
-	};
+				@Override
+				public void onNothingSelected(AdapterView<?> parent) {}
+			};
 	
 	public CreditsView(Credits credits, Context context) {
 		this(credits, context, null, 0);
@@ -66,37 +66,57 @@ public class CreditsView extends CardScrollView {
 	public CreditsView(Credits credits, Context context, AttributeSet attrs, int defStyle) {
 		super(context, attrs, defStyle);
 		
-		this.cards = createCards(credits, context);
+		this.cardScrollAdapter =
+				new LazyCardScrollAdapter(context, createCardDescriptors(credits), 0);
 		
 		setAdapter(cardScrollAdapter);
+		setOnItemSelectedListener(onItemSelectedListener);
 		activate();
+		cardScrollAdapter.setSelectedPosition(0);
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cardScrollAdapter.release();
 	}
 	
 	/**
-	 * Creates the {@link CardBuilder}s for the given {@link Credits} that go into the scroll
-	 * adapter.
+	 * Describes the cards for the given {@link Credits} that go into the scroll adapter, sorted by
+	 * last name.
 	 */
-	private List<CardBuilder> createCards(Credits credits, Context context) {
-		List<CardBuilder> cards = new ArrayList<CardBuilder>();
+	private static List<CardDescriptor> createCardDescriptors(Credits credits) {
+		List<CardDescriptor> descriptors = new ArrayList<CardDescriptor>();
 		
 		List<Credit> creditsSortedAlphabetically = new ArrayList<Credit>(credits.getAll());
 		Collections.sort(creditsSortedAlphabetically, CREDIT_LAST_NAME_COMPARATOR);
-		for (Credit credit : creditsSortedAlphabetically) {
-			cards.add(createCreditCard(credit, context));
+		for (final Credit credit : creditsSortedAlphabetically) {
+			descriptors.add(new CardDescriptor() {
+				@Override
+				public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+					return createCreditCard(credit, context, cardPhotos);
+				}
+			});
 		}
 
-		return cards;
+		return descriptors;
 	}
 	
 	/**
 	 * Creates a {@link CardBuilder} for a {@link Credit}.
 	 */
-	private CardBuilder createCreditCard(Credit credit, Context context) {
+	private static CardBuilder createCreditCard(
+			Credit credit,
+			Context context,
+			CardPhotos cardPhotos) {
+
 		Photo photo = credit.getPhoto();
 
-		return new CardBuilder(context, CardBuilder.Layout.AUTHOR)
-					.setIcon((photo == null) ? R.drawable.ic_person : photo.getDrawableId())
-					.setHeading(credit.getFullName())
-					.setText(credit.getContributions());
+		CardBuilder card = new CardBuilder(context, CardBuilder.Layout.AUTHOR)
+				.setHeading(credit.getFullName())
+				.setText(credit.getContributions());
+		cardPhotos.setIcon(card, (photo == null) ? R.drawable.ic_person : photo.getDrawableId());
+
+		return card;
 	}
 }
@@ -1,61 +1,57 @@
 package org.iwuacm.iwuglasstour.view;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.iwuacm.iwuglasstour.model.Attraction;
 import org.iwuacm.iwuglasstour.model.Building;
 import org.iwuacm.iwuglasstour.model.Photo;
 import org.iwuacm.iwuglasstour.view.common.CardBuilders;
+import org.iwuacm.iwuglasstour.view.common.CardPhotos;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter.CardDescriptor;
 
 import com.google.android.glass.widget.CardBuilder;
-import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.widget.CardScrollView;
+import com.google.common.annotations.VisibleForTesting;
 
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.ViewGroup;
+import android.widget.AdapterView;
 
 /**
- * Displays a multiple card view with detailed information about a building.
+ * Displays a multiple card view with detailed information about a building. The cards are only
+ * created as they are scrolled to (see {@link LazyCardScrollAdapter}).
  */
 public class InfoView extends CardScrollView {
 
-	private final List<CardBuilder> cards;
-	private final boolean showDescriptionCardFirst;
-	
-	private final CardScrollAdapter cardScrollAdapter = new CardScrollAdapter() {
-		@Override
-		public int getCount() {
-			return cards.size();
-		}
-
-		@Override
-		public Object getItem(int index) {
-			return cards.get(index);
-		}
+	private final LazyCardScrollAdapter cardScrollAdapter;
 
-		@Override
-		public int getPosition(Object item) {
-			return cards.indexOf(item);
-		}
+	/**
+	 * Keeps the cards near the selected card and loads its photos first.
+	 */
+	private final AdapterView.OnItemSelectedListener onItemSelectedListener =
+			new AdapterView.OnItemSelectedListener() {
+				@Override
+				public void onItemSelected(
+						AdapterView<?> parent,
+						View view,
+						int position,
+						long id) {
+
+					cardScrollAdapter.setSelectedPosition(position);
+				}
+
+				@Override
+				public void onNothingSelected(AdapterView<?> parent) {}
+			};
 
-		@Override
-		public View getView(int index, View convertView, ViewGroup parent) {
-			return cards.get(index).getView(convertView, parent);
-		}
-		
-		@Override
-		public int getHomePosition() {
-			return showDescriptionCardFirst ? 0 : 1;
-		}
-	};
-	
 	public InfoView(Building building, boolean showDescriptionCardFirst, Context context) {
 		this(building, showDescriptionCardFirst, context, null, 0);
 	}
-	
+
 	public InfoView(
 			Building building,
 			boolean showDescriptionCardFirst,
@@ -64,7 +60,7 @@ public class InfoView extends CardScrollView {
 
 		this(building, showDescriptionCardFirst, context, attrs, 0);
 	}
-	
+
 	public InfoView(
 			Building building,
 			boolean showDescriptionCardFirst,
@@ -73,65 +69,94 @@ public class InfoView extends CardScrollView {
 			int defStyle) {
 
 		super(context, attrs, defStyle);
-		
-		this.cards = createCards(building, context);
-		this.showDescriptionCardFirst = showDescriptionCardFirst;
-		
+
+		List<CardDescriptor> descriptors = createCardDescriptors(building);
+		int homePosition = showDescriptionCardFirst ? 0 : Math.min(1, descriptors.size() - 1);
+		this.cardScrollAdapter = new LazyCardScrollAdapter(context, descriptors, homePosition);
+
 		setAdapter(cardScrollAdapter);
+		setOnItemSelectedListener(onItemSelectedListener);
 		activate();
-		setSelection(cardScrollAdapter.getHomePosition());
+		setSelection(homePosition);
+		cardScrollAdapter.setSelectedPosition(homePosition);
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cardScrollAdapter.release();
 	}
-	
+
 	/**
-	 * Creates the {@link CardBuilder}s that go into the scroll adapter for the provided {@link
-	 * Building}.
+	 * Describes the cards that go into the scroll adapter for the provided {@link Building}: its
+	 * description, its attractions, and then its photos that have captions.
 	 */
-	private List<CardBuilder> createCards(Building building, Context context) {
-		List<CardBuilder> cards = new ArrayList<CardBuilder>();
-		cards.add(CardBuilders.createBuildingDescriptionCard(building, context));
+	@VisibleForTesting
+	static List<CardDescriptor> createCardDescriptors(final Building building) {
+		List<CardDescriptor> descriptors = new ArrayList<CardDescriptor>();
+		descriptors.add(new CardDescriptor() {
+			@Override
+			public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+				return CardBuilders.createBuildingDescriptionCard(building, context, cardPhotos);
+			}
+		});
+
+		for (Attraction attraction : building.getAttractions()) {
+			descriptors.add(createAttractionDescriptor(attraction));
+		}
 
-		List<CardBuilder> buildingPhotos = new ArrayList<CardBuilder>();
 		for (Photo photo : building.getPhotos()) {
 			if (photo.getDescription() != null) {
-				CardBuilder captionedPhoto = new CardBuilder(context, CardBuilder.Layout.CAPTION)
-						.addImage(photo.getDrawableId())
-						.setText(photo.getDescription())
-						.setFootnote(building.getName());
-				buildingPhotos.add(captionedPhoto);
+				descriptors.add(createCaptionedPhotoDescriptor(photo, building));
 			}
 		}
 
-		cards.addAll(createAttractions(building.getAttractions(), context));
-		cards.addAll(buildingPhotos);
-
-		return cards;
+		return descriptors;
 	}
+
 	/**
-	 * Returns a list of {@link Attraction} cards
-	 * @param attractions list of attractions for that building 
-	 * @param context pass in a context
+	 * Describes the card of an {@link Attraction}, with its photos if it has any.
 	 */
-	private List<CardBuilder> createAttractions(List<Attraction> attractions, Context context){
-		List<CardBuilder> attractionCards = new ArrayList<CardBuilder>();
-		
-		for (Attraction attraction : attractions) {
-			CardBuilder.Layout layout =
-					attraction.getPhotos().isEmpty()
-							? CardBuilder.Layout.TEXT
-							: CardBuilder.Layout.CAPTION;
-
-			CardBuilder newCard = new CardBuilder(context, layout)
-					.setFootnote(attraction.getName());
-
-			if (attraction.getDescription() != null){
-				newCard.setText(attraction.getDescription());
+	private static CardDescriptor createAttractionDescriptor(final Attraction attraction) {
+		return new CardDescriptor() {
+			@Override
+			public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+				CardBuilder.Layout layout =
+						attraction.getPhotos().isEmpty()
+								? CardBuilder.Layout.TEXT
+								: CardBuilder.Layout.CAPTION;
+
+				CardBuilder card = new CardBuilder(context, layout)
+						.setFootnote(attraction.getName());
+
+				if (attraction.getDescription() != null) {
+					card.setText(attraction.getDescription());
+				}
+
+				cardPhotos.addImages(card, attraction.getPhotos());
+
+				return card;
 			}
-			
-			CardBuilders.addPhotos(attraction.getPhotos(), newCard);
+		};
+	}
 
-			attractionCards.add(newCard);
-		}
-		return attractionCards;
+	/**
+	 * Describes the card of one of a building's photos with its caption.
+	 */
+	private static CardDescriptor createCaptionedPhotoDescriptor(
+			final Photo photo,
+			final Building building) {
+
+		return new CardDescriptor() {
+			@Override
+			public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+				CardBuilder card = new CardBuilder(context, CardBuilder.Layout.CAPTION)
+						.setText(photo.getDescription())
+						.setFootnote(building.getName());
+				cardPhotos.addImages(card, Collections.singletonList(photo));
+
+				return card;
+			}
+		};
 	}
 }
-
@@ -2,25 +2,30 @@ package org.iwuacm.iwuglasstour.view;
 
 import org.iwuacm.iwuglasstour.R;
 import org.iwuacm.iwuglasstour.model.Building;
-import org.iwuacm.iwuglasstour.view.common.CardBuilders;
-
-import com.google.android.glass.widget.CardBuilder;
 
 import android.content.Context;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.FrameLayout;
 
 /**
- * Displays information about a building. Gets displayed when a user is inside a building.
+ * Displays information about a building. Gets displayed when a user is inside a building. The
+ * cards of the last few buildings are kept inflated (see {@link BuildingCardCache}), so going
+ * back into a building or into one that was prepared with {@link #prepareBuilding} is instant.
  */
 public class InsideView extends FrameLayout {
 	
-	private final Context context;
 	private final Handler handler;
 	
+	/**
+	 * The cards of the buildings. Only used on the main thread.
+	 */
+	private final BuildingCardCache cardCache;
+	
 	private ViewChangeListener listener;
 	
     public InsideView(Context context) {
@@ -35,33 +40,85 @@ public class InsideView extends FrameLayout {
         super(context, attrs, defStyle);
         LayoutInflater.from(context).inflate(R.layout.inside, this);
 
-        this.context = context;
         this.handler = new Handler();
+        this.cardCache = new BuildingCardCache(context, this, new BuildingCardCache.Listener() {
+			@Override
+			public void onShownCardChange(View view) {
+				showView(view);
+				handleChange();
+			}
+		});
     }
     
     public void setBuilding(final Building building) {
     	post(new Runnable() {
 			@Override
 			public void run() {
-				removeAllViews();
-
-				CardBuilder cardBuilder = CardBuilders.createBuildingDescriptionCard(building, context);
-				addView(cardBuilder.getView());
+				showView(cardCache.show(building));
 			}
 		});
     	
     	handleChange();
     }
 
+	/**
+	 * Creates and inflates the card of a building the user is likely to go into next, once the
+	 * main thread is idle so that it does not hold up drawing. Its photos are decoded on the
+	 * background threads of the {@link org.iwuacm.iwuglasstour.view.common.PhotoLoader}.
+	 */
+	public void prepareBuilding(final Building building) {
+		post(new Runnable() {
+			@Override
+			public void run() {
+				Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+					@Override
+					public boolean queueIdle() {
+						cardCache.prepare(building);
+						return false;
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Removes the shown card and releases the photos of all of the cards, since the {@link
+	 * org.iwuacm.iwuglasstour.view.common.PhotoLoader} keeps them until they are released. The
+	 * view shows the next building set with {@link #setBuilding}.
+	 */
+	public void release() {
+		post(new Runnable() {
+			@Override
+			public void run() {
+				removeAllViews();
+				cardCache.clear();
+			}
+		});
+	}
+
 	public void setListener(ViewChangeListener listener) {
 		this.listener = listener;
 	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		release();
+	}
 	
 	@Override
 	public boolean post(Runnable action) {
 		return handler.post(action);
 	}
 	
+	/**
+	 * Replaces the displayed view with the view of a card.
+	 */
+	private void showView(View view) {
+		removeAllViews();
+		addView(view);
+	}
+	
 	/**
 	 * The layout was not refreshed when {@link setBuilding} was called, and eventually I discovered
 	 * adding this function would fix it. It has something to do with the fact we are adding an item
@@ -2,6 +2,7 @@ package org.iwuacm.iwuglasstour.view;
 
 import org.iwuacm.iwuglasstour.R;
 import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.view.common.PhotoLoader;
 
 import com.google.common.base.Optional;
 
@@ -26,6 +27,7 @@ public class OutsideView extends RelativeLayout {
 	private final TextView statusTextView;
 	
 	private ViewChangeListener listener;
+	private boolean isLoading;
 	private boolean hasCompassInterference;
 	private boolean hasLocation;
 	
@@ -53,7 +55,22 @@ public class OutsideView extends RelativeLayout {
         this.rightView = (BuildingLocationView) findViewById(R.id.outside_right);
 
         this.statusTextView = (TextView) findViewById(R.id.outside_status);
+
+        // Photos of the buildings can arrive after the buildings are set.
+        ViewChangeListener buildingViewListener = new ViewChangeListener() {
+			@Override
+			public void onChange() {
+				handleChange();
+			}
+		};
+        frontView.setListener(buildingViewListener);
+        leftView.setListener(buildingViewListener);
+        rightView.setListener(buildingViewListener);
+        frontView.setPhotoPriority(PhotoLoader.Priority.FRONT);
+        leftView.setPhotoPriority(PhotoLoader.Priority.SIDE);
+        rightView.setPhotoPriority(PhotoLoader.Priority.SIDE);
         
+        isLoading = false;
         hasCompassInterference = false;
         hasLocation = true;
         statusString = null;
@@ -84,6 +101,19 @@ public class OutsideView extends RelativeLayout {
     	updateStatusMessage();
     }
 
+	/**
+	 * Sets whether the buildings are still being loaded, in which case there are none to show yet.
+	 */
+	public void setIsLoading(boolean isLoading) {
+		if (isLoading == this.isLoading) {
+			return;
+		}
+		
+		this.isLoading = isLoading;
+		
+		updateStatusMessage();
+	}
+
 	public void setHasLocation(boolean hasLocation) {
 		if (hasLocation == this.hasLocation) {
 			return;
@@ -104,13 +134,16 @@ public class OutsideView extends RelativeLayout {
     }
     
     /**
-     * If no location is present, it displays the location message, otherwise it displays the
-     * compass interference message if there is compass interference.
+     * While loading, it displays the loading message. If no location is present, it displays the
+     * location message, otherwise it displays the compass interference message if there is compass
+     * interference.
      */
     private void updateStatusMessage() {
     	final Integer newStatusString;
 
-    	if (!hasLocation) {
+    	if (isLoading) {
+    		newStatusString = R.string.loading_campus;
+    	} else if (!hasLocation) {
     		newStatusString = R.string.location_unavailable;
     	} else if (hasCompassInterference) {
     		newStatusString = R.string.magnetic_interference;
@@ -1,9 +1,6 @@
 package org.iwuacm.iwuglasstour.view.common;
 
-import java.util.List;
-
 import org.iwuacm.iwuglasstour.model.Building;
-import org.iwuacm.iwuglasstour.model.Photo;
 
 import android.content.Context;
 
@@ -15,9 +12,14 @@ import com.google.android.glass.widget.CardBuilder;
 public class CardBuilders {
 
 	/**
-	 * Creates a card that describes a {@link Building} with its name, description, and photos.
+	 * Creates a card that describes a {@link Building} with its name, description, and photos. The
+	 * photos are added through {@code cardPhotos} once they are loaded.
 	 */
-	public static CardBuilder createBuildingDescriptionCard(Building building, Context context) {
+	public static CardBuilder createBuildingDescriptionCard(
+			Building building,
+			Context context,
+			CardPhotos cardPhotos) {
+
 		CardBuilder card = new CardBuilder(context, CardBuilder.Layout.TEXT)
 				.setFootnote(building.getName());
 		
@@ -25,17 +27,8 @@ public class CardBuilders {
 			card.setText(building.getDescription());
 		}
 
-		addPhotos(building.getPhotos(), card);
+		cardPhotos.addMosaicImages(card, building.getPhotos());
 		
 		return card;
 	}
-	
-	/**
-	 * Adds photos to a {@link CardBuilder}.
-	 */
-	public static void addPhotos(List<Photo> photos, CardBuilder card) {
-		for (Photo photo : photos) {
-			card.addImage(photo.getDrawableId());
-		}
-	}
 }
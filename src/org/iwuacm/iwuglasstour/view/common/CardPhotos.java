@@ -0,0 +1,226 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.R;
+import org.iwuacm.iwuglasstour.model.Photo;
+
+import com.google.android.glass.widget.CardBuilder;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+
+/**
+ * Loads the photos of {@link CardBuilder}s through the {@link PhotoLoader} for a view that shows
+ * the cards, and adds them to the cards once they are loaded. The photos of the card set by
+ * {@link #setVisibleCard} load at {@link PhotoLoader.Priority#CARD}, and all others at {@link
+ * PhotoLoader.Priority#PREFETCH}. The view must {@link #release} the photos of a card once it no
+ * longer shows the card.
+ */
+public class CardPhotos {
+
+	private final PhotoLoader photoLoader;
+	private final Runnable onPhotosAdded;
+
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int mosaicWidth;
+	private final int mosaicHeight;
+	private final int iconSize;
+
+	/**
+	 * The photos of each card, whether they are loaded or still loading.
+	 */
+	private final List<Request> requests = new ArrayList<Request>();
+
+	private CardBuilder visibleCard;
+
+	/**
+	 * Creates a {@link CardPhotos} that runs {@code onPhotosAdded} whenever photos are added to a
+	 * card after it was created, since its view then needs to be created again.
+	 */
+	public CardPhotos(Context context, Runnable onPhotosAdded) {
+		this.photoLoader = PhotoLoader.getPhotoLoader(context);
+		this.onPhotosAdded = onPhotosAdded;
+
+		Resources resources = context.getResources();
+		this.imageWidth = resources.getDimensionPixelSize(R.dimen.card_image_width);
+		this.imageHeight = resources.getDimensionPixelSize(R.dimen.card_image_height);
+		this.mosaicWidth = resources.getDimensionPixelSize(R.dimen.card_mosaic_width);
+		this.mosaicHeight = resources.getDimensionPixelSize(R.dimen.card_mosaic_height);
+		this.iconSize = resources.getDimensionPixelSize(R.dimen.card_icon_size);
+	}
+
+	/**
+	 * Adds the photos to the card, in order, once all of them are loaded.
+	 */
+	public void addImages(CardBuilder card, List<Photo> photos) {
+		addImages(card, photos, imageWidth, imageHeight);
+	}
+
+	/**
+	 * Adds the photos to a {@link CardBuilder.Layout#TEXT} card, in order, once all of them are
+	 * loaded. They are decoded for the mosaic on the left of the card rather than the whole card,
+	 * which takes less than half of the memory.
+	 */
+	public void addMosaicImages(CardBuilder card, List<Photo> photos) {
+		addImages(card, photos, mosaicWidth, mosaicHeight);
+	}
+
+	private void addImages(CardBuilder card, List<Photo> photos, int width, int height) {
+		if (photos.isEmpty()) {
+			return;
+		}
+
+		int[] drawableIds = new int[photos.size()];
+		for (int i = 0; i < drawableIds.length; i++) {
+			drawableIds[i] = photos.get(i).getDrawableId();
+		}
+
+		new Request(card, drawableIds, false).start(width, height);
+	}
+
+	/**
+	 * Sets the drawable as the card's icon once it is loaded.
+	 */
+	public void setIcon(CardBuilder card, int drawableId) {
+		new Request(card, new int[] { drawableId }, true).start(iconSize, iconSize);
+	}
+
+	/**
+	 * Loads the photos of {@code card} before those of the other cards, since it is the one that is
+	 * displayed. Must be called on the main thread.
+	 */
+	public void setVisibleCard(CardBuilder card) {
+		visibleCard = card;
+
+		for (Request request : requests) {
+			if (request.isLoading()) {
+				request.setPriority(getPriority(request.card));
+			}
+		}
+	}
+
+	/**
+	 * Releases the photos of {@code card}, and stops loading the ones that are still loading.
+	 * Must be called on the main thread.
+	 */
+	public void release(CardBuilder card) {
+		Iterator<Request> iterator = requests.iterator();
+		while (iterator.hasNext()) {
+			Request request = iterator.next();
+			if (request.card == card) {
+				request.cancel();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Releases the photos of all of the cards, and stops loading the ones that are still loading.
+	 * Must be called on the main thread.
+	 */
+	public void release() {
+		for (Request request : requests) {
+			request.cancel();
+		}
+		requests.clear();
+	}
+
+	private PhotoLoader.Priority getPriority(CardBuilder card) {
+		return (card == visibleCard) ? PhotoLoader.Priority.CARD : PhotoLoader.Priority.PREFETCH;
+	}
+
+	/**
+	 * Loads the photos of one card, and adds them once the last one is loaded.
+	 */
+	private class Request implements PhotoLoader.Callback {
+
+		private final CardBuilder card;
+		private final int[] drawableIds;
+		private final boolean isIcon;
+		private final Bitmap[] loadedBitmaps;
+		private final List<PhotoLoader.Request> loads = new ArrayList<PhotoLoader.Request>();
+
+		private int remainingCount;
+		private boolean isStarted = false;
+
+		private Request(CardBuilder card, int[] drawableIds, boolean isIcon) {
+			this.card = card;
+			this.drawableIds = drawableIds;
+			this.isIcon = isIcon;
+			this.loadedBitmaps = new Bitmap[drawableIds.length];
+			this.remainingCount = drawableIds.length;
+		}
+
+		private void start(int width, int height) {
+			requests.add(this);
+
+			PhotoLoader.Priority priority = getPriority(card);
+			for (int drawableId : drawableIds) {
+				loads.add(photoLoader.load(drawableId, width, height, priority, this));
+			}
+
+			isStarted = true;
+		}
+
+		private boolean isLoading() {
+			return remainingCount > 0;
+		}
+
+		private void setPriority(PhotoLoader.Priority priority) {
+			for (PhotoLoader.Request load : loads) {
+				load.setPriority(priority);
+			}
+		}
+
+		/**
+		 * Stops loading the photos, and releases the ones that have been loaded.
+		 */
+		private void cancel() {
+			for (PhotoLoader.Request load : loads) {
+				load.cancel();
+			}
+
+			for (Bitmap loadedBitmap : loadedBitmaps) {
+				photoLoader.release(loadedBitmap);
+			}
+		}
+
+		@Override
+		public void onPhotoLoaded(int drawableId, Bitmap bitmap) {
+			// The same photo may be on a card twice, so fill in the first position still missing.
+			for (int i = 0; i < drawableIds.length; i++) {
+				if ((drawableIds[i] == drawableId) && (loadedBitmaps[i] == null)) {
+					loadedBitmaps[i] = bitmap;
+					break;
+				}
+			}
+
+			remainingCount--;
+			if (remainingCount > 0) {
+				return;
+			}
+
+			for (Bitmap loadedBitmap : loadedBitmaps) {
+				if (loadedBitmap == null) {
+					continue;
+				}
+
+				if (isIcon) {
+					card.setIcon(loadedBitmap);
+				} else {
+					card.addImage(loadedBitmap);
+				}
+			}
+
+			// Photos that were cached are added before the card's view is first created.
+			if (isStarted) {
+				onPhotosAdded.run();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.Process;
+
+/**
+ * Runs the decoding for the {@link PhotoLoader} on a small pool of background threads, taking the
+ * most important work first: the photo of the building in front before the ones to the sides,
+ * those before the visible card, and that before prefetching (see {@link PhotoLoader.Priority}).
+ * Work of the same priority runs in the order it was submitted. Work that is no longer needed
+ * can be cancelled as long as it has not started, and rescheduled at another priority.
+ */
+class DecodeScheduler {
+
+	/**
+	 * Creates the threads as daemons, so that idle threads never keep the process from exiting.
+	 */
+	private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+		private final AtomicLong threadCount = new AtomicLong();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(
+					runnable,
+					DecodeScheduler.class.getSimpleName() + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong nextSequence = new AtomicLong();
+
+	DecodeScheduler(int threadCount) {
+		this.executor = new ThreadPoolExecutor(
+				threadCount,
+				threadCount,
+				0L,
+				TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable>(),
+				THREAD_FACTORY);
+	}
+
+	/**
+	 * Schedules {@code runnable} to run on one of the threads at {@code priority}.
+	 */
+	Task submit(Runnable runnable, PhotoLoader.Priority priority) {
+		Task task = new Task(runnable, priority, nextSequence.getAndIncrement());
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Work that has been submitted to the scheduler.
+	 */
+	class Task implements Runnable, Comparable<Task> {
+
+		private final Runnable runnable;
+		private final long sequence;
+		private volatile PhotoLoader.Priority priority;
+
+		private Task(Runnable runnable, PhotoLoader.Priority priority, long sequence) {
+			this.runnable = runnable;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public void run() {
+			Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+			runnable.run();
+		}
+
+		/**
+		 * Removes the task from the queue, unless it has already started.
+		 *
+		 * @return whether the task was removed before it started
+		 */
+		boolean cancel() {
+			return executor.remove(this);
+		}
+
+		/**
+		 * Moves the task to {@code priority} in the queue, unless it has already started.
+		 */
+		void setPriority(PhotoLoader.Priority priority) {
+			if (this.priority == priority) {
+				return;
+			}
+
+			// The queue only orders tasks as they are added, so the task has to be added again.
+			synchronized (DecodeScheduler.this) {
+				if (executor.remove(this)) {
+					this.priority = priority;
+					executor.execute(this);
+				} else {
+					this.priority = priority;
+				}
+			}
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			int compareValue = priority.compareTo(other.priority);
+			if (compareValue == 0) {
+				compareValue = Long.compare(sequence, other.sequence);
+			}
+
+			return compareValue;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.android.glass.widget.CardBuilder;
+import com.google.android.glass.widget.CardScrollAdapter;
+import com.google.common.annotations.VisibleForTesting;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * A {@link CardScrollAdapter} that only creates the {@link CardBuilder}s that are near the
+ * selected card, rather than all of them with their photos before the first card is shown. Each
+ * card is described by a {@link CardDescriptor} that creates it when its view is first asked for.
+ * Cards more than {@link #KEPT_CARDS_PER_SIDE} away from the selected card are dropped along with
+ * their photos, and created again if they come back. The views of the cards are recycled by their
+ * layout.
+ *
+ * <p>The view that shows the cards must pass the selected position to {@link #setSelectedPosition}
+ * and {@link #release} the cards once it is no longer shown.
+ */
+public class LazyCardScrollAdapter extends CardScrollAdapter {
+
+	/**
+	 * How many cards to either side of the selected card are kept, since they are shown while
+	 * scrolling.
+	 */
+	@VisibleForTesting
+	static final int KEPT_CARDS_PER_SIDE = 2;
+
+	/**
+	 * Creates one of the cards.
+	 */
+	public interface CardDescriptor {
+
+		/**
+		 * Creates the card, with its photos added through {@code cardPhotos}.
+		 */
+		CardBuilder createCard(Context context, CardPhotos cardPhotos);
+	}
+
+	private final Context context;
+	private final List<CardDescriptor> descriptors;
+	private final int homePosition;
+	private final CardPhotos cardPhotos;
+
+	/**
+	 * The cards that have been created by position. Only used on the main thread.
+	 */
+	private final Map<Integer, CardBuilder> cards = new HashMap<Integer, CardBuilder>();
+
+	private int selectedPosition;
+
+	public LazyCardScrollAdapter(
+			Context context,
+			List<CardDescriptor> descriptors,
+			int homePosition) {
+
+		this.context = context;
+		this.descriptors = descriptors;
+		this.homePosition = homePosition;
+		this.cardPhotos = new CardPhotos(context, new Runnable() {
+			@Override
+			public void run() {
+				notifyDataSetChanged();
+			}
+		});
+		this.selectedPosition = homePosition;
+	}
+
+	@Override
+	public int getCount() {
+		return descriptors.size();
+	}
+
+	@Override
+	public Object getItem(int position) {
+		return descriptors.get(position);
+	}
+
+	@Override
+	public int getPosition(Object item) {
+		return descriptors.indexOf(item);
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent) {
+		return getCard(position).getView(convertView, parent);
+	}
+
+	@Override
+	public int getViewTypeCount() {
+		return CardBuilder.getViewTypeCount();
+	}
+
+	@Override
+	public int getItemViewType(int position) {
+		return getCard(position).getItemViewType();
+	}
+
+	@Override
+	public int getHomePosition() {
+		return homePosition;
+	}
+
+	/**
+	 * Drops the cards that are too far from the selected card, and loads the selected card's
+	 * photos first.
+	 */
+	public void setSelectedPosition(int position) {
+		selectedPosition = position;
+
+		Iterator<Map.Entry<Integer, CardBuilder>> iterator = cards.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Integer, CardBuilder> entry = iterator.next();
+			if (Math.abs(entry.getKey() - selectedPosition) > KEPT_CARDS_PER_SIDE) {
+				cardPhotos.release(entry.getValue());
+				iterator.remove();
+			}
+		}
+
+		if ((position >= 0) && (position < descriptors.size())) {
+			cardPhotos.setVisibleCard(getCard(position));
+		}
+	}
+
+	/**
+	 * Drops all of the cards and releases their photos.
+	 */
+	public void release() {
+		cardPhotos.release();
+		cards.clear();
+	}
+
+	/**
+	 * Returns the number of cards that are created.
+	 */
+	@VisibleForTesting
+	int getCreatedCount() {
+		return cards.size();
+	}
+
+	private CardBuilder getCard(int position) {
+		CardBuilder card = cards.get(position);
+		if (card == null) {
+			card = descriptors.get(position).createCard(context, cardPhotos);
+			cards.put(position, card);
+		}
+
+		return card;
+	}
+}
@@ -0,0 +1,458 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.SparseIntArray;
+
+/**
+ * Loads the app's photos as {@link Bitmap}s that are no larger than where they are displayed.
+ * Decoding a photo at full size on the main thread stalls the display and takes up to a megabyte
+ * of memory, which is far more than a thumbnail needs. Instead, they are decoded on background
+ * threads by {@link Priority} with an {@code inSampleSize} for the size they are displayed at,
+ * kept by drawable ID in an {@link LruCache} that is bounded by their size in memory, and decoded
+ * into the memory of photos that are no longer used when possible. Photos that are displayed no
+ * larger than their thumbnail renditions (see {@link PhotoRenditions}) are decoded from those
+ * instead.
+ *
+ * <p>Whoever receives a photo must {@link #release} it once it is no longer displayed, so that its
+ * memory can be reused after it leaves the cache.
+ */
+public class PhotoLoader {
+
+	private static final String TAG = PhotoLoader.class.getSimpleName();
+
+	/**
+	 * The cache may use one of this many parts of the app's memory class.
+	 */
+	private static final int CACHE_MEMORY_PARTS = 8;
+
+	/**
+	 * The most bitmaps that are kept around to decode into, beyond the ones in the cache.
+	 */
+	private static final int MAX_REUSABLE_BITMAPS = 4;
+
+	/**
+	 * Bytes per pixel of the bitmaps that photos are decoded into.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/**
+	 * The number of threads that decode photos. Decoding is mostly computation, so this matches
+	 * the cores of Glass.
+	 */
+	private static final int DECODE_THREADS = 2;
+
+	/**
+	 * How important it is to load a photo soon, from the most to the least important.
+	 */
+	public enum Priority {
+		/** The photo of the building in front of the user. */
+		FRONT,
+		/** The photos of the buildings to the sides of the user. */
+		SIDE,
+		/** The photos of a card that is visible. */
+		CARD,
+		/** Photos that are not displayed yet. */
+		PREFETCH,
+	}
+
+	/**
+	 * Receives a loaded photo.
+	 */
+	public interface Callback {
+
+		/**
+		 * Called on the main thread with the photo, or null if it could not be decoded.
+		 */
+		void onPhotoLoaded(int drawableId, @Nullable Bitmap bitmap);
+	}
+
+	private static PhotoLoader instance;
+
+	private final Resources resources;
+	private final DecodeScheduler decodeScheduler;
+	private final Handler mainHandler;
+	private final LruCache<Integer, CachedPhoto> cache;
+
+	/**
+	 * The drawable of the thumbnail rendition of each photo that has one, by the photo's drawable.
+	 */
+	private final SparseIntArray thumbnailIds = new SparseIntArray();
+
+	/**
+	 * How many receivers hold each bitmap that has been handed out. Guarded by this.
+	 */
+	private final Map<Bitmap, Integer> useCounts = new HashMap<Bitmap, Integer>();
+
+	/**
+	 * Bitmaps that left the cache while they were held, to reuse once they are released. Guarded
+	 * by this.
+	 */
+	private final Set<Bitmap> removedBitmaps = new HashSet<Bitmap>();
+
+	/**
+	 * Bitmaps that are neither cached nor held, to decode into. Guarded by this.
+	 */
+	private final List<Bitmap> reusableBitmaps = new ArrayList<Bitmap>();
+
+	private PhotoLoader(Context context) {
+		this.resources = context.getResources();
+		this.decodeScheduler = new DecodeScheduler(DECODE_THREADS);
+		this.mainHandler = new Handler(Looper.getMainLooper());
+
+		ActivityManager activityManager =
+				(ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		int maxBytes = activityManager.getMemoryClass() * 1024 * 1024 / CACHE_MEMORY_PARTS;
+
+		this.cache = new LruCache<Integer, CachedPhoto>(maxBytes) {
+			@Override
+			protected int sizeOf(Integer drawableId, CachedPhoto photo) {
+				return photo.bitmap.getAllocationByteCount();
+			}
+
+			@Override
+			protected void entryRemoved(
+					boolean evicted,
+					Integer drawableId,
+					CachedPhoto oldPhoto,
+					CachedPhoto newPhoto) {
+
+				onRemoved(oldPhoto.bitmap);
+			}
+		};
+
+		for (int i = 0; i < PhotoRenditions.CARD_IDS.length; i++) {
+			thumbnailIds.put(PhotoRenditions.CARD_IDS[i], PhotoRenditions.THUMBNAIL_IDS[i]);
+		}
+	}
+
+	/**
+	 * Returns the app's {@link PhotoLoader}.
+	 */
+	public static synchronized PhotoLoader getPhotoLoader(Context context) {
+		if (instance == null) {
+			instance = new PhotoLoader(context.getApplicationContext());
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Loads a photo to be displayed at {@code width} by {@code height} pixels, and passes it to
+	 * {@code callback}. The callback is called before this returns if the photo is cached, and
+	 * otherwise once it is decoded, which happens before the decoding of photos with a lower
+	 * {@code priority}. Must be called on the main thread.
+	 *
+	 * @return the request, to cancel it if the photo is no longer needed before it is loaded
+	 */
+	public Request load(
+			final int drawableId,
+			final int width,
+			final int height,
+			Priority priority,
+			final Callback callback) {
+
+		final int renditionId = getRenditionId(drawableId, width, height);
+		final Request request = new Request();
+
+		Bitmap cachedBitmap = acquireCached(renditionId, width, height);
+		if (cachedBitmap != null) {
+			callback.onPhotoLoaded(drawableId, cachedBitmap);
+			return request;
+		}
+
+		request.task = decodeScheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				if (request.isCancelled) {
+					return;
+				}
+
+				final Bitmap bitmap = acquire(renditionId, width, height);
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (request.isCancelled) {
+							release(bitmap);
+						} else {
+							callback.onPhotoLoaded(drawableId, bitmap);
+						}
+					}
+				});
+			}
+		}, priority);
+
+		return request;
+	}
+
+	/**
+	 * Releases a photo that was passed to a {@link Callback}, once it is no longer displayed. Does
+	 * nothing for null.
+	 */
+	public synchronized void release(@Nullable Bitmap bitmap) {
+		if (bitmap == null) {
+			return;
+		}
+
+		Integer useCount = useCounts.get(bitmap);
+		if (useCount == null) {
+			Log.w(TAG, "Released a photo that was not loaded");
+			return;
+		}
+
+		if (useCount > 1) {
+			useCounts.put(bitmap, useCount - 1);
+			return;
+		}
+
+		useCounts.remove(bitmap);
+		if (removedBitmaps.remove(bitmap)) {
+			addReusableBitmap(bitmap);
+		}
+	}
+
+	/**
+	 * Returns the drawable of the smallest rendition of a photo that covers {@code width} by
+	 * {@code height} pixels.
+	 */
+	private int getRenditionId(int drawableId, int width, int height) {
+		if ((width <= 0) || (height <= 0)
+				|| (width > PhotoRenditions.THUMBNAIL_WIDTH)
+				|| (height > PhotoRenditions.THUMBNAIL_HEIGHT)) {
+			return drawableId;
+		}
+
+		return thumbnailIds.get(drawableId, drawableId);
+	}
+
+	/**
+	 * Returns the photo from the cache if it is large enough, and holds it for the caller.
+	 */
+	@Nullable
+	private synchronized Bitmap acquireCached(int drawableId, int width, int height) {
+		CachedPhoto photo = cache.get(drawableId);
+		if ((photo == null) || !photo.isLargeEnough(width, height)) {
+			return null;
+		}
+
+		return hold(photo.bitmap);
+	}
+
+	/**
+	 * Returns the photo from the cache, or decodes and caches it, and holds it for the caller.
+	 * Decodes on the calling thread.
+	 */
+	@Nullable
+	private Bitmap acquire(int drawableId, int width, int height) {
+		// Another request may have decoded it while this one waited.
+		Bitmap cachedBitmap = acquireCached(drawableId, width, height);
+		if (cachedBitmap != null) {
+			return cachedBitmap;
+		}
+
+		CachedPhoto photo = decode(drawableId, width, height);
+		if (photo == null) {
+			return null;
+		}
+
+		synchronized (this) {
+			Bitmap bitmap = hold(photo.bitmap);
+			cache.put(drawableId, photo);
+			return bitmap;
+		}
+	}
+
+	@Nullable
+	private CachedPhoto decode(int drawableId, int width, int height) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		options.inScaled = false;
+		BitmapFactory.decodeResource(resources, drawableId, options);
+
+		if ((options.outWidth <= 0) || (options.outHeight <= 0)) {
+			Log.e(TAG, "Could not read the size of drawable " + drawableId);
+			return null;
+		}
+
+		int sampleSize = calculateSampleSize(options.outWidth, options.outHeight, width, height);
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		options.inMutable = true;
+		options.inBitmap = takeReusableBitmap(
+				getSampledByteCount(options.outWidth, options.outHeight, sampleSize));
+
+		Bitmap bitmap;
+		try {
+			bitmap = BitmapFactory.decodeResource(resources, drawableId, options);
+		} catch (IllegalArgumentException e) {
+			// The photo did not fit into the reused bitmap after all.
+			options.inBitmap = null;
+			bitmap = BitmapFactory.decodeResource(resources, drawableId, options);
+		}
+
+		if (bitmap == null) {
+			Log.e(TAG, "Could not decode drawable " + drawableId);
+			return null;
+		}
+
+		return new CachedPhoto(bitmap, options.outWidth, options.outHeight, sampleSize);
+	}
+
+	private Bitmap hold(Bitmap bitmap) {
+		Integer useCount = useCounts.get(bitmap);
+		useCounts.put(bitmap, (useCount == null) ? 1 : useCount + 1);
+		return bitmap;
+	}
+
+	/**
+	 * Called when a bitmap leaves the cache, with this locked. Bitmaps that are still held are
+	 * reused once they are released.
+	 */
+	private void onRemoved(Bitmap bitmap) {
+		if (useCounts.containsKey(bitmap)) {
+			removedBitmaps.add(bitmap);
+		} else {
+			addReusableBitmap(bitmap);
+		}
+	}
+
+	private void addReusableBitmap(Bitmap bitmap) {
+		if (reusableBitmaps.size() >= MAX_REUSABLE_BITMAPS) {
+			reusableBitmaps.remove(0);
+		}
+
+		reusableBitmaps.add(bitmap);
+	}
+
+	/**
+	 * Removes and returns the smallest reusable bitmap of at least {@code byteCount} bytes, if
+	 * any.
+	 */
+	@Nullable
+	private synchronized Bitmap takeReusableBitmap(int byteCount) {
+		Bitmap smallestBitmap = null;
+		for (Bitmap bitmap : reusableBitmaps) {
+			if ((bitmap.getAllocationByteCount() >= byteCount)
+					&& ((smallestBitmap == null)
+							|| (bitmap.getAllocationByteCount()
+									< smallestBitmap.getAllocationByteCount()))) {
+				smallestBitmap = bitmap;
+			}
+		}
+
+		reusableBitmaps.remove(smallestBitmap);
+		return smallestBitmap;
+	}
+
+	/**
+	 * Returns the largest power of two to sample a photo of {@code width} by {@code height} at,
+	 * such that it still covers {@code targetWidth} by {@code targetHeight} pixels.
+	 */
+	@VisibleForTesting
+	static int calculateSampleSize(int width, int height, int targetWidth, int targetHeight) {
+		if ((targetWidth <= 0) || (targetHeight <= 0)) {
+			return 1;
+		}
+
+		int sampleSize = 1;
+		while ((width / (sampleSize * 2) >= targetWidth)
+				&& (height / (sampleSize * 2) >= targetHeight)) {
+			sampleSize *= 2;
+		}
+
+		return sampleSize;
+	}
+
+	/**
+	 * Returns the most bytes that a photo of {@code width} by {@code height} pixels takes once
+	 * decoded at {@code sampleSize}.
+	 */
+	private static int getSampledByteCount(int width, int height, int sampleSize) {
+		int sampledWidth = (width + sampleSize - 1) / sampleSize;
+		int sampledHeight = (height + sampleSize - 1) / sampleSize;
+
+		return sampledWidth * sampledHeight * BYTES_PER_PIXEL;
+	}
+
+	/**
+	 * A photo that is being loaded by {@link #load}.
+	 */
+	public static class Request {
+
+		private volatile boolean isCancelled = false;
+
+		/**
+		 * The decoding of the photo, or null if it was cached.
+		 */
+		private DecodeScheduler.Task task;
+
+		private Request() {}
+
+		/**
+		 * Stops loading the photo if it has not been decoded yet, and otherwise releases it instead
+		 * of passing it to the callback. Does nothing once the callback has been called. Must be
+		 * called on the main thread.
+		 */
+		public void cancel() {
+			isCancelled = true;
+
+			if (task != null) {
+				task.cancel();
+			}
+		}
+
+		/**
+		 * Changes the priority of decoding the photo, if it has not started yet. Must be called on
+		 * the main thread.
+		 */
+		public void setPriority(Priority priority) {
+			if (task != null) {
+				task.setPriority(priority);
+			}
+		}
+	}
+
+	/**
+	 * A decoded photo in the cache, with the full size of the photo and how it was sampled.
+	 */
+	private static class CachedPhoto {
+
+		private final Bitmap bitmap;
+		private final int width;
+		private final int height;
+		private final int sampleSize;
+
+		private CachedPhoto(Bitmap bitmap, int width, int height, int sampleSize) {
+			this.bitmap = bitmap;
+			this.width = width;
+			this.height = height;
+			this.sampleSize = sampleSize;
+		}
+
+		/**
+		 * Returns whether this was sampled finely enough to display at {@code targetWidth} by
+		 * {@code targetHeight} pixels.
+		 */
+		private boolean isLargeEnough(int targetWidth, int targetHeight) {
+			return sampleSize <= calculateSampleSize(width, height, targetWidth, targetHeight);
+		}
+	}
+}
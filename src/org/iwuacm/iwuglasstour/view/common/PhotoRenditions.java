@@ -0,0 +1,283 @@
+// Generated by PhotoTranscoder from original_photos. Do not edit.
+package org.iwuacm.iwuglasstour.view.common;
+
+import org.iwuacm.iwuglasstour.R;
+
+/**
+ * The renditions of the photos that are transcoded from the original photos. Each photo's
+ * drawable is its card rendition, and it also has a smaller thumbnail rendition.
+ */
+final class PhotoRenditions {
+
+	/**
+	 * The size that every thumbnail rendition covers.
+	 */
+	static final int THUMBNAIL_WIDTH = 150;
+	static final int THUMBNAIL_HEIGHT = 84;
+
+	/**
+	 * The drawables of the photos, which are their card renditions.
+	 */
+	static final int[] CARD_IDS = {
+		R.drawable.ames_01,
+		R.drawable.ames_02,
+		R.drawable.ames_03,
+		R.drawable.ames_04,
+		R.drawable.ames_05,
+		R.drawable.ames_06,
+		R.drawable.ames_07,
+		R.drawable.ames_08,
+		R.drawable.ames_09,
+		R.drawable.ames_10,
+		R.drawable.ames_11,
+		R.drawable.ames_12,
+		R.drawable.ames_13,
+		R.drawable.ames_14,
+		R.drawable.ames_15,
+		R.drawable.ames_16,
+		R.drawable.ames_17,
+		R.drawable.ames_18,
+		R.drawable.ames_19,
+		R.drawable.ames_20,
+		R.drawable.ames_21,
+		R.drawable.ames_22,
+		R.drawable.ames_23,
+		R.drawable.ames_24,
+		R.drawable.ames_25,
+		R.drawable.ames_26,
+		R.drawable.ames_27,
+		R.drawable.ames_28,
+		R.drawable.art_01,
+		R.drawable.art_02,
+		R.drawable.art_03,
+		R.drawable.art_04,
+		R.drawable.art_05,
+		R.drawable.art_06,
+		R.drawable.art_07,
+		R.drawable.art_08,
+		R.drawable.art_09,
+		R.drawable.art_10,
+		R.drawable.buck_01,
+		R.drawable.buck_02,
+		R.drawable.buck_03,
+		R.drawable.buck_04,
+		R.drawable.chapel_01,
+		R.drawable.chapel_02,
+		R.drawable.chapel_03,
+		R.drawable.chapel_04,
+		R.drawable.cla_01,
+		R.drawable.cla_02,
+		R.drawable.cla_03,
+		R.drawable.cla_04,
+		R.drawable.cla_05,
+		R.drawable.cla_06,
+		R.drawable.cns_01,
+		R.drawable.cns_02,
+		R.drawable.cns_03,
+		R.drawable.cns_04,
+		R.drawable.cns_05,
+		R.drawable.cns_06,
+		R.drawable.cns_07,
+		R.drawable.cns_08,
+		R.drawable.cns_09,
+		R.drawable.cns_10,
+		R.drawable.cns_11,
+		R.drawable.credit_agast,
+		R.drawable.credit_arussian,
+		R.drawable.credit_jalbert1,
+		R.drawable.credit_lbui,
+		R.drawable.credit_lnguyen,
+		R.drawable.credit_mnguyen3,
+		R.drawable.credit_sschaef1,
+		R.drawable.hansen_01,
+		R.drawable.hansen_02,
+		R.drawable.hansen_03,
+		R.drawable.hansen_04,
+		R.drawable.holmes_01,
+		R.drawable.holmes_02,
+		R.drawable.holmes_03,
+		R.drawable.mcpherson_01,
+		R.drawable.mcpherson_02,
+		R.drawable.mcpherson_03,
+		R.drawable.mcpherson_04,
+		R.drawable.mcpherson_05,
+		R.drawable.memorial_ctr_01,
+		R.drawable.memorial_ctr_02,
+		R.drawable.memorial_ctr_03,
+		R.drawable.memorial_ctr_04,
+		R.drawable.memorial_ctr_05,
+		R.drawable.memorial_ctr_06,
+		R.drawable.observatory_01,
+		R.drawable.president_01,
+		R.drawable.president_02,
+		R.drawable.presser_01,
+		R.drawable.presser_02,
+		R.drawable.presser_03,
+		R.drawable.presser_04,
+		R.drawable.presser_05,
+		R.drawable.presser_06,
+		R.drawable.presser_07,
+		R.drawable.sfh_01,
+		R.drawable.sfh_02,
+		R.drawable.sfh_03,
+		R.drawable.sfh_04,
+		R.drawable.sfh_05,
+		R.drawable.sfh_06,
+		R.drawable.sfh_07,
+		R.drawable.sfh_08,
+		R.drawable.sfh_09,
+		R.drawable.sfh_10,
+		R.drawable.shaw_01,
+		R.drawable.shaw_02,
+		R.drawable.shaw_03,
+		R.drawable.shirk_01,
+		R.drawable.shirk_02,
+		R.drawable.shirk_03,
+		R.drawable.shirk_04,
+		R.drawable.shirk_05,
+		R.drawable.shirk_06,
+		R.drawable.stevenson_01,
+		R.drawable.stevenson_02,
+		R.drawable.stevenson_03,
+		R.drawable.stevenson_04,
+		R.drawable.stevenson_05,
+		R.drawable.welcome_ctr_01,
+		R.drawable.welcome_ctr_02,
+		R.drawable.welcome_ctr_03,
+		R.drawable.welcome_ctr_04,
+	};
+
+	/**
+	 * The drawables of the thumbnail renditions, in the same order as {@link #CARD_IDS}.
+	 */
+	static final int[] THUMBNAIL_IDS = {
+		R.drawable.ames_01_thumb,
+		R.drawable.ames_02_thumb,
+		R.drawable.ames_03_thumb,
+		R.drawable.ames_04_thumb,
+		R.drawable.ames_05_thumb,
+		R.drawable.ames_06_thumb,
+		R.drawable.ames_07_thumb,
+		R.drawable.ames_08_thumb,
+		R.drawable.ames_09_thumb,
+		R.drawable.ames_10_thumb,
+		R.drawable.ames_11_thumb,
+		R.drawable.ames_12_thumb,
+		R.drawable.ames_13_thumb,
+		R.drawable.ames_14_thumb,
+		R.drawable.ames_15_thumb,
+		R.drawable.ames_16_thumb,
+		R.drawable.ames_17_thumb,
+		R.drawable.ames_18_thumb,
+		R.drawable.ames_19_thumb,
+		R.drawable.ames_20_thumb,
+		R.drawable.ames_21_thumb,
+		R.drawable.ames_22_thumb,
+		R.drawable.ames_23_thumb,
+		R.drawable.ames_24_thumb,
+		R.drawable.ames_25_thumb,
+		R.drawable.ames_26_thumb,
+		R.drawable.ames_27_thumb,
+		R.drawable.ames_28_thumb,
+		R.drawable.art_01_thumb,
+		R.drawable.art_02_thumb,
+		R.drawable.art_03_thumb,
+		R.drawable.art_04_thumb,
+		R.drawable.art_05_thumb,
+		R.drawable.art_06_thumb,
+		R.drawable.art_07_thumb,
+		R.drawable.art_08_thumb,
+		R.drawable.art_09_thumb,
+		R.drawable.art_10_thumb,
+		R.drawable.buck_01_thumb,
+		R.drawable.buck_02_thumb,
+		R.drawable.buck_03_thumb,
+		R.drawable.buck_04_thumb,
+		R.drawable.chapel_01_thumb,
+		R.drawable.chapel_02_thumb,
+		R.drawable.chapel_03_thumb,
+		R.drawable.chapel_04_thumb,
+		R.drawable.cla_01_thumb,
+		R.drawable.cla_02_thumb,
+		R.drawable.cla_03_thumb,
+		R.drawable.cla_04_thumb,
+		R.drawable.cla_05_thumb,
+		R.drawable.cla_06_thumb,
+		R.drawable.cns_01_thumb,
+		R.drawable.cns_02_thumb,
+		R.drawable.cns_03_thumb,
+		R.drawable.cns_04_thumb,
+		R.drawable.cns_05_thumb,
+		R.drawable.cns_06_thumb,
+		R.drawable.cns_07_thumb,
+		R.drawable.cns_08_thumb,
+		R.drawable.cns_09_thumb,
+		R.drawable.cns_10_thumb,
+		R.drawable.cns_11_thumb,
+		R.drawable.credit_agast_thumb,
+		R.drawable.credit_arussian_thumb,
+		R.drawable.credit_jalbert1_thumb,
+		R.drawable.credit_lbui_thumb,
+		R.drawable.credit_lnguyen_thumb,
+		R.drawable.credit_mnguyen3_thumb,
+		R.drawable.credit_sschaef1_thumb,
+		R.drawable.hansen_01_thumb,
+		R.drawable.hansen_02_thumb,
+		R.drawable.hansen_03_thumb,
+		R.drawable.hansen_04_thumb,
+		R.drawable.holmes_01_thumb,
+		R.drawable.holmes_02_thumb,
+		R.drawable.holmes_03_thumb,
+		R.drawable.mcpherson_01_thumb,
+		R.drawable.mcpherson_02_thumb,
+		R.drawable.mcpherson_03_thumb,
+		R.drawable.mcpherson_04_thumb,
+		R.drawable.mcpherson_05_thumb,
+		R.drawable.memorial_ctr_01_thumb,
+		R.drawable.memorial_ctr_02_thumb,
+		R.drawable.memorial_ctr_03_thumb,
+		R.drawable.memorial_ctr_04_thumb,
+		R.drawable.memorial_ctr_05_thumb,
+		R.drawable.memorial_ctr_06_thumb,
+		R.drawable.observatory_01_thumb,
+		R.drawable.president_01_thumb,
+		R.drawable.president_02_thumb,
+		R.drawable.presser_01_thumb,
+		R.drawable.presser_02_thumb,
+		R.drawable.presser_03_thumb,
+		R.drawable.presser_04_thumb,
+		R.drawable.presser_05_thumb,
+		R.drawable.presser_06_thumb,
+		R.drawable.presser_07_thumb,
+		R.drawable.sfh_01_thumb,
+		R.drawable.sfh_02_thumb,
+		R.drawable.sfh_03_thumb,
+		R.drawable.sfh_04_thumb,
+		R.drawable.sfh_05_thumb,
+		R.drawable.sfh_06_thumb,
+		R.drawable.sfh_07_thumb,
+		R.drawable.sfh_08_thumb,
+		R.drawable.sfh_09_thumb,
+		R.drawable.sfh_10_thumb,
+		R.drawable.shaw_01_thumb,
+		R.drawable.shaw_02_thumb,
+		R.drawable.shaw_03_thumb,
+		R.drawable.shirk_01_thumb,
+		R.drawable.shirk_02_thumb,
+		R.drawable.shirk_03_thumb,
+		R.drawable.shirk_04_thumb,
+		R.drawable.shirk_05_thumb,
+		R.drawable.shirk_06_thumb,
+		R.drawable.stevenson_01_thumb,
+		R.drawable.stevenson_02_thumb,
+		R.drawable.stevenson_03_thumb,
+		R.drawable.stevenson_04_thumb,
+		R.drawable.stevenson_05_thumb,
+		R.drawable.welcome_ctr_01_thumb,
+		R.drawable.welcome_ctr_02_thumb,
+		R.drawable.welcome_ctr_03_thumb,
+		R.drawable.welcome_ctr_04_thumb,
+	};
+
+	private PhotoRenditions() {}
+}
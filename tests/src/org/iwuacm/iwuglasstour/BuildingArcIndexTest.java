@@ -0,0 +1,65 @@
+package org.iwuacm.iwuglasstour;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link BuildingArcIndex}.
+ */
+public class BuildingArcIndexTest extends TestCase {
+
+	/**
+	 * Corner bearings of three buildings: one covering 10-20 degrees, one covering 350-5 degrees
+	 * across north, and one right next to the user covering 100-270 degrees.
+	 */
+	private static final float[] CORNER_BEARINGS = {
+			20.0f, 10.0f, 15.0f, 12.0f,
+			355.0f, 5.0f, 350.0f, 0.0f,
+			100.0f, 180.0f, 270.0f, 200.0f,
+	};
+
+	private BuildingArcIndex arcIndex;
+
+	@Override
+	protected void setUp() throws Exception {
+		arcIndex = new BuildingArcIndex(3);
+		arcIndex.update(CORNER_BEARINGS);
+	}
+
+	public void testWide() {
+		assertFalse(arcIndex.isWide(0));
+		assertFalse(arcIndex.isWide(1));
+		assertTrue(arcIndex.isWide(2));
+		assertEquals(1, arcIndex.getWideCount());
+		assertEquals(2, arcIndex.getWideBuilding(0));
+	}
+
+	public void testFindFirstStartFrom() {
+		int position = arcIndex.findFirstStartFrom(5.0f);
+		assertEquals(10.0f, arcIndex.getStart(position));
+		assertEquals(0, arcIndex.getBuildingByStart(position));
+
+		position = arcIndex.findFirstStartFrom(10.0f);
+		assertEquals(0, arcIndex.getBuildingByStart(position));
+	}
+
+	public void testFindFirstStartFrom_wrapsAround() {
+		int position = arcIndex.findFirstStartFrom(355.0f);
+		assertEquals(10.0f, arcIndex.getStart(position));
+		assertEquals(0, arcIndex.getBuildingByStart(position));
+	}
+
+	public void testFindLastEndUpTo() {
+		int position = arcIndex.findLastEndUpTo(19.0f);
+		assertEquals(5.0f, arcIndex.getEnd(position));
+		assertEquals(1, arcIndex.getBuildingByEnd(position));
+
+		position = arcIndex.findLastEndUpTo(20.0f);
+		assertEquals(0, arcIndex.getBuildingByEnd(position));
+	}
+
+	public void testFindLastEndUpTo_wrapsAround() {
+		int position = arcIndex.findLastEndUpTo(1.0f);
+		assertEquals(270.0f, arcIndex.getEnd(position));
+		assertEquals(2, arcIndex.getBuildingByEnd(position));
+	}
+}
@@ -0,0 +1,306 @@
+package org.iwuacm.iwuglasstour;
+
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingIndex;
+import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.model.Buildings;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import android.location.Location;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Measures how many updates per second {@link BuildingLocationManager} can make, and how many
+ * frames it causes to be drawn. Results are written to the log under {@link #TAG}.
+ */
+public class BuildingLocationManagerBenchmark extends AndroidTestCase {
+
+	private static final String TAG = BuildingLocationManagerBenchmark.class.getSimpleName();
+
+	private static final double SQUARE_SIZE = 0.0005;
+	private static final double SPACING = 3.0 * SQUARE_SIZE;
+	private static final int TICKS = 2000;
+
+	private static final int WALK_BUILDINGS = 100;
+	private static final int WALK_SECONDS = 300;
+	private static final int HEADINGS_PER_SECOND = 30;
+
+	/**
+	 * Walking speed in degrees of latitude per second, about 1.4 m/s.
+	 */
+	private static final double WALK_SPEED = 0.0000126;
+
+	private static final double LOCATION_NOISE = 0.00002;
+	private static final double GLANCE_ANGLE = 60.0;
+	private static final double GLANCE_SECONDS = 3.0;
+	private static final double GLANCE_PERIOD_SECONDS = 10.0;
+	private static final double HEADING_NOISE = 0.3;
+
+	@Mock Buildings buildings;
+	@Mock OrientationManager orientationManager;
+	@Captor ArgumentCaptor<OrientationManager.OnChangedListener> orientationManagerListener;
+
+	private Location walkLocation;
+	private float walkHeading;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		// Mockito fix. See: https://code.google.com/p/dexmaker/issues/detail?id=2
+		System.setProperty("dexmaker.dexcache", getContext().getCacheDir().toString());
+
+		MockitoAnnotations.initMocks(this);
+
+		doNothing()
+				.when(orientationManager)
+				.addOnChangedListener(orientationManagerListener.capture());
+		when(orientationManager.hasLocation()).thenReturn(true);
+	}
+
+	public void testTicks_20() {
+		benchmarkTicks(20);
+	}
+
+	public void testTicks_1000() {
+		benchmarkTicks(1000);
+	}
+
+	/**
+	 * Compares ticks where only the heading changes with ticks where the location changes too. The
+	 * latter is the cost every tick had before location-dependent work was cached per fix.
+	 */
+	private void benchmarkTicks(int buildingCount) {
+		when(buildings.getAll()).thenReturn(createBuildings(buildingCount));
+
+		BuildingLocationManager locationManager =
+				new BuildingLocationManager(buildings, orientationManager, true);
+		locationManager.startTracking();
+		OrientationManager.OnChangedListener listener = orientationManagerListener.getValue();
+
+		final Location first = createLocation(-SQUARE_SIZE);
+		final Location second = createLocation(-2.0 * SQUARE_SIZE);
+		when(orientationManager.getLocation()).thenReturn(first);
+		when(orientationManager.getHeading()).thenAnswer(new Answer<Float>() {
+			private int tick;
+
+			@Override
+			public Float answer(InvocationOnMock invocation) {
+				return (float) (tick++ % 360);
+			}
+		});
+
+		long headingStart = System.nanoTime();
+		for (int i = 0; i < TICKS; i++) {
+			listener.onOrientationChanged(orientationManager);
+		}
+		long headingNanos = System.nanoTime() - headingStart;
+
+		when(orientationManager.getLocation()).thenAnswer(new Answer<Location>() {
+			private int tick;
+
+			@Override
+			public Location answer(InvocationOnMock invocation) {
+				return (tick++ % 2 == 0) ? second : first;
+			}
+		});
+
+		long locationStart = System.nanoTime();
+		for (int i = 0; i < TICKS; i++) {
+			listener.onLocationChanged(orientationManager);
+		}
+		long locationNanos = System.nanoTime() - locationStart;
+
+		Log.i(TAG, String.format(
+				"%d buildings: %.0f ticks/s with new location, %.0f ticks/s with heading only",
+				buildingCount,
+				TICKS / (locationNanos / 1e9),
+				TICKS / (headingNanos / 1e9)));
+
+		locationManager.stopTracking();
+	}
+
+	/**
+	 * Replays a walk between the buildings while looking around, and compares how many frames are
+	 * drawn (one per notification) with how many would be drawn if the listeners were notified of
+	 * every change rather than only of those that change the display.
+	 */
+	public void testWalk() {
+		final List<Building> buildingList = createBuildings(WALK_BUILDINGS);
+		when(buildings.getAll()).thenReturn(buildingList);
+		when(orientationManager.getLocation()).thenAnswer(new Answer<Location>() {
+			@Override
+			public Location answer(InvocationOnMock invocation) {
+				return walkLocation;
+			}
+		});
+		when(orientationManager.getHeading()).thenAnswer(new Answer<Float>() {
+			@Override
+			public Float answer(InvocationOnMock invocation) {
+				return walkHeading;
+			}
+		});
+
+		BuildingLocationManager locationManager =
+				new BuildingLocationManager(buildings, orientationManager, true);
+		final int[] frameCount = new int[1];
+		locationManager.addListener(new BuildingLocationManager.Listener() {
+			@Override
+			public void onNearbyBuildingsChange(LocationState state) {
+				frameCount[0]++;
+			}
+
+			@Override
+			public void onEnterBuilding(LocationState state) {}
+
+			@Override
+			public void onExitBuilding(LocationState state) {}
+
+			@Override
+			public void onCompassInterference(LocationState state) {}
+
+			@Override
+			public void onHasLocationChange(LocationState state) {}
+
+			@Override
+			public void onLikelyBuildingsChange(List<Building> buildings) {}
+
+			@Override
+			public void onApproachBuilding(Building building) {}
+		});
+		locationManager.startTracking();
+		OrientationManager.OnChangedListener listener = orientationManagerListener.getValue();
+
+		// Selects the buildings again to find every change, however small.
+		LocationFix locationFix = new LocationFix(buildingList, BuildingIndex.create(buildingList));
+		NearbyBuildingSelector selector = new NearbyBuildingSelector(buildingList.size());
+		List<BuildingWithLocation> previous = null;
+		int changeCount = 0;
+
+		Random random = new Random(0);
+		int ticks = WALK_SECONDS * HEADINGS_PER_SECOND;
+		for (int tick = 0; tick < ticks; tick++) {
+			double seconds = (double) tick / HEADINGS_PER_SECOND;
+
+			// Looks north while walking, glancing to alternating sides now and then, with some
+			// sensor noise.
+			double glance = 0.0;
+			double glanceSeconds = seconds % GLANCE_PERIOD_SECONDS;
+			if (glanceSeconds < GLANCE_SECONDS) {
+				double side = ((int) (seconds / GLANCE_PERIOD_SECONDS) % 2 == 0) ? 1.0 : -1.0;
+				glance = side * GLANCE_ANGLE * Math.sin(Math.PI * glanceSeconds / GLANCE_SECONDS);
+			}
+			walkHeading = MathUtils.mod(
+					(float) (glance + HEADING_NOISE * random.nextGaussian()),
+					360.0f);
+
+			if (tick % HEADINGS_PER_SECOND == 0) {
+				// Between two columns of buildings, but closer to one so that the buildings ahead
+				// are not tied, with some GPS noise.
+				walkLocation = new Location(""); // Provider not necessary.
+				walkLocation.setLatitude(-SPACING + WALK_SPEED * seconds
+						+ LOCATION_NOISE * random.nextGaussian());
+				walkLocation.setLongitude(SPACING / 3.0 + LOCATION_NOISE * random.nextGaussian());
+
+				listener.onLocationChanged(orientationManager);
+			} else {
+				listener.onOrientationChanged(orientationManager);
+			}
+
+			org.iwuacm.iwuglasstour.model.Location location =
+					MathUtils.androidLocationToModelLocation(walkLocation);
+			if (!locationFix.isFor(location)) {
+				locationFix.update(location);
+			}
+			selector.select(locationFix, walkHeading);
+
+			List<BuildingWithLocation> current = Arrays.asList(
+					getBuildingWithLocation(locationFix, selector.getLeft(), walkHeading),
+					getBuildingWithLocation(locationFix, selector.getFront(), walkHeading),
+					getBuildingWithLocation(locationFix, selector.getRight(), walkHeading));
+			if (!current.equals(previous)) {
+				changeCount++;
+			}
+			previous = current;
+		}
+
+		Log.i(TAG, String.format(
+				"Walk of %d ticks: %d frames drawn, %d without display change detection (%.1f%%)",
+				ticks,
+				frameCount[0],
+				changeCount,
+				100.0 * frameCount[0] / changeCount));
+		assertTrue(frameCount[0] <= changeCount);
+
+		locationManager.stopTracking();
+	}
+
+	private static BuildingWithLocation getBuildingWithLocation(
+			LocationFix locationFix,
+			int building,
+			float heading) {
+
+		return building == NearbyBuildingSelector.NONE
+				? null
+				: locationFix.getBuildingWithLocation(building, heading);
+	}
+
+	/**
+	 * Creates square buildings north of the equator laid out in a grid.
+	 */
+	private static List<Building> createBuildings(int buildingCount) {
+		int columns = (int) Math.ceil(Math.sqrt(buildingCount));
+		double halfSquareSize = SQUARE_SIZE / 2.0;
+
+		List<Building> buildings = new ArrayList<Building>(buildingCount);
+		for (int i = 0; i < buildingCount; i++) {
+			double latitude = (i / columns) * SPACING;
+			double longitude = (i % columns - columns / 2) * SPACING;
+
+			buildings.add(Building.builder()
+					.withId(i)
+					.withName("Building " + i)
+					.withShortName("B" + i)
+					.withLocation(new RectangularLocation(
+							new org.iwuacm.iwuglasstour.model.Location(
+									latitude - halfSquareSize,
+									longitude - halfSquareSize),
+							new org.iwuacm.iwuglasstour.model.Location(
+									latitude + halfSquareSize,
+									longitude - halfSquareSize),
+							new org.iwuacm.iwuglasstour.model.Location(
+									latitude + halfSquareSize,
+									longitude + halfSquareSize),
+							new org.iwuacm.iwuglasstour.model.Location(
+									latitude - halfSquareSize,
+									longitude + halfSquareSize)))
+					.build());
+		}
+
+		return buildings;
+	}
+
+	private static Location createLocation(double latitude) {
+		Location location = new Location(""); // Provider not necessary.
+		location.setLatitude(latitude);
+		location.setLongitude(0.0);
+
+		return location;
+	}
+}
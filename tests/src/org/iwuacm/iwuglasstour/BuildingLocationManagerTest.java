@@ -1,9 +1,8 @@
 package org.iwuacm.iwuglasstour;
 
-import static org.mockito.Matchers.eq;
-import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,6 +20,7 @@ import org.mockito.MockitoAnnotations;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Ticker;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 
@@ -31,12 +31,21 @@ import android.test.AndroidTestCase;
  * Tests for {@link BuildingLocationManager}.
  */
 public class BuildingLocationManagerTest extends AndroidTestCase {
-	
+
 	private static final double SQUARE_SIZE = 0.0005;
 	
 	private static final double LATITUDE = 0.0;
 	private static final double LONGITUDE = 0.0;
 	private static final float HEADING = 0.0f;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	/**
+	 * Latitudes a couple of meters on either side of the southern edge of the building from
+	 * {@link #createBuildingAtDoorway}.
+	 */
+	private static final double DOORWAY_INSIDE = 0.00002;
+	private static final double DOORWAY_OUTSIDE = -0.00002;
 	
 	private static final Predicate<Building> WITHIN_CONE_OF_VISUAL_ATTENTION =
 			new Predicate<Building>() {
@@ -57,6 +66,20 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	@Mock BuildingLocationManager.Listener listener;
 	@Mock OrientationManager orientationManager;
 	@Captor ArgumentCaptor<OrientationManager.OnChangedListener> orientationManagerListener;
+	@Captor ArgumentCaptor<LocationState> locationState;
+
+	/**
+	 * The time read by the {@link BuildingLocationManager}, which is the time of the latest fix
+	 * unless a test advances it on its own.
+	 */
+	private long nanos;
+
+	private final Ticker ticker = new Ticker() {
+		@Override
+		public long read() {
+			return nanos;
+		}
+	};
 	
 	@Override
 	protected void setUp() throws Exception {
@@ -96,8 +119,8 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 * Tests two buildings directly in front of user. Should return closest.
 	 */
 	public void testUpdateLocationState_withTwoFront() {
-		final Building front = createBuilding(createSquareLocation(0.01, 0.0));
-		final Building back = createBuilding(createSquareLocation(0.01 + SQUARE_SIZE * 2, 0.0));
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		final Building back = createBuilding(1, createSquareLocation(0.01 + SQUARE_SIZE * 2, 0.0));
 		
 		verifyUpdateLocationState(
 				null,
@@ -112,11 +135,13 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 * sides.
 	 */
 	public void testUpdateLocationState_withFront_withSidesInFront() {
-		final Building front = createBuilding(createSquareLocation(0.01, 0.0));
-		final Building left =
-				createBuilding(createSquareLocation(0.01 - 2.0 * SQUARE_SIZE, -2.0 * SQUARE_SIZE));
-		final Building right =
-				createBuilding(createSquareLocation(0.01 - 2.0 * SQUARE_SIZE, 2.0 * SQUARE_SIZE));
+		final Building front = createBuilding(1, createSquareLocation(0.01, 0.0));
+		final Building left = createBuilding(
+				0,
+				createSquareLocation(0.01 - 2.0 * SQUARE_SIZE, -2.0 * SQUARE_SIZE));
+		final Building right = createBuilding(
+				2,
+				createSquareLocation(0.01 - 2.0 * SQUARE_SIZE, 2.0 * SQUARE_SIZE));
 		
 		verifyUpdateLocationState(
 				left,
@@ -130,9 +155,9 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 * Tests three buildings side by side.
 	 */
 	public void testUpdateLocationState_withFront_withSidesToSide() {
-		final Building left = createBuilding(createSquareLocation(0.01, -2.0 * SQUARE_SIZE));
-		final Building front = createBuilding(createSquareLocation(0.01, 0.0));
-		final Building right = createBuilding(createSquareLocation(0.01, 2.0 * SQUARE_SIZE));
+		final Building left = createBuilding(0, createSquareLocation(0.01, -2.0 * SQUARE_SIZE));
+		final Building front = createBuilding(1, createSquareLocation(0.01, 0.0));
+		final Building right = createBuilding(2, createSquareLocation(0.01, 2.0 * SQUARE_SIZE));
 
 		verifyUpdateLocationState(
 				left,
@@ -148,11 +173,13 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 * as the left and right building.
 	 */
 	public void testUpdateLocationState_withFront_withSidesObstructed() {
-		final Building blockedLeft =
-				createBuilding(createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, -SQUARE_SIZE / 2.0));
-		final Building front = createBuilding(createRectangleLocation(0.01, 0.0, 2.0, 1.0));
-		final Building blockedRight =
-				createBuilding(createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, SQUARE_SIZE / 2.0));
+		final Building blockedLeft = createBuilding(
+				0,
+				createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, -SQUARE_SIZE / 2.0));
+		final Building front = createBuilding(1, createRectangleLocation(0.01, 0.0, 2.0, 1.0));
+		final Building blockedRight = createBuilding(
+				2,
+				createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, SQUARE_SIZE / 2.0));
 
 		verifyUpdateLocationState(
 				null,
@@ -167,13 +194,15 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 * the left and right outside of the field of vision.
 	 */
 	public void testUpdateLocationState_withFront_withSidesObstructedAndToSides() {
-		final Building left = createBuilding(createSquareLocation(SQUARE_SIZE, -1.0));
-		final Building blockedLeft =
-				createBuilding(createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, -SQUARE_SIZE / 2.0));
-		final Building front = createBuilding(createRectangleLocation(0.01, 0.0, 2.0, 1.0));
-		final Building right = createBuilding(createSquareLocation(SQUARE_SIZE, 1.0));
-		final Building blockedRight =
-				createBuilding(createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, SQUARE_SIZE / 2.0));
+		final Building left = createBuilding(3, createSquareLocation(SQUARE_SIZE, -1.0));
+		final Building blockedLeft = createBuilding(
+				0,
+				createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, -SQUARE_SIZE / 2.0));
+		final Building front = createBuilding(1, createRectangleLocation(0.01, 0.0, 2.0, 1.0));
+		final Building right = createBuilding(4, createSquareLocation(SQUARE_SIZE, 1.0));
+		final Building blockedRight = createBuilding(
+				2,
+				createSquareLocation(0.01 + 2.0 * SQUARE_SIZE, SQUARE_SIZE / 2.0));
 
 		verifyUpdateLocationState(
 				left,
@@ -188,10 +217,10 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	 */
 	public void testUpdateLocationState_withFront_withSidesOutsideHemisphere() {
 		final Building left =
-				createBuilding(createSquareLocation(-2.0 * SQUARE_SIZE, -2.0 * SQUARE_SIZE));
-		final Building front = createBuilding(createSquareLocation(0.01, 0.0));
+				createBuilding(1, createSquareLocation(-2.0 * SQUARE_SIZE, -2.0 * SQUARE_SIZE));
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
 		final Building right =
-				createBuilding(createSquareLocation(-2.0 * SQUARE_SIZE, 2.0 * SQUARE_SIZE));
+				createBuilding(2, createSquareLocation(-2.0 * SQUARE_SIZE, 2.0 * SQUARE_SIZE));
 
 		verifyUpdateLocationState(
 				null,
@@ -201,9 +230,202 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 				ImmutableList.of(left, right));
 	}
 	
+	/**
+	 * Tests that turning less than the displayed precision does not notify the listeners again.
+	 */
+	public void testUpdateLocationState_withDisplayUnchanged() {
+		verifyNotificationsAfterTurning(0.3f, 1);
+	}
+	
+	/**
+	 * Tests that turning enough to rotate the displayed arrow notifies the listeners again.
+	 */
+	public void testUpdateLocationState_withDisplayChanged() {
+		verifyNotificationsAfterTurning(5.0f, 2);
+	}
+	
+	/**
+	 * Tests that the building just outside of the cone, which is not displayed because there is a
+	 * closer one to the right in the cone, is reported as likely to be displayed next.
+	 */
+	public void testUpdateLocationState_withLikelyBuildingOutsideCone() {
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		final Building right = createBuilding(1, createSquareLocation(0.01, 0.002));
+		final Building outsideRight = createBuilding(2, createSquareLocation(0.002, 0.01));
+
+		verifyUpdateLocationState(
+				null,
+				front,
+				right,
+				ImmutableList.of(front, right),
+				ImmutableList.of(outsideRight));
+		verify(listener).onLikelyBuildingsChange(ImmutableList.of(outsideRight));
+	}
+
+	/**
+	 * Tests that no building is likely to be displayed next when the only other building is
+	 * already displayed.
+	 */
+	public void testUpdateLocationState_withNoLikelyBuildings() {
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		final Building right = createBuilding(1, createSquareLocation(0.002, 0.01));
+
+		verifyUpdateLocationState(
+				null,
+				front,
+				right,
+				ImmutableList.of(front),
+				ImmutableList.of(right));
+		verify(listener, times(0)).onLikelyBuildingsChange(any(List.class));
+	}
+	
+	/**
+	 * Tests that the listeners are passed the snapshot that is published, and that it is newer
+	 * than the one before the update.
+	 */
+	public void testGetLocationState_withNearbyBuildingsChange() {
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		mockBuildings(ImmutableList.of(front), ImmutableList.<Building>of());
+
+		BuildingLocationManager locationManager = createBuildingLocationManager();
+		LocationState oldState = locationManager.getLocationState();
+		orientationManagerListener.getValue().onLocationChanged(orientationManager);
+
+		verify(listener).onNearbyBuildingsChange(locationState.capture());
+		assertSame(locationState.getValue(), locationManager.getLocationState());
+		assertTrue(locationState.getValue().getVersion() > oldState.getVersion());
+		assertNull(oldState.getFrontBuilding());
+	}
+
+	/**
+	 * Tests that a change in compass interference is published with the nearby buildings kept,
+	 * and is only notified once.
+	 */
+	public void testUpdateHasInterference() {
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		mockBuildings(ImmutableList.of(front), ImmutableList.<Building>of());
+
+		BuildingLocationManager locationManager = createBuildingLocationManager();
+		orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		when(orientationManager.hasInterference()).thenReturn(true);
+		orientationManagerListener.getValue().onAccuracyChanged(orientationManager);
+		orientationManagerListener.getValue().onAccuracyChanged(orientationManager);
+
+		verify(listener).onCompassInterference(locationState.capture());
+		assertTrue(locationState.getValue().hasCompassInterference());
+		assertSame(front, locationState.getValue().getFrontBuilding().getBuilding());
+		assertSame(locationState.getValue(), locationManager.getLocationState());
+	}
+
+	/**
+	 * Tests that walking towards a building reports it as approached once, before the user is
+	 * inside.
+	 */
+	public void testUpdateLocationState_withApproachingBuilding() {
+		final Building front = createBuilding(0, createSquareLocation(SQUARE_SIZE * 1.5, 0.0));
+		mockBuildings(ImmutableList.of(front), ImmutableList.<Building>of());
+
+		createBuildingLocationManager();
+		double stepLatitude = org.iwuacm.iwuglasstour.util.MathUtils
+				.convertKilometersToDegreesLatitude(0.0014);
+
+		// The building starts about 55 meters north, which this walks up to without reaching.
+		for (int second = 0; second < 38; second++) {
+			mockLocationAndHeading(
+					LATITUDE + second * stepLatitude,
+					LONGITUDE,
+					HEADING,
+					second * NANOS_PER_SECOND);
+			orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		}
+
+		verify(listener).onApproachBuilding(front);
+		verify(listener, times(0)).onEnterBuilding(any(LocationState.class));
+	}
+
+	/**
+	 * Tests that standing still does not report a building as approached.
+	 */
+	public void testUpdateLocationState_withoutApproachingBuilding() {
+		final Building front = createBuilding(0, createSquareLocation(SQUARE_SIZE, 0.0));
+		mockBuildings(ImmutableList.of(front), ImmutableList.<Building>of());
+
+		createBuildingLocationManager();
+		for (int second = 0; second < 5; second++) {
+			mockLocationAndHeading(LATITUDE, LONGITUDE, HEADING, second * NANOS_PER_SECOND);
+			orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		}
+
+		verify(listener, times(0)).onApproachBuilding(any(Building.class));
+	}
+	
+	/**
+	 * Tests that fixes going back and forth across the edge of a building do not enter it.
+	 */
+	public void testUpdateLocationState_withFlappingAtDoorway() {
+		final Building building = createBuildingAtDoorway();
+		mockBuildings(ImmutableList.of(building), ImmutableList.<Building>of());
+
+		createBuildingLocationManager();
+		for (int second = 0; second < 10; second++) {
+			double latitude = ((second % 2) == 0) ? DOORWAY_INSIDE : DOORWAY_OUTSIDE;
+			mockLocationAndHeading(latitude, LONGITUDE, HEADING, second * NANOS_PER_SECOND);
+			orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		}
+
+		verify(listener, times(0)).onEnterBuilding(any(LocationState.class));
+	}
+
+	/**
+	 * Tests that fixes staying inside a building enter it once they have dwelled there.
+	 */
+	public void testUpdateLocationState_withDwellingInside() {
+		final Building building = createBuildingAtDoorway();
+		mockBuildings(ImmutableList.of(building), ImmutableList.<Building>of());
+
+		createBuildingLocationManager();
+		for (int second = 0; second < InsideHysteresis.DWELL_SECONDS; second++) {
+			mockLocationAndHeading(DOORWAY_INSIDE, LONGITUDE, HEADING, second * NANOS_PER_SECOND);
+			orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		}
+		verify(listener, times(0)).onEnterBuilding(any(LocationState.class));
+
+		mockLocationAndHeading(
+				DOORWAY_INSIDE,
+				LONGITUDE,
+				HEADING,
+				(long) (InsideHysteresis.DWELL_SECONDS * NANOS_PER_SECOND));
+		orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		verify(listener).onEnterBuilding(locationState.capture());
+		assertSame(building, locationState.getValue().getBuildingInside());
+	}
+	
+	/**
+	 * Tests that standing still inside a building enters it once the dwell has passed, even
+	 * though there are no new fixes.
+	 */
+	public void testUpdateLocationState_withDwellingInsideWithoutNewFixes() {
+		final Building building = createBuildingAtDoorway();
+		mockBuildings(ImmutableList.of(building), ImmutableList.<Building>of());
+		mockLocationAndHeading(DOORWAY_INSIDE, LONGITUDE, HEADING, 0);
+
+		createBuildingLocationManager();
+		orientationManagerListener.getValue().onLocationChanged(orientationManager);
+
+		nanos = (long) (InsideHysteresis.DWELL_SECONDS * NANOS_PER_SECOND) - 1;
+		orientationManagerListener.getValue().onOrientationChanged(orientationManager);
+		verify(listener, times(0)).onEnterBuilding(any(LocationState.class));
+
+		nanos++;
+		orientationManagerListener.getValue().onOrientationChanged(orientationManager);
+		verify(listener).onEnterBuilding(locationState.capture());
+		assertSame(building, locationState.getValue().getBuildingInside());
+	}
+	
 	/**
 	 * Mocks the available {@link Building}s. The arguments are separated by whether in cone of
-	 * vision to make sure that the tests are accurate.
+	 * vision to make sure that the tests are accurate. The IDs of the buildings have to be their
+	 * indices when the arguments are joined, as they are in {@link Buildings#getAll}.
 	 */
 	private void mockBuildings(
 			List<Building> buildingsInConeOfVisualAttention,
@@ -222,14 +444,30 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 				.addAll(buildingsInConeOfVisualAttention)
 				.addAll(buildingsOutsideConeOfVisualAttention)
 				.build();
+		for (int i = 0; i < allBuildings.size(); i++) {
+			Preconditions.checkArgument(
+					allBuildings.get(i).getId() == i,
+					"Building IDs must be their indices in all of the buildings");
+		}
 
 		when(buildings.getAll()).thenReturn(allBuildings);
 	}
 	
 	private void mockLocationAndHeading(double latitude, double longitude, float heading) {
+		mockLocationAndHeading(latitude, longitude, heading, 0);
+	}
+
+	private void mockLocationAndHeading(
+			double latitude,
+			double longitude,
+			float heading,
+			long elapsedRealtimeNanos) {
+
 		Location location = new Location(""); // Provider not necessary.
 		location.setLatitude(latitude);
 		location.setLongitude(longitude);
+		location.setElapsedRealtimeNanos(elapsedRealtimeNanos);
+		nanos = elapsedRealtimeNanos;
 
 		when(orientationManager.getLocation()).thenReturn(location);
 		when(orientationManager.getHeading()).thenReturn(heading);
@@ -237,7 +475,7 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 	
 	private BuildingLocationManager createBuildingLocationManager() {
 		BuildingLocationManager locationManager =
-				new BuildingLocationManager(buildings, orientationManager, true);
+				new BuildingLocationManager(buildings, orientationManager, true, ticker);
 		locationManager.addListener(listener);
 		locationManager.startTracking();
 		
@@ -274,23 +512,50 @@ public class BuildingLocationManagerTest extends AndroidTestCase {
 						expectedRightBuilding,
 						new org.iwuacm.iwuglasstour.model.Location(LATITUDE, LONGITUDE),
 						HEADING);
-		verify(listener).onNearbyBuildingsChange(
-				expectedLeft == null ? isNull(BuildingWithLocation.class) : eq(expectedLeft),
-				expectedFront == null ? isNull(BuildingWithLocation.class) : eq(expectedFront),
-				expectedRight == null ? isNull(BuildingWithLocation.class) : eq(expectedRight));
+		verify(listener).onNearbyBuildingsChange(locationState.capture());
+		assertEquals(expectedLeft, locationState.getValue().getLeftBuilding());
+		assertEquals(expectedFront, locationState.getValue().getFrontBuilding());
+		assertEquals(expectedRight, locationState.getValue().getRightBuilding());
 	}
 	
 	/**
-	 * Creates a {@link Building} with a {@link RectangularLocation}.
+	 * Verifies how many times the listeners are notified when the user turns from {@link #HEADING}
+	 * to {@code heading} while facing a building.
 	 */
-	private static Building createBuilding(RectangularLocation location) {
+	private void verifyNotificationsAfterTurning(float heading, int expectedNotifications) {
+		final Building front = createBuilding(0, createSquareLocation(0.01, 0.0));
+		mockBuildings(ImmutableList.of(front), ImmutableList.<Building>of());
+
+		createBuildingLocationManager();
+		orientationManagerListener.getValue().onLocationChanged(orientationManager);
+		mockLocationAndHeading(LATITUDE, LONGITUDE, heading);
+		orientationManagerListener.getValue().onOrientationChanged(orientationManager);
+
+		verify(listener, times(expectedNotifications))
+				.onNearbyBuildingsChange(any(LocationState.class));
+	}
+	
+	/**
+	 * Creates a {@link Building} with a {@link RectangularLocation}. The {@code id} has to be the
+	 * building's index in all of the buildings passed to {@link #mockBuildings}.
+	 */
+	private static Building createBuilding(int id, RectangularLocation location) {
 		return Building.builder()
+				.withId(id)
 				.withName("Name")
 				.withShortName("ShortName")
 				.withLocation(location)
 				.build();
 	}
 
+	/**
+	 * Creates a {@link Building} whose southern edge runs through the user's location, to be the
+	 * only building.
+	 */
+	private static Building createBuildingAtDoorway() {
+		return createBuilding(0, createSquareLocation(LATITUDE + SQUARE_SIZE / 2.0, LONGITUDE));
+	}
+
 	/**
 	 * Creates a square {@link RectangularLocation} that is centered at the given {@code latitude}
 	 * and {@code longitude} with sides of length {@link #SQUARE_SIZE}.
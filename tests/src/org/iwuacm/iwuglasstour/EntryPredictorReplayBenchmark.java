@@ -0,0 +1,299 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Replays walks through a grid of buildings into {@link EntryPredictor}, the way {@link
+ * BuildingLocationManager} feeds it, and reports how often the building that the user walked into
+ * was predicted before they were inside and how long before. The inside card starts being prepared
+ * when the building is first predicted, so that lead time is how much of the preparation the user
+ * no longer waits for. Walks past the buildings count the buildings that were predicted but never
+ * entered, whose preparation was wasted. Results are written to the log under {@link #TAG}.
+ *
+ * <p>The walks are generated from a fixed seed with one fix per second, walking speeds between
+ * {@link #MIN_SPEED} and {@link #MAX_SPEED} that wander a little, and GPS noise of {@link
+ * #GPS_NOISE_METERS}, so that the results can be compared between changes to the predictor.
+ */
+public class EntryPredictorReplayBenchmark extends TestCase {
+
+	private static final String TAG = EntryPredictorReplayBenchmark.class.getSimpleName();
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private static final int WALKS = 500;
+	private static final long SEED = 19;
+
+	/**
+	 * The buildings are a grid of rectangles with streets between them, in meters.
+	 */
+	private static final int GRID_SIZE = 3;
+	private static final double BUILDING_WIDTH = 40.0;
+	private static final double BUILDING_DEPTH = 25.0;
+	private static final double STREET_WIDTH = 35.0;
+
+	private static final double MIN_SPEED = 1.0;
+	private static final double MAX_SPEED = 1.7;
+	private static final double GPS_NOISE_METERS = 4.0;
+
+	/**
+	 * How far the walking direction wanders each second, in radians.
+	 */
+	private static final double WANDER_RADIANS = 0.05;
+
+	/**
+	 * How far from a building the walks start, in meters.
+	 */
+	private static final double START_DISTANCE = 60.0;
+
+	/**
+	 * The most fixes in a walk.
+	 */
+	private static final int MAX_FIXES = 120;
+
+	private final Random random = new Random(SEED);
+
+	private List<Building> buildings;
+	private BuildingGeometry geometry;
+
+	public void testReplay() {
+		buildings = createBuildings();
+		geometry = BuildingGeometry.create(buildings);
+
+		int entries = 0;
+		int hits = 0;
+		double leadSeconds = 0;
+		int wrongPredictions = 0;
+		int passes = 0;
+		int passPredictions = 0;
+		long predictNanos = 0;
+		int fixCount = 0;
+
+		for (int i = 0; i < WALKS; i++) {
+			boolean isEntering = (i % 2) == 0;
+			Walk walk = isEntering ? createEntryWalk() : createPassingWalk();
+			EntryPredictor predictor = new EntryPredictor(geometry);
+
+			// The first time each building was predicted, like BuildingLocationManager reports.
+			double[] predictedSeconds = new double[buildings.size()];
+			Arrays.fill(predictedSeconds, Double.NaN);
+			int enteredBuilding = EntryPredictor.NONE;
+			double enteredSeconds = Double.NaN;
+
+			for (int j = 0; j < walk.locations.size(); j++) {
+				Location location = walk.locations.get(j);
+				enteredBuilding = findContaining(location);
+				if (enteredBuilding != EntryPredictor.NONE) {
+					enteredSeconds = j;
+					break;
+				}
+
+				long start = System.nanoTime();
+				predictor.update(location, j * NANOS_PER_SECOND);
+				predictNanos += System.nanoTime() - start;
+				fixCount++;
+
+				int predicted = predictor.predictEntry();
+				if ((predicted != EntryPredictor.NONE)
+						&& Double.isNaN(predictedSeconds[predicted])) {
+					predictedSeconds[predicted] = j;
+				}
+			}
+
+			if (isEntering) {
+				if (enteredBuilding == EntryPredictor.NONE) {
+					// The noise kept the walk from ever reporting a fix inside.
+					continue;
+				}
+
+				entries++;
+				if (!Double.isNaN(predictedSeconds[enteredBuilding])) {
+					hits++;
+					leadSeconds += enteredSeconds - predictedSeconds[enteredBuilding];
+				}
+			} else {
+				passes++;
+			}
+
+			for (int k = 0; k < predictedSeconds.length; k++) {
+				if (!Double.isNaN(predictedSeconds[k]) && (k != enteredBuilding)) {
+					if (isEntering) {
+						wrongPredictions++;
+					} else {
+						passPredictions++;
+					}
+				}
+			}
+		}
+
+		assertTrue(entries > 0);
+
+		Log.i(TAG, String.format(
+				"Predicted %d of %d entries (%.0f%%) %.1f s ahead on average, with %d wrong "
+						+ "buildings predicted on the way; %d buildings predicted on %d walks "
+						+ "past; %.2f us per fix",
+				hits,
+				entries,
+				100.0 * hits / entries,
+				(hits == 0) ? 0.0 : leadSeconds / hits,
+				wrongPredictions,
+				passPredictions,
+				passes,
+				predictNanos / 1000.0 / fixCount));
+	}
+
+	/**
+	 * Creates a walk from {@link #START_DISTANCE} away from a random building towards a random
+	 * point on its nearest side, going on past it so that the noisy fixes eventually land inside.
+	 */
+	private Walk createEntryWalk() {
+		int building = random.nextInt(buildings.size());
+		double[] center = getCenter(building);
+
+		// Head for a door somewhere along the southern or northern side.
+		boolean fromSouth = random.nextBoolean();
+		double doorEast = center[0] + (random.nextDouble() - 0.5) * BUILDING_WIDTH * 0.8;
+		double doorNorth = center[1] + (fromSouth ? -1 : 1) * BUILDING_DEPTH / 2;
+
+		// Start from a random direction on that side, away from the other buildings.
+		double startEast;
+		double startNorth;
+		do {
+			double angle = (fromSouth ? -Math.PI / 2 : Math.PI / 2)
+					+ (random.nextDouble() - 0.5) * Math.PI / 2;
+			startEast = doorEast + START_DISTANCE * Math.cos(angle);
+			startNorth = doorNorth + START_DISTANCE * Math.sin(angle);
+		} while (isNearBuilding(startEast, startNorth));
+
+		double direction = Math.atan2(doorNorth - startNorth, doorEast - startEast);
+		return walk(startEast, startNorth, direction);
+	}
+
+	/**
+	 * Creates a walk along a street past a random building, parallel to its southern or northern
+	 * side.
+	 */
+	private Walk createPassingWalk() {
+		int building = random.nextInt(buildings.size());
+		double[] center = getCenter(building);
+
+		boolean alongSouth = random.nextBoolean();
+		double offset = BUILDING_DEPTH / 2 + 5.0 + random.nextDouble() * (STREET_WIDTH / 2 - 5.0);
+		double startNorth = center[1] + (alongSouth ? -offset : offset);
+		boolean eastwards = random.nextBoolean();
+		double startEast = center[0] + (eastwards ? -START_DISTANCE : START_DISTANCE);
+
+		return walk(startEast, startNorth, eastwards ? 0.0 : Math.PI);
+	}
+
+	/**
+	 * Walks from a point in the given direction (counterclockwise from east, in radians), with
+	 * the direction wandering and noise added to each fix.
+	 */
+	private Walk walk(double east, double north, double direction) {
+		Walk walk = new Walk();
+		double speed = MIN_SPEED + random.nextDouble() * (MAX_SPEED - MIN_SPEED);
+
+		for (int i = 0; i < MAX_FIXES; i++) {
+			walk.locations.add(createLocation(
+					east + random.nextGaussian() * GPS_NOISE_METERS,
+					north + random.nextGaussian() * GPS_NOISE_METERS));
+
+			direction += random.nextGaussian() * WANDER_RADIANS;
+			east += speed * Math.cos(direction);
+			north += speed * Math.sin(direction);
+		}
+
+		return walk;
+	}
+
+	/**
+	 * Returns whether the point is within {@link #STREET_WIDTH} / 4 of any building.
+	 */
+	private boolean isNearBuilding(double east, double north) {
+		for (int i = 0; i < buildings.size(); i++) {
+			double[] center = getCenter(i);
+			if ((Math.abs(east - center[0]) < BUILDING_WIDTH / 2 + STREET_WIDTH / 4)
+					&& (Math.abs(north - center[1]) < BUILDING_DEPTH / 2 + STREET_WIDTH / 4)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private int findContaining(Location location) {
+		for (int i = 0; i < buildings.size(); i++) {
+			if (geometry.contains(i, location.getLatitude(), location.getLongitude())) {
+				return i;
+			}
+		}
+
+		return EntryPredictor.NONE;
+	}
+
+	/**
+	 * Returns the east and north meters of the center of building {@code index}.
+	 */
+	private static double[] getCenter(int index) {
+		int column = index % GRID_SIZE;
+		int row = index / GRID_SIZE;
+
+		return new double[] {
+				column * (BUILDING_WIDTH + STREET_WIDTH),
+				row * (BUILDING_DEPTH + STREET_WIDTH),
+		};
+	}
+
+	private static List<Building> createBuildings() {
+		List<Building> buildings = new ArrayList<Building>();
+		for (int i = 0; i < GRID_SIZE * GRID_SIZE; i++) {
+			double[] center = getCenter(i);
+			double west = center[0] - BUILDING_WIDTH / 2;
+			double east = center[0] + BUILDING_WIDTH / 2;
+			double south = center[1] - BUILDING_DEPTH / 2;
+			double north = center[1] + BUILDING_DEPTH / 2;
+
+			buildings.add(Building.builder()
+					.withId(i)
+					.withName("Building " + i)
+					.withShortName("B" + i)
+					.withLocation(new RectangularLocation(
+							createLocation(west, south),
+							createLocation(east, south),
+							createLocation(east, north),
+							createLocation(west, north)))
+					.build());
+		}
+
+		return buildings;
+	}
+
+	/**
+	 * Creates the location {@code east} and {@code north} meters from latitude and longitude 0.
+	 */
+	private static Location createLocation(double east, double north) {
+		return new Location(
+				MathUtils.convertKilometersToDegreesLatitude(north / 1000.0),
+				MathUtils.convertKilometersToDegreesLongitude(east / 1000.0, 0.0));
+	}
+
+	/**
+	 * The fixes of one walk, one per second.
+	 */
+	private static class Walk {
+		private final List<Location> locations = new ArrayList<Location>();
+	}
+}
@@ -0,0 +1,127 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link EntryPredictor}.
+ */
+public class EntryPredictorTest extends TestCase {
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private static final double DELTA = 1e-2;
+
+	private static final double WALKING_SPEED = 1.4;
+
+	/**
+	 * The building is a 20 meter square whose southern edge is 50 meters north of the start.
+	 */
+	private static final double BUILDING_SOUTH = 50.0;
+	private static final double BUILDING_SIZE = 20.0;
+
+	private EntryPredictor predictor;
+
+	@Override
+	protected void setUp() throws Exception {
+		Building building = Building.builder()
+				.withId(0)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						createLocation(-BUILDING_SIZE / 2, BUILDING_SOUTH),
+						createLocation(BUILDING_SIZE / 2, BUILDING_SOUTH),
+						createLocation(BUILDING_SIZE / 2, BUILDING_SOUTH + BUILDING_SIZE),
+						createLocation(-BUILDING_SIZE / 2, BUILDING_SOUTH + BUILDING_SIZE)))
+				.build();
+
+		predictor = new EntryPredictor(BuildingGeometry.create(ImmutableList.of(building)));
+	}
+
+	public void testPredictEntry_walkingTowards() {
+		int second = 0;
+		double north = 0;
+		while (predictor.predictEntry() == EntryPredictor.NONE) {
+			assertTrue("Not predicted before entering", north < BUILDING_SOUTH);
+
+			predictor.update(createLocation(0, north), second * NANOS_PER_SECOND);
+			second++;
+			north += WALKING_SPEED;
+		}
+
+		// The first prediction is for reaching the margin around the building.
+		double lastNorth = north - WALKING_SPEED;
+		double metersToMargin = BUILDING_SOUTH - EntryPredictor.MARGIN_METERS - lastNorth;
+		assertEquals(0, predictor.predictEntry());
+		assertEquals(metersToMargin / WALKING_SPEED, predictor.getSecondsToEntry(), DELTA);
+		assertTrue(predictor.getSecondsToEntry() <= EntryPredictor.HORIZON_SECONDS);
+		assertTrue(metersToMargin / WALKING_SPEED > EntryPredictor.HORIZON_SECONDS - 1.0);
+	}
+
+	public void testPredictEntry_standingStill() {
+		for (int second = 0; second < 5; second++) {
+			predictor.update(createLocation(0, BUILDING_SOUTH - 5.0), second * NANOS_PER_SECOND);
+		}
+
+		assertEquals(EntryPredictor.NONE, predictor.predictEntry());
+	}
+
+	public void testPredictEntry_walkingAway() {
+		walk(0, BUILDING_SOUTH - 5.0, 0, -WALKING_SPEED, 5);
+
+		assertEquals(EntryPredictor.NONE, predictor.predictEntry());
+	}
+
+	public void testPredictEntry_walkingPast() {
+		walk(-30.0, BUILDING_SOUTH - 10.0, WALKING_SPEED, 0, 20);
+
+		assertEquals(EntryPredictor.NONE, predictor.predictEntry());
+	}
+
+	public void testPredictEntry_withinMargin() {
+		double lastNorth = BUILDING_SOUTH - EntryPredictor.MARGIN_METERS / 2;
+		walk(0, lastNorth - 3 * WALKING_SPEED, 0, WALKING_SPEED, 4);
+
+		assertEquals(0, predictor.predictEntry());
+		assertEquals(
+				(BUILDING_SOUTH - lastNorth) / WALKING_SPEED,
+				predictor.getSecondsToEntry(),
+				DELTA);
+	}
+
+	public void testReset() {
+		walk(0, BUILDING_SOUTH - 10.0, 0, WALKING_SPEED, 3);
+		predictor.reset();
+
+		assertEquals(EntryPredictor.NONE, predictor.predictEntry());
+		assertTrue(Float.isNaN(predictor.getSecondsToEntry()));
+	}
+
+	/**
+	 * Updates the predictor with a fix every second for walking from {@code east} and {@code
+	 * north} at the given speeds (in meters per second).
+	 */
+	private void walk(double east, double north, double eastSpeed, double northSpeed, int fixes) {
+		for (int second = 0; second < fixes; second++) {
+			predictor.update(
+					createLocation(east + second * eastSpeed, north + second * northSpeed),
+					second * NANOS_PER_SECOND);
+		}
+	}
+
+	/**
+	 * Creates the location {@code east} and {@code north} meters from latitude and longitude 0.
+	 */
+	private static Location createLocation(double east, double north) {
+		return new Location(
+				MathUtils.convertKilometersToDegreesLatitude(north / 1000.0),
+				MathUtils.convertKilometersToDegreesLongitude(east / 1000.0, 0.0));
+	}
+}
@@ -0,0 +1,145 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingGeometry;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link InsideHysteresis}.
+ */
+public class InsideHysteresisTest extends TestCase {
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	/**
+	 * The building is a 40 meter square with its southwest corner at the origin.
+	 */
+	private static final double BUILDING_SIZE = 40.0;
+	private static final int BUILDING = 0;
+
+	/**
+	 * Just inside and just outside of the southern edge.
+	 */
+	private static final Location JUST_INSIDE = createLocation(20.0, 2.0);
+	private static final Location JUST_OUTSIDE = createLocation(20.0, -2.0);
+
+	private static final float ACCURACY = 10.0f;
+
+	private static final long DWELL_SECONDS = (long) InsideHysteresis.DWELL_SECONDS;
+
+	private InsideHysteresis hysteresis;
+
+	@Override
+	protected void setUp() throws Exception {
+		Building building = Building.builder()
+				.withId(0)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						createLocation(0, 0),
+						createLocation(BUILDING_SIZE, 0),
+						createLocation(BUILDING_SIZE, BUILDING_SIZE),
+						createLocation(0, BUILDING_SIZE)))
+				.build();
+
+		hysteresis = new InsideHysteresis(BuildingGeometry.create(ImmutableList.of(building)));
+	}
+
+	public void testUpdate_entersAfterDwelling() {
+		assertEquals(InsideHysteresis.NONE, update(BUILDING, JUST_INSIDE, 0));
+		assertEquals(InsideHysteresis.NONE, update(BUILDING, JUST_INSIDE, 1));
+		assertEquals(BUILDING, update(BUILDING, JUST_INSIDE, DWELL_SECONDS));
+		assertEquals(1, hysteresis.getEnteredCount());
+		assertEquals(0, hysteresis.getSuppressedCount());
+	}
+
+	public void testGetRemainingDwellNanos() {
+		assertEquals(-1, hysteresis.getRemainingDwellNanos(0));
+
+		update(BUILDING, JUST_INSIDE, 1);
+		assertEquals(
+				(DWELL_SECONDS - 1) * NANOS_PER_SECOND,
+				hysteresis.getRemainingDwellNanos(2 * NANOS_PER_SECOND));
+		assertEquals(0, hysteresis.getRemainingDwellNanos((DWELL_SECONDS + 2) * NANOS_PER_SECOND));
+
+		update(BUILDING, JUST_INSIDE, 1 + DWELL_SECONDS);
+		assertEquals(-1, hysteresis.getRemainingDwellNanos((DWELL_SECONDS + 2) * NANOS_PER_SECOND));
+	}
+
+	public void testUpdate_entersRightAwayBeyondAccuracy() {
+		Location deepInside = createLocation(20.0, ACCURACY + 5.0);
+
+		assertEquals(BUILDING, update(BUILDING, deepInside, 0));
+		assertEquals(1, hysteresis.getEnteredCount());
+	}
+
+	public void testUpdate_entersAfterDwellingWithoutAccuracy() {
+		Location deepInside = createLocation(20.0, 20.0);
+
+		assertEquals(InsideHysteresis.NONE, hysteresis.update(BUILDING, deepInside, Float.NaN, 0));
+		assertEquals(
+				BUILDING,
+				hysteresis.update(
+						BUILDING,
+						deepInside,
+						Float.NaN,
+						(long) (InsideHysteresis.DWELL_SECONDS * NANOS_PER_SECOND)));
+	}
+
+	public void testUpdate_suppressesFlappingAtDoorway() {
+		for (int second = 0; second < 10; second++) {
+			boolean isInside = (second % 2) == 0;
+			int inside = isInside
+					? update(BUILDING, JUST_INSIDE, second)
+					: update(InsideHysteresis.NONE, JUST_OUTSIDE, second);
+
+			assertEquals(InsideHysteresis.NONE, inside);
+		}
+
+		assertEquals(0, hysteresis.getEnteredCount());
+		assertEquals(5, hysteresis.getSuppressedCount());
+	}
+
+	public void testUpdate_exitsAfterDwelling() {
+		Location deepInside = createLocation(20.0, 20.0);
+		update(BUILDING, deepInside, 0);
+
+		assertEquals(BUILDING, update(InsideHysteresis.NONE, JUST_OUTSIDE, 1));
+		assertEquals(BUILDING, update(BUILDING, JUST_INSIDE, 2));
+		assertEquals(BUILDING, update(InsideHysteresis.NONE, JUST_OUTSIDE, 3));
+		assertEquals(BUILDING, update(InsideHysteresis.NONE, JUST_OUTSIDE, 5));
+		assertEquals(
+				InsideHysteresis.NONE,
+				update(InsideHysteresis.NONE, JUST_OUTSIDE, 3 + DWELL_SECONDS));
+		assertEquals(1, hysteresis.getExitedCount());
+		assertEquals(1, hysteresis.getSuppressedCount());
+	}
+
+	public void testUpdate_exitsRightAwayBeyondAccuracy() {
+		Location deepInside = createLocation(20.0, 20.0);
+		Location farOutside = createLocation(20.0, -ACCURACY - 5.0);
+		update(BUILDING, deepInside, 0);
+
+		assertEquals(InsideHysteresis.NONE, update(InsideHysteresis.NONE, farOutside, 1));
+		assertEquals(1, hysteresis.getExitedCount());
+	}
+
+	private int update(int located, Location location, long second) {
+		return hysteresis.update(located, location, ACCURACY, second * NANOS_PER_SECOND);
+	}
+
+	/**
+	 * Creates the location {@code east} and {@code north} meters from latitude and longitude 0.
+	 */
+	private static Location createLocation(double east, double north) {
+		return new Location(
+				MathUtils.convertKilometersToDegreesLatitude(north / 1000.0),
+				MathUtils.convertKilometersToDegreesLongitude(east / 1000.0, 0.0));
+	}
+}
@@ -0,0 +1,91 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingWithLocation;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LocationState}.
+ */
+public class LocationStateTest extends TestCase {
+
+	private Building building;
+	private BuildingWithLocation front;
+
+	@Override
+	protected void setUp() throws Exception {
+		building = Building.builder()
+				.withId(0)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(0.0, 0.0),
+						new Location(0.0, 0.001),
+						new Location(0.001, 0.0),
+						new Location(0.001, 0.001)))
+				.build();
+		front = new BuildingWithLocation(building, 0.1, 0.0);
+	}
+
+	public void testInitial() {
+		LocationState state = LocationState.INITIAL;
+
+		assertEquals(0, state.getVersion());
+		assertNull(state.getLeftBuilding());
+		assertNull(state.getFrontBuilding());
+		assertNull(state.getRightBuilding());
+		assertFalse(state.isInsideBuilding());
+		assertNull(state.getActiveBuilding());
+		assertFalse(state.hasCompassInterference());
+		assertFalse(state.hasLocation());
+	}
+
+	/**
+	 * Tests that a change makes a newer snapshot and leaves the old one as it was.
+	 */
+	public void testWithNearbyBuildings() {
+		LocationState oldState = LocationState.INITIAL.withHasLocation(true);
+		LocationState newState = oldState.withNearbyBuildings(null, front, null);
+
+		assertEquals(oldState.getVersion() + 1, newState.getVersion());
+		assertSame(front, newState.getFrontBuilding());
+		assertTrue(newState.hasLocation());
+		assertNull(oldState.getFrontBuilding());
+		assertSame(building, newState.getActiveBuilding());
+	}
+
+	/**
+	 * Tests that the building inside is active over the one in front, and that leaving it keeps
+	 * the nearby buildings.
+	 */
+	public void testWithInside() {
+		LocationState outside = LocationState.INITIAL.withNearbyBuildings(null, front, null);
+		Building other = Building.builder()
+				.withId(1)
+				.withName("Other")
+				.withShortName("Other")
+				.withLocation(building.getLocation())
+				.build();
+
+		LocationState inside = outside.withInside(other);
+		assertTrue(inside.isInsideBuilding());
+		assertSame(other, inside.getBuildingInside());
+		assertSame(other, inside.getActiveBuilding());
+
+		LocationState left = inside.withInside(null);
+		assertFalse(left.isInsideBuilding());
+		assertSame(front, left.getFrontBuilding());
+		assertTrue(left.getVersion() > inside.getVersion());
+	}
+
+	public void testGetBuildingInside_withOutside() {
+		try {
+			LocationState.INITIAL.getBuildingInside();
+
+			fail("Missing exception.");
+		} catch (IllegalStateException e) {}
+	}
+}
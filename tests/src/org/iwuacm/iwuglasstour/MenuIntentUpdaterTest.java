@@ -0,0 +1,204 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link MenuIntentUpdater}.
+ */
+public class MenuIntentUpdaterTest extends TestCase {
+
+	private static final Building BUILDING_1 = createBuilding(1);
+	private static final Building BUILDING_2 = createBuilding(2);
+
+	private RecordingExecutor executor;
+	private MenuIntentUpdater updater;
+	private List<String> published;
+
+	@Override
+	protected void setUp() throws Exception {
+		executor = new RecordingExecutor();
+		published = new ArrayList<String>();
+		updater = new MenuIntentUpdater(executor, new MenuIntentUpdater.Publisher() {
+			@Override
+			public void publish(int activeBuildingId, boolean isInside) {
+				published.add(activeBuildingId + (isInside ? " inside" : " outside"));
+			}
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	public void testPublishNow() {
+		updater.setActiveBuilding(BUILDING_1);
+		updater.publishNow();
+
+		assertEquals(1, published.size());
+		assertEquals("1 outside", published.get(0));
+	}
+
+	public void testEnterBuilding_publishesOnce() {
+		updater.publishNow();
+		published.clear();
+
+		updater.setActiveBuilding(BUILDING_1);
+		updater.setIsInside(true);
+
+		assertEquals(1, executor.runnables.size());
+		assertEquals(MenuIntentUpdater.DELAY_MILLIS, (long) executor.delays.get(0));
+		assertTrue(published.isEmpty());
+
+		executor.runAll();
+
+		assertEquals(1, published.size());
+		assertEquals("1 inside", published.get(0));
+		assertEquals(1, updater.getCoalescedCount());
+	}
+
+	public void testUnchanged_skipped() {
+		updater.publishNow();
+
+		updater.setActiveBuilding(null);
+		updater.setIsInside(false);
+
+		assertTrue(executor.runnables.isEmpty());
+		assertEquals(2, updater.getSkippedCount());
+	}
+
+	public void testChangedBack_skipped() {
+		updater.publishNow();
+
+		updater.setActiveBuilding(BUILDING_2);
+		updater.setActiveBuilding(null);
+		executor.runAll();
+
+		assertEquals(1, published.size());
+		assertEquals(1, updater.getSkippedCount());
+	}
+
+	public void testNoBuilding() {
+		updater.setActiveBuilding(BUILDING_1);
+		updater.publishNow();
+
+		updater.setActiveBuilding(null);
+		executor.runAll();
+
+		assertEquals(2, published.size());
+		assertEquals(MenuIntentUpdater.NO_BUILDING + " outside", published.get(1));
+	}
+
+	public void testPublishesAgainAfterRun() {
+		updater.publishNow();
+
+		updater.setActiveBuilding(BUILDING_1);
+		executor.runAll();
+		updater.setActiveBuilding(BUILDING_2);
+		executor.runAll();
+
+		assertEquals(3, published.size());
+		assertEquals(3, updater.getPublishedCount());
+		assertEquals(2, updater.getChangeCount());
+	}
+
+	/**
+	 * Tests that changes after stopping are ignored, even though the executor is shut down.
+	 */
+	public void testStop_ignoresChanges() {
+		updater.publishNow();
+		updater.stop();
+		executor.shutdownNow();
+
+		updater.setActiveBuilding(BUILDING_1);
+		updater.setIsInside(true);
+
+		assertTrue(executor.runnables.isEmpty());
+		assertEquals(1, published.size());
+		assertEquals(0, updater.getChangeCount());
+	}
+
+	/**
+	 * Tests that a publish already scheduled when stopping does nothing.
+	 */
+	public void testStop_skipsScheduledPublish() {
+		updater.publishNow();
+		updater.setActiveBuilding(BUILDING_1);
+		updater.stop();
+		executor.runAll();
+
+		assertEquals(1, published.size());
+	}
+
+	/**
+	 * Tests that publishing does not hold the lock that changes wait for.
+	 */
+	public void testPublish_withoutHoldingLock() {
+		final boolean[] holdsLock = new boolean[1];
+		updater = new MenuIntentUpdater(executor, new MenuIntentUpdater.Publisher() {
+			@Override
+			public void publish(int activeBuildingId, boolean isInside) {
+				holdsLock[0] |= Thread.holdsLock(updater);
+			}
+		});
+
+		updater.publishNow();
+		updater.setActiveBuilding(BUILDING_1);
+		executor.runAll();
+
+		assertEquals(2, updater.getPublishedCount());
+		assertFalse(holdsLock[0]);
+	}
+
+	private static Building createBuilding(int id) {
+		return Building.builder()
+				.withId(id)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(0.0, 0.0),
+						new Location(1.0, 0.0),
+						new Location(1.0, 1.0),
+						new Location(0.0, 1.0)))
+				.build();
+	}
+
+	/**
+	 * Records the scheduled runnables instead of running them.
+	 */
+	private static class RecordingExecutor extends ScheduledThreadPoolExecutor {
+
+		private final List<Runnable> runnables = new ArrayList<Runnable>();
+		private final List<Long> delays = new ArrayList<Long>();
+
+		RecordingExecutor() {
+			super(1);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+			runnables.add(command);
+			delays.add(unit.toMillis(delay));
+			return null;
+		}
+
+		void runAll() {
+			List<Runnable> toRun = new ArrayList<Runnable>(runnables);
+			runnables.clear();
+
+			for (Runnable runnable : toRun) {
+				runnable.run();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.iwuacm.iwuglasstour;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import android.location.Location;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link MotionPredictor}.
+ */
+public class MotionPredictorTest extends TestCase {
+
+	private static final long MILLIS = 1000000L;
+
+	private static final double DELTA = 1e-3;
+
+	private MotionPredictor predictor;
+
+	@Override
+	protected void setUp() throws Exception {
+		predictor = new MotionPredictor();
+	}
+
+	public void testPredictHeading_notTurning() {
+		predictor.update(10.0f, 0);
+		predictor.update(10.1f, 100 * MILLIS);
+
+		assertFalse(predictor.isTurning());
+		assertEquals(10.1f, predictor.predictHeading(10.1f));
+	}
+
+	public void testPredictHeading_turningRight() {
+		turnSteadily(350.0f, 30.0f);
+
+		assertTrue(predictor.isTurning());
+		assertTrue(predictor.getTurnRate() > 0.0f);
+		float expectedHeading = MathUtils.mod(
+				10.0f + predictor.getTurnRate() * MotionPredictor.LOOKAHEAD_SECONDS, 360.0f);
+		assertEquals(expectedHeading, predictor.predictHeading(10.0f), DELTA);
+	}
+
+	public void testPredictHeading_turningLeft() {
+		turnSteadily(10.0f, -30.0f);
+
+		assertTrue(predictor.getTurnRate() < 0.0f);
+		float predictedHeading = predictor.predictHeading(350.0f);
+		assertTrue(predictedHeading < 350.0f);
+		assertTrue(predictedHeading > 350.0f - MotionPredictor.MAX_TURN_DEGREES);
+	}
+
+	public void testPredictHeading_limitsTurn() {
+		turnSteadily(0.0f, 720.0f);
+
+		assertEquals(MotionPredictor.MAX_TURN_DEGREES, predictor.predictHeading(0.0f), DELTA);
+	}
+
+	public void testPredictHeading_withoutHeading() {
+		turnSteadily(0.0f, 30.0f);
+		predictor.update(Float.NaN, 1000 * MILLIS);
+
+		assertFalse(predictor.isTurning());
+		assertEquals(40.0f, predictor.predictHeading(40.0f));
+	}
+
+	public void testPredictLocation_walking() {
+		Location north = createLocation(1.5f, 0.0f);
+		org.iwuacm.iwuglasstour.model.Location predictedNorth = predictor.predictLocation(north);
+
+		assertEquals(
+				MathUtils.convertKilometersToDegreesLatitude(0.003),
+				predictedNorth.getLatitude(),
+				1e-9);
+		assertEquals(0.0, predictedNorth.getLongitude(), 1e-9);
+
+		Location east = createLocation(1.5f, 90.0f);
+		org.iwuacm.iwuglasstour.model.Location predictedEast = predictor.predictLocation(east);
+
+		assertEquals(0.0, predictedEast.getLatitude(), 1e-9);
+		assertEquals(
+				MathUtils.convertKilometersToDegreesLongitude(0.003, 0.0),
+				predictedEast.getLongitude(),
+				1e-9);
+	}
+
+	public void testPredictLocation_standing() {
+		assertNull(predictor.predictLocation(createLocation(0.1f, 0.0f)));
+	}
+
+	public void testPredictLocation_withoutSpeed() {
+		Location location = new Location(""); // Provider not necessary.
+		location.setBearing(90.0f);
+
+		assertNull(predictor.predictLocation(location));
+	}
+
+	/**
+	 * Turns from {@code heading} at {@code degreesPerSecond} for a second, measured ten times.
+	 */
+	private void turnSteadily(float heading, float degreesPerSecond) {
+		for (int i = 0; i <= 10; i++) {
+			predictor.update(
+					MathUtils.mod(heading + degreesPerSecond * i / 10.0f, 360.0f),
+					i * 100 * MILLIS);
+		}
+	}
+
+	private static Location createLocation(float speed, float bearing) {
+		Location location = new Location(""); // Provider not necessary.
+		location.setSpeed(speed);
+		location.setBearing(bearing);
+		return location;
+	}
+}
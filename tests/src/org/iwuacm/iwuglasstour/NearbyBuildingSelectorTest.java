@@ -0,0 +1,313 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingIndex;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Range;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link NearbyBuildingSelector}. Compares the selector with a straightforward
+ * implementation that sorts and filters the buildings.
+ */
+public class NearbyBuildingSelectorTest extends TestCase {
+
+	private static final double SQUARE_SIZE = 0.0005;
+	private static final int LOCATIONS = 50;
+	private static final int HEADINGS = 360;
+
+	/**
+	 * Tests buildings of random sizes at random places.
+	 */
+	public void testSelect_randomBuildings() {
+		Random random = new Random(0);
+
+		List<Building> buildings = new ArrayList<Building>();
+		for (int i = 0; i < 40; i++) {
+			buildings.add(createBuilding(
+					buildings.size(),
+					(random.nextDouble() - 0.5) * 0.01,
+					(random.nextDouble() - 0.5) * 0.01,
+					SQUARE_SIZE * (0.5 + random.nextDouble()),
+					SQUARE_SIZE * (0.5 + random.nextDouble())));
+		}
+
+		verifySelectMatchesSorting(buildings, random);
+	}
+
+	/**
+	 * Tests identical buildings in a grid, which causes many ties in heading offset and distance.
+	 */
+	public void testSelect_gridOfBuildings() {
+		List<Building> buildings = new ArrayList<Building>();
+		for (int row = -3; row <= 3; row++) {
+			for (int column = -3; column <= 3; column++) {
+				buildings.add(createBuilding(
+						buildings.size(),
+						row * 2.0 * SQUARE_SIZE,
+						column * 2.0 * SQUARE_SIZE,
+						SQUARE_SIZE,
+						SQUARE_SIZE));
+			}
+		}
+
+		verifySelectMatchesSorting(buildings, new Random(1));
+	}
+
+	/**
+	 * Tests many small buildings, so that only a few of them are near any heading.
+	 */
+	public void testSelect_manyBuildings() {
+		Random random = new Random(2);
+
+		List<Building> buildings = new ArrayList<Building>();
+		for (int i = 0; i < 400; i++) {
+			buildings.add(createBuilding(
+					buildings.size(),
+					(random.nextDouble() - 0.5) * 0.01,
+					(random.nextDouble() - 0.5) * 0.01,
+					SQUARE_SIZE * 0.2 * (0.5 + random.nextDouble()),
+					SQUARE_SIZE * 0.2 * (0.5 + random.nextDouble())));
+		}
+
+		verifySelectMatchesSorting(buildings, random);
+	}
+
+	/**
+	 * Tests locations right next to a building, which then covers almost half of the compass.
+	 */
+	public void testSelect_besideBuilding() {
+		List<Building> buildings = new ArrayList<Building>();
+		buildings.add(createBuilding(0, 0.0, 0.0, SQUARE_SIZE, SQUARE_SIZE));
+		buildings.add(createBuilding(1, 0.0, 2.0 * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE));
+		buildings.add(createBuilding(2, 2.0 * SQUARE_SIZE, 0.0, SQUARE_SIZE, SQUARE_SIZE));
+		buildings.add(createBuilding(3, -2.0 * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE));
+
+		double edge = SQUARE_SIZE / 2.0 + 0.000001;
+		verifySelectMatchesSorting(
+				buildings,
+				Arrays.asList(
+						new Location(0.0, edge),
+						new Location(0.0, -edge),
+						new Location(edge, 0.0),
+						new Location(-edge, 0.0),
+						new Location(edge, edge)));
+	}
+
+	public void testSelect_noBuildings() {
+		List<Building> buildings = new ArrayList<Building>();
+		LocationFix locationFix = new LocationFix(buildings, BuildingIndex.create(buildings));
+		locationFix.update(new Location(0.0, 0.0));
+
+		NearbyBuildingSelector selector = new NearbyBuildingSelector(0);
+		selector.select(locationFix, 0.0);
+
+		assertEquals(NearbyBuildingSelector.NONE, selector.getLeft());
+		assertEquals(NearbyBuildingSelector.NONE, selector.getFront());
+		assertEquals(NearbyBuildingSelector.NONE, selector.getRight());
+	}
+
+	private void verifySelectMatchesSorting(List<Building> buildings, Random random) {
+		List<Location> locations = new ArrayList<Location>();
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations.add(new Location(
+					(random.nextDouble() - 0.5) * 0.012,
+					(random.nextDouble() - 0.5) * 0.012));
+		}
+
+		verifySelectMatchesSorting(buildings, locations);
+	}
+
+	private void verifySelectMatchesSorting(List<Building> buildings, List<Location> locations) {
+		LocationFix locationFix = new LocationFix(buildings, BuildingIndex.create(buildings));
+		NearbyBuildingSelector selector = new NearbyBuildingSelector(buildings.size());
+
+		for (Location location : locations) {
+			locationFix.update(location);
+
+			if (locationFix.getInsideBuilding().isPresent()) {
+				continue;
+			}
+
+			for (int j = 0; j < HEADINGS; j++) {
+				float heading = j * 360.0f / HEADINGS;
+
+				selector.select(locationFix, heading);
+				int[] expected = selectBySorting(locationFix, heading);
+
+				String message = "location=" + location + ", heading=" + heading;
+				assertEquals(message, expected[0], selector.getLeft());
+				assertEquals(message, expected[1], selector.getFront());
+				assertEquals(message, expected[2], selector.getRight());
+			}
+		}
+	}
+
+	/**
+	 * Selects the left, front, and right buildings by sorting and filtering all of the buildings.
+	 */
+	private static int[] selectBySorting(LocationFix locationFix, float heading) {
+		FluentIterable<Integer> buildingIndices = FluentIterable.from(ContiguousSet.create(
+				Range.closedOpen(0, locationFix.getBuildingCount()),
+				DiscreteDomain.integers()));
+
+		Ordering<Integer> ordering = makeOrderingByAbsoluteHeadingOffset(locationFix, heading)
+				.compound(makeOrderingByDistance(locationFix));
+		FluentIterable<Integer> sortedBuildings =
+				FluentIterable.from(buildingIndices.toSortedList(ordering))
+						.filter(makeIsWithinHemispherePredicate(locationFix, heading));
+
+		Predicate<Integer> isWithinConeOfVisualAttentionPredicate =
+				makeIsWithinConeOfVisualAttentionPredicate(locationFix, heading);
+		FluentIterable<Integer> buildingsInConeOfVisualAttention = sortedBuildings
+				.filter(isWithinConeOfVisualAttentionPredicate);
+
+		Optional<Integer> left;
+		Optional<Integer> front = Optional.absent();
+		Optional<Integer> right;
+
+		if (buildingsInConeOfVisualAttention.isEmpty()) {
+			left = sortedBuildings.firstMatch(
+					makeIsToSideOfHeadingOffsetPredicate(false, 0.0, locationFix, heading));
+			right = sortedBuildings.firstMatch(
+					makeIsToSideOfHeadingOffsetPredicate(true, 0.0, locationFix, heading));
+		} else {
+			front = buildingsInConeOfVisualAttention.first();
+			double frontHeadingOffset = locationFix.getHeadingOffset(front.get(), heading);
+
+			Ordering<Integer> closestOrdering = makeOrderingByDistance(locationFix)
+					.compound(makeOrderingByAbsoluteHeadingOffset(locationFix, frontHeadingOffset));
+			FluentIterable<Integer> remaining = FluentIterable.from(
+					buildingsInConeOfVisualAttention.skip(1).toSortedList(closestOrdering));
+
+			left = remaining.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
+					false, frontHeadingOffset, locationFix, heading));
+			right = remaining.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
+					true, frontHeadingOffset, locationFix, heading));
+
+			if (!left.isPresent()) {
+				left = sortedBuildings
+						.filter(Predicates.not(isWithinConeOfVisualAttentionPredicate))
+						.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
+								false, 0.0, locationFix, heading));
+			}
+
+			if (!right.isPresent()) {
+				right = sortedBuildings
+						.filter(Predicates.not(isWithinConeOfVisualAttentionPredicate))
+						.firstMatch(makeIsToSideOfHeadingOffsetPredicate(
+								true, 0.0, locationFix, heading));
+			}
+		}
+
+		return new int[] {
+				left.or(NearbyBuildingSelector.NONE),
+				front.or(NearbyBuildingSelector.NONE),
+				right.or(NearbyBuildingSelector.NONE)
+		};
+	}
+
+	private static Predicate<Integer> makeIsWithinConeOfVisualAttentionPredicate(
+			final LocationFix locationFix,
+			final float heading) {
+
+		return new Predicate<Integer>() {
+			@Override
+			public boolean apply(Integer building) {
+				return Math.abs(locationFix.getHeadingOffset(building, heading))
+						<= BuildingLocationManager.CONE_OF_VISUAL_ATTENTION / 2.0;
+			}
+		};
+	}
+
+	private static Predicate<Integer> makeIsToSideOfHeadingOffsetPredicate(
+			final boolean toRight,
+			final double headingOffset,
+			final LocationFix locationFix,
+			final float heading) {
+
+		return new Predicate<Integer>() {
+			@Override
+			public boolean apply(Integer building) {
+				double difference = locationFix.getHeadingOffset(building, heading) - headingOffset;
+				return toRight ? difference > 0 : difference < 0;
+			}
+		};
+	}
+
+	private static Predicate<Integer> makeIsWithinHemispherePredicate(
+			final LocationFix locationFix,
+			final float heading) {
+
+		return new Predicate<Integer>() {
+			@Override
+			public boolean apply(Integer building) {
+				return Math.abs(locationFix.getHeadingOffset(building, heading)) <= 90.0;
+			}
+		};
+	}
+
+	private static Ordering<Integer> makeOrderingByDistance(final LocationFix locationFix) {
+		return new Ordering<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				return Double.compare(locationFix.getDistance(lhs), locationFix.getDistance(rhs));
+			}
+		};
+	}
+
+	private static Ordering<Integer> makeOrderingByAbsoluteHeadingOffset(
+			final LocationFix locationFix,
+			final double heading) {
+
+		return new Ordering<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				return Double.compare(
+						Math.abs(locationFix.getHeadingOffset(lhs, heading)),
+						Math.abs(locationFix.getHeadingOffset(rhs, heading)));
+			}
+		};
+	}
+
+	/**
+	 * Creates a {@link Building} with a rectangular footprint centered at the given {@code
+	 * latitude} and {@code longitude}. The {@code id} has to be the building's index in its list.
+	 */
+	private static Building createBuilding(
+			int id,
+			double latitude,
+			double longitude,
+			double height,
+			double width) {
+
+		double halfHeight = height / 2.0;
+		double halfWidth = width / 2.0;
+
+		return Building.builder()
+				.withId(id)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(latitude - halfHeight, longitude - halfWidth),
+						new Location(latitude + halfHeight, longitude - halfWidth),
+						new Location(latitude + halfHeight, longitude + halfWidth),
+						new Location(latitude - halfHeight, longitude + halfWidth)))
+				.build();
+	}
+}
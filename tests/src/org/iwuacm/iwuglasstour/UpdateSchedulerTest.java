@@ -0,0 +1,218 @@
+package org.iwuacm.iwuglasstour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import android.location.Location;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link UpdateScheduler}.
+ */
+public class UpdateSchedulerTest extends TestCase {
+
+	private static final long MILLIS = 1000000L;
+
+	private RecordingExecutor executor;
+	private UpdateScheduler scheduler;
+	private int updates;
+
+	@Override
+	protected void setUp() throws Exception {
+		executor = new RecordingExecutor();
+		updates = 0;
+		scheduler = new UpdateScheduler(executor, new Runnable() {
+			@Override
+			public void run() {
+				updates++;
+			}
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	public void testRequest_coalescesUntilRun() {
+		scheduler.request(0.0f, null, 0);
+		scheduler.request(10.0f, null, 10 * MILLIS);
+		scheduler.request(20.0f, null, 20 * MILLIS);
+
+		assertEquals(1, executor.runnables.size());
+		assertEquals(2, scheduler.getCoalescedCount());
+
+		executor.runAll();
+		scheduler.request(30.0f, null, 30 * MILLIS);
+
+		assertEquals(1, updates);
+		assertEquals(1, scheduler.getExecutedCount());
+		assertEquals(1, executor.runnables.size());
+	}
+
+	public void testRequest_skipsWhenStill() {
+		scheduler.request(100.0f, null, 0);
+		executor.runAll();
+
+		scheduler.request(100.2f, null, 100 * MILLIS);
+		scheduler.request(99.8f, null, 200 * MILLIS);
+
+		assertTrue(executor.runnables.isEmpty());
+		assertEquals(2, scheduler.getSkippedCount());
+	}
+
+	public void testRequest_skipsAcrossNorth() {
+		scheduler.request(359.9f, null, 0);
+		executor.runAll();
+
+		scheduler.request(0.1f, null, 100 * MILLIS);
+
+		assertTrue(executor.runnables.isEmpty());
+	}
+
+	public void testRequest_fastTurnUpdatesSooner() {
+		scheduler.request(0.0f, null, 0);
+		executor.runAll();
+		executor.delays.clear();
+
+		// 1 degree per second.
+		for (int i = 1; i <= 10; i++) {
+			scheduler.request(i * 0.1f, null, i * 100 * MILLIS);
+		}
+		long slowDelay = executor.delays.get(0);
+		executor.runAll();
+		executor.delays.clear();
+
+		// 200 degrees per second.
+		for (int i = 1; i <= 10; i++) {
+			scheduler.request(1.0f + i * 2.0f, null, (1000 + i * 10) * MILLIS);
+		}
+		long fastDelay = executor.delays.get(0);
+
+		assertEquals(UpdateScheduler.MAX_DELAY_MILLIS, slowDelay);
+		assertTrue(fastDelay < slowDelay);
+	}
+
+	public void testRequest_newLocationUpdatesRightAway() {
+		scheduler.request(0.0f, createLocation(40.49, -88.99), 0);
+		executor.runAll();
+		executor.delays.clear();
+
+		scheduler.request(0.0f, createLocation(40.49, -88.99), 100 * MILLIS);
+		assertTrue(executor.runnables.isEmpty());
+
+		scheduler.request(0.0f, createLocation(40.4901, -88.99), 200 * MILLIS);
+		assertEquals(UpdateScheduler.MIN_DELAY_MILLIS, (long) executor.delays.get(0));
+	}
+
+	public void testRequestAfter_updatesWithoutMoving() {
+		scheduler.request(0.0f, null, 0);
+		executor.runAll();
+		executor.delays.clear();
+
+		scheduler.request(0.0f, null, 100 * MILLIS);
+		scheduler.requestAfter(2000 * MILLIS);
+
+		assertEquals(1, scheduler.getSkippedCount());
+		assertEquals(2000, (long) executor.delays.get(0));
+
+		executor.runAll();
+		assertEquals(2, updates);
+		assertEquals(2, scheduler.getExecutedCount());
+	}
+
+	/**
+	 * Tests that an update scheduled by {@link UpdateScheduler#requestAfter} can schedule the next
+	 * one while it is running.
+	 */
+	public void testRequestAfter_updateRequestsAnother() {
+		scheduler = new UpdateScheduler(executor, new Runnable() {
+			@Override
+			public void run() {
+				updates++;
+				if (updates == 1) {
+					scheduler.requestAfter(1000 * MILLIS);
+				}
+			}
+		});
+
+		scheduler.requestAfter(3000 * MILLIS);
+		scheduler.requestAfter(3000 * MILLIS);
+		assertEquals(1, executor.runnables.size());
+
+		executor.runAll();
+		assertEquals(1000, (long) executor.delays.get(1));
+
+		executor.runAll();
+		assertEquals(2, updates);
+	}
+
+	public void testRequestAfter_ignoredAfterStop() {
+		scheduler.requestAfter(3000 * MILLIS);
+		scheduler.stopRequestsAfter();
+		scheduler.requestAfter(1000 * MILLIS);
+
+		assertEquals(1, executor.runnables.size());
+		assertTrue(executor.futures.get(0).isCancelled());
+
+		scheduler.startRequestsAfter();
+		scheduler.requestAfter(1000 * MILLIS);
+		assertEquals(2, executor.runnables.size());
+	}
+
+	public void testComputeDelayMillis() {
+		assertEquals(UpdateScheduler.MAX_DELAY_MILLIS, UpdateScheduler.computeDelayMillis(0.0f));
+		assertEquals(
+				UpdateScheduler.MAX_DELAY_MILLIS,
+				UpdateScheduler.computeDelayMillis(Float.NaN));
+		assertEquals(
+				UpdateScheduler.MIN_DELAY_MILLIS,
+				UpdateScheduler.computeDelayMillis(1000.0f));
+		assertEquals(100, UpdateScheduler.computeDelayMillis(20.0f));
+	}
+
+	private static Location createLocation(double latitude, double longitude) {
+		Location location = new Location("test");
+		location.setLatitude(latitude);
+		location.setLongitude(longitude);
+		return location;
+	}
+
+	/**
+	 * Records the scheduled runnables instead of running them. Their futures stay pending, like
+	 * those of updates that have not finished.
+	 */
+	private static class RecordingExecutor extends ScheduledThreadPoolExecutor {
+
+		private final List<Runnable> runnables = new ArrayList<Runnable>();
+		private final List<Long> delays = new ArrayList<Long>();
+		private final List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+
+		RecordingExecutor() {
+			super(1);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+			runnables.add(command);
+			delays.add(unit.toMillis(delay));
+
+			ScheduledFuture<?> future = super.schedule(command, 1, TimeUnit.DAYS);
+			futures.add(future);
+			return future;
+		}
+
+		void runAll() {
+			List<Runnable> toRun = new ArrayList<Runnable>(runnables);
+			runnables.clear();
+
+			for (Runnable runnable : toRun) {
+				runnable.run();
+			}
+		}
+	}
+}
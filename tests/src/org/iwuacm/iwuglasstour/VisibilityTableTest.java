@@ -0,0 +1,181 @@
+package org.iwuacm.iwuglasstour;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link VisibilityTable}.
+ */
+public class VisibilityTableTest extends TestCase {
+
+	private static final Building BUILDING_1 = createBuilding(0, 0.5, 1.5);
+	private static final Building BUILDING_2 = createBuilding(1, 5.0, 6.0);
+	private static final List<Building> BUILDINGS = Arrays.asList(BUILDING_1, BUILDING_2);
+
+	private static final int UNKNOWN = VisibilityTable.UNKNOWN_CODE;
+
+	private VisibilityTable table;
+
+	@Override
+	protected void setUp() throws Exception {
+		table = VisibilityTable.read(ByteBuffer.wrap(createTable(BUILDINGS)), BUILDINGS).get();
+	}
+
+	public void testRead_otherBuildings() throws IOException {
+		List<Building> otherBuildings =
+				Arrays.asList(createBuilding(0, 5.0, 6.0), createBuilding(1, 0.5, 1.5));
+
+		assertFalse(VisibilityTable.read(ByteBuffer.wrap(createTable(BUILDINGS)), otherBuildings)
+				.isPresent());
+	}
+
+	public void testRead_notATable() {
+		assertFalse(VisibilityTable.read(ByteBuffer.wrap(new byte[100]), BUILDINGS).isPresent());
+	}
+
+	public void testRead_truncated() throws IOException {
+		byte[] bytes = createTable(BUILDINGS);
+
+		assertFalse(VisibilityTable.read(
+				ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)),
+				BUILDINGS).isPresent());
+	}
+
+	public void testFindInside() {
+		assertEquals(0, table.findInside(new Location(0.5, 1.5)));
+		assertEquals(VisibilityTable.NONE, table.findInside(new Location(1.5, 0.5)));
+		assertEquals(VisibilityTable.UNKNOWN, table.findInside(new Location(1.5, 1.5)));
+	}
+
+	public void testFindInside_outsideGrid() {
+		assertEquals(VisibilityTable.UNKNOWN, table.findInside(new Location(-0.5, 0.5)));
+		assertEquals(VisibilityTable.UNKNOWN, table.findInside(new Location(0.5, 2.5)));
+		assertEquals(VisibilityTable.UNKNOWN, table.findInside(new Location(Double.NaN, 0.5)));
+	}
+
+	public void testFindNearby() {
+		verifyFindNearby(new Location(1.5, 0.5), 0.0f, -1, 1, -1);
+		verifyFindNearby(new Location(1.5, 0.5), 89.9f, -1, 1, -1);
+		verifyFindNearby(new Location(1.5, 0.5), 180.0f, 0, -1, 1);
+		verifyFindNearby(new Location(1.5, 0.5), 359.0f, 0, -1, 1);
+	}
+
+	public void testFindNearby_normalizesHeading() {
+		verifyFindNearby(new Location(1.5, 0.5), -1.0f, 0, -1, 1);
+		verifyFindNearby(new Location(1.5, 0.5), 360.0f, -1, 1, -1);
+		verifyFindNearby(new Location(1.5, 0.5), 720.5f, -1, 1, -1);
+	}
+
+	public void testFindNearby_unknown() {
+		int[] nearby = { 7, 7, 7 };
+
+		assertFalse(table.findNearby(new Location(1.5, 0.5), 90.0f, nearby));
+		assertFalse(table.findNearby(new Location(1.5, 0.5), Float.NaN, nearby));
+		assertFalse(table.findNearby(new Location(0.5, 0.5), 0.0f, nearby));
+		assertFalse(table.findNearby(new Location(-0.5, 0.5), 0.0f, nearby));
+		assertTrue(Arrays.equals(new int[] { 7, 7, 7 }, nearby));
+	}
+
+	public void testGetHeadingBin() {
+		assertEquals(0, table.getHeadingBin(0.0));
+		assertEquals(0, table.getHeadingBin(89.9));
+		assertEquals(1, table.getHeadingBin(90.0));
+		assertEquals(3, table.getHeadingBin(-1.0));
+		assertEquals(0, table.getHeadingBin(720.5));
+		assertEquals(-1, table.getHeadingBin(Double.NaN));
+		assertEquals(-1, table.getHeadingBin(Double.POSITIVE_INFINITY));
+	}
+
+	private void verifyFindNearby(
+			Location location,
+			float heading,
+			int expectedLeft,
+			int expectedFront,
+			int expectedRight) {
+
+		int[] nearby = new int[3];
+
+		assertTrue(table.findNearby(location, heading, nearby));
+		assertEquals(expectedLeft, nearby[0]);
+		assertEquals(expectedFront, nearby[1]);
+		assertEquals(expectedRight, nearby[2]);
+	}
+
+	/**
+	 * Creates a table of 2x2 cells of 1 degree starting at 0,0 with 4 heading bins. Cell 0,1 is
+	 * inside the first building, cell 1,1 is unknown, and cell 1,0 has runs for the bins.
+	 */
+	private static byte[] createTable(List<Building> buildings) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(VisibilityTable.MAGIC);
+		out.writeInt(VisibilityTable.VERSION);
+		out.writeLong(VisibilityTable.computeFingerprint(buildings));
+		out.writeInt(buildings.size());
+		out.writeInt(2);
+		out.writeInt(2);
+		out.writeInt(4);
+		out.writeDouble(0.0);
+		out.writeDouble(0.0);
+		out.writeDouble(1.0);
+		out.writeDouble(1.0);
+
+		// Inside codes.
+		out.writeByte(UNKNOWN);
+		out.writeByte(1);
+		out.writeByte(0);
+		out.writeByte(UNKNOWN);
+
+		// Run indices.
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeInt(3);
+		out.writeInt(3);
+
+		// Runs of cell 1,0.
+		writeRun(out, 0, 0, 2, 0);
+		writeRun(out, 1, UNKNOWN, UNKNOWN, UNKNOWN);
+		writeRun(out, 2, 1, 0, 2);
+
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static void writeRun(DataOutputStream out, int bin, int left, int front, int right)
+			throws IOException {
+
+		out.writeShort(bin);
+		out.writeByte(left);
+		out.writeByte(front);
+		out.writeByte(right);
+	}
+
+	/**
+	 * Creates a {@link Building} with a small square footprint at the given location. The {@code
+	 * id} has to be the building's index in its list.
+	 */
+	private static Building createBuilding(int id, double latitude, double longitude) {
+		return Building.builder()
+				.withId(id)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(latitude - 0.1, longitude - 0.1),
+						new Location(latitude + 0.1, longitude - 0.1),
+						new Location(latitude + 0.1, longitude + 0.1),
+						new Location(latitude - 0.1, longitude + 0.1)))
+				.build();
+	}
+}
@@ -0,0 +1,54 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link BuildingGeometry}.
+ */
+public class BuildingGeometryTest extends TestCase {
+
+	private static final RectangularLocation LOCATION = new RectangularLocation(
+			new Location(-1.0, -2.0),
+			new Location(1.0, -2.0),
+			new Location(-1.0, 2.0),
+			new Location(1.0, 2.0));
+
+	private BuildingGeometry geometry;
+
+	@Override
+	protected void setUp() throws Exception {
+		geometry = BuildingGeometry.create(Arrays.asList(Building.builder()
+				.withId(0)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(LOCATION)
+				.build()));
+	}
+
+	public void testBounds() {
+		assertEquals(1, geometry.getBuildingCount());
+		assertEquals(-1.0, geometry.getMinLatitude(0));
+		assertEquals(1.0, geometry.getMaxLatitude(0));
+		assertEquals(-2.0, geometry.getMinLongitude(0));
+		assertEquals(2.0, geometry.getMaxLongitude(0));
+	}
+
+	/**
+	 * Tests that {@link BuildingGeometry#contains} matches {@link
+	 * RectangularLocation#isLocationContained}, including on the edges.
+	 */
+	public void testContains() {
+		double[] values = { -3.0, -2.0, -1.5, -1.0, 0.0, 1.0, 1.5, 2.0, 3.0 };
+
+		for (double latitude : values) {
+			for (double longitude : values) {
+				assertEquals(
+						"latitude=" + latitude + ", longitude=" + longitude,
+						LOCATION.isLocationContained(new Location(latitude, longitude)),
+						geometry.contains(0, latitude, longitude));
+			}
+		}
+	}
+}
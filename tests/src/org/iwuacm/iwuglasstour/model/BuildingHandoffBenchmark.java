@@ -0,0 +1,139 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares handing a {@link Building} to another component as a serialized extra with handing
+ * over its ID, for each change of the active building. Serializable extras go through Java
+ * serialization when the intent is written, which is what is measured here. Timings are written
+ * to the log under {@link #TAG}.
+ */
+public class BuildingHandoffBenchmark extends TestCase {
+
+	private static final String TAG = BuildingHandoffBenchmark.class.getSimpleName();
+
+	private static final int BUILDING_COUNT = 20;
+	private static final int CHANGES = 2000;
+
+	/**
+	 * Sized like the largest building in the campus resource.
+	 */
+	private static final int ATTRACTIONS = 22;
+	private static final int DESCRIPTION_LENGTH = 250;
+
+	public void testHandoff() throws Exception {
+		List<Building> buildings = createBuildings();
+
+		// Warm up, so that both are measured with the classes loaded.
+		for (Building building : buildings) {
+			deserialize(serialize(building));
+		}
+
+		long serializeNanos = 0;
+		long deserializeNanos = 0;
+		int bytes = 0;
+		for (int i = 0; i < CHANGES; i++) {
+			Building building = buildings.get(i % BUILDING_COUNT);
+
+			long serializeStart = System.nanoTime();
+			byte[] serialized = serialize(building);
+			serializeNanos += System.nanoTime() - serializeStart;
+
+			long deserializeStart = System.nanoTime();
+			Building deserialized = deserialize(serialized);
+			deserializeNanos += System.nanoTime() - deserializeStart;
+
+			assertEquals(building, deserialized);
+			bytes += serialized.length;
+		}
+
+		long idStart = System.nanoTime();
+		for (int i = 0; i < CHANGES; i++) {
+			int id = buildings.get(i % BUILDING_COUNT).getId();
+			assertEquals(id, buildings.get(id).getId());
+		}
+		long idNanos = System.nanoTime() - idStart;
+
+		Log.i(TAG, String.format(
+				"Per change: serialized %d bytes in %.1f us and read them back in %.1f us, "
+						+ "while the ID took %.2f us",
+				bytes / CHANGES,
+				serializeNanos / 1000.0 / CHANGES,
+				deserializeNanos / 1000.0 / CHANGES,
+				idNanos / 1000.0 / CHANGES));
+	}
+
+	private static byte[] serialize(Building building) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(building);
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	private static Building deserialize(byte[] serialized)
+			throws IOException, ClassNotFoundException {
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+		try {
+			return (Building) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static List<Building> createBuildings() {
+		StringBuilder description = new StringBuilder();
+		while (description.length() < DESCRIPTION_LENGTH) {
+			description.append("Lorem ipsum dolor sit amet. ");
+		}
+
+		List<Building> buildings = new ArrayList<Building>(BUILDING_COUNT);
+		int attractionId = 0;
+		int photoId = 0;
+		for (int i = 0; i < BUILDING_COUNT; i++) {
+			Building.Builder builder = Building.builder()
+					.withId(i)
+					.withName("Building " + i)
+					.withShortName("B" + i)
+					.withDescription(description.toString())
+					.withLocation(new RectangularLocation(
+							new Location(i, 0.0),
+							new Location(i + 0.001, 0.0),
+							new Location(i + 0.001, 0.001),
+							new Location(i, 0.001)))
+					.addPhoto(Photo.builder()
+							.withId(photoId++)
+							.withDrawableId(photoId)
+							.withDescription(description.toString())
+							.build());
+
+			for (int j = 0; j < ATTRACTIONS; j++) {
+				builder.addAttraction(Attraction.builder()
+						.withId(attractionId++)
+						.withName("Attraction " + j)
+						.withDescription(description.toString())
+						.addPhoto(Photo.builder()
+								.withId(photoId++)
+								.withDrawableId(photoId)
+								.build())
+						.build());
+			}
+
+			buildings.add(builder.build());
+		}
+
+		return buildings;
+	}
+}
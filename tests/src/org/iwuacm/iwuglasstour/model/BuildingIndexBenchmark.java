@@ -0,0 +1,182 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares {@link BuildingIndex} queries with scanning every building, for catalogs of different
+ * sizes. Timings are written to the log under {@link #TAG}.
+ */
+public class BuildingIndexBenchmark extends TestCase {
+
+	private static final String TAG = BuildingIndexBenchmark.class.getSimpleName();
+
+	private static final double SQUARE_SIZE = 0.0005;
+	private static final double SPACING = 2.0 * SQUARE_SIZE;
+	private static final int QUERIES = 1000;
+	private static final double RANGE_KILOMETERS = 0.2;
+
+	public void testFindContaining_10() {
+		benchmarkFindContaining(10);
+	}
+
+	public void testFindContaining_1000() {
+		benchmarkFindContaining(1000);
+	}
+
+	public void testFindContaining_100000() {
+		benchmarkFindContaining(100000);
+	}
+
+	public void testFindWithin_10() {
+		benchmarkFindWithin(10);
+	}
+
+	public void testFindWithin_1000() {
+		benchmarkFindWithin(1000);
+	}
+
+	public void testFindWithin_100000() {
+		benchmarkFindWithin(100000);
+	}
+
+	private void benchmarkFindContaining(int buildingCount) {
+		List<Building> buildings = createBuildings(buildingCount);
+		List<Location> locations = createLocations(buildingCount);
+		BuildingIndex index = BuildingIndex.create(buildings);
+
+		long scanStart = System.nanoTime();
+		List<Building> scanned = new ArrayList<Building>();
+		for (Location location : locations) {
+			scanned.add(scanForContaining(buildings, location));
+		}
+		long scanNanos = System.nanoTime() - scanStart;
+
+		long indexStart = System.nanoTime();
+		List<Building> indexed = new ArrayList<Building>();
+		for (Location location : locations) {
+			indexed.add(index.findContaining(location).orNull());
+		}
+		long indexNanos = System.nanoTime() - indexStart;
+
+		assertEquals(scanned, indexed);
+		log("findContaining", buildingCount, scanNanos, indexNanos);
+	}
+
+	private void benchmarkFindWithin(int buildingCount) {
+		List<Building> buildings = createBuildings(buildingCount);
+		List<Location> locations = createLocations(buildingCount);
+		BuildingIndex index = BuildingIndex.create(buildings);
+
+		long scanStart = System.nanoTime();
+		List<List<Building>> scanned = new ArrayList<List<Building>>();
+		for (Location location : locations) {
+			scanned.add(scanForWithin(buildings, location, RANGE_KILOMETERS));
+		}
+		long scanNanos = System.nanoTime() - scanStart;
+
+		long indexStart = System.nanoTime();
+		List<List<Building>> indexed = new ArrayList<List<Building>>();
+		for (Location location : locations) {
+			indexed.add(index.findWithin(location, RANGE_KILOMETERS));
+		}
+		long indexNanos = System.nanoTime() - indexStart;
+
+		assertEquals(scanned, indexed);
+		log("findWithin", buildingCount, scanNanos, indexNanos);
+	}
+
+	private static Building scanForContaining(List<Building> buildings, Location location) {
+		for (Building building : buildings) {
+			if (building.getLocation().isLocationContained(location)) {
+				return building;
+			}
+		}
+
+		return null;
+	}
+
+	private static List<Building> scanForWithin(
+			List<Building> buildings,
+			Location location,
+			double kilometers) {
+
+		List<Building> result = new ArrayList<Building>();
+		for (Building building : buildings) {
+			Location closestPoint = building.getLocation().findClosestPointWithin(location);
+
+			double distance = MathUtils.getDistance(
+					location.getLatitude(),
+					location.getLongitude(),
+					closestPoint.getLatitude(),
+					closestPoint.getLongitude());
+			if (distance <= kilometers) {
+				result.add(building);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Creates square buildings laid out in a grid with a building's width between them.
+	 */
+	private static List<Building> createBuildings(int buildingCount) {
+		int columns = (int) Math.ceil(Math.sqrt(buildingCount));
+		double halfSquareSize = SQUARE_SIZE / 2.0;
+
+		List<Building> buildings = new ArrayList<Building>(buildingCount);
+		for (int i = 0; i < buildingCount; i++) {
+			double latitude = (i / columns) * SPACING;
+			double longitude = (i % columns) * SPACING;
+
+			buildings.add(Building.builder()
+					.withId(i)
+					.withName("Building " + i)
+					.withShortName("B" + i)
+					.withLocation(new RectangularLocation(
+							new Location(latitude - halfSquareSize, longitude - halfSquareSize),
+							new Location(latitude + halfSquareSize, longitude - halfSquareSize),
+							new Location(latitude + halfSquareSize, longitude + halfSquareSize),
+							new Location(latitude - halfSquareSize, longitude + halfSquareSize)))
+					.build());
+		}
+
+		return buildings;
+	}
+
+	/**
+	 * Creates random locations spread over the area of the buildings from {@link
+	 * #createBuildings}.
+	 */
+	private static List<Location> createLocations(int buildingCount) {
+		double extent = Math.ceil(Math.sqrt(buildingCount)) * SPACING;
+		Random random = new Random(buildingCount);
+
+		List<Location> locations = new ArrayList<Location>(QUERIES);
+		for (int i = 0; i < QUERIES; i++) {
+			locations.add(new Location(
+					random.nextDouble() * extent - SQUARE_SIZE,
+					random.nextDouble() * extent - SQUARE_SIZE));
+		}
+
+		return locations;
+	}
+
+	private static void log(String query, int buildingCount, long scanNanos, long indexNanos) {
+		Log.i(TAG, String.format(
+				"%s with %d buildings: scan %.1f us/query, index %.1f us/query (%.1fx)",
+				query,
+				buildingCount,
+				scanNanos / 1000.0 / QUERIES,
+				indexNanos / 1000.0 / QUERIES,
+				(double) scanNanos / Math.max(indexNanos, 1)));
+	}
+}
@@ -0,0 +1,120 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link BuildingIndex}.
+ */
+public class BuildingIndexTest extends TestCase {
+
+	private static final double SQUARE_SIZE = 0.0005;
+
+	private static final Building SOUTH_WEST = createBuilding(0, 0.0, 0.0);
+	private static final Building NORTH_EAST = createBuilding(1, 0.01, 0.01);
+	private static final Building FAR_AWAY = createBuilding(2, 1.0, 1.0);
+	private static final List<Building> BUILDINGS =
+			Arrays.asList(SOUTH_WEST, NORTH_EAST, FAR_AWAY);
+
+	private BuildingIndex index;
+
+	@Override
+	protected void setUp() throws Exception {
+		index = BuildingIndex.create(BUILDINGS);
+	}
+
+	public void testFindContaining_inside() {
+		assertEquals(SOUTH_WEST, index.findContaining(new Location(0.0001, -0.0001)).get());
+		assertEquals(NORTH_EAST, index.findContaining(new Location(0.01, 0.01)).get());
+		assertEquals(FAR_AWAY, index.findContaining(new Location(1.0, 1.0)).get());
+	}
+
+	public void testFindContainingIndex() {
+		assertEquals(0, index.findContainingIndex(0.0001, -0.0001));
+		assertEquals(2, index.findContainingIndex(1.0, 1.0));
+		assertEquals(-1, index.findContainingIndex(0.005, 0.005));
+	}
+
+	/**
+	 * Tests that locations on the edges and corners of a footprint are contained, matching {@link
+	 * RectangularLocation#isLocationContained}.
+	 */
+	public void testFindContaining_onEdge() {
+		double halfSquareSize = SQUARE_SIZE / 2.0;
+
+		assertEquals(
+				NORTH_EAST,
+				index.findContaining(
+						new Location(0.01 + halfSquareSize, 0.01 + halfSquareSize)).get());
+		assertEquals(
+				NORTH_EAST,
+				index.findContaining(new Location(0.01 - halfSquareSize, 0.01)).get());
+	}
+
+	public void testFindContaining_outside() {
+		assertFalse(index.findContaining(new Location(0.005, 0.005)).isPresent());
+		assertFalse(index.findContaining(new Location(-1.0, -1.0)).isPresent());
+	}
+
+	/**
+	 * Tests that the first building given is returned when footprints overlap.
+	 */
+	public void testFindContaining_overlapping() {
+		Building overlapping = createBuilding(0, 0.0001, 0.0001);
+		Building southWest = createBuilding(1, 0.0, 0.0);
+		BuildingIndex overlappingIndex =
+				BuildingIndex.create(ImmutableList.of(overlapping, southWest));
+
+		assertEquals(overlapping, overlappingIndex.findContaining(new Location(0.0, 0.0)).get());
+	}
+
+	public void testFindContaining_empty() {
+		BuildingIndex emptyIndex = BuildingIndex.create(ImmutableList.<Building>of());
+
+		assertFalse(emptyIndex.findContaining(new Location(0.0, 0.0)).isPresent());
+	}
+
+	public void testFindWithin() {
+		Location location = new Location(0.0, 0.0);
+
+		assertEquals(ImmutableList.of(SOUTH_WEST), index.findWithin(location, 0.1));
+		assertEquals(ImmutableList.of(SOUTH_WEST, NORTH_EAST), index.findWithin(location, 2.0));
+		assertEquals(BUILDINGS, index.findWithin(location, 1000.0));
+	}
+
+	/**
+	 * Tests that the distance is measured to the closest point of a footprint rather than its
+	 * center.
+	 */
+	public void testFindWithin_measuresToClosestPoint() {
+		// About 30 meters north of the northern edge of SOUTH_WEST.
+		Location location = new Location(SQUARE_SIZE / 2.0 + 0.00027, 0.0);
+
+		assertTrue(index.findWithin(location, 0.025).isEmpty());
+		assertEquals(ImmutableList.of(SOUTH_WEST), index.findWithin(location, 0.035));
+	}
+
+	/**
+	 * Creates a {@link Building} with a square footprint with sides of length {@link #SQUARE_SIZE}
+	 * centered at the given {@code latitude} and {@code longitude}. The {@code id} has to be the
+	 * building's index in its list.
+	 */
+	private static Building createBuilding(int id, double latitude, double longitude) {
+		double halfSquareSize = SQUARE_SIZE / 2.0;
+
+		return Building.builder()
+				.withId(id)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(latitude - halfSquareSize, longitude - halfSquareSize),
+						new Location(latitude + halfSquareSize, longitude - halfSquareSize),
+						new Location(latitude + halfSquareSize, longitude + halfSquareSize),
+						new Location(latitude - halfSquareSize, longitude + halfSquareSize)))
+				.build();
+	}
+}
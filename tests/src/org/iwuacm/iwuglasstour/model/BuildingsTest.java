@@ -15,14 +15,13 @@ import android.test.mock.MockContext;
 import android.test.mock.MockResources;
 import android.util.JsonWriter;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 /**
  * Tests for {@link Buildings}.
  */
 public class BuildingsTest extends AndroidTestCase {
 	
-	private static final String FAKE_DRAWABLE_PREFIX = "drawable-";
-	private static final String PACKAGE_NAME = "package.name";
-
 	private static final RectangularLocation LOCATION_1 = new RectangularLocation(
 			new Location(-1.0, -2.0),
 			new Location(1.0, -2.0),
@@ -35,24 +34,30 @@ public class BuildingsTest extends AndroidTestCase {
 			new Location(3.0, 4.0));
 	
 	private static final Photo PHOTO_1 = Photo.builder()
-			.withDrawableId(1)
+			.withId(0)
+			.withDrawableId(CampusDrawables.IDS[0])
 			.build();
 	private static final Photo PHOTO_2 = Photo.builder()
-			.withDrawableId(2)
+			.withId(1)
+			.withDrawableId(CampusDrawables.IDS[1])
 			.withDescription("Photo 2")
 			.build();
 	private static final Photo PHOTO_3 = Photo.builder()
-			.withDrawableId(3)
+			.withId(2)
+			.withDrawableId(CampusDrawables.IDS[2])
 			.build();
 	private static final Photo PHOTO_4 = Photo.builder()
-			.withDrawableId(4)
+			.withId(3)
+			.withDrawableId(CampusDrawables.IDS[3])
 			.withDescription("Photo 4")
 			.build();
 	
 	private static final Attraction ATTRACTION_1 = Attraction.builder()
+			.withId(0)
 			.withName("Attraction 1")
 			.build();
 	private static final Attraction ATTRACTION_2 = Attraction.builder()
+			.withId(1)
 			.withName("Attraction 2")
 			.withDescription("Description 2")
 			.addPhoto(PHOTO_3)
@@ -60,11 +65,13 @@ public class BuildingsTest extends AndroidTestCase {
 			.build();
 	
 	private static final Building BUILDING_1 = Building.builder()
+			.withId(0)
 			.withName("Buliding 1")
 			.withShortName("B1")
 			.withLocation(LOCATION_1)
 			.build();
 	private static final Building BUILDING_2 = Building.builder()
+			.withId(1)
 			.withName("Building 2")
 			.withShortName("B2")
 			.withLocation(LOCATION_2)
@@ -92,10 +99,31 @@ public class BuildingsTest extends AndroidTestCase {
 		Iterator<Building> expectedBuildingsIterator = BUILDINGS.iterator();
 		Iterator<Building> actualBuildingsIterator = buildings.iterator();
 		while (expectedBuildingsIterator.hasNext()) {
-			assertEquals(expectedBuildingsIterator.next(), actualBuildingsIterator.next());
+			Building expectedBuilding = expectedBuildingsIterator.next();
+			Building actualBuilding = actualBuildingsIterator.next();
+
+			// Buildings are only compared by ID, while their strings include every field.
+			assertEquals(expectedBuilding, actualBuilding);
+			assertEquals(expectedBuilding.toString(), actualBuilding.toString());
 		}
 	}
 	
+	public void testGetBuilding() {
+		Buildings buildings = Buildings.getBuildings(context);
+
+		assertEquals(BUILDING_2, buildings.getBuilding(1).get());
+		assertFalse(buildings.getBuilding(-1).isPresent());
+		assertFalse(buildings.getBuilding(BUILDINGS.size()).isPresent());
+	}
+	
+	public void testGetBuildingsAsync() throws Exception {
+		Buildings buildings =
+				Buildings.getBuildingsAsync(context, MoreExecutors.sameThreadExecutor()).get();
+		
+		assertSame(Buildings.getBuildings(context), buildings);
+		assertEquals(BUILDINGS.size(), buildings.getAll().size());
+	}
+	
 	/**
 	 * Mocks the given {@link Building}s by creating their JSON content and creating a MockResources
 	 * (using {@link #mockBuildingsResource} so that {@link Buildings} attempts to read {@code
@@ -131,28 +159,13 @@ public class BuildingsTest extends AndroidTestCase {
 			public InputStream openRawResource(int id) throws NotFoundException {
 				if (id == Buildings.BUILDINGS_RAW_RESOURCE) {
 					return new ByteArrayInputStream(mockFileContents.getBytes());
+				} else if (id == CampusBundle.CAMPUS_BUNDLE_RAW_RESOURCE) {
+					// So that the JSON is read.
+					throw new NotFoundException();
 				}
 				
 				return super.openRawResource(id);
 			}
-			
-			@Override
-			public int getIdentifier(
-					String name,
-					String defType,
-					String defPackage) {
-				
-				
-				if (!defType.equals("drawable") || !defPackage.equals(PACKAGE_NAME)) {
-					return super.getIdentifier(name, defType, defPackage);
-				}
-				
-				try {
-					return retrieveDrawableIdFromFakeDrawableName(name);
-				} catch (Exception e) {
-					return super.getIdentifier(name, defType, defPackage);
-				}
-			}
 		};
 		
 		context = new MockContext() {
@@ -160,11 +173,6 @@ public class BuildingsTest extends AndroidTestCase {
 			public Resources getResources() {
 				return mockResources;
 			}
-			
-			@Override
-			public String getPackageName() {
-				return PACKAGE_NAME;
-			}
 		};
 		
 		setContext(context);
@@ -224,7 +232,7 @@ public class BuildingsTest extends AndroidTestCase {
 			writer.beginObject();
 			
 			writer.name("drawableName");
-			writer.value(createFakeDrawableName(photo.getDrawableId()));
+			writer.value(getDrawableName(photo.getDrawableId()));
 			
 			if (photo.getDescription() != null) {
 				writer.name("description");
@@ -264,25 +272,15 @@ public class BuildingsTest extends AndroidTestCase {
 	}
 	
 	/**
-	 * Creates a fake name for a drawable ID.
+	 * Returns the name of the drawable with the given ID in {@link CampusDrawables}.
 	 */
-	private static String createFakeDrawableName(int id) {
-		return FAKE_DRAWABLE_PREFIX + id;
-	}
-	
-	/**
-	 * Returns a drawable ID from a fake name created by {@link #createFakeDrawableName}.
-	 * 
-	 * @throws IllegalArgumentException if {@code fakeDrawableName} is not a valid fake drawable
-	 * name
-	 */
-	private static int retrieveDrawableIdFromFakeDrawableName(String fakeDrawableName) {
-		String prefix = fakeDrawableName.substring(0, FAKE_DRAWABLE_PREFIX.length());
-
-		if (!prefix.equals(FAKE_DRAWABLE_PREFIX)) {
-			throw new IllegalArgumentException("Invalid fakeDrawableName");
+	private static String getDrawableName(int id) {
+		for (int i = 0; i < CampusDrawables.IDS.length; i++) {
+			if (CampusDrawables.IDS[i] == id) {
+				return CampusDrawables.NAMES[i];
+			}
 		}
 		
-		return Integer.valueOf(fakeDrawableName.substring(FAKE_DRAWABLE_PREFIX.length()));
+		throw new IllegalArgumentException("No drawable with ID " + id);
 	}
 }
@@ -0,0 +1,45 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Compares reading the buildings from the {@link CampusBundle} with parsing the buildings resource,
+ * which is what the app does when it starts. Both read the app's own resources, so this also
+ * checks that the bundle is up to date and reads the same buildings. Timings are written to the
+ * log under {@link #TAG}.
+ */
+public class CampusBundleBenchmark extends AndroidTestCase {
+
+	private static final String TAG = CampusBundleBenchmark.class.getSimpleName();
+
+	private static final int READS = 20;
+
+	public void testStartup() {
+		List<Building> parsedBuildings = Buildings.readBuildingsResource(getContext());
+		List<Building> bundledBuildings = CampusBundle.load(getContext()).get();
+
+		// Buildings are only compared by ID, while their strings include every field.
+		assertEquals(parsedBuildings.toString(), bundledBuildings.toString());
+
+		long parseStart = System.nanoTime();
+		for (int i = 0; i < READS; i++) {
+			Buildings.readBuildingsResource(getContext());
+		}
+		long parseNanos = System.nanoTime() - parseStart;
+
+		long bundleStart = System.nanoTime();
+		for (int i = 0; i < READS; i++) {
+			CampusBundle.load(getContext());
+		}
+		long bundleNanos = System.nanoTime() - bundleStart;
+
+		Log.i(TAG, String.format(
+				"Per read of %d buildings: parsed the JSON in %.2f ms and the bundle in %.2f ms",
+				parsedBuildings.size(),
+				parseNanos / 1e6 / READS,
+				bundleNanos / 1e6 / READS));
+	}
+}
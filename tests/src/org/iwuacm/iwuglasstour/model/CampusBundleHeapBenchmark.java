@@ -0,0 +1,104 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Strings;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Measures the heap that the buildings read from a {@link CampusBundle} hold on to, before and
+ * after their details are read, for a synthetic campus that is much larger than the real one.
+ * Reading every building's details is what the app did before they were read lazily. Sizes are
+ * written to the log under {@link #TAG}.
+ */
+public class CampusBundleHeapBenchmark extends TestCase {
+
+	private static final String TAG = CampusBundleHeapBenchmark.class.getSimpleName();
+
+	private static final int BUILDINGS = 500;
+	private static final int ATTRACTIONS_PER_BUILDING = 20;
+	private static final int DESCRIPTION_LENGTH = 300;
+	private static final int[] DRAWABLE_IDS = { 100 };
+
+	public void testHeap() throws IOException {
+		ByteBuffer bundle = ByteBuffer.wrap(
+				CampusBundleWriter.write(createBuildings(), 0, 0, DRAWABLE_IDS));
+
+		long baseline = getUsedMemory();
+		List<Building> buildings = CampusBundle.read(bundle, 0, 0, DRAWABLE_IDS).get();
+		long lazyMemory = getUsedMemory();
+
+		for (Building building : buildings) {
+			building.getAttractions();
+		}
+		long loadedMemory = getUsedMemory();
+
+		Log.i(TAG, String.format(
+				"%d buildings with %d attractions in a %d KB bundle: "
+						+ "%d KB lazily and %d KB with all details read",
+				BUILDINGS,
+				BUILDINGS * ATTRACTIONS_PER_BUILDING,
+				bundle.capacity() / 1024,
+				(lazyMemory - baseline) / 1024,
+				(loadedMemory - baseline) / 1024));
+	}
+
+	private static List<Building> createBuildings() {
+		List<Building> buildings = new ArrayList<Building>();
+		int attractionId = 0;
+		int photoId = 0;
+
+		for (int i = 0; i < BUILDINGS; i++) {
+			Building.Builder building = Building.builder()
+					.withId(i)
+					.withName("Building " + i)
+					.withShortName("B" + i)
+					.withDescription(createDescription("Building " + i))
+					.withLocation(new RectangularLocation(
+							new Location(i, i),
+							new Location(i, i + 0.5),
+							new Location(i + 0.5, i),
+							new Location(i + 0.5, i + 0.5)))
+					.addPhoto(Photo.builder()
+							.withId(photoId++)
+							.withDrawableId(DRAWABLE_IDS[0])
+							.withDescription(createDescription("Photo " + i))
+							.build());
+
+			for (int j = 0; j < ATTRACTIONS_PER_BUILDING; j++) {
+				String name = "Attraction " + i + "." + j;
+				building.addAttraction(Attraction.builder()
+						.withId(attractionId++)
+						.withName(name)
+						.withDescription(createDescription(name))
+						.addPhoto(Photo.builder()
+								.withId(photoId++)
+								.withDrawableId(DRAWABLE_IDS[0])
+								.build())
+						.build());
+			}
+
+			buildings.add(building.build());
+		}
+
+		return buildings;
+	}
+
+	private static String createDescription(String prefix) {
+		return Strings.padEnd(prefix + ": ", DESCRIPTION_LENGTH, 'x');
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,158 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.Optional;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link CampusBundle}.
+ */
+public class CampusBundleTest extends TestCase {
+
+	private static final long CHECKSUM = 0x12345678L;
+	private static final long FINGERPRINT = 42L;
+	private static final int[] DRAWABLE_IDS = { 100, 200 };
+
+	private static final List<String> STRINGS =
+			Arrays.asList("Building 1", "B1", "Building 2", "B2", "Description", "Attraction");
+
+	private static final Photo PHOTO_1 = Photo.builder()
+			.withId(0)
+			.withDrawableId(200)
+			.withDescription("Description")
+			.build();
+	private static final Photo PHOTO_2 = Photo.builder()
+			.withId(1)
+			.withDrawableId(100)
+			.build();
+
+	private static final Attraction ATTRACTION = Attraction.builder()
+			.withId(0)
+			.withName("Attraction")
+			.addPhoto(PHOTO_2)
+			.build();
+
+	private static final Building BUILDING_1 = Building.builder()
+			.withId(0)
+			.withName("Building 1")
+			.withShortName("B1")
+			.withLocation(createLocation(1.0, 2.0, -1.0, -2.0))
+			.build();
+	private static final Building BUILDING_2 = Building.builder()
+			.withId(1)
+			.withName("Building 2")
+			.withShortName("B2")
+			.withDescription("Description")
+			.withLocation(createLocation(3.0, 4.0, -3.0, -4.0))
+			.addPhoto(PHOTO_1)
+			.addAttraction(ATTRACTION)
+			.build();
+
+	public void testRead() throws IOException {
+		List<Building> buildings = read(createBundle()).get();
+
+		assertEquals(2, buildings.size());
+		// Buildings are only compared by ID, while their strings include every field.
+		assertEquals(BUILDING_1.toString(), buildings.get(0).toString());
+		assertEquals(BUILDING_2.toString(), buildings.get(1).toString());
+	}
+
+	public void testRead_detailsReadOnAccess() throws IOException {
+		List<Building> buildings = read(createBundle()).get();
+
+		assertFalse(buildings.get(0).hasLoadedDetails());
+		assertFalse(buildings.get(1).hasLoadedDetails());
+		assertEquals(BUILDING_2.getName(), buildings.get(1).getName());
+		assertEquals(BUILDING_2.getLocation(), buildings.get(1).getLocation());
+		assertFalse(buildings.get(1).hasLoadedDetails());
+
+		assertEquals(BUILDING_2.getAttractions().toString(),
+				buildings.get(1).getAttractions().toString());
+		assertTrue(buildings.get(1).hasLoadedDetails());
+		assertFalse(buildings.get(0).hasLoadedDetails());
+	}
+
+	public void testRead_serializesDetails() throws IOException, ClassNotFoundException {
+		Building building = read(createBundle()).get().get(1);
+
+		assertEquals(BUILDING_2.toString(), serializeAndDeserialize(building).toString());
+	}
+
+	public void testRead_otherChecksum() throws IOException {
+		assertFalse(CampusBundle.read(
+				ByteBuffer.wrap(createBundle()), CHECKSUM + 1, FINGERPRINT, DRAWABLE_IDS)
+				.isPresent());
+	}
+
+	public void testRead_otherDrawables() throws IOException {
+		assertFalse(CampusBundle.read(
+				ByteBuffer.wrap(createBundle()), CHECKSUM, FINGERPRINT + 1, DRAWABLE_IDS)
+				.isPresent());
+	}
+
+	public void testRead_notABundle() {
+		assertFalse(read(new byte[100]).isPresent());
+	}
+
+	public void testRead_missingDrawable() throws IOException {
+		assertFalse(CampusBundle.read(
+				ByteBuffer.wrap(createBundle()), CHECKSUM, FINGERPRINT, new int[] { 100 })
+				.isPresent());
+	}
+
+	public void testRead_truncated() throws IOException {
+		byte[] bytes = createBundle();
+
+		assertFalse(read(Arrays.copyOf(bytes, bytes.length - 1)).isPresent());
+		assertFalse(read(Arrays.copyOf(bytes, CampusBundle.HEADER_SIZE)).isPresent());
+	}
+
+	private static Optional<List<Building>> read(byte[] bytes) {
+		return CampusBundle.read(ByteBuffer.wrap(bytes), CHECKSUM, FINGERPRINT, DRAWABLE_IDS);
+	}
+
+	private static RectangularLocation createLocation(
+			double latitude1,
+			double longitude1,
+			double latitude2,
+			double longitude2) {
+
+		// Arranged like the corners that are read from the buildings resource.
+		return new RectangularLocation(
+				new Location(latitude1, longitude1),
+				new Location(latitude1, longitude2),
+				new Location(latitude2, longitude1),
+				new Location(latitude2, longitude2));
+	}
+
+	private static byte[] createBundle() throws IOException {
+		return CampusBundleWriter.write(
+				Arrays.asList(BUILDING_1, BUILDING_2), CHECKSUM, FINGERPRINT, DRAWABLE_IDS);
+	}
+
+	private static Building serializeAndDeserialize(Building building)
+			throws IOException, ClassNotFoundException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(building);
+		out.close();
+
+		ObjectInputStream in =
+				new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			return (Building) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+}
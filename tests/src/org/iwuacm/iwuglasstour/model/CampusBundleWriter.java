@@ -0,0 +1,147 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Writes a {@link CampusBundle} of buildings for tests, like the {@code CampusBundleCompiler} tool
+ * does for the buildings resource. The IDs of the attractions and photos must be in the order
+ * that they are written: each building's photos, then its attractions with their photos.
+ */
+class CampusBundleWriter {
+
+	private final List<String> strings = new ArrayList<String>();
+	private final Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+	private final ByteArrayOutputStream attractions = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream photos = new ByteArrayOutputStream();
+	private final DataOutputStream attractionsOut = new DataOutputStream(attractions);
+	private final DataOutputStream photosOut = new DataOutputStream(photos);
+	private final int[] drawableIds;
+
+	private int attractionCount = 0;
+	private int photoCount = 0;
+
+	private CampusBundleWriter(int[] drawableIds) {
+		this.drawableIds = drawableIds;
+	}
+
+	/**
+	 * Writes {@code buildings}, whose photos must have drawables in {@code drawableIds}.
+	 */
+	static byte[] write(
+			List<Building> buildings,
+			long checksum,
+			long drawablesFingerprint,
+			int[] drawableIds) throws IOException {
+
+		return new CampusBundleWriter(drawableIds).writeBundle(
+				buildings, checksum, drawablesFingerprint);
+	}
+
+	private byte[] writeBundle(List<Building> buildings, long checksum, long drawablesFingerprint)
+			throws IOException {
+
+		ByteArrayOutputStream locations = new ByteArrayOutputStream();
+		DataOutputStream locationsOut = new DataOutputStream(locations);
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		DataOutputStream recordsOut = new DataOutputStream(records);
+
+		for (Building building : buildings) {
+			RectangularLocation location = building.getLocation();
+			locationsOut.writeDouble(location.getSouthWestCorner().getLatitude());
+			locationsOut.writeDouble(location.getSouthWestCorner().getLongitude());
+			locationsOut.writeDouble(location.getNorthEastCorner().getLatitude());
+			locationsOut.writeDouble(location.getNorthEastCorner().getLongitude());
+
+			recordsOut.writeInt(addString(building.getName()));
+			recordsOut.writeInt(addString(building.getShortName()));
+			recordsOut.writeInt(addString(building.getDescription()));
+			recordsOut.writeInt(photoCount);
+			recordsOut.writeInt(building.getPhotos().size());
+			writePhotos(building.getPhotos());
+			recordsOut.writeInt(attractionCount);
+			recordsOut.writeInt(building.getAttractions().size());
+			writeAttractions(building.getAttractions());
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(CampusBundle.MAGIC);
+		out.writeInt(CampusBundle.VERSION);
+		out.writeLong(checksum);
+		out.writeLong(drawablesFingerprint);
+		out.writeInt(buildings.size());
+		out.writeInt(attractionCount);
+		out.writeInt(photoCount);
+		out.writeInt(strings.size());
+
+		locations.writeTo(out);
+		records.writeTo(out);
+		attractions.writeTo(out);
+		photos.writeTo(out);
+
+		ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+		for (String string : strings) {
+			out.writeInt(stringData.size());
+			stringData.write(string.getBytes(Charsets.UTF_8));
+		}
+		out.writeInt(stringData.size());
+		stringData.writeTo(out);
+
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private void writeAttractions(List<Attraction> attractionList) throws IOException {
+		for (Attraction attraction : attractionList) {
+			attractionsOut.writeInt(addString(attraction.getName()));
+			attractionsOut.writeInt(addString(attraction.getDescription()));
+			attractionsOut.writeInt(photoCount);
+			attractionsOut.writeInt(attraction.getPhotos().size());
+			attractionCount++;
+
+			writePhotos(attraction.getPhotos());
+		}
+	}
+
+	private void writePhotos(List<Photo> photoList) throws IOException {
+		for (Photo photo : photoList) {
+			photosOut.writeInt(getDrawableIndex(photo.getDrawableId()));
+			photosOut.writeInt(addString(photo.getDescription()));
+			photoCount++;
+		}
+	}
+
+	private int getDrawableIndex(int drawableId) {
+		for (int i = 0; i < drawableIds.length; i++) {
+			if (drawableIds[i] == drawableId) {
+				return i;
+			}
+		}
+
+		throw new IllegalArgumentException("No drawable with ID " + drawableId);
+	}
+
+	private int addString(String string) {
+		if (string == null) {
+			return CampusBundle.NO_STRING;
+		}
+
+		Integer index = stringIndices.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+
+		return index;
+	}
+}
@@ -0,0 +1,52 @@
+package org.iwuacm.iwuglasstour.model;
+
+import android.content.res.Resources;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Compares resolving the drawables by name through {@link CampusDrawables} with looking them up in
+ * the {@link Resources}, for every drawable of the app, which is about what reading the buildings
+ * and credits resources does. This also checks that the table matches the app's resources.
+ * Timings are written to the log under {@link #TAG}.
+ */
+public class CampusDrawablesBenchmark extends AndroidTestCase {
+
+	private static final String TAG = CampusDrawablesBenchmark.class.getSimpleName();
+
+	private static final int ROUNDS = 20;
+
+	public void testLookup() {
+		Resources resources = getContext().getResources();
+		String packageName = getContext().getPackageName();
+
+		for (String name : CampusDrawables.NAMES) {
+			assertEquals(
+					name,
+					resources.getIdentifier(name, "drawable", packageName),
+					CampusDrawables.getId(name));
+		}
+
+		long identifierStart = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			for (String name : CampusDrawables.NAMES) {
+				resources.getIdentifier(name, "drawable", packageName);
+			}
+		}
+		long identifierNanos = System.nanoTime() - identifierStart;
+
+		long tableStart = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			for (String name : CampusDrawables.NAMES) {
+				CampusDrawables.getId(name);
+			}
+		}
+		long tableNanos = System.nanoTime() - tableStart;
+
+		Log.i(TAG, String.format(
+				"Per load of %d drawables: getIdentifier took %.2f ms and the table %.3f ms",
+				CampusDrawables.NAMES.length,
+				identifierNanos / 1e6 / ROUNDS,
+				tableNanos / 1e6 / ROUNDS));
+	}
+}
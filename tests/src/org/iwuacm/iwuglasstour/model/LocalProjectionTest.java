@@ -0,0 +1,121 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LocalProjection}. Compares planar distances and bearings with the spherical
+ * ones from {@link MathUtils} within the documented error bounds.
+ */
+public class LocalProjectionTest extends TestCase {
+
+	private static final Location CAMPUS = new Location(40.4906, -88.9906);
+	private static final Location EQUATOR = new Location(0.0, 0.0);
+	private static final Location NORTH = new Location(59.0, 18.0);
+
+	/**
+	 * The distance in kilometers from the origin that the points are picked within.
+	 */
+	private static final double RANGE = 2.0;
+
+	private static final double DISTANCE_TOLERANCE = 0.001;
+	private static final double BEARING_TOLERANCE = 0.05;
+	private static final int POINTS = 500;
+
+	public void testOrigin() {
+		LocalProjection projection = new LocalProjection(CAMPUS);
+
+		assertEquals(0.0, projection.getEast(CAMPUS.getLongitude()));
+		assertEquals(0.0, projection.getNorth(CAMPUS.getLatitude()));
+	}
+
+	public void testGetBearing_cardinalDirections() {
+		assertEquals(0.0f, LocalProjection.getBearing(0.0, 0.0, 0.0, 1.0));
+		assertEquals(90.0f, LocalProjection.getBearing(0.0, 0.0, 1.0, 0.0));
+		assertEquals(180.0f, LocalProjection.getBearing(0.0, 0.0, 0.0, -1.0));
+		assertEquals(270.0f, LocalProjection.getBearing(0.0, 0.0, -1.0, 0.0));
+	}
+
+	public void testGetDistance() {
+		assertEquals(5.0, LocalProjection.getDistance(1.0, 1.0, 4.0, 5.0));
+	}
+
+	public void testCenteredOn() {
+		Building building = Building.builder()
+				.withId(0)
+				.withName("Name")
+				.withShortName("ShortName")
+				.withLocation(new RectangularLocation(
+						new Location(1.0, 2.0),
+						new Location(3.0, 2.0),
+						new Location(3.0, 4.0),
+						new Location(1.0, 4.0)))
+				.build();
+		LocalProjection projection = LocalProjection.centeredOn(
+				BuildingGeometry.create(Arrays.asList(building)));
+
+		assertEquals(0.0, projection.getEast(3.0));
+		assertEquals(0.0, projection.getNorth(2.0));
+	}
+
+	public void testMatchesSpherical_campus() {
+		verifyMatchesSpherical(CAMPUS, new Random(0));
+	}
+
+	public void testMatchesSpherical_equator() {
+		verifyMatchesSpherical(EQUATOR, new Random(1));
+	}
+
+	public void testMatchesSpherical_farNorth() {
+		verifyMatchesSpherical(NORTH, new Random(2));
+	}
+
+	/**
+	 * Compares planar and spherical distances and bearings between random pairs of points within
+	 * {@link #RANGE} of {@code origin}.
+	 */
+	private static void verifyMatchesSpherical(Location origin, Random random) {
+		LocalProjection projection = new LocalProjection(origin);
+
+		for (int i = 0; i < POINTS; i++) {
+			Location from = createRandomLocation(origin, random);
+			Location to = createRandomLocation(origin, random);
+
+			double fromEast = projection.getEast(from.getLongitude());
+			double fromNorth = projection.getNorth(from.getLatitude());
+			double toEast = projection.getEast(to.getLongitude());
+			double toNorth = projection.getNorth(to.getLatitude());
+
+			double expectedDistance = MathUtils.getDistance(
+					from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+			double distance =
+					LocalProjection.getDistance(fromEast, fromNorth, toEast, toNorth) / 1000.0;
+			String message = "from=" + from + ", to=" + to;
+			assertEquals(message, expectedDistance, distance, expectedDistance * DISTANCE_TOLERANCE);
+
+			float expectedBearing = MathUtils.getBearing(
+					from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+			float bearing = LocalProjection.getBearing(fromEast, fromNorth, toEast, toNorth);
+			float difference = MathUtils.mod(bearing - expectedBearing + 180.0f, 360.0f) - 180.0f;
+			assertEquals(message, 0.0, difference, BEARING_TOLERANCE);
+		}
+	}
+
+	/**
+	 * Creates a {@link Location} less than {@link #RANGE} kilometers from {@code origin}.
+	 */
+	private static Location createRandomLocation(Location origin, Random random) {
+		double distance = RANGE * random.nextDouble();
+		double angle = 2.0 * Math.PI * random.nextDouble();
+
+		return new Location(
+				origin.getLatitude() + MathUtils.convertKilometersToDegreesLatitude(
+						distance * Math.cos(angle)),
+				origin.getLongitude() + MathUtils.convertKilometersToDegreesLongitude(
+						distance * Math.sin(angle), origin.getLatitude()));
+	}
+}
@@ -0,0 +1,100 @@
+package org.iwuacm.iwuglasstour.view;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * Tests for {@link BuildingCardCache}.
+ */
+public class BuildingCardCacheTest extends AndroidTestCase {
+
+	private BuildingCardCache cardCache;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		cardCache = new BuildingCardCache(
+				getContext(),
+				new FrameLayout(getContext()),
+				new BuildingCardCache.Listener() {
+					@Override
+					public void onShownCardChange(View view) {}
+				});
+	}
+
+	public void testPrepare_cachesCard() {
+		Building building = createBuilding(0);
+		cardCache.prepare(building);
+
+		assertTrue(cardCache.isCached(building));
+	}
+
+	public void testShow_cachesCard() {
+		Building building = createBuilding(0);
+		cardCache.show(building);
+
+		assertTrue(cardCache.isCached(building));
+	}
+
+	public void testEvictsLeastRecentlyUsedCard() {
+		Building firstBuilding = createBuilding(0);
+		cardCache.show(firstBuilding);
+
+		Building[] buildings = new Building[BuildingCardCache.MAX_CARDS];
+		for (int i = 0; i < buildings.length; i++) {
+			buildings[i] = createBuilding(i + 1);
+			cardCache.prepare(buildings[i]);
+		}
+
+		assertFalse(cardCache.isCached(firstBuilding));
+		for (Building building : buildings) {
+			assertTrue(cardCache.isCached(building));
+		}
+	}
+
+	public void testShow_keepsRecentlyShownCard() {
+		Building firstBuilding = createBuilding(0);
+		Building secondBuilding = createBuilding(1);
+		cardCache.show(firstBuilding);
+		cardCache.show(secondBuilding);
+		cardCache.show(firstBuilding);
+
+		for (int i = 2; i < BuildingCardCache.MAX_CARDS + 1; i++) {
+			cardCache.prepare(createBuilding(i));
+		}
+
+		assertTrue(cardCache.isCached(firstBuilding));
+		assertFalse(cardCache.isCached(secondBuilding));
+	}
+
+	public void testClear_evictsCards() {
+		Building shownBuilding = createBuilding(0);
+		Building preparedBuilding = createBuilding(1);
+		cardCache.show(shownBuilding);
+		cardCache.prepare(preparedBuilding);
+
+		cardCache.clear();
+
+		assertFalse(cardCache.isCached(shownBuilding));
+		assertFalse(cardCache.isCached(preparedBuilding));
+	}
+
+	private static Building createBuilding(int id) {
+		return Building.builder()
+				.withId(id)
+				.withName("Name " + id)
+				.withShortName("Short name " + id)
+				.withLocation(new RectangularLocation(
+						new Location(0, 0),
+						new Location(1, 0),
+						new Location(1, 1),
+						new Location(0, 1)))
+				.build();
+	}
+}
@@ -0,0 +1,98 @@
+package org.iwuacm.iwuglasstour.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Buildings;
+import org.iwuacm.iwuglasstour.view.common.CardPhotos;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter;
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter.CardDescriptor;
+
+import com.google.android.glass.widget.CardBuilder;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Measures how long the {@link InfoView} of the building with the most cards takes to show its
+ * first card, which is most of the time it takes {@code InfoActivity} to open. Compares creating
+ * every card up front, as the view used to, with creating them through the {@link
+ * LazyCardScrollAdapter}. Timings are written to the log under {@link #TAG}.
+ */
+public class InfoViewBenchmark extends AndroidTestCase {
+
+	private static final String TAG = InfoViewBenchmark.class.getSimpleName();
+
+	private static final int OPENS = 10;
+
+	public void testOpenBiggestBuilding() {
+		Building biggestBuilding = null;
+		List<CardDescriptor> biggestDescriptors = null;
+		for (Building building : Buildings.getBuildings(getContext()).getAll()) {
+			List<CardDescriptor> descriptors = InfoView.createCardDescriptors(building);
+			if ((biggestDescriptors == null) || (descriptors.size() > biggestDescriptors.size())) {
+				biggestBuilding = building;
+				biggestDescriptors = descriptors;
+			}
+		}
+
+		int homePosition = Math.min(1, biggestDescriptors.size() - 1);
+
+		long eagerStart = System.nanoTime();
+		for (int i = 0; i < OPENS; i++) {
+			openEagerly(biggestDescriptors, homePosition);
+		}
+		long eagerNanos = System.nanoTime() - eagerStart;
+
+		final int[] createdCount = new int[1];
+		List<CardDescriptor> countingDescriptors = new ArrayList<CardDescriptor>();
+		for (final CardDescriptor descriptor : biggestDescriptors) {
+			countingDescriptors.add(new CardDescriptor() {
+				@Override
+				public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+					createdCount[0]++;
+					return descriptor.createCard(context, cardPhotos);
+				}
+			});
+		}
+
+		long lazyStart = System.nanoTime();
+		for (int i = 0; i < OPENS; i++) {
+			LazyCardScrollAdapter adapter =
+					new LazyCardScrollAdapter(getContext(), countingDescriptors, homePosition);
+			adapter.setSelectedPosition(homePosition);
+			adapter.getView(homePosition, null, null);
+			adapter.release();
+		}
+		long lazyNanos = System.nanoTime() - lazyStart;
+
+		Log.i(TAG, String.format(
+				"Per open of %s with %d cards: all cards created in %.2f ms, %d created lazily in "
+						+ "%.2f ms",
+				biggestBuilding.getName(),
+				biggestDescriptors.size(),
+				eagerNanos / 1e6 / OPENS,
+				createdCount[0] / OPENS,
+				lazyNanos / 1e6 / OPENS));
+	}
+
+	/**
+	 * Creates every card with its photos and then the view of the home card.
+	 */
+	private void openEagerly(List<CardDescriptor> descriptors, int homePosition) {
+		CardPhotos cardPhotos = new CardPhotos(getContext(), new Runnable() {
+			@Override
+			public void run() {}
+		});
+
+		List<CardBuilder> cards = new ArrayList<CardBuilder>();
+		for (CardDescriptor descriptor : descriptors) {
+			cards.add(descriptor.createCard(getContext(), cardPhotos));
+		}
+
+		cards.get(homePosition).getView(null, null);
+		cardPhotos.release();
+	}
+}
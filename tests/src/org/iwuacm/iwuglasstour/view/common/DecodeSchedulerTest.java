@@ -0,0 +1,105 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link DecodeScheduler}.
+ */
+public class DecodeSchedulerTest extends TestCase {
+
+	private static final long TIMEOUT_SECONDS = 5;
+
+	private DecodeScheduler scheduler;
+	private CountDownLatch blocked;
+	private List<String> runs;
+
+	@Override
+	protected void setUp() throws Exception {
+		scheduler = new DecodeScheduler(1);
+		blocked = new CountDownLatch(1);
+		runs = Collections.synchronizedList(new ArrayList<String>());
+
+		// Keeps the only thread busy, so that the tasks submitted next wait in the queue.
+		final CountDownLatch started = new CountDownLatch(1);
+		scheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				awaitQuietly(blocked);
+			}
+		}, PhotoLoader.Priority.FRONT);
+		started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public void testSubmit_runsByPriority() throws InterruptedException {
+		submit("prefetch", PhotoLoader.Priority.PREFETCH);
+		submit("card", PhotoLoader.Priority.CARD);
+		submit("left", PhotoLoader.Priority.SIDE);
+		submit("front", PhotoLoader.Priority.FRONT);
+		submit("right", PhotoLoader.Priority.SIDE);
+
+		assertEquals(
+				Arrays.asList("front", "left", "right", "card", "prefetch"),
+				runAll());
+	}
+
+	public void testCancel() throws InterruptedException {
+		DecodeScheduler.Task task = submit("cancelled", PhotoLoader.Priority.FRONT);
+		submit("kept", PhotoLoader.Priority.PREFETCH);
+
+		assertTrue(task.cancel());
+		assertEquals(Arrays.asList("kept"), runAll());
+		assertFalse(task.cancel());
+	}
+
+	public void testSetPriority() throws InterruptedException {
+		submit("card", PhotoLoader.Priority.CARD);
+		DecodeScheduler.Task task = submit("prefetch", PhotoLoader.Priority.PREFETCH);
+
+		task.setPriority(PhotoLoader.Priority.FRONT);
+
+		assertEquals(Arrays.asList("prefetch", "card"), runAll());
+	}
+
+	private DecodeScheduler.Task submit(final String name, PhotoLoader.Priority priority) {
+		return scheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				runs.add(name);
+			}
+		}, priority);
+	}
+
+	/**
+	 * Lets the queued tasks run, and returns the names of the ones that ran in order.
+	 */
+	private List<String> runAll() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+		scheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		}, PhotoLoader.Priority.PREFETCH);
+
+		blocked.countDown();
+		assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+		return new ArrayList<String>(runs);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
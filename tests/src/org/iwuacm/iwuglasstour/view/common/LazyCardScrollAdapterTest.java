@@ -0,0 +1,81 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.iwuacm.iwuglasstour.view.common.LazyCardScrollAdapter.CardDescriptor;
+
+import com.google.android.glass.widget.CardBuilder;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+
+/**
+ * Tests for {@link LazyCardScrollAdapter}.
+ */
+public class LazyCardScrollAdapterTest extends AndroidTestCase {
+
+	private static final int CARD_COUNT = 20;
+
+	private int[] createCounts;
+	private LazyCardScrollAdapter adapter;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		createCounts = new int[CARD_COUNT];
+
+		List<CardDescriptor> descriptors = new ArrayList<CardDescriptor>();
+		for (int i = 0; i < CARD_COUNT; i++) {
+			final int position = i;
+			descriptors.add(new CardDescriptor() {
+				@Override
+				public CardBuilder createCard(Context context, CardPhotos cardPhotos) {
+					createCounts[position]++;
+					return new CardBuilder(context, CardBuilder.Layout.TEXT);
+				}
+			});
+		}
+
+		adapter = new LazyCardScrollAdapter(getContext(), descriptors, 0);
+	}
+
+	public void testCreatesNoCardsUpFront() {
+		assertEquals(CARD_COUNT, adapter.getCount());
+		assertEquals(0, adapter.getCreatedCount());
+	}
+
+	public void testGetView_createsCardOnce() {
+		adapter.getView(3, null, null);
+		adapter.getItemViewType(3);
+		adapter.getView(3, null, null);
+
+		assertEquals(1, createCounts[3]);
+		assertEquals(1, adapter.getCreatedCount());
+	}
+
+	public void testSetSelectedPosition_dropsFarCards() {
+		for (int i = 0; i <= 2 * LazyCardScrollAdapter.KEPT_CARDS_PER_SIDE; i++) {
+			adapter.getView(i, null, null);
+		}
+
+		// Moves the selection one past the middle card, so only the first card is too far away.
+		adapter.setSelectedPosition(LazyCardScrollAdapter.KEPT_CARDS_PER_SIDE + 1);
+
+		assertEquals(2 * LazyCardScrollAdapter.KEPT_CARDS_PER_SIDE, adapter.getCreatedCount());
+		assertEquals(1, createCounts[0]);
+
+		adapter.getView(0, null, null);
+		assertEquals(2, createCounts[0]);
+	}
+
+	public void testRelease_dropsAllCards() {
+		adapter.setSelectedPosition(5);
+		adapter.getView(4, null, null);
+
+		adapter.release();
+
+		assertEquals(0, adapter.getCreatedCount());
+	}
+}
@@ -0,0 +1,29 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link PhotoLoader}.
+ */
+public class PhotoLoaderTest extends TestCase {
+
+	public void testCalculateSampleSize() {
+		assertEquals(4, PhotoLoader.calculateSampleSize(2592, 1944, 640, 360));
+		assertEquals(16, PhotoLoader.calculateSampleSize(2592, 1944, 150, 84));
+	}
+
+	public void testCalculateSampleSize_coversBothSides() {
+		// Half of the width would still cover, but half of the height would not.
+		assertEquals(1, PhotoLoader.calculateSampleSize(1600, 400, 640, 360));
+		assertEquals(2, PhotoLoader.calculateSampleSize(1280, 720, 640, 360));
+	}
+
+	public void testCalculateSampleSize_smallerThanTarget() {
+		assertEquals(1, PhotoLoader.calculateSampleSize(320, 180, 640, 360));
+	}
+
+	public void testCalculateSampleSize_noTarget() {
+		assertEquals(1, PhotoLoader.calculateSampleSize(2592, 1944, 0, 360));
+		assertEquals(1, PhotoLoader.calculateSampleSize(2592, 1944, 640, -1));
+	}
+}
@@ -0,0 +1,66 @@
+package org.iwuacm.iwuglasstour.view.common;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Compares decoding the thumbnails of all photos from their thumbnail renditions with decoding
+ * them from their card renditions at the sample size that {@link PhotoLoader} would use, which is
+ * what it did before there were thumbnails. Timings and memory are written to the log under
+ * {@link #TAG}.
+ */
+public class PhotoRenditionsBenchmark extends AndroidTestCase {
+
+	private static final String TAG = PhotoRenditionsBenchmark.class.getSimpleName();
+
+	public void testThumbnails() {
+		Resources resources = getContext().getResources();
+
+		long cardNanos = 0;
+		long cardBytes = 0;
+		long thumbnailNanos = 0;
+		long thumbnailBytes = 0;
+
+		for (int i = 0; i < PhotoRenditions.CARD_IDS.length; i++) {
+			long cardStart = System.nanoTime();
+			Bitmap card = decode(resources, PhotoRenditions.CARD_IDS[i]);
+			cardNanos += System.nanoTime() - cardStart;
+			cardBytes += card.getByteCount();
+
+			long thumbnailStart = System.nanoTime();
+			Bitmap thumbnail = decode(resources, PhotoRenditions.THUMBNAIL_IDS[i]);
+			thumbnailNanos += System.nanoTime() - thumbnailStart;
+			thumbnailBytes += thumbnail.getByteCount();
+
+			assertTrue(thumbnail.getWidth() >= PhotoRenditions.THUMBNAIL_WIDTH);
+			assertTrue(thumbnail.getHeight() >= PhotoRenditions.THUMBNAIL_HEIGHT);
+		}
+
+		Log.i(TAG, String.format(
+				"Thumbnails of %d photos: sampled from the cards in %.1f ms into %d KB, and from "
+						+ "the thumbnails in %.1f ms into %d KB",
+				PhotoRenditions.CARD_IDS.length,
+				cardNanos / 1e6,
+				cardBytes / 1024,
+				thumbnailNanos / 1e6,
+				thumbnailBytes / 1024));
+	}
+
+	private static Bitmap decode(Resources resources, int drawableId) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inScaled = false;
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeResource(resources, drawableId, options);
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = PhotoLoader.calculateSampleSize(
+				options.outWidth,
+				options.outHeight,
+				PhotoRenditions.THUMBNAIL_WIDTH,
+				PhotoRenditions.THUMBNAIL_HEIGHT);
+		return BitmapFactory.decodeResource(resources, drawableId, options);
+	}
+}
@@ -0,0 +1,396 @@
+package org.iwuacm.iwuglasstour;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.BuildingIndex;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+import org.iwuacm.iwuglasstour.tools.CampusJson;
+import org.iwuacm.iwuglasstour.util.MathUtils;
+
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+
+/**
+ * Generates the {@link VisibilityTable} for the buildings resource. It samples a lattice of
+ * locations over each cell of the grid and the edges and middle of each heading bin, locating the
+ * buildings with {@link LocationFix} and {@link NearbyBuildingSelector} like {@link
+ * BuildingLocationManager} does, and only stores the entries where all of the samples agree.
+ * Whether a cell is inside a building is worked out exactly from the footprints.
+ *
+ * <p>Run it from the project root whenever the buildings change, with the app and tools sources
+ * compiled against Guava and the Android SDK:
+ *
+ * <pre>
+ * java org.iwuacm.iwuglasstour.VisibilityTableGenerator res/raw/buildings.json \
+ *         res/raw/visibility_table.bin [cell size in meters] [heading bins]
+ * java org.iwuacm.iwuglasstour.VisibilityTableGenerator --report res/raw/buildings.json
+ * </pre>
+ *
+ * <p>The second form prints the size of the table and how often it answers correctly for several
+ * cell sizes and heading bins, checked against the buildings located at random locations and
+ * headings.
+ */
+public class VisibilityTableGenerator {
+
+	private static final double DEFAULT_CELL_SIZE = 10.0;
+	private static final int DEFAULT_HEADING_BINS = 360;
+
+	private static final double[] REPORT_CELL_SIZES = { 20.0, 10.0, 5.0, 2.5 };
+	private static final int[] REPORT_HEADING_BINS = { 180, 360 };
+	private static final int REPORT_PROBES = 200000;
+
+	/**
+	 * How far around the buildings the grid goes, in meters.
+	 */
+	private static final double MARGIN = 100.0;
+
+	/**
+	 * The number of samples along each side of a cell, including both corners.
+	 */
+	private static final int SAMPLES_PER_SIDE = 3;
+
+	/**
+	 * How far in degrees to grow a cell when checking whether it overlaps a building, so that
+	 * locations rounded into the neighboring cell are still covered.
+	 */
+	private static final double CELL_TOLERANCE = 1e-9;
+
+	private static final int UNKNOWN_CODES = 0xFFFFFF;
+
+	private final List<Building> buildings;
+	private final BuildingIndex buildingIndex;
+	private final LocationFix locationFix;
+	private final NearbyBuildingSelector selector;
+	private final int headingBins;
+	private final double southLatitude;
+	private final double westLongitude;
+	private final double cellHeight;
+	private final double cellWidth;
+	private final int rows;
+	private final int columns;
+
+	private VisibilityTableGenerator(
+			List<Building> buildings,
+			double cellSize,
+			int headingBins) {
+
+		if (buildings.size() > VisibilityTable.MAX_BUILDING_COUNT) {
+			throw new IllegalArgumentException("Too many buildings: " + buildings.size());
+		}
+
+		this.buildings = buildings;
+		this.buildingIndex = BuildingIndex.create(buildings);
+		this.locationFix = new LocationFix(buildings, buildingIndex);
+		this.selector = new NearbyBuildingSelector(buildings.size());
+		this.headingBins = headingBins;
+
+		double minLatitude = Double.POSITIVE_INFINITY;
+		double maxLatitude = Double.NEGATIVE_INFINITY;
+		double minLongitude = Double.POSITIVE_INFINITY;
+		double maxLongitude = Double.NEGATIVE_INFINITY;
+		for (Building building : buildings) {
+			RectangularLocation location = building.getLocation();
+
+			minLatitude = Math.min(minLatitude, location.getSouthWestCorner().getLatitude());
+			maxLatitude = Math.max(maxLatitude, location.getNorthEastCorner().getLatitude());
+			minLongitude = Math.min(minLongitude, location.getSouthWestCorner().getLongitude());
+			maxLongitude = Math.max(maxLongitude, location.getNorthEastCorner().getLongitude());
+		}
+
+		double centerLatitude = (minLatitude + maxLatitude) / 2.0;
+		double marginLatitude = MathUtils.convertKilometersToDegreesLatitude(MARGIN / 1000.0);
+		double marginLongitude =
+				MathUtils.convertKilometersToDegreesLongitude(MARGIN / 1000.0, centerLatitude);
+
+		this.cellHeight = MathUtils.convertKilometersToDegreesLatitude(cellSize / 1000.0);
+		this.cellWidth =
+				MathUtils.convertKilometersToDegreesLongitude(cellSize / 1000.0, centerLatitude);
+		this.southLatitude = minLatitude - marginLatitude;
+		this.westLongitude = minLongitude - marginLongitude;
+		this.rows = (int) Math.ceil((maxLatitude + marginLatitude - southLatitude) / cellHeight);
+		this.columns =
+				(int) Math.ceil((maxLongitude + marginLongitude - westLongitude) / cellWidth);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if ((args.length == 2) && args[0].equals("--report")) {
+			report(CampusJson.readBuildings(new File(args[1])));
+			return;
+		}
+
+		if ((args.length < 2) || (args.length > 4)) {
+			System.err.println("Usage: VisibilityTableGenerator <buildings.json> <output> "
+					+ "[cell size in meters] [heading bins]");
+			System.err.println("       VisibilityTableGenerator --report <buildings.json>");
+			System.exit(1);
+		}
+
+		List<Building> buildings = CampusJson.readBuildings(new File(args[0]));
+		double cellSize = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_CELL_SIZE;
+		int headingBins = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_HEADING_BINS;
+
+		byte[] table = new VisibilityTableGenerator(buildings, cellSize, headingBins).generate();
+		Files.write(table, new File(args[1]));
+		System.out.println("Wrote " + table.length + " bytes to " + args[1]);
+	}
+
+	/**
+	 * Prints the size and accuracy of the tables for several cell sizes and heading bins.
+	 */
+	private static void report(List<Building> buildings) throws IOException {
+		System.out.println(String.format(Locale.US, "%9s %6s %8s %8s %10s %9s %7s",
+				"cell (m)", "bins", "cells", "runs", "bytes", "answered", "wrong"));
+
+		for (double cellSize : REPORT_CELL_SIZES) {
+			for (int headingBins : REPORT_HEADING_BINS) {
+				VisibilityTableGenerator generator =
+						new VisibilityTableGenerator(buildings, cellSize, headingBins);
+				byte[] bytes = generator.generate();
+				VisibilityTable table = VisibilityTable.read(ByteBuffer.wrap(bytes), buildings).get();
+
+				int cells = generator.rows * generator.columns;
+				int runs = (bytes.length - VisibilityTable.HEADER_SIZE - cells - (cells + 1) * 4)
+						/ VisibilityTable.RUN_SIZE;
+				int[] probes = generator.probe(table, new Random(0));
+
+				System.out.println(String.format(Locale.US, "%9.1f %6d %8d %8d %10d %8.2f%% %6.3f%%",
+						cellSize,
+						headingBins,
+						cells,
+						runs,
+						bytes.length,
+						100.0 * probes[0] / REPORT_PROBES,
+						100.0 * probes[1] / REPORT_PROBES));
+			}
+		}
+	}
+
+	/**
+	 * Looks up random locations in the grid and random headings in {@code table} and compares
+	 * them with the buildings located as usual.
+	 *
+	 * @return the number of lookups that the table answered, and how many of those were wrong
+	 */
+	private int[] probe(VisibilityTable table, Random random) {
+		int answered = 0;
+		int wrong = 0;
+		int[] nearby = new int[3];
+
+		for (int i = 0; i < REPORT_PROBES; i++) {
+			Location location = new Location(
+					southLatitude + random.nextDouble() * rows * cellHeight,
+					westLongitude + random.nextDouble() * columns * cellWidth);
+			float heading = random.nextFloat() * 360.0f;
+
+			locationFix.update(location);
+			Optional<Building> insideBuilding = locationFix.getInsideBuilding();
+			int expectedInside = insideBuilding.isPresent()
+					? insideBuilding.get().getId()
+					: VisibilityTable.NONE;
+
+			int inside = table.findInside(location);
+			if (inside != VisibilityTable.UNKNOWN) {
+				if (inside != expectedInside) {
+					answered++;
+					wrong++;
+					continue;
+				}
+
+				if (inside != VisibilityTable.NONE) {
+					answered++;
+					continue;
+				}
+			} else if (expectedInside != VisibilityTable.NONE) {
+				continue;
+			}
+
+			if (table.findNearby(location, heading, nearby)) {
+				selector.select(locationFix, heading);
+
+				answered++;
+				if ((nearby[0] != selector.getLeft())
+						|| (nearby[1] != selector.getFront())
+						|| (nearby[2] != selector.getRight())) {
+					wrong++;
+				}
+			}
+		}
+
+		return new int[] { answered, wrong };
+	}
+
+	/**
+	 * Generates the table in the format read by {@link VisibilityTable}.
+	 */
+	private byte[] generate() throws IOException {
+		int cellCount = rows * columns;
+		byte[] insideCodes = new byte[cellCount];
+		int[] runIndices = new int[cellCount + 1];
+		ByteArrayOutputStream runs = new ByteArrayOutputStream();
+		DataOutputStream runsOut = new DataOutputStream(runs);
+		int runCount = 0;
+
+		int samplesPerRow = columns * (SAMPLES_PER_SIDE - 1) + 1;
+		int[][][] samples = new int[SAMPLES_PER_SIDE][][];
+
+		for (int row = 0; row < rows; row++) {
+			// Neighboring rows of cells share a row of samples.
+			for (int i = 0; i < SAMPLES_PER_SIDE; i++) {
+				samples[i] = ((row > 0) && (i == 0))
+						? samples[SAMPLES_PER_SIDE - 1]
+						: sampleRow(row * (SAMPLES_PER_SIDE - 1) + i, samplesPerRow);
+			}
+
+			for (int column = 0; column < columns; column++) {
+				int cell = row * columns + column;
+				int inside = findInside(row, column);
+				insideCodes[cell] = (byte) VisibilityTable.encode(inside);
+				runIndices[cell] = runCount;
+
+				if (inside != VisibilityTable.NONE) {
+					continue;
+				}
+
+				int previousCodes = -1;
+				for (int bin = 0; bin < headingBins; bin++) {
+					int codes = findCommonCodes(samples, column, bin);
+
+					if (codes != previousCodes) {
+						runsOut.writeShort(bin);
+						runsOut.writeByte(codes >>> 16);
+						runsOut.writeByte(codes >>> 8);
+						runsOut.writeByte(codes);
+						runCount++;
+
+						previousCodes = codes;
+					}
+				}
+			}
+		}
+
+		runIndices[cellCount] = runCount;
+
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(table);
+		out.writeInt(VisibilityTable.MAGIC);
+		out.writeInt(VisibilityTable.VERSION);
+		out.writeLong(VisibilityTable.computeFingerprint(buildings));
+		out.writeInt(buildings.size());
+		out.writeInt(rows);
+		out.writeInt(columns);
+		out.writeInt(headingBins);
+		out.writeDouble(southLatitude);
+		out.writeDouble(westLongitude);
+		out.writeDouble(cellHeight);
+		out.writeDouble(cellWidth);
+		out.write(insideCodes);
+		for (int runIndex : runIndices) {
+			out.writeInt(runIndex);
+		}
+		runs.writeTo(out);
+		out.close();
+
+		return table.toByteArray();
+	}
+
+	/**
+	 * Locates the buildings at each sample along a row of samples, for the edges and middle of
+	 * each heading bin.
+	 *
+	 * @return the codes (see {@link #packCodes}) for each sample and each half bin
+	 */
+	private int[][] sampleRow(int sampleRow, int samplesPerRow) {
+		int[][] codes = new int[samplesPerRow][2 * headingBins];
+		double latitude = southLatitude + sampleRow * cellHeight / (SAMPLES_PER_SIDE - 1);
+
+		for (int i = 0; i < samplesPerRow; i++) {
+			double longitude = westLongitude + i * cellWidth / (SAMPLES_PER_SIDE - 1);
+			locationFix.update(new Location(latitude, longitude));
+
+			if (locationFix.getInsideBuilding().isPresent()) {
+				// Such samples are only used by cells that are not outside of every building.
+				continue;
+			}
+
+			for (int j = 0; j < 2 * headingBins; j++) {
+				selector.select(locationFix, j * 180.0 / headingBins);
+				codes[i][j] = packCodes(selector.getLeft(), selector.getFront(), selector.getRight());
+			}
+		}
+
+		return codes;
+	}
+
+	/**
+	 * Returns the codes that all of the samples of a cell in {@code column} agree on for {@code
+	 * bin}, or {@link #UNKNOWN_CODES}.
+	 */
+	private int findCommonCodes(int[][][] samples, int column, int bin) {
+		int codes = samples[0][column * (SAMPLES_PER_SIDE - 1)][2 * bin];
+
+		for (int i = 0; i < SAMPLES_PER_SIDE; i++) {
+			for (int j = 0; j < SAMPLES_PER_SIDE; j++) {
+				int[] sample = samples[i][column * (SAMPLES_PER_SIDE - 1) + j];
+
+				// The end of the last bin is the start of the first.
+				if ((sample[2 * bin] != codes)
+						|| (sample[2 * bin + 1] != codes)
+						|| (sample[(2 * bin + 2) % (2 * headingBins)] != codes)) {
+					return UNKNOWN_CODES;
+				}
+			}
+		}
+
+		return codes;
+	}
+
+	/**
+	 * Returns the building that the whole cell is inside, {@link VisibilityTable#NONE} if it does
+	 * not overlap any building, or {@link VisibilityTable#UNKNOWN} if that depends on where in the
+	 * cell the user is. Buildings are checked in order like {@link BuildingIndex#findContaining}.
+	 */
+	private int findInside(int row, int column) {
+		double south = southLatitude + row * cellHeight - CELL_TOLERANCE;
+		double north = southLatitude + (row + 1) * cellHeight + CELL_TOLERANCE;
+		double west = westLongitude + column * cellWidth - CELL_TOLERANCE;
+		double east = westLongitude + (column + 1) * cellWidth + CELL_TOLERANCE;
+
+		for (int i = 0; i < buildings.size(); i++) {
+			RectangularLocation location = buildings.get(i).getLocation();
+			double buildingSouth = location.getSouthWestCorner().getLatitude();
+			double buildingNorth = location.getNorthEastCorner().getLatitude();
+			double buildingWest = location.getSouthWestCorner().getLongitude();
+			double buildingEast = location.getNorthEastCorner().getLongitude();
+
+			if ((buildingSouth > north)
+					|| (buildingNorth < south)
+					|| (buildingWest > east)
+					|| (buildingEast < west)) {
+				continue;
+			}
+
+			boolean containsCell = (buildingSouth <= south)
+					&& (buildingNorth >= north)
+					&& (buildingWest <= west)
+					&& (buildingEast >= east);
+			return containsCell ? i : VisibilityTable.UNKNOWN;
+		}
+
+		return VisibilityTable.NONE;
+	}
+
+	private static int packCodes(int left, int front, int right) {
+		return (VisibilityTable.encode(left) << 16)
+				| (VisibilityTable.encode(front) << 8)
+				| VisibilityTable.encode(right);
+	}
+}
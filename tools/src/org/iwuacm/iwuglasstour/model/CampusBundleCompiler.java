@@ -0,0 +1,399 @@
+package org.iwuacm.iwuglasstour.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import org.iwuacm.iwuglasstour.tools.CampusJson;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Compiles the buildings resource into the {@link CampusBundle} that the app reads when it starts,
+ * and generates the {@link CampusDrawables} table of the drawables in a drawable directory, which
+ * the bundle's photos refer to and the JSON readers look names up in. The table is Java source
+ * that names each drawable's {@code R.drawable} constant, so that the compiler of the app
+ * resolves the resource IDs. It fails if the buildings or credits resource names a drawable that
+ * is not in the directory.
+ *
+ * <p>Run it from the project root whenever the buildings, credits, or drawables change, with the
+ * app and tools sources compiled against Guava and the Android SDK:
+ *
+ * <pre>
+ * java org.iwuacm.iwuglasstour.model.CampusBundleCompiler res/raw/buildings.json \
+ *         res/raw/credits.json res/drawable-hdpi res/raw/campus_bundle.bin \
+ *         src/org/iwuacm/iwuglasstour/model/CampusDrawables.java
+ * </pre>
+ */
+public class CampusBundleCompiler {
+
+	private final List<double[]> buildingLocations = new ArrayList<double[]>();
+	private final List<int[]> buildingRecords = new ArrayList<int[]>();
+	private final List<int[]> attractionRecords = new ArrayList<int[]>();
+	private final List<String> photoDrawableNames = new ArrayList<String>();
+	private final List<Integer> photoDescriptions = new ArrayList<Integer>();
+	private final List<String> strings = new ArrayList<String>();
+	private final Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+	private final List<String> drawableNames;
+	private final long checksum;
+
+	private CampusBundleCompiler(
+			byte[] buildingsJson,
+			List<?> buildings,
+			List<String> drawableNames) throws IOException {
+
+		this.drawableNames = drawableNames;
+
+		for (Object building : buildings) {
+			readBuilding((Map<?, ?>) building);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(buildingsJson);
+		this.checksum = crc.getValue();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 5) {
+			System.err.println("Usage: CampusBundleCompiler <buildings.json> <credits.json> "
+					+ "<drawable directory> <bundle output> <CampusDrawables.java output>");
+			System.exit(1);
+		}
+
+		File buildingsFile = new File(args[0]);
+		List<String> drawableNames = readDrawableNames(new File(args[2]));
+		checkCredits((List<?>) CampusJson.parse(new File(args[1])), drawableNames);
+		CampusBundleCompiler compiler = new CampusBundleCompiler(
+				Files.toByteArray(buildingsFile),
+				(List<?>) CampusJson.parse(buildingsFile),
+				drawableNames);
+
+		byte[] bundle = compiler.compile();
+		Files.write(bundle, new File(args[3]));
+		System.out.println("Wrote " + bundle.length + " bytes to " + args[3]);
+
+		Files.write(compiler.generateDrawables(), new File(args[4]), Charsets.UTF_8);
+		System.out.println("Wrote " + drawableNames.size() + " drawables to " + args[4]);
+	}
+
+	/**
+	 * Returns the sorted names of the drawables in {@code directory}, which are their file names
+	 * up to the first dot, like Android names them.
+	 */
+	private static List<String> readDrawableNames(File directory) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Not a directory: " + directory);
+		}
+
+		TreeSet<String> drawableNames = new TreeSet<String>();
+		for (File file : files) {
+			String name = file.getName();
+			int dot = name.indexOf('.');
+			drawableNames.add((dot >= 0) ? name.substring(0, dot) : name);
+		}
+
+		for (String drawableName : drawableNames) {
+			if (!isIdentifier(drawableName)) {
+				throw new IOException("Not a valid drawable name: " + drawableName);
+			}
+		}
+
+		return new ArrayList<String>(drawableNames);
+	}
+
+	/**
+	 * Checks that the photos in the credits resource have drawables.
+	 */
+	private static void checkCredits(List<?> credits, List<String> drawableNames)
+			throws IOException {
+
+		for (int i = 0; i < credits.size(); i++) {
+			Map<?, ?> photo = (Map<?, ?>) ((Map<?, ?>) credits.get(i)).get("photo");
+			if (photo == null) {
+				continue;
+			}
+
+			String drawableName = (String) photo.get("drawableName");
+			if ((drawableName == null)
+					|| (Collections.binarySearch(drawableNames, drawableName) < 0)) {
+				throw new IOException("Credit " + i + " has no drawable: " + drawableName);
+			}
+		}
+	}
+
+	/**
+	 * Returns the fingerprint of the drawables, which changes whenever their names or order do.
+	 */
+	private static long computeFingerprint(List<String> drawableNames) {
+		long fingerprint = drawableNames.size();
+
+		for (String drawableName : drawableNames) {
+			fingerprint = 31 * fingerprint + drawableName.hashCode();
+		}
+
+		return fingerprint;
+	}
+
+	/**
+	 * Reads a building, assigning the IDs of its attractions and photos in the same order as
+	 * {@link Buildings}.
+	 */
+	private void readBuilding(Map<?, ?> building) throws IOException {
+		int[] record = { CampusBundle.NO_STRING, CampusBundle.NO_STRING, CampusBundle.NO_STRING,
+				photoDrawableNames.size(), 0, attractionRecords.size(), 0 };
+		double[] location = null;
+
+		for (Map.Entry<?, ?> entry : building.entrySet()) {
+			Object name = entry.getKey();
+			Object value = entry.getValue();
+			if (value == null) {
+				continue;
+			}
+
+			if (name.equals("name")) {
+				record[0] = addString((String) value);
+			} else if (name.equals("shortName")) {
+				record[1] = addString((String) value);
+			} else if (name.equals("description")) {
+				record[2] = addString((String) value);
+			} else if (name.equals("location")) {
+				location = readLocation((List<?>) value);
+			} else if (name.equals("photos")) {
+				record[3] = photoDrawableNames.size();
+				record[4] = readPhotos((List<?>) value);
+			} else if (name.equals("attractions")) {
+				record[5] = attractionRecords.size();
+				record[6] = readAttractions((List<?>) value);
+			}
+		}
+
+		if ((record[0] == CampusBundle.NO_STRING)
+				|| (record[1] == CampusBundle.NO_STRING)
+				|| (location == null)) {
+			throw new IOException("Building " + buildingRecords.size() + " is incomplete");
+		}
+
+		buildingLocations.add(location);
+		buildingRecords.add(record);
+	}
+
+	/**
+	 * Reads attractions, returning how many there were.
+	 */
+	private int readAttractions(List<?> attractions) throws IOException {
+		for (Object value : attractions) {
+			Map<?, ?> attraction = (Map<?, ?>) value;
+			int[] record = { CampusBundle.NO_STRING, CampusBundle.NO_STRING,
+					photoDrawableNames.size(), 0 };
+
+			for (Map.Entry<?, ?> entry : attraction.entrySet()) {
+				Object name = entry.getKey();
+				if (entry.getValue() == null) {
+					continue;
+				}
+
+				if (name.equals("name")) {
+					record[0] = addString((String) entry.getValue());
+				} else if (name.equals("description")) {
+					record[1] = addString((String) entry.getValue());
+				} else if (name.equals("photos")) {
+					record[2] = photoDrawableNames.size();
+					record[3] = readPhotos((List<?>) entry.getValue());
+				}
+			}
+
+			if (record[0] == CampusBundle.NO_STRING) {
+				throw new IOException("Attraction " + attractionRecords.size() + " has no name");
+			}
+
+			attractionRecords.add(record);
+		}
+
+		return attractions.size();
+	}
+
+	/**
+	 * Reads photos, returning how many there were.
+	 */
+	private int readPhotos(List<?> photos) throws IOException {
+		for (Object value : photos) {
+			Map<?, ?> photo = (Map<?, ?>) value;
+
+			String drawableName = (String) photo.get("drawableName");
+			if ((drawableName == null)
+					|| (Collections.binarySearch(drawableNames, drawableName) < 0)) {
+				throw new IOException("Photo " + photoDrawableNames.size()
+						+ " has no drawable: " + drawableName);
+			}
+
+			String description = (String) photo.get("description");
+			photoDrawableNames.add(drawableName);
+			photoDescriptions.add(
+					(description == null) ? CampusBundle.NO_STRING : addString(description));
+		}
+
+		return photos.size();
+	}
+
+	private static double[] readLocation(List<?> corners) {
+		Map<?, ?> first = (Map<?, ?>) corners.get(0);
+		Map<?, ?> second = (Map<?, ?>) corners.get(1);
+
+		return new double[] {
+				(Double) first.get("latitude"),
+				(Double) first.get("longitude"),
+				(Double) second.get("latitude"),
+				(Double) second.get("longitude") };
+	}
+
+	private int addString(String string) {
+		Integer index = stringIndices.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+
+		return index;
+	}
+
+	private static boolean isIdentifier(String name) {
+		if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+			return false;
+		}
+
+		for (int i = 1; i < name.length(); i++) {
+			if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compiles the bundle in the format read by {@link CampusBundle}.
+	 */
+	private byte[] compile() throws IOException {
+		ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bundle);
+
+		out.writeInt(CampusBundle.MAGIC);
+		out.writeInt(CampusBundle.VERSION);
+		out.writeLong(checksum);
+		out.writeLong(computeFingerprint(drawableNames));
+		out.writeInt(buildingRecords.size());
+		out.writeInt(attractionRecords.size());
+		out.writeInt(photoDrawableNames.size());
+		out.writeInt(strings.size());
+
+		for (double[] location : buildingLocations) {
+			for (double coordinate : location) {
+				out.writeDouble(coordinate);
+			}
+		}
+
+		for (int[] record : buildingRecords) {
+			writeInts(record, out);
+		}
+
+		for (int[] record : attractionRecords) {
+			writeInts(record, out);
+		}
+
+		for (int i = 0; i < photoDrawableNames.size(); i++) {
+			out.writeInt(Collections.binarySearch(drawableNames, photoDrawableNames.get(i)));
+			out.writeInt(photoDescriptions.get(i));
+		}
+
+		ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+		for (String string : strings) {
+			out.writeInt(stringData.size());
+			stringData.write(string.getBytes(Charsets.UTF_8));
+		}
+		out.writeInt(stringData.size());
+		stringData.writeTo(out);
+
+		out.close();
+		return bundle.toByteArray();
+	}
+
+	private static void writeInts(int[] values, DataOutputStream out) throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Generates the source of {@link CampusDrawables}.
+	 */
+	private String generateDrawables() {
+		StringBuilder source = new StringBuilder();
+		source.append("// Generated by CampusBundleCompiler from res/drawable-hdpi. "
+				+ "Do not edit.\n");
+		source.append("package org.iwuacm.iwuglasstour.model;\n");
+		source.append("\n");
+		source.append("import java.util.Arrays;\n");
+		source.append("\n");
+		source.append("import org.iwuacm.iwuglasstour.R;\n");
+		source.append("\n");
+		source.append("/**\n");
+		source.append(" * The drawables of the app by name, so that the photos in the resources can"
+				+ " be resolved\n");
+		source.append(" * without looking up their names in the {@link"
+				+ " android.content.res.Resources}. The {@link\n");
+		source.append(" * CampusBundle} refers to them by their index.\n");
+		source.append(" */\n");
+		source.append("final class CampusDrawables {\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * Identifies the drawables, so that the bundle can check that it was"
+				+ " compiled with them.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final long FINGERPRINT = ")
+				.append(computeFingerprint(drawableNames))
+				.append("L;\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * The names of the drawables in sorted order.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final String[] NAMES = {\n");
+		for (String drawableName : drawableNames) {
+			source.append("\t\t\"").append(drawableName).append("\",\n");
+		}
+		source.append("\t};\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * The IDs of the drawables, in the same order as {@link #NAMES}.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final int[] IDS = {\n");
+		for (String drawableName : drawableNames) {
+			source.append("\t\tR.drawable.").append(drawableName).append(",\n");
+		}
+		source.append("\t};\n");
+		source.append("\n");
+		source.append("\tprivate CampusDrawables() {}\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * Returns the ID of the drawable named {@code drawableName}, or 0 if"
+				+ " there is none.\n");
+		source.append("\t */\n");
+		source.append("\tstatic int getId(String drawableName) {\n");
+		source.append("\t\tint index = Arrays.binarySearch(NAMES, drawableName);\n");
+		source.append("\t\treturn (index >= 0) ? IDS[index] : 0;\n");
+		source.append("\t}\n");
+		source.append("}\n");
+
+		return source.toString();
+	}
+}
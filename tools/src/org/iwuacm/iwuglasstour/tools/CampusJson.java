@@ -0,0 +1,250 @@
+package org.iwuacm.iwuglasstour.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.iwuacm.iwuglasstour.model.Building;
+import org.iwuacm.iwuglasstour.model.Location;
+import org.iwuacm.iwuglasstour.model.RectangularLocation;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Reads the campus JSON resources for the build tools, which run on a desktop JVM where Android's
+ * {@code JsonReader} is not available. Objects are parsed into {@link Map}s, arrays into {@link
+ * List}s, and numbers into {@link Double}s.
+ */
+public class CampusJson {
+
+	private final String json;
+	private int position;
+
+	private CampusJson(String json) {
+		this.json = json;
+		this.position = 0;
+	}
+
+	/**
+	 * Parses the JSON in {@code file}.
+	 */
+	public static Object parse(File file) throws IOException {
+		CampusJson parser = new CampusJson(Files.toString(file, Charsets.UTF_8));
+
+		Object value = parser.readValue();
+		parser.skipWhitespace();
+		if (parser.position != parser.json.length()) {
+			throw parser.error("Expected end of file");
+		}
+
+		return value;
+	}
+
+	/**
+	 * Reads the buildings in {@code file} (the buildings resource) in order, like {@link
+	 * org.iwuacm.iwuglasstour.model.Buildings}. Only the names, descriptions, and locations are
+	 * read, because photos need the Android resources.
+	 */
+	public static List<Building> readBuildings(File file) throws IOException {
+		List<Building> buildings = new ArrayList<Building>();
+
+		for (Object value : (List<?>) parse(file)) {
+			Map<?, ?> object = (Map<?, ?>) value;
+
+			Building.Builder builder = Building.builder()
+					.withId(buildings.size())
+					.withName((String) object.get("name"))
+					.withShortName((String) object.get("shortName"))
+					.withLocation(readLocation((List<?>) object.get("location")));
+			if (object.get("description") != null) {
+				builder.withDescription((String) object.get("description"));
+			}
+
+			buildings.add(builder.build());
+		}
+
+		return buildings;
+	}
+
+	private static RectangularLocation readLocation(List<?> corners) {
+		Map<?, ?> first = (Map<?, ?>) corners.get(0);
+		Map<?, ?> second = (Map<?, ?>) corners.get(1);
+
+		double latitude1 = (Double) first.get("latitude");
+		double longitude1 = (Double) first.get("longitude");
+		double latitude2 = (Double) second.get("latitude");
+		double longitude2 = (Double) second.get("longitude");
+
+		return new RectangularLocation(
+				new Location(latitude1, longitude1),
+				new Location(latitude1, longitude2),
+				new Location(latitude2, longitude1),
+				new Location(latitude2, longitude2));
+	}
+
+	private Object readValue() throws IOException {
+		skipWhitespace();
+		if (position >= json.length()) {
+			throw error("Unexpected end of file");
+		}
+
+		char c = json.charAt(position);
+		if (c == '{') {
+			return readObject();
+		} else if (c == '[') {
+			return readArray();
+		} else if (c == '"') {
+			return readString();
+		} else if (json.startsWith("true", position)) {
+			position += 4;
+			return Boolean.TRUE;
+		} else if (json.startsWith("false", position)) {
+			position += 5;
+			return Boolean.FALSE;
+		} else if (json.startsWith("null", position)) {
+			position += 4;
+			return null;
+		} else {
+			return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject() throws IOException {
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+
+		expect('{');
+		skipWhitespace();
+		if (peek() == '}') {
+			position++;
+			return object;
+		}
+
+		do {
+			skipWhitespace();
+			String name = readString();
+			skipWhitespace();
+			expect(':');
+			object.put(name, readValue());
+			skipWhitespace();
+		} while (tryConsume(','));
+		expect('}');
+
+		return object;
+	}
+
+	private List<Object> readArray() throws IOException {
+		List<Object> array = new ArrayList<Object>();
+
+		expect('[');
+		skipWhitespace();
+		if (peek() == ']') {
+			position++;
+			return array;
+		}
+
+		do {
+			array.add(readValue());
+			skipWhitespace();
+		} while (tryConsume(','));
+		expect(']');
+
+		return array;
+	}
+
+	private String readString() throws IOException {
+		StringBuilder builder = new StringBuilder();
+
+		expect('"');
+		while (true) {
+			if (position >= json.length()) {
+				throw error("Unterminated string");
+			}
+
+			char c = json.charAt(position++);
+			if (c == '"') {
+				return builder.toString();
+			} else if (c != '\\') {
+				builder.append(c);
+				continue;
+			}
+
+			char escaped = json.charAt(position++);
+			switch (escaped) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					builder.append((char) Integer.parseInt(
+							json.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					builder.append(escaped);
+			}
+		}
+	}
+
+	private Double readNumber() throws IOException {
+		int start = position;
+		while ((position < json.length()) && ("+-.eE0123456789".indexOf(peek()) >= 0)) {
+			position++;
+		}
+
+		try {
+			return Double.valueOf(json.substring(start, position));
+		} catch (NumberFormatException e) {
+			throw error("Expected a value");
+		}
+	}
+
+	private void skipWhitespace() {
+		while ((position < json.length()) && Character.isWhitespace(json.charAt(position))) {
+			position++;
+		}
+	}
+
+	private char peek() throws IOException {
+		if (position >= json.length()) {
+			throw error("Unexpected end of file");
+		}
+
+		return json.charAt(position);
+	}
+
+	private boolean tryConsume(char c) throws IOException {
+		if ((position < json.length()) && (json.charAt(position) == c)) {
+			position++;
+			return true;
+		}
+
+		return false;
+	}
+
+	private void expect(char c) throws IOException {
+		if (peek() != c) {
+			throw error("Expected '" + c + "'");
+		}
+
+		position++;
+	}
+
+	private IOException error(String message) {
+		return new IOException(message + " at character " + position);
+	}
+}
@@ -0,0 +1,369 @@
+package org.iwuacm.iwuglasstour.tools;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Transcodes the original photos into the drawables that the app displays. Every photo that the
+ * buildings or credits resource names by {@code drawableName} is looked up by that name in the
+ * original photos directory and its subdirectories, and is written as two JPEGs without metadata:
+ * a card rendition under its own name that covers the Glass display, and a thumbnail rendition
+ * named with {@link #THUMBNAIL_SUFFIX} that covers the photos outside. Photos are never scaled up.
+ *
+ * <p>It also writes a JSON manifest of the renditions of each photo, and generates the {@code
+ * PhotoRenditions} table that the app's {@code PhotoLoader} picks renditions with. It prints the
+ * sizes, decode times, and largest decoded bitmaps of the originals and the renditions.
+ *
+ * <p>Run it from the project root whenever the original photos, or the photos that the resources
+ * name, change, and then run {@code CampusBundleCompiler}, since the drawables changed:
+ *
+ * <pre>
+ * java org.iwuacm.iwuglasstour.tools.PhotoTranscoder res/raw/buildings.json \
+ *         res/raw/credits.json original_photos res/drawable-hdpi original_photos/manifest.json \
+ *         src/org/iwuacm/iwuglasstour/view/common/PhotoRenditions.java
+ * </pre>
+ */
+public class PhotoTranscoder {
+
+	/**
+	 * The size of the Glass display, which card renditions cover.
+	 */
+	private static final int CARD_WIDTH = 640;
+	private static final int CARD_HEIGHT = 360;
+
+	/**
+	 * The size of the photos in the outside view, which thumbnail renditions cover.
+	 */
+	private static final int THUMBNAIL_WIDTH = 150;
+	private static final int THUMBNAIL_HEIGHT = 84;
+
+	private static final String THUMBNAIL_SUFFIX = "_thumb";
+
+	private static final float JPEG_QUALITY = 0.85f;
+
+	/**
+	 * Bytes per pixel of a decoded bitmap on the device.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	private final List<byte[]> originalJpegs = new ArrayList<byte[]>();
+	private final List<byte[]> cardJpegs = new ArrayList<byte[]>();
+	private final List<byte[]> thumbnailJpegs = new ArrayList<byte[]>();
+
+	private final StringBuilder manifest = new StringBuilder();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 6) {
+			System.err.println("Usage: PhotoTranscoder <buildings.json> <credits.json> "
+					+ "<original photos directory> <drawable directory> <manifest output> "
+					+ "<PhotoRenditions.java output>");
+			System.exit(1);
+		}
+
+		TreeSet<String> drawableNames = new TreeSet<String>();
+		addDrawableNames(CampusJson.parse(new File(args[0])), drawableNames);
+		addDrawableNames(CampusJson.parse(new File(args[1])), drawableNames);
+
+		Map<String, File> originals = findOriginals(new File(args[2]), drawableNames);
+
+		PhotoTranscoder transcoder = new PhotoTranscoder();
+		transcoder.transcode(originals, new File(args[3]));
+
+		Files.write(transcoder.manifest, new File(args[4]), Charsets.UTF_8);
+		System.out.println("Wrote the renditions of " + originals.size() + " photos to "
+				+ args[3] + " and " + args[4]);
+
+		Files.write(
+				generateRenditions(new ArrayList<String>(drawableNames)),
+				new File(args[5]),
+				Charsets.UTF_8);
+		System.out.println("Wrote the renditions table to " + args[5]);
+
+		transcoder.printStatistics();
+	}
+
+	/**
+	 * Adds the value of every {@code drawableName} in the parsed JSON to {@code drawableNames}.
+	 */
+	private static void addDrawableNames(Object json, TreeSet<String> drawableNames) {
+		if (json instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) json).entrySet()) {
+				if (entry.getKey().equals("drawableName")) {
+					drawableNames.add((String) entry.getValue());
+				} else {
+					addDrawableNames(entry.getValue(), drawableNames);
+				}
+			}
+		} else if (json instanceof List) {
+			for (Object value : (List<?>) json) {
+				addDrawableNames(value, drawableNames);
+			}
+		}
+	}
+
+	/**
+	 * Returns the original photo of each drawable by name, which is the file in {@code directory}
+	 * or its subdirectories named the drawable up to the first dot.
+	 */
+	private static Map<String, File> findOriginals(File directory, TreeSet<String> drawableNames)
+			throws IOException {
+
+		Map<String, File> originals = new TreeMap<String, File>();
+		for (File file : Files.fileTreeTraverser().preOrderTraversal(directory)) {
+			if (!file.isFile()) {
+				continue;
+			}
+
+			String name = file.getName();
+			int dot = name.indexOf('.');
+			String drawableName = (dot >= 0) ? name.substring(0, dot) : name;
+			if (!drawableNames.contains(drawableName)) {
+				continue;
+			}
+
+			File otherFile = originals.put(drawableName, file);
+			if (otherFile != null) {
+				throw new IOException("Two original photos of " + drawableName + ": " + otherFile
+						+ " and " + file);
+			}
+		}
+
+		for (String drawableName : drawableNames) {
+			if (!originals.containsKey(drawableName)) {
+				throw new IOException("No original photo of " + drawableName);
+			}
+		}
+
+		return originals;
+	}
+
+	private void transcode(Map<String, File> originals, File drawableDirectory)
+			throws IOException {
+
+		manifest.append("{\n");
+
+		boolean isFirst = true;
+		for (Map.Entry<String, File> entry : originals.entrySet()) {
+			String drawableName = entry.getKey();
+			File original = entry.getValue();
+
+			byte[] originalJpeg = Files.toByteArray(original);
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(originalJpeg));
+			if (image == null) {
+				throw new IOException("Not an image: " + original);
+			}
+
+			BufferedImage card = scaleToCover(image, CARD_WIDTH, CARD_HEIGHT);
+			BufferedImage thumbnail = scaleToCover(image, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+			byte[] cardJpeg = encode(card);
+			byte[] thumbnailJpeg = encode(thumbnail);
+			Files.write(cardJpeg, new File(drawableDirectory, drawableName + ".jpg"));
+			Files.write(
+					thumbnailJpeg,
+					new File(drawableDirectory, drawableName + THUMBNAIL_SUFFIX + ".jpg"));
+
+			originalJpegs.add(originalJpeg);
+			cardJpegs.add(cardJpeg);
+			thumbnailJpegs.add(thumbnailJpeg);
+
+			if (!isFirst) {
+				manifest.append(",\n");
+			}
+			isFirst = false;
+
+			manifest.append("  \"").append(drawableName).append("\": {\n");
+			manifest.append("    \"original\": \"")
+					.append(original.getPath().replace(File.separatorChar, '/'))
+					.append("\",\n");
+			appendRendition("card", drawableName, card, cardJpeg.length);
+			manifest.append(",\n");
+			appendRendition(
+					"thumbnail", drawableName + THUMBNAIL_SUFFIX, thumbnail, thumbnailJpeg.length);
+			manifest.append("\n  }");
+		}
+
+		manifest.append("\n}\n");
+	}
+
+	private void appendRendition(
+			String rendition,
+			String drawableName,
+			BufferedImage image,
+			int byteCount) {
+
+		manifest.append("    \"").append(rendition).append("\": { ")
+				.append("\"drawableName\": \"").append(drawableName).append("\", ")
+				.append("\"width\": ").append(image.getWidth()).append(", ")
+				.append("\"height\": ").append(image.getHeight()).append(", ")
+				.append("\"bytes\": ").append(byteCount).append(" }");
+	}
+
+	/**
+	 * Scales an image down to the smallest size that covers {@code width} by {@code height},
+	 * keeping its aspect ratio. Halves it first while it stays large enough, since a single
+	 * bilinear step from a much larger image skips most of its pixels.
+	 */
+	private static BufferedImage scaleToCover(BufferedImage image, int width, int height) {
+		double scale = Math.max(
+				(double) width / image.getWidth(), (double) height / image.getHeight());
+		if (scale >= 1.0) {
+			return draw(image, image.getWidth(), image.getHeight());
+		}
+
+		int scaledWidth = Math.max(width, (int) Math.round(image.getWidth() * scale));
+		int scaledHeight = Math.max(height, (int) Math.round(image.getHeight() * scale));
+
+		BufferedImage scaled = image;
+		while ((scaled.getWidth() / 2 >= scaledWidth)
+				&& (scaled.getHeight() / 2 >= scaledHeight)) {
+			scaled = draw(scaled, scaled.getWidth() / 2, scaled.getHeight() / 2);
+		}
+
+		return draw(scaled, scaledWidth, scaledHeight);
+	}
+
+	/**
+	 * Draws an image at {@code width} by {@code height} into a new RGB image.
+	 */
+	private static BufferedImage draw(BufferedImage image, int width, int height) {
+		BufferedImage drawn = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D graphics = drawn.createGraphics();
+		graphics.setRenderingHint(
+				RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(image, 0, 0, width, height, null);
+		graphics.dispose();
+
+		return drawn;
+	}
+
+	/**
+	 * Encodes an image as a baseline JPEG. Only the image is written, so the metadata of the
+	 * original photo, such as its camera and location, is left out.
+	 */
+	private static byte[] encode(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageOutputStream out = ImageIO.createImageOutputStream(bytes);
+		try {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+			out.close();
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Prints the total size and decode time, and the largest decoded bitmap, of the originals and
+	 * of each rendition. Each set is decoded once before it is timed.
+	 */
+	private void printStatistics() throws IOException {
+		System.out.println();
+		System.out.println(String.format("%10s  %5s  %10s  %11s  %14s",
+				"", "files", "bytes", "decode (ms)", "largest bitmap"));
+		printStatistics("originals", originalJpegs);
+		printStatistics("cards", cardJpegs);
+		printStatistics("thumbnails", thumbnailJpegs);
+	}
+
+	private static void printStatistics(String name, List<byte[]> jpegs) throws IOException {
+		for (byte[] jpeg : jpegs) {
+			ImageIO.read(new ByteArrayInputStream(jpeg));
+		}
+
+		long byteCount = 0;
+		long decodeNanos = 0;
+		long largestBitmapBytes = 0;
+		for (byte[] jpeg : jpegs) {
+			long start = System.nanoTime();
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+			decodeNanos += System.nanoTime() - start;
+
+			byteCount += jpeg.length;
+			largestBitmapBytes = Math.max(
+					largestBitmapBytes,
+					(long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL);
+		}
+
+		System.out.println(String.format("%10s  %5d  %10d  %11.1f  %14d",
+				name, jpegs.size(), byteCount, decodeNanos / 1e6, largestBitmapBytes));
+	}
+
+	/**
+	 * Generates the {@code PhotoRenditions} table of the renditions of the photos.
+	 */
+	private static String generateRenditions(List<String> drawableNames) {
+		StringBuilder source = new StringBuilder();
+		source.append("// Generated by PhotoTranscoder from original_photos. Do not edit.\n");
+		source.append("package org.iwuacm.iwuglasstour.view.common;\n");
+		source.append("\n");
+		source.append("import org.iwuacm.iwuglasstour.R;\n");
+		source.append("\n");
+		source.append("/**\n");
+		source.append(" * The renditions of the photos that are transcoded from the original"
+				+ " photos. Each photo's\n");
+		source.append(" * drawable is its card rendition, and it also has a smaller thumbnail"
+				+ " rendition.\n");
+		source.append(" */\n");
+		source.append("final class PhotoRenditions {\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * The size that every thumbnail rendition covers.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final int THUMBNAIL_WIDTH = ").append(THUMBNAIL_WIDTH)
+				.append(";\n");
+		source.append("\tstatic final int THUMBNAIL_HEIGHT = ").append(THUMBNAIL_HEIGHT)
+				.append(";\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * The drawables of the photos, which are their card renditions.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final int[] CARD_IDS = {\n");
+		for (String drawableName : drawableNames) {
+			source.append("\t\tR.drawable.").append(drawableName).append(",\n");
+		}
+		source.append("\t};\n");
+		source.append("\n");
+		source.append("\t/**\n");
+		source.append("\t * The drawables of the thumbnail renditions, in the same order as"
+				+ " {@link #CARD_IDS}.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final int[] THUMBNAIL_IDS = {\n");
+		for (String drawableName : drawableNames) {
+			source.append("\t\tR.drawable.").append(drawableName).append(THUMBNAIL_SUFFIX)
+					.append(",\n");
+		}
+		source.append("\t};\n");
+		source.append("\n");
+		source.append("\tprivate PhotoRenditions() {}\n");
+		source.append("}\n");
+
+		return source.toString();
+	}
+}